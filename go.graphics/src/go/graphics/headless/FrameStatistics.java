@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package go.graphics.headless;
+
+/**
+ * Immutable snapshot of the work a {@link RecordingDrawContext} has been asked to do in one frame.
+ */
+public final class FrameStatistics {
+	private final int drawCalls;
+	private final int triangles;
+	private final int lines;
+	private final int textDraws;
+	private final int textureSwitches;
+	private final int colorChanges;
+	private final int matrixOperations;
+	private final int textureUploads;
+	private final long textureUploadBytes;
+	private final long geometryBytes;
+
+	FrameStatistics(int drawCalls, int triangles, int lines, int textDraws, int textureSwitches, int colorChanges, int matrixOperations,
+			int textureUploads, long textureUploadBytes, long geometryBytes) {
+		this.drawCalls = drawCalls;
+		this.triangles = triangles;
+		this.lines = lines;
+		this.textDraws = textDraws;
+		this.textureSwitches = textureSwitches;
+		this.colorChanges = colorChanges;
+		this.matrixOperations = matrixOperations;
+		this.textureUploads = textureUploads;
+		this.textureUploadBytes = textureUploadBytes;
+		this.geometryBytes = geometryBytes;
+	}
+
+	/**
+	 * @return The number of primitive batches that would have been sent to the GPU. Text is counted separately.
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	public int getTriangles() {
+		return triangles;
+	}
+
+	/**
+	 * @return The number of line segments drawn.
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return The number of strings drawn with a text drawer of the context.
+	 */
+	public int getTextDraws() {
+		return textDraws;
+	}
+
+	/**
+	 * @return The number of draws that used another texture than the draw before.
+	 */
+	public int getTextureSwitches() {
+		return textureSwitches;
+	}
+
+	public int getColorChanges() {
+		return colorChanges;
+	}
+
+	/**
+	 * @return The number of pushed, popped or modified matrices.
+	 */
+	public int getMatrixOperations() {
+		return matrixOperations;
+	}
+
+	/**
+	 * @return The sum of texture switches, color changes and matrix operations.
+	 */
+	public int getStateChanges() {
+		return textureSwitches + colorChanges + matrixOperations;
+	}
+
+	/**
+	 * @return The number of textures that have been created or updated.
+	 */
+	public int getTextureUploads() {
+		return textureUploads;
+	}
+
+	public long getTextureUploadBytes() {
+		return textureUploadBytes;
+	}
+
+	/**
+	 * @return The number of bytes of vertex data that has been sent to the GPU, either with a draw call or by writing a stored geometry.
+	 */
+	public long getGeometryBytes() {
+		return geometryBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "FrameStatistics [drawCalls=" + drawCalls + ", triangles=" + triangles + ", lines=" + lines + ", textDraws=" + textDraws
+				+ ", textureSwitches=" + textureSwitches + ", colorChanges=" + colorChanges + ", matrixOperations=" + matrixOperations
+				+ ", textureUploads=" + textureUploads + ", textureUploadBytes=" + textureUploadBytes + ", geometryBytes=" + geometryBytes + "]";
+	}
+}
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package go.graphics.headless;
+
+import go.graphics.GLDrawContext;
+import go.graphics.text.EFontSize;
+import go.graphics.text.TextDrawer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+
+/**
+ * A {@link GLDrawContext} that draws nothing but counts the work a real OpenGL context would have to do. It needs no window and no GPU, so the
+ * rendering code can be measured in benchmarks and on build servers.
+ * <p>
+ * The counters are collected per frame. {@link #startFrame()} resets them, {@link #getFrameStatistics()} returns the values of the current frame.
+ * Textures and stored geometries are kept in memory, so that the code using the context behaves like with a real context.
+ */
+public class RecordingDrawContext implements GLDrawContext {
+	private static final int FLOAT_BYTES = 4;
+	private static final int TEXTURED_VERTEX_FLOATS = 5;
+	private static final int COLORED_VERTEX_FLOATS = 9;
+	private static final int COLORED_BUFFER_VERTEX_BYTES = 5 * FLOAT_BYTES + 4;
+
+	private final ArrayList<int[]> textureSizes = new ArrayList<int[]>();
+	private final ArrayList<ByteBuffer> geometries = new ArrayList<ByteBuffer>();
+	private final RecordingTextDrawer[] textDrawers = new RecordingTextDrawer[EFontSize.values().length];
+
+	private long textureBytes;
+	private long storedGeometryBytes;
+
+	private int boundTexture = -1;
+	private float red = 1;
+	private float green = 1;
+	private float blue = 1;
+	private float alpha = 1;
+	private int matrixDepth;
+
+	private int drawCalls;
+	private int triangles;
+	private int lines;
+	private int textDraws;
+	private int textureSwitches;
+	private int colorChanges;
+	private int matrixOperations;
+	private int textureUploads;
+	private long textureUploadBytes;
+	private long geometryBytes;
+
+	public RecordingDrawContext() {
+		textureSizes.add(null); // 0 is no valid id, like in OpenGL
+		geometries.add(null);
+	}
+
+	/**
+	 * Resets the counters of the frame. The bound texture, the color and the matrix stack are kept, as they would be by OpenGL.
+	 */
+	public void startFrame() {
+		drawCalls = 0;
+		triangles = 0;
+		lines = 0;
+		textDraws = 0;
+		textureSwitches = 0;
+		colorChanges = 0;
+		matrixOperations = 0;
+		textureUploads = 0;
+		textureUploadBytes = 0;
+		geometryBytes = 0;
+	}
+
+	/**
+	 * @return The counters of the work done since the last call to {@link #startFrame()}.
+	 */
+	public FrameStatistics getFrameStatistics() {
+		return new FrameStatistics(drawCalls, triangles, lines, textDraws, textureSwitches, colorChanges, matrixOperations, textureUploads,
+				textureUploadBytes, geometryBytes);
+	}
+
+	/**
+	 * @return The number of bytes of all textures that currently exist.
+	 */
+	public long getTextureBytes() {
+		return textureBytes;
+	}
+
+	/**
+	 * @return The number of bytes of all stored geometries that currently exist.
+	 */
+	public long getStoredGeometryBytes() {
+		return storedGeometryBytes;
+	}
+
+	/**
+	 * @return The depth of the matrix stack. It is 0 if all pushed matrices have been popped again.
+	 */
+	public int getMatrixDepth() {
+		return matrixDepth;
+	}
+
+	private void draw(int textureid, int drawnTriangles, long bytes) {
+		if (textureid != boundTexture) {
+			boundTexture = textureid;
+			textureSwitches++;
+		}
+		drawCalls++;
+		triangles += drawnTriangles;
+		geometryBytes += bytes;
+	}
+
+	@Override
+	public void fillQuad(float x1, float y1, float x2, float y2) {
+		drawCalls++;
+		triangles += 2;
+		geometryBytes += 4 * 3 * FLOAT_BYTES;
+	}
+
+	@Override
+	public void drawLine(float[] points, boolean loop) {
+		int vertices = points.length / 3;
+		if (vertices > 1) {
+			drawCalls++;
+			lines += loop ? vertices : vertices - 1;
+			geometryBytes += points.length * FLOAT_BYTES;
+		}
+	}
+
+	@Override
+	public void glPushMatrix() {
+		matrixDepth++;
+		matrixOperations++;
+	}
+
+	@Override
+	public void glTranslatef(float x, float y, float z) {
+		matrixOperations++;
+	}
+
+	@Override
+	public void glScalef(float x, float y, float z) {
+		matrixOperations++;
+	}
+
+	@Override
+	public void glPopMatrix() {
+		if (matrixDepth <= 0) {
+			throw new IllegalStateException("Popped more matrices than pushed.");
+		}
+		matrixDepth--;
+		matrixOperations++;
+	}
+
+	@Override
+	public void glMultMatrixf(float[] matrix, int offset) {
+		matrixOperations++;
+	}
+
+	@Override
+	public void color(float red, float green, float blue, float alpha) {
+		if (red != this.red || green != this.green || blue != this.blue || alpha != this.alpha) {
+			this.red = red;
+			this.green = green;
+			this.blue = blue;
+			this.alpha = alpha;
+			colorChanges++;
+		}
+	}
+
+	@Override
+	public int generateTexture(int width, int height, ShortBuffer data) {
+		textureSizes.add(new int[] { width, height });
+		long bytes = 2L * width * height;
+		textureBytes += bytes;
+		textureUploads++;
+		textureUploadBytes += bytes;
+		return textureSizes.size() - 1;
+	}
+
+	@Override
+	public void updateTexture(int textureIndex, int left, int bottom, int width, int height, ShortBuffer data) {
+		textureUploads++;
+		textureUploadBytes += 2L * width * height;
+	}
+
+	@Override
+	public void deleteTexture(int textureid) {
+		if (textureid > 0 && textureid < textureSizes.size() && textureSizes.get(textureid) != null) {
+			int[] size = textureSizes.set(textureid, null);
+			textureBytes -= 2L * size[0] * size[1];
+		}
+		if (boundTexture == textureid) {
+			boundTexture = -1;
+		}
+	}
+
+	@Override
+	public void drawQuadWithTexture(int textureid, float[] geometry) {
+		draw(textureid, 2, geometry.length * FLOAT_BYTES);
+	}
+
+	@Override
+	public void drawQuadWithTexture(int textureid, int geometryindex) {
+		if (geometryindex >= 0) {
+			draw(textureid, 2, 0);
+		}
+	}
+
+	@Override
+	public void drawTrianglesWithTexture(int textureid, float[] geometry) {
+		draw(textureid, geometry.length / TEXTURED_VERTEX_FLOATS / 3, geometry.length * FLOAT_BYTES);
+	}
+
+	@Override
+	public void drawTrianglesWithTexture(int textureid, int geometryindex, int triangleCount) {
+		draw(textureid, triangleCount, 0);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, float[] geometry) {
+		draw(textureid, geometry.length / COLORED_VERTEX_FLOATS / 3, geometry.length * FLOAT_BYTES);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int textureid, int geometryindex, int triangleCount) {
+		draw(textureid, triangleCount, 0);
+	}
+
+	@Override
+	public void drawTrianglesWithTextureColored(int currentTexture, ByteBuffer byteBuffer, int currentTriangles) {
+		if (currentTriangles > 0) {
+			draw(currentTexture, currentTriangles, currentTriangles * 3 * COLORED_BUFFER_VERTEX_BYTES);
+		}
+	}
+
+	@Override
+	public int makeWidthValid(int width) {
+		return width;
+	}
+
+	@Override
+	public int makeHeightValid(int height) {
+		return height;
+	}
+
+	@Override
+	public TextDrawer getTextDrawer(EFontSize size) {
+		if (textDrawers[size.ordinal()] == null) {
+			textDrawers[size.ordinal()] = new RecordingTextDrawer(size);
+		}
+		return textDrawers[size.ordinal()];
+	}
+
+	@Override
+	public int storeGeometry(float[] geometry) {
+		int geometryindex = generateGeometry(geometry.length * FLOAT_BYTES);
+		GLBuffer buffer = startWriteGeometry(geometryindex);
+		for (int i = 0; i < geometry.length; i++) {
+			buffer.putFloat(geometry[i]);
+		}
+		endWriteGeometry(geometryindex);
+		return geometryindex;
+	}
+
+	@Override
+	public boolean isGeometryValid(int geometryindex) {
+		return geometryindex > 0 && geometryindex < geometries.size() && geometries.get(geometryindex) != null;
+	}
+
+	@Override
+	public void removeGeometry(int geometryindex) {
+		if (isGeometryValid(geometryindex)) {
+			storedGeometryBytes -= geometries.set(geometryindex, null).capacity();
+		}
+	}
+
+	@Override
+	public GLBuffer startWriteGeometry(int geometryindex) {
+		final ByteBuffer buffer = geometries.get(geometryindex);
+		buffer.clear();
+		return new GLBuffer() {
+			@Override
+			public void putFloat(float f) {
+				buffer.putFloat(f);
+				geometryBytes += FLOAT_BYTES;
+			}
+
+			@Override
+			public void putByte(byte b) {
+				buffer.put(b);
+				geometryBytes++;
+			}
+
+			@Override
+			public void position(int position) {
+				buffer.position(position);
+			}
+		};
+	}
+
+	@Override
+	public void endWriteGeometry(int geometryindex) {
+	}
+
+	@Override
+	public int generateGeometry(int bytes) {
+		geometries.add(ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder()));
+		storedGeometryBytes += bytes;
+		return geometries.size() - 1;
+	}
+
+	/**
+	 * Counts the drawn strings. The size of a text is estimated from the font size, as there is no font to measure it.
+	 */
+	private final class RecordingTextDrawer implements TextDrawer {
+		private final EFontSize size;
+
+		RecordingTextDrawer(EFontSize size) {
+			this.size = size;
+		}
+
+		@Override
+		public void renderCentered(float cx, float cy, String text) {
+			textDraws++;
+		}
+
+		@Override
+		public void drawString(float x, float y, String string) {
+			textDraws++;
+		}
+
+		@Override
+		public double getWidth(String string) {
+			return string.length() * size.getSize() * .6;
+		}
+
+		@Override
+		public double getHeight(String string) {
+			return size.getSize();
+		}
+
+		@Override
+		public void setColor(float red, float green, float blue, float alpha) {
+			color(red, green, blue, alpha);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Compares the CSV results of two JMH runs of the benchmarks and exits with status 1 if a benchmark got slower.
+ * <p>
+ * A benchmark counts as slower if its score grew by more than the threshold and the confidence intervals JMH reports for the new and the old score
+ * don't overlap, so that the noise of a run is not reported as a regression. Benchmarks that are only contained in one of the files are ignored.
+ * <p>
+ * Usage: BenchmarkComparison &lt;results&gt; &lt;baseline&gt; [threshold]. The threshold is the allowed slowdown, the default is 0.1.
+ */
+public final class BenchmarkComparison {
+	private static final double DEFAULT_THRESHOLD = 0.1;
+
+	private BenchmarkComparison() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison <results> <baseline> [threshold]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+		Map<String, double[]> results = readCsv(new File(args[0]));
+		Map<String, double[]> baseline = readCsv(new File(args[1]));
+
+		boolean regressions = false;
+		for (Entry<String, double[]> result : results.entrySet()) {
+			double[] old = baseline.get(result.getKey());
+			if (old == null) {
+				continue;
+			}
+
+			double score = result.getValue()[0];
+			double change = score / old[0] - 1;
+			boolean significant = score - result.getValue()[1] > old[0] + old[1];
+			boolean regression = change > threshold && significant;
+			System.out.println(String.format(Locale.ENGLISH, "%-80s %+7.1f%% %s", result.getKey(), change * 100, regression ? "REGRESSION"
+					: (change > threshold ? "(within the noise)" : "")));
+			regressions |= regression;
+		}
+
+		System.exit(regressions ? 1 : 0);
+	}
+
+	/**
+	 * Reads the results of a JMH run written with "-rf csv".
+	 * 
+	 * @return The score and the score error of every benchmark by the name of the benchmark and its parameters. A missing error is 0.
+	 */
+	private static Map<String, double[]> readCsv(File file) throws IOException {
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line = reader.readLine(); // skip the header: Benchmark, Mode, Threads, Samples, Score, Score Error, Unit, Params...
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+
+				String[] columns = line.replace("\"", "").split(",", -1);
+				if (columns.length < 7) {
+					throw new IOException("Invalid line in " + file + ": " + line);
+				}
+
+				StringBuilder name = new StringBuilder(columns[0]);
+				for (int i = 7; i < columns.length; i++) {
+					if (!columns[i].isEmpty()) {
+						name.append(' ').append(columns[i]);
+					}
+				}
+
+				double error = Double.parseDouble(columns[5]);
+				results.put(name.toString(), new double[] { Double.parseDouble(columns[4]), Double.isNaN(error) ? 0 : error });
+			}
+		} finally {
+			reader.close();
+		}
+		return results;
+	}
+}
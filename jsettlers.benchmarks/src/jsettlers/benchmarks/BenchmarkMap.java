@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.Random;
+
+import jsettlers.common.map.IMapData;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.resources.ResourceManager;
+import jsettlers.graphics.swing.resources.SwingResourceProvider;
+import jsettlers.logic.map.save.DirectoryMapLister.ListedMapFile;
+import jsettlers.logic.map.save.MapList;
+import jsettlers.logic.map.save.loader.MapLoader;
+
+/**
+ * The blocking information of a map the benchmarks are executed on. A map is either generated from a seed or loaded from a map file.
+ * <p>
+ * The benchmarks select their maps by name with a JMH parameter. The names of generated maps are "generated-&lt;size&gt;", all other names are the
+ * names of the bundled map files without the extension.
+ */
+public final class BenchmarkMap {
+	private static final File RESOURCES_FOLDER = new File("../jsettlers.common/resources");
+	private static final File MAPS_FOLDER = new File(RESOURCES_FOLDER, "maps");
+	private static final String GENERATED_PREFIX = "generated-";
+	private static final float GENERATED_BLOCKED_RATIO = 0.25f;
+
+	private final String name;
+	private final File file;
+	private final short width;
+	private final short height;
+	private final BitSet blocked;
+
+	private BenchmarkMap(String name, File file, short width, short height, BitSet blocked) {
+		this.name = name;
+		this.file = file;
+		this.width = width;
+		this.height = height;
+		this.blocked = blocked;
+
+		// like in the game, the border of the map is never walkable. (the partition calculation relies on this)
+		for (int x = 0; x < width; x++) {
+			blocked.set(x);
+			blocked.set(x + (height - 1) * width);
+		}
+		for (int y = 0; y < height; y++) {
+			blocked.set(y * width);
+			blocked.set(width - 1 + y * width);
+		}
+	}
+
+	/**
+	 * Sets up the {@link ResourceManager} with the resources of jsettlers.common. The benchmarks have to be run from the jsettlers.benchmarks folder.
+	 */
+	public static void setUpResources() {
+		ResourceManager.setProvider(new SwingResourceProvider(RESOURCES_FOLDER));
+	}
+
+	/**
+	 * Generates or loads the map with the given name.
+	 * 
+	 * @param name
+	 *            Either "generated-&lt;size&gt;" or the name of a bundled map file without the extension.
+	 * @return The map.
+	 * @throws MapLoadException
+	 *             If the bundled map can't be loaded.
+	 */
+	public static BenchmarkMap get(String name) throws MapLoadException {
+		setUpResources();
+		if (name.startsWith(GENERATED_PREFIX)) {
+			int size = Integer.parseInt(name.substring(GENERATED_PREFIX.length()));
+			return generate(size, size);
+		} else {
+			return load(new File(MAPS_FOLDER, name + MapList.MAP_EXTENSION));
+		}
+	}
+
+	/**
+	 * Generates a square map with lakes and mountain ridges. The same size and seed always create the same map.
+	 * 
+	 * @param size
+	 *            Width and height of the map.
+	 * @param seed
+	 *            Seed of the random generator.
+	 * @return The generated map.
+	 */
+	public static BenchmarkMap generate(int size, long seed) {
+		Random random = new Random(seed);
+		BitSet blocked = new BitSet(size * size);
+		int blockedTarget = (int) (size * size * GENERATED_BLOCKED_RATIO);
+
+		while (blocked.cardinality() < blockedTarget) {
+			int x = random.nextInt(size);
+			int y = random.nextInt(size);
+
+			if (random.nextBoolean()) { // lake
+				int radius = 2 + random.nextInt(size / 32 + 4);
+				for (int dy = -radius; dy <= radius; dy++) {
+					for (int dx = -radius; dx <= radius; dx++) {
+						if (dx * dx + dy * dy <= radius * radius) {
+							block(blocked, size, x + dx, y + dy);
+						}
+					}
+				}
+			} else { // mountain ridge
+				int length = 10 + random.nextInt(size / 8 + 10);
+				int dirX = random.nextInt(3) - 1;
+				int dirY = random.nextInt(3) - 1;
+				for (int i = 0; i < length; i++) {
+					block(blocked, size, x, y);
+					block(blocked, size, x + 1, y);
+					x += dirX;
+					y += dirY;
+				}
+			}
+		}
+
+		return new BenchmarkMap(GENERATED_PREFIX + size, null, (short) size, (short) size, blocked);
+	}
+
+	private static void block(BitSet blocked, int size, int x, int y) {
+		if (0 <= x && x < size && 0 <= y && y < size) {
+			blocked.set(x + y * size);
+		}
+	}
+
+	/**
+	 * Loads the blocking landscape of the given map file.
+	 * 
+	 * @param file
+	 *            The map file.
+	 * @return The loaded map.
+	 * @throws MapLoadException
+	 */
+	public static BenchmarkMap load(File file) throws MapLoadException {
+		IMapData data = MapLoader.getLoaderForFile(new ListedMapFile(file, false)).getMapData();
+		short width = (short) data.getWidth();
+		short height = (short) data.getHeight();
+		BitSet blocked = new BitSet(width * height);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				blocked.set(x + y * width, data.getLandscape(x, y).isBlocking);
+			}
+		}
+
+		String name = file.getName();
+		return new BenchmarkMap(name.substring(0, name.lastIndexOf('.')), file, width, height, blocked);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The file the map has been loaded from or null if the map has been generated.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public short getWidth() {
+		return width;
+	}
+
+	public short getHeight() {
+		return height;
+	}
+
+	public boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	public boolean isBlocked(int x, int y) {
+		return blocked.get(x + y * width);
+	}
+
+	/**
+	 * @return A new {@link BitSet} with all positions set that are not blocked.
+	 */
+	public BitSet getNotBlockedSet() {
+		BitSet notBlocked = new BitSet(width * height);
+		notBlocked.set(0, width * height);
+		notBlocked.andNot(blocked);
+		return notBlocked;
+	}
+
+	public ShortPoint2D getRandomFreePosition(Random random) {
+		while (true) {
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			if (!isBlocked(x, y)) {
+				return new ShortPoint2D(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Gets a random free position with the given maximum distance in x and y direction to the given position.
+	 */
+	public ShortPoint2D getRandomFreePositionNear(Random random, ShortPoint2D center, int maxDistance) {
+		while (true) {
+			int x = center.x + random.nextInt(2 * maxDistance + 1) - maxDistance;
+			int y = center.y + random.nextInt(2 * maxDistance + 1) - maxDistance;
+			if (isInBounds(x, y) && !isBlocked(x, y) && (x != center.x || y != center.y)) {
+				return new ShortPoint2D(x, y);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + width + "x" + height + ")";
+	}
+}
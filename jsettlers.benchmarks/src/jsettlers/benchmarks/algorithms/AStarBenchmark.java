@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.partitions.PartitionCalculatorAlgorithm;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches paths of up to {@value #MAX_DISTANCE} positions in x and y direction with the {@link BucketQueueAStar}. Like in the game, start and
+ * target are always in the same blocked partition. One operation is one search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class AStarBenchmark {
+	private static final int QUERIES = 256;
+	private static final int MAX_DISTANCE = 80;
+
+	@Param({ "generated-256", "generated-512", "generated-1024", "smallisland", "mountainlake", "nicemap" })
+	public String map;
+
+	private final BenchmarkRequester requester = new BenchmarkRequester();
+	private BucketQueueAStar aStar;
+	private ShortPoint2D[] starts;
+	private ShortPoint2D[] targets;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() throws MapLoadException {
+		BenchmarkMap benchmarkMap = BenchmarkMap.get(map);
+		Random random = new Random(1);
+		aStar = new BucketQueueAStar(new BenchmarkPathMap(benchmarkMap, 1), benchmarkMap.getWidth(), benchmarkMap.getHeight());
+		starts = new ShortPoint2D[QUERIES];
+		targets = new ShortPoint2D[QUERIES];
+		PartitionCalculatorAlgorithm partitions = new PartitionCalculatorAlgorithm(0, 0, benchmarkMap.getWidth(), benchmarkMap.getHeight(),
+				benchmarkMap.getNotBlockedSet(), IBlockingProvider.DEFAULT_IMPLEMENTATION);
+		partitions.calculatePartitions();
+
+		for (int i = 0; i < QUERIES;) {
+			ShortPoint2D start = benchmarkMap.getRandomFreePosition(random);
+			short partition = partitions.getPartitionAt(start.x, start.y);
+
+			for (int tries = 0; tries < 20; tries++) {
+				ShortPoint2D target = benchmarkMap.getRandomFreePositionNear(random, start, MAX_DISTANCE);
+				if (partitions.getPartitionAt(target.x, target.y) == partition) {
+					starts[i] = start;
+					targets[i] = target;
+					i++;
+					break;
+				}
+			}
+		}
+		nextQuery = 0;
+	}
+
+	@Benchmark
+	public Path findPath() {
+		ShortPoint2D start = starts[nextQuery];
+		ShortPoint2D target = targets[nextQuery];
+		nextQuery = (nextQuery + 1) % QUERIES;
+
+		requester.setPos(start);
+		return aStar.findPath(requester, start.x, start.y, target.x, target.y);
+	}
+}
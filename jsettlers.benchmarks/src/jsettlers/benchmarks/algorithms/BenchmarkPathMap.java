@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.area.IInAreaFinderMap;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.Color;
+import jsettlers.common.material.ESearchType;
+
+/**
+ * Path finding view of a {@link BenchmarkMap}. Every free position whose hash is a multiple of the target spacing fits every search type.
+ */
+final class BenchmarkPathMap implements IAStarPathMap, IInAreaFinderMap, IDijkstraPathMap {
+	private final BenchmarkMap map;
+	private final int targetSpacing;
+
+	BenchmarkPathMap(BenchmarkMap map, int targetSpacing) {
+		this.map = map;
+		this.targetSpacing = targetSpacing;
+	}
+
+	@Override
+	public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+		return map.isBlocked(x, y);
+	}
+
+	@Override
+	public float getCost(int sx, int sy, int tx, int ty) {
+		return 1;
+	}
+
+	@Override
+	public void markAsOpen(int x, int y) {
+	}
+
+	@Override
+	public void markAsClosed(int x, int y) {
+	}
+
+	@Override
+	public void setDebugColor(int x, int y, Color color) {
+	}
+
+	@Override
+	public short getBlockedPartition(int x, int y) {
+		return 1;
+	}
+
+	@Override
+	public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+		return !map.isBlocked(x, y) && ((x * 7919 + y * 104729) & 0x7fffffff) % targetSpacing == 0;
+	}
+
+	@Override
+	public void setDijkstraSearched(int x, int y) {
+	}
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
+import jsettlers.algorithms.construction.NewConstructionMarksAlgorithm;
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.map.shapes.MapRectangle;
+import jsettlers.common.position.RelativePoint;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calculates the construction marks of a castle for a screen sized area with the {@link NewConstructionMarksAlgorithm}. The area is moved
+ * between the operations like it is done when the user scrolls over the map. One operation is the calculation of the marks of one area.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class ConstructionMarksBenchmark {
+	private static final int AREAS = 64;
+	private static final int AREA_WIDTH = 60;
+	private static final int AREA_HEIGHT = 40;
+	private static final EBuildingType BUILDING_TYPE = EBuildingType.CASTLE;
+
+	@Param({ "generated-256", "generated-512", "generated-1024", "smallisland", "mountainlake", "nicemap" })
+	public String map;
+
+	private MarksMap marksMap;
+	private NewConstructionMarksAlgorithm algorithm;
+	private MapRectangle[] areas;
+	private int nextArea;
+
+	@Setup
+	public void setUp() throws MapLoadException {
+		BenchmarkMap benchmarkMap = BenchmarkMap.get(map);
+		Random random = new Random(4);
+		marksMap = new MarksMap(benchmarkMap);
+		algorithm = new NewConstructionMarksAlgorithm(marksMap, (byte) 0);
+		areas = new MapRectangle[AREAS];
+
+		ShortPoint2D center = benchmarkMap.getRandomFreePosition(random);
+		for (int i = 0; i < AREAS; i++) {
+			if (i % 8 == 0) { // jump to another part of the map
+				center = benchmarkMap.getRandomFreePosition(random);
+			} else { // scroll
+				center = new ShortPoint2D(clamp(center.x + random.nextInt(11) - 5, benchmarkMap.getWidth()), clamp(center.y + random.nextInt(11) - 5,
+						benchmarkMap.getHeight()));
+			}
+			areas[i] = new MapRectangle(center.x - AREA_WIDTH / 2, center.y - AREA_HEIGHT / 2, AREA_WIDTH, AREA_HEIGHT);
+		}
+		nextArea = 0;
+	}
+
+	private static int clamp(int value, int size) {
+		return Math.max(0, Math.min(size - 1, value));
+	}
+
+	@Benchmark
+	public int calculateConstructMarks() {
+		MapRectangle area = areas[nextArea];
+		nextArea = (nextArea + 1) % AREAS;
+
+		marksMap.marks = 0;
+		algorithm.calculateConstructMarks(area, BUILDING_TYPE.getBuildingAreaBitSet(), BUILDING_TYPE.getGroundtypes(), BUILDING_TYPE
+				.getBlockedTiles());
+		return marksMap.marks;
+	}
+
+	@TearDown
+	public void tearDown() {
+		algorithm.removeConstructionMarks();
+	}
+
+	private static final class MarksMap extends AbstractConstructionMarkableMap {
+		private final BenchmarkMap map;
+		private int marks;
+
+		MarksMap(BenchmarkMap map) {
+			this.map = map;
+		}
+
+		@Override
+		public void setConstructMarking(int x, int y, boolean set, RelativePoint[] flattenPositions) {
+			if (set) {
+				marks++;
+			}
+		}
+
+		@Override
+		public short getWidth() {
+			return map.getWidth();
+		}
+
+		@Override
+		public short getHeight() {
+			return map.getHeight();
+		}
+
+		@Override
+		public boolean canUsePositionForConstruction(int x, int y, ELandscapeType[] landscapeTypes, short partitionId) {
+			return map.isInBounds(x, y) && !map.isBlocked(x, y);
+		}
+
+		@Override
+		public short getPartitionIdAt(int x, int y) {
+			return 1;
+		}
+
+		@Override
+		public boolean canPlayerConstructOnPartition(byte playerId, short partitionId) {
+			return true;
+		}
+
+		@Override
+		public boolean isInBounds(int x, int y) {
+			return map.isInBounds(x, y);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches the nearest target with the {@link DijkstraAlgorithm} in a radius of {@value #MAX_RADIUS}. One operation is one search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class DijkstraBenchmark {
+	private static final int QUERIES = 256;
+	private static final short MAX_RADIUS = 60;
+	private static final int TARGET_SPACING = 500;
+
+	@Param({ "generated-256", "generated-512", "generated-1024", "smallisland", "mountainlake", "nicemap" })
+	public String map;
+
+	private final BenchmarkRequester requester = new BenchmarkRequester();
+	private DijkstraAlgorithm dijkstra;
+	private ShortPoint2D[] centers;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() throws MapLoadException {
+		BenchmarkMap benchmarkMap = BenchmarkMap.get(map);
+		Random random = new Random(2);
+		BenchmarkPathMap pathMap = new BenchmarkPathMap(benchmarkMap, TARGET_SPACING);
+		short width = benchmarkMap.getWidth();
+		short height = benchmarkMap.getHeight();
+		dijkstra = new DijkstraAlgorithm(pathMap, new BucketQueueAStar(pathMap, width, height), width, height);
+		centers = new ShortPoint2D[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			centers[i] = benchmarkMap.getRandomFreePosition(random);
+		}
+		nextQuery = 0;
+	}
+
+	@Benchmark
+	public Path find() {
+		ShortPoint2D center = centers[nextQuery];
+		nextQuery = (nextQuery + 1) % QUERIES;
+
+		requester.setPos(center);
+		return dijkstra.find(requester, center.x, center.y, (short) 0, MAX_RADIUS, ESearchType.PLANTABLE_TREE);
+	}
+}
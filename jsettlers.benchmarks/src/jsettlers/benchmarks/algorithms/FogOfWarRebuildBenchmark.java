@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.fogofwar.FogOfWar;
+import jsettlers.algorithms.fogofwar.FullFogOfWarRebuilder;
+import jsettlers.algorithms.fogofwar.IViewDistancable;
+import jsettlers.algorithms.fogofwar.IncrementalFogOfWarUpdater;
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Updates the sight of a {@link FogOfWar} with the {@link FullFogOfWarRebuilder} and the {@link IncrementalFogOfWarUpdater}. The map contains one
+ * building per {@value #POSITIONS_PER_BUILDING} positions and {@value #MOVABLES_PER_BUILDING} movables per building. One operation covers the same
+ * game time for both: Every movable moves one step and the sight is dimmed down once. This is one rebuild or {@value #UPDATES_PER_DIM_DOWN}
+ * incremental updates, before each of which a part of the movables moves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class FogOfWarRebuildBenchmark {
+	private static final int POSITIONS_PER_BUILDING = 2000;
+	private static final int MOVABLES_PER_BUILDING = 5;
+	private static final short BUILDING_VIEW_DISTANCE = 40;
+	private static final short MOVABLE_VIEW_DISTANCE = 8;
+	private static final int UPDATES_PER_DIM_DOWN = 4;
+
+	@Param({ "generated-256", "generated-512", "generated-1024", "smallisland", "mountainlake", "nicemap" })
+	public String map;
+
+	private final ConcurrentLinkedQueue<Viewer> buildings = new ConcurrentLinkedQueue<Viewer>();
+	private final ConcurrentLinkedQueue<Viewer> movables = new ConcurrentLinkedQueue<Viewer>();
+	private BenchmarkMap benchmarkMap;
+	private FogOfWar fogOfWar;
+	private FullFogOfWarRebuilder rebuilder;
+	private IncrementalFogOfWarUpdater updater;
+	private int step;
+
+	@Setup
+	public void setUp() throws MapLoadException {
+		benchmarkMap = BenchmarkMap.get(map);
+		Random random = new Random(6);
+		fogOfWar = new FogOfWar(benchmarkMap.getWidth(), benchmarkMap.getHeight(), (byte) 0, false);
+		rebuilder = new FullFogOfWarRebuilder(fogOfWar);
+
+		int numberOfBuildings = benchmarkMap.getWidth() * benchmarkMap.getHeight() / POSITIONS_PER_BUILDING;
+		for (int i = 0; i < numberOfBuildings; i++) {
+			ShortPoint2D position = benchmarkMap.getRandomFreePosition(random);
+			buildings.add(new Viewer(position, BUILDING_VIEW_DISTANCE));
+
+			for (int m = 0; m < MOVABLES_PER_BUILDING; m++) {
+				movables.add(new Viewer(benchmarkMap.getRandomFreePositionNear(random, position, 20), MOVABLE_VIEW_DISTANCE));
+			}
+		}
+		step = 0;
+
+		updater = new IncrementalFogOfWarUpdater(fogOfWar);
+		updater.update(buildings, movables, true);
+	}
+
+	@Benchmark
+	public byte rebuild() {
+		step++;
+		for (int part = 0; part < UPDATES_PER_DIM_DOWN; part++) {
+			moveMovables(part);
+		}
+
+		rebuilder.rebuild(buildings, movables);
+		return fogOfWar.getVisibleStatus(step % benchmarkMap.getWidth(), step / benchmarkMap.getWidth() % benchmarkMap.getHeight());
+	}
+
+	@Benchmark
+	public byte incrementalUpdates() {
+		step++;
+		for (int part = 0; part < UPDATES_PER_DIM_DOWN; part++) {
+			moveMovables(part);
+			updater.update(buildings, movables, part == UPDATES_PER_DIM_DOWN - 1);
+		}
+
+		return fogOfWar.getVisibleStatus(step % benchmarkMap.getWidth(), step / benchmarkMap.getWidth() % benchmarkMap.getHeight());
+	}
+
+	/**
+	 * Moves every {@value #UPDATES_PER_DIM_DOWN}th movable, starting with the given one, one step.
+	 */
+	private void moveMovables(int part) {
+		int dx = (step & 0x10) == 0 ? 1 : -1; // walk back and forth
+		int i = 0;
+		for (Viewer movable : movables) {
+			ShortPoint2D pos = movable.position;
+			if (i++ % UPDATES_PER_DIM_DOWN == part && benchmarkMap.isInBounds(pos.x + dx, pos.y)) {
+				movable.position = new ShortPoint2D(pos.x + dx, pos.y);
+			}
+		}
+	}
+
+	private static final class Viewer implements IViewDistancable {
+		private final short viewDistance;
+		private ShortPoint2D position;
+
+		Viewer(ShortPoint2D position, short viewDistance) {
+			this.position = position;
+			this.viewDistance = viewDistance;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return 0;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.path.area.InAreaFinder;
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.synchronic.random.RandomSingleton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches a random target in a radius of {@value #SEARCH_RADIUS} with the {@link InAreaFinder}. One operation is one search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class InAreaFinderBenchmark {
+	private static final int QUERIES = 256;
+	private static final short SEARCH_RADIUS = 30;
+	private static final int TARGET_SPACING = 40;
+
+	@Param({ "generated-256", "generated-512", "generated-1024", "smallisland", "mountainlake", "nicemap" })
+	public String map;
+
+	private final BenchmarkRequester requester = new BenchmarkRequester();
+	private InAreaFinder inAreaFinder;
+	private ShortPoint2D[] centers;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() throws MapLoadException {
+		BenchmarkMap benchmarkMap = BenchmarkMap.get(map);
+		RandomSingleton.load(3);
+		Random random = new Random(3);
+		inAreaFinder = new InAreaFinder(new BenchmarkPathMap(benchmarkMap, TARGET_SPACING), benchmarkMap.getWidth(), benchmarkMap.getHeight());
+		centers = new ShortPoint2D[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			centers[i] = benchmarkMap.getRandomFreePosition(random);
+		}
+		nextQuery = 0;
+	}
+
+	@Benchmark
+	public ShortPoint2D find() {
+		ShortPoint2D center = centers[nextQuery];
+		nextQuery = (nextQuery + 1) % QUERIES;
+
+		requester.setPos(center);
+		return inAreaFinder.find(requester, center.x, center.y, SEARCH_RADIUS, ESearchType.PLANTABLE_TREE);
+	}
+}
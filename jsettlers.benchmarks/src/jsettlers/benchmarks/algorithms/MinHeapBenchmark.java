@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.heap.MinHeap;
+import jsettlers.algorithms.heap.MinHeapable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserts {@value #ELEMENTS} elements with random ranks into a {@link MinHeap} and removes them again in order. The ranks of some elements are
+ * decreased while they are in the heap, like it is done by a Dijkstra search. One operation is one complete fill and drain of the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class MinHeapBenchmark {
+	private static final int ELEMENTS = 10000;
+
+	private MinHeap<HeapElement> heap;
+	private HeapElement[] elements;
+	private float[] ranks;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(5);
+		heap = new MinHeap<HeapElement>(ELEMENTS);
+		elements = new HeapElement[ELEMENTS];
+		ranks = new float[ELEMENTS];
+		for (int i = 0; i < ELEMENTS; i++) {
+			elements[i] = new HeapElement();
+			ranks[i] = random.nextFloat() * 1000;
+		}
+	}
+
+	@Benchmark
+	public long fillAndDrain() {
+		for (int i = 0; i < ELEMENTS; i++) {
+			elements[i].rank = ranks[i];
+			heap.insert(elements[i]);
+		}
+		for (int i = 0; i < ELEMENTS; i += 4) {
+			elements[i].rank /= 2;
+			heap.siftUp(elements[i]);
+		}
+
+		long checksum = 0;
+		while (!heap.isEmpty()) {
+			checksum += (long) heap.deleteMin().rank;
+		}
+		return checksum;
+	}
+
+	private static final class HeapElement implements MinHeapable {
+		private float rank;
+		private int heapIdx = -1;
+
+		@Override
+		public float getRank() {
+			return rank;
+		}
+
+		@Override
+		public int getHeapIdx() {
+			return heapIdx;
+		}
+
+		@Override
+		public void setHeapIdx(int idx) {
+			heapIdx = idx;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.algorithms;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.algorithms.path.arrays.SearchMarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the open and closed marks of a small search on a {@value #SIZE} x {@value #SIZE} map. The marks are either stored in two {@link BitSet}s
+ * that are cleared before every search or in {@link SearchMarks} that start a new generation. One operation is one search that marks
+ * {@value #TOUCHED_NODES} positions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class SearchMarksBenchmark {
+	private static final int SIZE = 1024;
+	private static final int TOUCHED_NODES = 50;
+	private static final int SEARCHES = 1024;
+
+	private BitSet open;
+	private BitSet closed;
+	private SearchMarks marks;
+	private int[] centers;
+	private int nextSearch;
+
+	@Setup
+	public void setUp() {
+		open = new BitSet(SIZE * SIZE);
+		closed = new BitSet(SIZE * SIZE);
+		marks = new SearchMarks(SIZE * SIZE);
+
+		Random random = new Random(1);
+		centers = new int[SEARCHES];
+		for (int i = 0; i < SEARCHES; i++) {
+			centers[i] = random.nextInt(SIZE * SIZE - TOUCHED_NODES * SIZE);
+		}
+		nextSearch = 0;
+	}
+
+	private int nextCenter() {
+		int center = centers[nextSearch];
+		nextSearch = (nextSearch + 1) % SEARCHES;
+		return center;
+	}
+
+	@Benchmark
+	public long searchWithBitSets() {
+		int center = nextCenter();
+		open.clear();
+		closed.clear();
+
+		long found = 0;
+		for (int node = 0; node < TOUCHED_NODES; node++) {
+			int idx = center + node * SIZE;
+			if (!open.get(idx)) {
+				open.set(idx);
+				closed.set(idx);
+				found += idx;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public long searchWithMarks() {
+		int center = nextCenter();
+		marks.startNewSearch();
+
+		long found = 0;
+		for (int node = 0; node < TOUCHED_NODES; node++) {
+			int idx = center + node * SIZE;
+			if (!marks.isOpen(idx)) {
+				marks.setOpen(idx);
+				marks.setClosed(idx);
+				found += idx;
+			}
+		}
+		return found;
+	}
+}
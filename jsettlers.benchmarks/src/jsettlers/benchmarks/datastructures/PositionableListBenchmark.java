@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.datastructures;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.partition.manager.datastructures.PositionableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the position queries of a {@link PositionableList} with and without spatial index on a {@value #MAP_SIZE} x {@value #MAP_SIZE} map. One
+ * operation looks up an object at a random position, removes the object next to it and inserts it again, like the offers of a partition are used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class PositionableListBenchmark {
+	private static final int MAP_SIZE = 768;
+	private static final int QUERIES = 1024;
+
+	@Param({ "10", "100", "1000", "10000" })
+	public int objects;
+
+	@Param({ "false", "true" })
+	public boolean indexed;
+
+	private PositionableList<Positioned> list;
+	private ShortPoint2D[] queries;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(objects);
+		list = new PositionableList<Positioned>(indexed);
+		for (int i = 0; i < objects; i++) {
+			list.insert(new Positioned(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE)));
+		}
+
+		queries = new ShortPoint2D[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = new ShortPoint2D(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+		}
+		nextQuery = 0;
+	}
+
+	@Benchmark
+	public Positioned removeAndInsert() {
+		ShortPoint2D position = queries[nextQuery];
+		nextQuery = (nextQuery + 1) % QUERIES;
+
+		Positioned atPosition = list.getObjectAt(position);
+		Positioned removed = list.removeObjectNextTo(position);
+		list.insert(removed);
+		return atPosition == null ? removed : atPosition;
+	}
+
+	public static final class Positioned implements ILocatable {
+		private final ShortPoint2D position;
+
+		Positioned(int x, int y) {
+			this.position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+	}
+}
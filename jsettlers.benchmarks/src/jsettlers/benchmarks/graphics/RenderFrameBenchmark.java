@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.graphics;
+
+import go.graphics.headless.FrameStatistics;
+import go.graphics.headless.RecordingDrawContext;
+import go.graphics.sound.ISoundDataRetriever;
+import go.graphics.sound.SoundPlayer;
+
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.benchmarks.BenchmarkMap;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.graphics.map.MapContent;
+import jsettlers.graphics.startscreen.interfaces.FakeMapGame;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.DirectoryMapLister.ListedMapFile;
+import jsettlers.logic.map.save.loader.MapLoader;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders frames of a loaded map with a {@link RecordingDrawContext}, so that the cost of {@link MapContent#drawContent} can be measured without a
+ * GPU. The camera moves on a fixed ellipse around the center of the map; one operation is one frame. The fog of war is disabled, so that
+ * everything on the screen is drawn.
+ * <p>
+ * The work the frames would have caused on the GPU (draw calls, state changes, uploads) is printed after the benchmark. Unless the images of the
+ * original game are added to the {@link jsettlers.graphics.map.draw.ImageProvider}, all map objects are drawn as placeholder images.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class RenderFrameBenchmark {
+	private static final int WINDOW_WIDTH = 1280;
+	private static final int WINDOW_HEIGHT = 800;
+	private static final int FRAMES_PER_ROUND = 240;
+
+	/**
+	 * The rendering needs the objects of a real map, so only the bundled maps are used.
+	 */
+	@Param({ "smallisland", "mountainlake", "nicemap" })
+	public String map;
+
+	private MapContent content;
+	private RecordingDrawContext gl;
+	private ShortPoint2D[] cameraPath;
+	private int frame;
+
+	private long drawCalls;
+	private long triangles;
+	private long stateChanges;
+	private long textureUploads;
+	private long geometryBytes;
+
+	@Setup
+	public void setUp() throws MapLoadException {
+		BenchmarkMap benchmarkMap = BenchmarkMap.get(map);
+		RandomSingleton.load(0);
+		MatchConstants.clock = new NetworkTimer(true);
+		MainGrid grid = MapLoader.getLoaderForFile(new ListedMapFile(benchmarkMap.getFile(), false)).loadMainGrid(null).getMainGrid();
+		grid.initForPlayer((byte) 0, null);
+		grid.getGuiInputGrid().toggleFogOfWar();
+
+		content = new MapContent(new FakeMapGame(grid.getGraphicsGrid()), new SilentSoundPlayer());
+		gl = new RecordingDrawContext();
+		cameraPath = createCameraPath(benchmarkMap.getWidth(), benchmarkMap.getHeight());
+		frame = 0;
+		drawCalls = triangles = stateChanges = textureUploads = geometryBytes = 0;
+	}
+
+	private static ShortPoint2D[] createCameraPath(int width, int height) {
+		ShortPoint2D[] path = new ShortPoint2D[FRAMES_PER_ROUND];
+		for (int i = 0; i < FRAMES_PER_ROUND; i++) {
+			double angle = 2 * Math.PI * i / FRAMES_PER_ROUND;
+			int x = (int) (width / 2 + Math.cos(angle) * width / 3);
+			int y = (int) (height / 2 + Math.sin(angle) * height / 3);
+			path[i] = new ShortPoint2D(x, y);
+		}
+		return path;
+	}
+
+	@Benchmark
+	public long drawFrame() {
+		content.scrollTo(cameraPath[frame % FRAMES_PER_ROUND], false);
+		frame++;
+
+		gl.startFrame();
+		content.drawContent(gl, WINDOW_WIDTH, WINDOW_HEIGHT);
+		FrameStatistics statistics = gl.getFrameStatistics();
+
+		drawCalls += statistics.getDrawCalls();
+		triangles += statistics.getTriangles();
+		stateChanges += statistics.getStateChanges();
+		textureUploads += statistics.getTextureUploads();
+		geometryBytes += statistics.getGeometryBytes();
+		return statistics.getDrawCalls() + statistics.getTriangles();
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (frame > 0) {
+			System.out.println(String.format("per frame: %d draw calls, %d triangles, %d state changes, %.2f texture uploads, %d geometry bytes",
+					drawCalls / frame, triangles / frame, stateChanges / frame, (double) textureUploads / frame, geometryBytes / frame));
+		}
+
+		content.stop();
+		MatchConstants.clock.stopExecution();
+	}
+
+	/**
+	 * A {@link SoundPlayer} that does not play the sounds of the map.
+	 */
+	private static final class SilentSoundPlayer implements SoundPlayer {
+		@Override
+		public void playSound(int soundStart, float lvolume, float rvolume) {
+		}
+
+		@Override
+		public void setSoundDataRetriever(ISoundDataRetriever soundDataRetriever) {
+		}
+	}
+}
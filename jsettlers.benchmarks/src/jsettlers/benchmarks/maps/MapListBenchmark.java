@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.maps;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.logic.map.save.DirectoryMapLister;
+import jsettlers.logic.map.save.MapFileHeader;
+import jsettlers.logic.map.save.MapFileHeader.MapType;
+import jsettlers.logic.map.save.MapList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lists a directory of {@value #MAP_FILES} generated map files with a new {@link MapList}, like it is done when the start screen is opened. One
+ * operation lists all maps.
+ * <p>
+ * For a cold start, the header index of the directory is deleted before every operation, so all headers are read from the map files. For a warm
+ * start, the headers are read from the index file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class MapListBenchmark {
+	private static final int MAP_FILES = 200;
+	private static final int MAP_DATA_BYTES = 64 * 1024;
+
+	private File directory;
+	private File mapsDirectory;
+	private File saveDirectory;
+
+	@Setup
+	public void setUp() throws IOException, InterruptedException {
+		directory = File.createTempFile("maplist-benchmark", "");
+		directory.delete();
+		mapsDirectory = new File(directory, "maps");
+		saveDirectory = new File(directory, "save");
+		mapsDirectory.mkdirs();
+		saveDirectory.mkdirs();
+
+		Random random = new Random(14);
+		for (int i = 0; i < MAP_FILES; i++) {
+			writeMapFile(new File(mapsDirectory, "map" + i + MapList.MAP_EXTENSION), "Map " + i, random);
+		}
+
+		DirectoryMapLister.releaseHeaderIndexes();
+	}
+
+	private static void writeMapFile(File file, String name, Random random) throws IOException {
+		short[] preview = new short[MapFileHeader.PREVIEW_IMAGE_SIZE * MapFileHeader.PREVIEW_IMAGE_SIZE];
+		for (int i = 0; i < preview.length; i++) {
+			preview[i] = (short) random.nextInt();
+		}
+		MapFileHeader header = new MapFileHeader(MapType.NORMAL, name, null, "A generated map.", (short) 256, (short) 256, (short) 1, (short) 4,
+				new Date(), preview);
+
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			header.writeTo(out);
+			out.write(new byte[MAP_DATA_BYTES]);
+		} finally {
+			out.close();
+		}
+	}
+
+	@Benchmark
+	public int coldStart() throws InterruptedException {
+		DirectoryMapLister.releaseHeaderIndexes();
+		new File(mapsDirectory, ".headerindex").delete();
+		return listMaps();
+	}
+
+	@Benchmark
+	public int warmStart() throws InterruptedException {
+		DirectoryMapLister.releaseHeaderIndexes();
+		return listMaps();
+	}
+
+	private int listMaps() {
+		MapList mapList = new MapList(new DirectoryMapLister(mapsDirectory, false), new DirectoryMapLister(saveDirectory, true));
+		return mapList.getFreshMaps().size() + mapList.getSavedMaps().size();
+	}
+
+	@TearDown
+	public void tearDown() throws InterruptedException {
+		DirectoryMapLister.releaseHeaderIndexes();
+		deleteRecursively(directory);
+	}
+
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+}
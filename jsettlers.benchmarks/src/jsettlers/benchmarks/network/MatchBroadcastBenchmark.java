@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.common.packets.MapInfoPacket;
+import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelTransport;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.server.match.Match;
+import jsettlers.network.server.match.Player;
+import jsettlers.network.server.packets.ServersideSyncTasksPacket;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates a dedicated server hosting {@value #MATCHES} matches with {@value #PLAYERS_PER_MATCH} players each. One operation is one lockstep:
+ * every match broadcasts a {@link ServersideSyncTasksPacket} to its players. The matches are handled concurrently by {@value #THREADS} threads,
+ * the channels of the players discard the data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class MatchBroadcastBenchmark {
+	private static final int MATCHES = 200;
+	private static final int PLAYERS_PER_MATCH = 8;
+	private static final int TASKS_PER_LOCKSTEP = 6;
+	private static final int THREADS = 4;
+
+	private final AtomicLong sentBytes = new AtomicLong();
+	private ExecutorService executor;
+	private List<Callable<Void>> lockstepJobs;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(1);
+		MapInfoPacket mapInfo = new MapInfoPacket("map", "Map", "author", "Author", PLAYERS_PER_MATCH);
+
+		executor = Executors.newFixedThreadPool(THREADS);
+		lockstepJobs = new ArrayList<Callable<Void>>();
+		for (int matchIndex = 0; matchIndex < MATCHES; matchIndex++) {
+			final Match match = new Match("match" + matchIndex, PLAYERS_PER_MATCH, mapInfo, matchIndex);
+			for (int playerIndex = 0; playerIndex < PLAYERS_PER_MATCH; playerIndex++) {
+				String id = matchIndex + "_" + playerIndex;
+				Channel channel = new Channel(new ConsoleLogger(id), new DiscardingTransport());
+				new Player(new PlayerInfoPacket(id, "player" + id, true), channel).joinMatch(match);
+			}
+
+			final List<ServersideTaskPacket> tasks = new ArrayList<ServersideTaskPacket>();
+			for (int i = 0; i < TASKS_PER_LOCKSTEP; i++) {
+				byte[] task = new byte[20 + random.nextInt(40)];
+				random.nextBytes(task);
+				tasks.add(new ServersideTaskPacket(task));
+			}
+
+			lockstepJobs.add(new Callable<Void>() {
+				private int lockstep = 0;
+
+				@Override
+				public Void call() {
+					match.broadcastMessage(ENetworkKey.SYNCHRONOUS_TASK, new ServersideSyncTasksPacket(lockstep++, tasks));
+					return null;
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public long broadcastLockstep() throws InterruptedException, ExecutionException {
+		for (Future<Void> future : executor.invokeAll(lockstepJobs)) {
+			future.get();
+		}
+		return sentBytes.get();
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Counts the sent bytes instead of sending them.
+	 */
+	private final class DiscardingTransport implements IChannelTransport {
+		@Override
+		public void start(IPacketReceiver receiver) {
+		}
+
+		@Override
+		public void send(ENetworkKey key, byte[] data, int length) throws IOException {
+			sentBytes.addAndGet(length);
+		}
+
+		@Override
+		public boolean isClosed() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
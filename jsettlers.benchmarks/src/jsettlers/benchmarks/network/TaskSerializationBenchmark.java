@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.input.tasks.ConstructBuildingTask;
+import jsettlers.input.tasks.EGuiAction;
+import jsettlers.input.tasks.GuiTaskTypes;
+import jsettlers.input.tasks.MoveToGuiTask;
+import jsettlers.input.tasks.SimpleGuiTask;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes a {@link SyncTasksPacket} with {@value #TASKS} gui tasks and deserializes it again, like it is done for every lockstep by the clients.
+ * One operation is one round trip of the packet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class TaskSerializationBenchmark {
+	private static final int TASKS = 64;
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(bytes);
+	private SyncTasksPacket packet;
+
+	@Setup
+	public void setUp() {
+		GuiTaskTypes.register();
+
+		List<Integer> selection = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+		List<TaskPacket> tasks = new ArrayList<TaskPacket>();
+		for (int i = 0; i < TASKS; i++) {
+			ShortPoint2D position = new ShortPoint2D(i, 2 * i);
+			switch (i % 3) {
+			case 0:
+				tasks.add(new MoveToGuiTask((byte) 1, position, selection));
+				break;
+			case 1:
+				tasks.add(new ConstructBuildingTask(EGuiAction.BUILD, (byte) 2, position, EBuildingType.LUMBERJACK));
+				break;
+			default:
+				tasks.add(new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 3));
+				break;
+			}
+		}
+		packet = new SyncTasksPacket(1, tasks);
+	}
+
+	@Benchmark
+	public SyncTasksPacket roundTrip() throws IOException {
+		bytes.reset();
+		packet.serialize(out);
+		out.flush();
+
+		SyncTasksPacket deserialized = new SyncTasksPacket();
+		deserialized.deserialize(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		return deserialized;
+	}
+}
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.buildingcreator.editor.map;
 
+import java.util.BitSet;
+
 import jsettlers.buildingcreator.editor.BuildingDefinition;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.buildings.IBuilding;
@@ -109,6 +111,11 @@ public class BuildingtestMap implements IGraphicsGrid {
 		return true;
 	}
 
+	@Override
+	public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+		return false;
+	}
+
 	@Override
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 		// TODO Auto-generated method stub
@@ -17,6 +17,11 @@ package jsettlers.common;
 public abstract class CommonConstants {
 	public static final int FOG_OF_WAR_VISIBLE = 100;
 	public static final int FOG_OF_WAR_EXPLORED = 50;
+	/**
+	 * Changes of the fog of war are reported for square tiles of {@link #FOG_OF_WAR_TILE_SIZE} x {@link #FOG_OF_WAR_TILE_SIZE} positions.
+	 */
+	public static final int FOG_OF_WAR_TILE_BITS = 4;
+	public static final int FOG_OF_WAR_TILE_SIZE = 1 << FOG_OF_WAR_TILE_BITS;
 
 	public static final short TOWER_RADIUS = 40;
 	public static final int MAX_PLAYERS = 16;
@@ -14,6 +14,9 @@
  *******************************************************************************/
 package jsettlers.common.map;
 
+import java.util.BitSet;
+
+import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.mapobject.IMapObject;
@@ -118,6 +121,19 @@ public interface IGraphicsGrid {
 
 	boolean isFogOfWarVisible(int x, int y);
 
+	/**
+	 * Adds the tiles whose visible status changed since the last call of this method to the given {@link BitSet}. A tile contains
+	 * {@link CommonConstants#FOG_OF_WAR_TILE_SIZE} x {@link CommonConstants#FOG_OF_WAR_TILE_SIZE} positions. The tile of position (x, y) has the
+	 * index (x >> {@link CommonConstants#FOG_OF_WAR_TILE_BITS}) + (y >> {@link CommonConstants#FOG_OF_WAR_TILE_BITS}) * tilesPerLine, with
+	 * tilesPerLine = ceil(width / {@link CommonConstants#FOG_OF_WAR_TILE_SIZE}).
+	 * 
+	 * @param changedTiles
+	 *            The {@link BitSet} the changed tiles are added to.
+	 * @return true if the changes are tracked by this grid.<br>
+	 *         false if the changes are not tracked. In this case the visible status of every position needs to be checked.
+	 */
+	boolean collectChangedFogOfWarTiles(BitSet changedTiles);
+
 	/**
 	 * This method can be used to set a {@link IGraphicsBackgroundListener} to this {@link IGraphicsGrid}. <br>
 	 * 
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.graphics.image;
 
+import java.nio.ShortBuffer;
+
 import jsettlers.graphics.reader.ImageMetadata;
 
 /**
@@ -34,6 +36,10 @@ public class GuiImage extends SingleImage {
 		super(metadata, data);
 	}
 
+	public GuiImage(ImageMetadata metadata, ShortBuffer data) {
+		super(metadata, data);
+	}
+
 	/**
 	 * draws the button at the given x and y coodringate.
 	 * 
@@ -85,6 +85,29 @@ public abstract class Image {
 
 	}
 
+	/**
+	 * Draws a triangle part of this image on the image buffer. Images that can not be drawn in parts draw nothing.
+	 * 
+	 * @param gl
+	 *            The context to use
+	 * @param buffer
+	 *            The buffer to draw on.
+	 * @param viewX
+	 *            Image center x coordinate
+	 * @param viewY
+	 *            Image center y coordinate
+	 * @param u1
+	 * @param v1
+	 * @param u2
+	 * @param v2
+	 * @param u3
+	 * @param v3
+	 * @param activeColor
+	 */
+	public void drawTriangle(GLDrawContext gl, DrawBuffer buffer, float viewX,
+			float viewY, float u1, float v1, float u2, float v2, float u3, float v3, int activeColor) {
+	}
+
 	public static int dimColor(Color color, float multiply) {
 		int iColor;
 		if (multiply == 1) {
@@ -98,4 +121,18 @@ public abstract class Image {
 		return iColor;
 	}
 
+	/**
+	 * In the draw process sub-integer coordinates can be rounded in unexpected ways that is particularly noticeable when redrawing the
+	 * growing image of a building in the construction phase. By aligning to the nearest integer images can be placed in a more
+	 * predictable and controlled manner.
+	 * @param value the coordinate to be aligned.
+	 * @return an aligned coordinate value.
+	 */
+	protected static float alignCoord( float value )
+	{
+		//At larger scales the issue is still present to some degree which zoomFactor helps to minimize.
+		//TODO need to find the factor based on the zoom level.
+		float zoomFactor = 1.06f;
+		return (float)((Math.floor( value * zoomFactor )) / zoomFactor);
+	}
 }
\ No newline at end of file
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.graphics.image;
 
+import java.nio.ShortBuffer;
+
 import jsettlers.graphics.reader.ImageMetadata;
 
 /**
@@ -44,6 +46,10 @@ public class LandscapeImage extends SingleImage {
 		super(metadata, data);
 	}
 
+	public LandscapeImage(ImageMetadata metadata, ShortBuffer data) {
+		super(metadata, data);
+	}
+
 	/**
 	 * Checks whether the given image is a continous image, that means it can be repeated when drawing.
 	 * 
@@ -202,6 +202,38 @@ public class MultiImageImage extends Image {
 		}
 	}
 
+	@Override
+	public void drawTriangle(GLDrawContext gl, DrawBuffer buffer, float viewX,
+			float viewY, float u1, float v1, float u2, float v2, float u3, float v3, int activeColor) {
+		DrawBuffer.Buffer buffer2 = buffer.getBuffer(map.getTexture(gl));
+		float left = viewX + settler.offsetX + IMAGE_DRAW_OFFSET;
+		float top = viewY - settler.offsetY + IMAGE_DRAW_OFFSET;
+
+		buffer2.addTriangle(
+			alignCoord( left + u1 * settler.width ),
+			alignCoord( top - v1 * settler.height ),
+			alignCoord( left + u2 * settler.width ),
+			alignCoord( top - v2 * settler.height ),
+			alignCoord( left + u3 * settler.width ),
+			alignCoord( top - v3 * settler.height ),
+			convertU(u1),
+			convertV(v1),
+			convertU(u2),
+			convertV(v2),
+			convertU(u3),
+			convertV(v3),
+			activeColor
+		);
+	}
+
+	private float convertU(float relativeU) {
+		return settler.umin + relativeU * (settler.umax - settler.umin);
+	}
+
+	private float convertV(float relativeV) {
+		return settler.vmax + relativeV * (settler.vmin - settler.vmax);
+	}
+
 	@Override
 	public void drawAt(GLDrawContext gl, DrawBuffer buffer, float viewX,
 			float viewY, Color color, float multiply) {
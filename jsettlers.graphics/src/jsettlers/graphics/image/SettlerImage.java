@@ -15,6 +15,9 @@
 package jsettlers.graphics.image;
 
 import go.graphics.GLDrawContext;
+
+import java.nio.ShortBuffer;
+
 import jsettlers.common.Color;
 import jsettlers.graphics.map.draw.DrawBuffer;
 import jsettlers.graphics.reader.ImageMetadata;
@@ -40,6 +43,10 @@ public class SettlerImage extends SingleImage {
 		super(metadata, data);
 	}
 
+	public SettlerImage(ImageMetadata metadata, ShortBuffer data) {
+		super(metadata, data);
+	}
+
 	@Override
 	public void draw(GLDrawContext gl, Color color) {
 		if (this.torso != null) {
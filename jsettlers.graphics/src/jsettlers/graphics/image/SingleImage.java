@@ -79,6 +79,18 @@ public class SingleImage extends Image implements ImageDataPrivider {
 		this.offsetY = metadata.offsetY;
 	}
 
+	/**
+	 * Creates a new image that uses the given buffer as data. The buffer may be read only, e.g. a part of a memory mapped file.
+	 * 
+	 * @param metadata
+	 *            The size and offset of the image.
+	 * @param data
+	 *            The data of the image.
+	 */
+	protected SingleImage(ImageMetadata metadata, ShortBuffer data) {
+		this(data, metadata.width, metadata.height, metadata.offsetX, metadata.offsetY);
+	}
+
 	@Override
 	public int getWidth() {
 		return this.width;
@@ -318,25 +330,7 @@ public class SingleImage extends Image implements ImageDataPrivider {
 		return relativeV * getTextureScaleY();
 	}
 
-	/**
-	 * Draws a triangle part of this image on the image buffer.
-	 * 
-	 * @param gl
-	 *            The context to use
-	 * @param buffer
-	 *            The buffer to draw on.
-	 * @param viewX
-	 *            Image center x coordinate
-	 * @param viewY
-	 *            Image center y coordinate
-	 * @param u1
-	 * @param v1
-	 * @param u2
-	 * @param v2
-	 * @param u3
-	 * @param v3
-	 * @param activeColor
-	 */
+	@Override
 	public void drawTriangle(GLDrawContext gl, DrawBuffer buffer, float viewX,
 			float viewY, float u1, float v1, float u2, float v2, float u3, float v3, int activeColor) {
 		DrawBuffer.Buffer buffer2 = buffer.getBuffer(getTextureIndex(gl));
@@ -359,19 +353,4 @@ public class SingleImage extends Image implements ImageDataPrivider {
 			activeColor
 		);
 	}
-
-	/**
-	 * In the draw process sub-integer coordinates can be rounded in unexpected ways that is particularly noticeable when redrawing the
-	 * growing image of a building in the construction phase. By aligning to the nearest integer images can be placed in a more
-	 * predictable and controlled manner.
-	 * @param value the coordinate to be aligned.
-	 * @return an aligned coordinate value.
-	 */
-	private float alignCoord( float value )
-	{
-		//At larger scales the issue is still present to some degree which zoomFactor helps to minimize.
-		//TODO need to find the factor based on the zoom level.
-		float zoomFactor = 1.06f;
-		return (float)((Math.floor( value * zoomFactor )) / zoomFactor);
-	}
 }
\ No newline at end of file
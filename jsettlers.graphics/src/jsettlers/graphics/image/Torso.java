@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.graphics.image;
 
+import java.nio.ShortBuffer;
+
 import jsettlers.graphics.reader.ImageMetadata;
 
 /**
@@ -33,4 +35,8 @@ public class Torso extends SingleImage {
 		super(metadata, data);
 	}
 
+	public Torso(ImageMetadata metadata, ShortBuffer data) {
+		super(metadata, data);
+	}
+
 }
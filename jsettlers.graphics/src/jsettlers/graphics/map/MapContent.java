@@ -33,6 +33,7 @@ import go.graphics.text.TextDrawer;
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.images.ImageLink;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.shapes.IMapArea;
@@ -56,7 +57,10 @@ import jsettlers.graphics.font.FontDrawerFactory;
 import jsettlers.graphics.localization.Labels;
 import jsettlers.graphics.map.controls.IControls;
 import jsettlers.graphics.map.controls.original.OriginalControls;
+import jsettlers.graphics.map.controls.original.panel.content.BuildingBuildContent;
 import jsettlers.graphics.map.draw.Background;
+import jsettlers.graphics.map.draw.DrawBuffer;
+import jsettlers.graphics.map.draw.EImageLoadPriority;
 import jsettlers.graphics.map.draw.ImageProvider;
 import jsettlers.graphics.map.draw.MapObjectDrawer;
 import jsettlers.graphics.messages.Message;
@@ -175,6 +179,28 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 		this.connector.addListener(this);
 
 		map.setBackgroundListener(background);
+
+		requestBuildingMenuImages();
+	}
+
+	/**
+	 * Loads the images shown in the building menu and used to draw the buildings first, as they are needed as soon as the player starts to build.
+	 */
+	private static void requestBuildingMenuImages() {
+		ImageProvider imageProvider = ImageProvider.getInstance();
+		EBuildingType[][] menus = { BuildingBuildContent.normalBuildings, BuildingBuildContent.foodBuildings,
+				BuildingBuildContent.militaryBuildings, BuildingBuildContent.socialBuildings };
+		for (EBuildingType[] menu : menus) {
+			for (EBuildingType type : menu) {
+				imageProvider.requestImage(type.getGuiImage(), EImageLoadPriority.BUILDING_MENU);
+				for (ImageLink image : type.getImages()) {
+					imageProvider.requestImage(image, EImageLoadPriority.BUILDING_MENU);
+				}
+				for (ImageLink image : type.getBuildImages()) {
+					imageProvider.requestImage(image, EImageLoadPriority.BUILDING_MENU);
+				}
+			}
+		}
 	}
 
 	private void resizeTo(int newWindowWidth, int newWindowHeight) {
@@ -202,6 +228,7 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 
 			adaptScreenSize();
 			this.objectDrawer.increaseAnimationStep();
+			ImageProvider.getInstance().runPreloadTasks(gl);
 
 			this.context.begin(gl);
 			long start = System.currentTimeMillis();
@@ -239,8 +266,10 @@ public final class MapContent implements RegionContent, GOEventHandlerProvider,
 			long uitime = System.currentTimeMillis() - start;
 
 			if (CommonConstants.ENABLE_GRAPHICS_TIMES_DEBUG_OUTPUT) {
+				DrawBuffer drawBuffer = context.getDrawBuffer();
 				System.out.println("Background: " + bgtime + "ms, Foreground: "
-						+ foregroundtime + "ms, UI: " + uitime + "ms");
+						+ foregroundtime + "ms, UI: " + uitime + "ms, Draw calls: " + drawBuffer.getDrawCalls() + ", Triangles: "
+						+ drawBuffer.getTriangles() + ", Textures: " + drawBuffer.getTextures());
 			}
 		} catch (Throwable t) {
 			System.err.println("Main draw handler cought throwable:");
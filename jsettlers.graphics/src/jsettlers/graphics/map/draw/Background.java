@@ -862,6 +862,15 @@ public class Background implements IGraphicsBackgroundListener {
 
 	private BitSet geometryInvalid = new BitSet();
 
+	/**
+	 * The fog of war tiles that need to be checked for changes of the visible status.
+	 */
+	private final BitSet changedFogOfWarTiles = new BitSet();
+	/**
+	 * The fog of war tiles that contained positions whose fog of war was not up to date in the current frame.
+	 */
+	private final BitSet changingFogOfWarTiles = new BitSet();
+
 	private boolean mapViewResized;
 
 	private static Object preloadMutex = new Object();
@@ -1377,6 +1386,9 @@ public class Background implements IGraphicsBackgroundListener {
 
 		int width = context.getMap().getWidth();
 		int height = context.getMap().getHeight();
+
+		boolean fogOfWarChangesTracked = context.getMap().collectChangedFogOfWarTiles(changedFogOfWarTiles);
+		int fogOfWarTilesPerLine = (width + CommonConstants.FOG_OF_WAR_TILE_SIZE - 1) >> CommonConstants.FOG_OF_WAR_TILE_BITS;
 		int oldbuffertop = oldBufferPosition.getLineY(0);
 		int oldbufferbottom = oldbuffertop + bufferheight; // excluding
 
@@ -1402,9 +1414,11 @@ public class Background implements IGraphicsBackgroundListener {
 					if (hasInvalidFields && getAndResetInvalid(bufferPosition)) {
 						redrawPoint(boundbuffer, context, x, y, true,
 								bufferPosition);
-					} else if (context.getVisibleStatus(x, y) != fogOfWarStatus[bufferPosition * 4]) {
+					} else if ((!fogOfWarChangesTracked || changedFogOfWarTiles.get(getFogOfWarTile(x, y, fogOfWarTilesPerLine)))
+							&& context.getVisibleStatus(x, y) != fogOfWarStatus[bufferPosition * 4]) {
 						redrawPoint(boundbuffer, context, x, y, true,
 								bufferPosition);
+						changingFogOfWarTiles.set(getFogOfWarTile(x, y, fogOfWarTilesPerLine));
 						invalidatePoint(x - 1, y); // only for next pass
 						invalidatePoint(x - 1, y - 1);
 						invalidatePoint(x - 1, y - 1);
@@ -1414,6 +1428,14 @@ public class Background implements IGraphicsBackgroundListener {
 		}
 
 		oldBufferPosition = area;
+
+		// tiles that are up to date don't need to be checked until the fog of war changes them again.
+		changedFogOfWarTiles.and(changingFogOfWarTiles);
+		changingFogOfWarTiles.clear();
+	}
+
+	private static int getFogOfWarTile(int x, int y, int tilesPerLine) {
+		return (x >> CommonConstants.FOG_OF_WAR_TILE_BITS) + (y >> CommonConstants.FOG_OF_WAR_TILE_BITS) * tilesPerLine;
 	}
 
 	private synchronized boolean getAndResetInvalid(int bufferPosition) {
@@ -16,59 +16,112 @@ package jsettlers.graphics.map.draw;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 
 import jsettlers.graphics.map.IGLProvider;
 
+/**
+ * A render queue that collects the textured triangles of a frame and draws them with as few calls to
+ * {@link go.graphics.GLDrawContext#drawTrianglesWithTextureColored(int, ByteBuffer, int)} as possible.
+ * <p>
+ * All triangles of a texture (e.g. a page of a texture atlas) are collected in one {@link Buffer}. On {@link #flush()}, the buffers are sorted by
+ * the depth of their first triangle and every buffer is drawn with a single call. As every image gets its own depth, the drawing order of the
+ * textures does not change what is visible.
+ */
 public class DrawBuffer {
+	/**
+	 * Bytes we need for one vertex
+	 */
+	private static final int VERTEX_LENGTH = 5 * 4 + 4;
+	private static final int TRIANGLE_LENGTH = 3 * VERTEX_LENGTH;
+	private static final int START_TRIANGLES = 256;
+	/**
+	 * If a buffer contains this number of triangles, it is drawn before the end of the frame.
+	 */
+	private static final int MAX_TRIANGLES = 16 * 1024;
+
+	private static final Comparator<Buffer> BY_DEPTH = new Comparator<Buffer>() {
+		@Override
+		public int compare(Buffer b1, Buffer b2) {
+			return Float.compare(b1.firstZ, b2.firstZ);
+		}
+	};
 
-	private static final int BUFFERS = 5;
 	private final IGLProvider context;
 	private float z;
 
-	public class Buffer {
-		/**
-		 * Bytes we need for one vertex
-		 */
-		private static final int VERTEX_LENGTH = 5 * 4 + 4;
-		private static final int TRIAMGLE_LENGTH = 3 * VERTEX_LENGTH;
-		private static final int BUFFER_TRIANGLES = 1000;
+	private Buffer[] buffersByTexture = new Buffer[64];
+	private final ArrayList<Buffer> queuedBuffers = new ArrayList<Buffer>();
+	private final ArrayList<Buffer> freeBuffers = new ArrayList<Buffer>();
 
-		/**
-		 * The last texture we set.
-		 */
-		private int currentTexture = 0;
+	private int drawCalls;
+	private int triangles;
+	private int flushedDrawCalls;
+	private int flushedTriangles;
+	private int flushedTextures;
 
+	public class Buffer {
+		private int texture;
 		private int currentTriangles = 0;
+		private boolean queued;
+		private float firstZ;
 
-		protected final ByteBuffer byteBuffer;
+		protected ByteBuffer byteBuffer;
 
 		protected Buffer() {
-			byteBuffer =
-					ByteBuffer.allocateDirect(BUFFER_TRIANGLES * TRIAMGLE_LENGTH);
+			byteBuffer = ByteBuffer.allocateDirect(START_TRIANGLES * TRIANGLE_LENGTH);
 			byteBuffer.order(ByteOrder.nativeOrder());
 		}
 
-		protected void setForTexture(int texture) {
-			if (currentTexture != texture) {
-				if (currentTriangles != 0) {
-					draw();
-				}
-				currentTexture = texture;
+		protected void draw() {
+			if (currentTriangles == 0) {
+				return;
 			}
-		}
 
-		protected void draw() {
-			// System.out.println("draw " + currentTriangles + " tris of " + currentTexture);
 			byteBuffer.rewind();
-			context.getGl().drawTrianglesWithTextureColored(currentTexture, byteBuffer, currentTriangles);
+			context.getGl().drawTrianglesWithTextureColored(texture, byteBuffer, currentTriangles);
 			byteBuffer.rewind();
+
+			drawCalls++;
+			triangles += currentTriangles;
 			currentTriangles = 0;
 		}
 
-		protected void addImage(float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
-			if (currentTriangles >= BUFFER_TRIANGLES - 2) {
+		/**
+		 * Makes sure the given number of triangles can be added. The buffer grows up to {@link DrawBuffer#MAX_TRIANGLES}, after that it is drawn.
+		 */
+		private void prepareAdd(int newTriangles) {
+			if (!queued) {
+				queued = true;
+				firstZ = z;
+				queuedBuffers.add(this);
+			}
+
+			int neededBytes = (currentTriangles + newTriangles) * TRIANGLE_LENGTH;
+			if (neededBytes <= byteBuffer.capacity()) {
+				return;
+			}
+
+			if (currentTriangles + newTriangles > MAX_TRIANGLES) {
 				draw();
+			} else {
+				int capacity = byteBuffer.capacity();
+				while (capacity < neededBytes) {
+					capacity *= 2;
+				}
+				ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.min(capacity, MAX_TRIANGLES * TRIANGLE_LENGTH));
+				newBuffer.order(ByteOrder.nativeOrder());
+				byteBuffer.flip();
+				newBuffer.put(byteBuffer);
+				byteBuffer = newBuffer;
 			}
+		}
+
+		protected void addImage(float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
+			prepareAdd(2);
 			addPointPrimitive(x1, y1, u1, v1, activeColor);
 			addPointPrimitive(x1, y2, u1, v2, activeColor);
 			addPointPrimitive(x2, y1, u2, v1, activeColor);
@@ -80,9 +133,7 @@ public class DrawBuffer {
 
 		public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3,
 									float u1, float v1, float u2, float v2, float u3, float v3, int activeColor) {
-			if (currentTriangles >= BUFFER_TRIANGLES - 1) {
-				draw();
-			}
+			prepareAdd(1);
 			addPointPrimitive(x1, y1, u1, v1, activeColor);
 			addPointPrimitive(x2, y2, u2, v2, activeColor);
 			addPointPrimitive(x3, y3, u3, v3, activeColor);
@@ -99,15 +150,8 @@ public class DrawBuffer {
 		}
 	}
 
-	private int lastFreedBuffer = 0;
-	private final Buffer[] drawBuffers;
-
 	public DrawBuffer(IGLProvider context) {
 		this.context = context;
-		drawBuffers = new Buffer[BUFFERS];
-		for (int i = 0; i < BUFFERS; i++) {
-			drawBuffers[i] = new Buffer();
-		}
 	}
 
 	public void addImage(int texture, float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
@@ -115,30 +159,72 @@ public class DrawBuffer {
 		getBuffer(texture).addImage(x1, y1, x2, y2, u1, v1, u2, v2, activeColor);
 	}
 
+	/**
+	 * Gets the buffer collecting the triangles of the given texture in this frame.
+	 * 
+	 * @param texture
+	 *            The id of the texture.
+	 * @return The buffer of the texture.
+	 */
 	public Buffer getBuffer(int texture) {
-		for (int i = 0; i < BUFFERS; i++) {
-			if (drawBuffers[i].currentTexture == texture) {
-				return drawBuffers[i];
-			}
+		if (texture < 0) {
+			texture = 0; // the texture could not be created, draw without texture
 		}
-
-		lastFreedBuffer++;
-		if (lastFreedBuffer >= BUFFERS) {
-			lastFreedBuffer = 0;
+		if (texture >= buffersByTexture.length) {
+			buffersByTexture = Arrays.copyOf(buffersByTexture, Math.max(texture + 1, buffersByTexture.length * 2));
 		}
 
-		Buffer buffer = drawBuffers[lastFreedBuffer];
-		buffer.setForTexture(texture);
+		Buffer buffer = buffersByTexture[texture];
+		if (buffer == null) {
+			buffer = freeBuffers.isEmpty() ? new Buffer() : freeBuffers.remove(freeBuffers.size() - 1);
+			buffer.texture = texture;
+			buffersByTexture[texture] = buffer;
+		}
 		return buffer;
 	}
 
+	/**
+	 * Draws all collected triangles ordered by the depth of the textures' first triangles. Afterwards, the buffers are released for the next frame.
+	 */
 	public void flush() {
-		for (int i = 0; i < BUFFERS; i++) {
-			drawBuffers[i].draw();
+		Collections.sort(queuedBuffers, BY_DEPTH);
+		for (Buffer buffer : queuedBuffers) {
+			buffer.draw();
+			buffer.queued = false;
+			buffersByTexture[buffer.texture] = null;
+			freeBuffers.add(buffer);
 		}
+
+		flushedDrawCalls = drawCalls;
+		flushedTriangles = triangles;
+		flushedTextures = queuedBuffers.size();
+		drawCalls = 0;
+		triangles = 0;
+		queuedBuffers.clear();
 		setZ(0);
 	}
 
+	/**
+	 * @return The number of draw calls used to draw the triangles of the last {@link #flush()}, including the calls needed for full buffers.
+	 */
+	public int getDrawCalls() {
+		return flushedDrawCalls;
+	}
+
+	/**
+	 * @return The number of triangles drawn for the last {@link #flush()}.
+	 */
+	public int getTriangles() {
+		return flushedTriangles;
+	}
+
+	/**
+	 * @return The number of textures used by the triangles of the last {@link #flush()}.
+	 */
+	public int getTextures() {
+		return flushedTextures;
+	}
+
 	public float getZ() {
 		return z;
 	}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This pool loads images in the background with multiple threads. The tasks are executed in the order of their {@link EImageLoadPriority} and in
+ * the order they were added if they have the same priority.
+ * <p>
+ * Tasks with {@link EImageLoadPriority#PRELOAD} may take long (e.g. writing the cache of a whole dat file). If the pool has more than one thread,
+ * they never occupy all of them, so that images that are needed for drawing are still loaded quickly.
+ */
+final class ImageLoadingPool {
+	private static final int DEFAULT_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+
+	private final ForkJoinPool pool;
+	private final int maxRunningPreloadTasks;
+	private final PriorityBlockingQueue<LoadingTask> tasks = new PriorityBlockingQueue<LoadingTask>();
+	private final ConcurrentHashMap<Object, LoadingTask> pendingTasks = new ConcurrentHashMap<Object, LoadingTask>();
+	private final AtomicLong addedTasks = new AtomicLong();
+	private final AtomicInteger runningPreloadTasks = new AtomicInteger();
+
+	private final Runnable worker = new Runnable() {
+		@Override
+		public void run() {
+			runNextTask();
+		}
+	};
+
+	ImageLoadingPool() {
+		this(DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * Creates a new pool.
+	 * 
+	 * @param parallelism
+	 *            The number of threads loading the images.
+	 */
+	ImageLoadingPool(int parallelism) {
+		pool = new ForkJoinPool(parallelism);
+		maxRunningPreloadTasks = Math.max(1, parallelism - 1);
+	}
+
+	/**
+	 * Adds a task to the pool. If a task with the same key is waiting or running, the given task is ignored.
+	 * 
+	 * @param key
+	 *            The key identifying the images the task loads.
+	 * @param priority
+	 *            The priority of the task.
+	 * @param task
+	 *            The task.
+	 * @return <code>true</code> if the task has been added, <code>false</code> if it has been ignored.
+	 */
+	boolean add(Object key, EImageLoadPriority priority, Runnable task) {
+		LoadingTask loadingTask = new LoadingTask(key, priority, addedTasks.getAndIncrement(), task);
+		if (pendingTasks.putIfAbsent(key, loadingTask) == null) {
+			tasks.add(loadingTask);
+			pool.execute(worker);
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	private void runNextTask() {
+		LoadingTask task = tasks.poll();
+		if (task == null) {
+			return;
+		}
+
+		boolean preload = task.priority == EImageLoadPriority.PRELOAD;
+		if (preload && runningPreloadTasks.incrementAndGet() > maxRunningPreloadTasks) {
+			// keep a thread free for the more important tasks. The task is started again when a running preload task has finished.
+			runningPreloadTasks.decrementAndGet();
+			tasks.add(task);
+			if (runningPreloadTasks.get() < maxRunningPreloadTasks) {
+				pool.execute(worker);
+			}
+			return;
+		}
+
+		try {
+			task.task.run();
+		} catch (Throwable t) {
+			t.printStackTrace();
+		} finally {
+			pendingTasks.remove(task.key);
+			if (preload) {
+				runningPreloadTasks.decrementAndGet();
+				pool.execute(worker);
+			}
+		}
+	}
+
+	private static final class LoadingTask implements Comparable<LoadingTask> {
+		private final Object key;
+		private final EImageLoadPriority priority;
+		private final long order;
+		private final Runnable task;
+
+		LoadingTask(Object key, EImageLoadPriority priority, long order, Runnable task) {
+			this.key = key;
+			this.priority = priority;
+			this.order = order;
+			this.task = task;
+		}
+
+		@Override
+		public int compareTo(LoadingTask other) {
+			if (priority != other.priority) {
+				return priority.compareTo(other.priority);
+			}
+			return order < other.order ? -1 : (order == other.order ? 0 : 1);
+		}
+	}
+}
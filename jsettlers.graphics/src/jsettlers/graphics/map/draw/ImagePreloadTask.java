@@ -14,213 +14,309 @@
  *******************************************************************************/
 package jsettlers.graphics.map.draw;
 
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import jsettlers.graphics.image.MultiImageMap;
 import jsettlers.graphics.map.draw.settlerimages.SettlerImageMap;
+import jsettlers.graphics.reader.AdvancedDatFileReader;
+import jsettlers.graphics.reader.DatFileCache;
+import jsettlers.graphics.reader.ICacheProgressListener;
 
+/**
+ * Preloads the images and makes sure the image caches of all dat files used by the game are up to date. The caches of the files are written in
+ * parallel by the {@link ImageLoadingPool}. This task waits until all of them have been written.
+ */
 public class ImagePreloadTask implements Runnable {
+	/**
+	 * The dat files containing the images used by the game.
+	 */
+	private static final int[] CACHED_FILES = { 0, 1, 2, 3, 4, 6, 10, 11, 12, 13, 14, 24 };
+	private static final int ATLAS_PAGE_SIZE = 2048;
+	private static final int[] NO_ATLAS_SEQUENCES = new int[0];
+
+	private static final int[] OBJECTS_ATLAS_SEQUENCES = new int[] {
+			// trees
+			1,// grown
+			2,// grown
+			3,
+			4,// grown
+			6,
+			7,// grown
+			8,// grown
+			9,
+			16,// grown
+			17,// grown
+			18,
+			// water
+			26,
+			// stones
+			31,
+			// goods
+			33,
+			34,
+			35,
+			36,
+			37,
+			38,
+			39,
+			40,
+			41,
+			42,
+			43,
+			// signs
+			93,
+			94,
+			95,
+			96,
+			97,
+			98,
+			99,
+			// arrows
+			100,
+			101,
+			102,
+			103,
+			104,
+			105,
+	};
+
+	private static final int[] SETTLERS_ATLAS_SEQUENCES = new int[] {
+			// settlers
+			0,
+			1,
+			2,
+			3,
+			4,
+			5,
+			6,
+			7,
+			8,
+			9,
+			10,
+			11,
+			12,
+			13,
+			14,
+			15,
+			16,
+			17,
+			18,
+			19,
+			20,
+			21,
+			22,
+			23,
+			24,
+			25,
+			26,
+			27,
+			28,
+			29,
+			30,
+			31,
+			32,
+			33,
+			34,
+			45
+	};
+
+	private static final int[] WORKERS_ATLAS_SEQUENCES = new int[] {
+			// workers
+			13,
+			14,
+			15,
+			16,
+			17,
+			18,
+			19,
+			20,
+			21,
+			22,
+			23,
+			24,
+			25,
+			26,
+			27,
+			28,
+			29,
+			30,
+			31,
+			32,
+			33,
+			34,
+			35,
+			36,
+
+			// pioneer
+			37,
+			38,
+			39,
+
+			// priest
+			188,
+
+			// pioneer
+			204,
+			205,
+			206,
+
+			// building workers
+			206,
+			207,
+			208,
+			209,
+			210,
+			211,
+			212,
+			213,
+			214,
+			215,
+			216,
+			217,
+			218,
+			219,
+			220,
+			221,
+			222,
+			223,
+
+			231,
+			232,
+	};
+
+	private static final int[] SOLDIERS_ATLAS_SEQUENCES = new int[] {
+			// soldiers
+
+			// swordsman
+			9,
+			10,
+			11,
+			12,
+			13,
+			14,
+
+			// pikeman
+			15,
+			// 16,
+			17,
+			18,
+			// 19,
+			20,
+
+			// bowman
+			21,
+			// 22,
+			23,
+			24,
+			// 25,
+			26,
+
+			// ghost
+			27,
+
+			// inside tower
+			28
+	};
+
+	private final ImageLoadingPool pool;
+	private final ICacheProgressListener listener;
+	private final float[] fileProgress = new float[CACHED_FILES.length];
+
+	ImagePreloadTask(ImageLoadingPool pool, ICacheProgressListener listener) {
+		this.pool = pool;
+		this.listener = listener;
+	}
+
 	@Override
 	public void run() {
 		SettlerImageMap.getInstance();
 
-		Background.preloadTexture();
+		// the landscape is always visible, so it is needed before the other images.
+		pool.add(Background.class, EImageLoadPriority.VISIBLE, new Runnable() {
+			@Override
+			public void run() {
+				Background.preloadTexture();
+			}
+		});
 
-		ImageProvider ip = ImageProvider.getInstance();
-		try {
-			ip.getFileReader(1).generateImageMap(1024, 2048, new int[] {
-					// trees
-					1,// grown
-					2,// grown
-					3,
-					4,// grown
-					6,
-					7,// grown
-					8,// grown
-					9,
-					16,// grown
-					17,// grown
-					18,
-					// water
-					26,
-					// stones
-					31,
-					// goods
-					33,
-					34,
-					35,
-					36,
-					37,
-					38,
-					39,
-					40,
-					41,
-					42,
-					43,
-					// signs
-					93,
-					94,
-					95,
-					96,
-					97,
-					98,
-					99,
-					// arrows
-					100,
-					101,
-					102,
-					103,
-					104,
-					105,
-			}, "1");
-		} catch (Throwable e) {
+		final ImageProvider ip = ImageProvider.getInstance();
+		final CountDownLatch filesDone = new CountDownLatch(CACHED_FILES.length);
+		for (int i = 0; i < CACHED_FILES.length; i++) {
+			final int fileIndex = i;
+			final AdvancedDatFileReader reader = ip.getFileReader(CACHED_FILES[i]);
+			Runnable updateCache = new Runnable() {
+				@Override
+				public void run() {
+					try {
+						updateCache(ip, reader, getAtlasSequences(CACHED_FILES[fileIndex]), fileIndex);
+					} catch (Throwable e) {
+						e.printStackTrace();
+					} finally {
+						fileProgressChanged(fileIndex, 1);
+						filesDone.countDown();
+					}
+				}
+			};
+
+			if (reader == null || !pool.add(reader, EImageLoadPriority.PRELOAD, updateCache)) {
+				fileProgressChanged(fileIndex, 1);
+				filesDone.countDown();
+			}
 		}
 
 		try {
-			ip.getFileReader(10).generateImageMap(2048, 2048, new int[] {
-					// settlers
-					0,
-					1,
-					2,
-					3,
-					4,
-					5,
-					6,
-					7,
-					8,
-					9,
-					10,
-					11,
-					12,
-					13,
-					14,
-					15,
-					16,
-					17,
-					18,
-					19,
-					20,
-					21,
-					22,
-					23,
-					24,
-					25,
-					26,
-					27,
-					28,
-					29,
-					30,
-					31,
-					32,
-					33,
-					34,
-					45
-			}, "10");
-		} catch (Throwable e) {
-			e.printStackTrace();
+			filesDone.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+	}
 
-		try {
-			ip.getFileReader(11).generateImageMap(2048, 2048, new int[] {
-					// workers
-					13,
-					14,
-					15,
-					16,
-					17,
-					18,
-					19,
-					20,
-					21,
-					22,
-					23,
-					24,
-					25,
-					26,
-					27,
-					28,
-					29,
-					30,
-					31,
-					32,
-					33,
-					34,
-					35,
-					36,
-
-					// pioneer
-					37,
-					38,
-					39,
-
-					// priest
-					188,
-
-					// pioneer
-					204,
-					205,
-					206,
-
-					// building workers
-					206,
-					207,
-					208,
-					209,
-					210,
-					211,
-					212,
-					213,
-					214,
-					215,
-					216,
-					217,
-					218,
-					219,
-					220,
-					221,
-					222,
-					223,
-
-					231,
-					232,
-			}, "11");
-		} catch (Throwable e) {
-			e.printStackTrace();
+	private void updateCache(ImageProvider ip, AdvancedDatFileReader reader, int[] atlasSequences, final int fileIndex) throws IOException {
+		reader.updateCache(atlasSequences, ATLAS_PAGE_SIZE, ATLAS_PAGE_SIZE, new ICacheProgressListener() {
+			@Override
+			public void progressChanged(float progress) {
+				fileProgressChanged(fileIndex, progress);
+			}
+		});
+
+		DatFileCache cache = reader.getCache();
+		if (cache != null) {
+			// the other pages are uploaded when one of their images is drawn for the first time
+			for (MultiImageMap page : cache.getPages(atlasSequences)) {
+				ip.addPreloadTask(page);
+			}
 		}
+	}
 
-		try {
-			ip.getFileReader(12).generateImageMap(2048, 2048, new int[] {
-					// soldiers
-
-					// swordsman
-					9,
-					10,
-					11,
-					12,
-					13,
-					14,
-
-					// pikeman
-					15,
-					// 16,
-					17,
-					18,
-					// 19,
-					20,
-
-					// bowman
-					21,
-					// 22,
-					23,
-					24,
-					// 25,
-					26,
-
-					// ghost
-					27,
-
-					// inside tower
-					28
-			}, "12");
-		} catch (Throwable e) {
-			e.printStackTrace();
+	/**
+	 * The caches of the files are written in parallel. So the progress of every file is stored and the listener gets the overall progress.
+	 */
+	private synchronized void fileProgressChanged(int fileIndex, float progress) {
+		if (progress <= fileProgress[fileIndex]) {
+			return;
+		}
+		fileProgress[fileIndex] = progress;
+
+		float sum = 0;
+		for (float file : fileProgress) {
+			sum += file;
+		}
+		listener.progressChanged(sum / CACHED_FILES.length);
+	}
+
+	private static int[] getAtlasSequences(int file) {
+		switch (file) {
+		case 1:
+			return OBJECTS_ATLAS_SEQUENCES;
+		case 10:
+			return SETTLERS_ATLAS_SEQUENCES;
+		case 11:
+			return WORKERS_ATLAS_SEQUENCES;
+		case 12:
+			return SOLDIERS_ATLAS_SEQUENCES;
+		default:
+			return NO_ATLAS_SEQUENCES;
 		}
 	}
 }
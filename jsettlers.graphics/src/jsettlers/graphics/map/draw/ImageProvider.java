@@ -23,12 +23,14 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import jsettlers.common.images.DirectImageLink;
 import jsettlers.common.images.EImageLinkType;
 import jsettlers.common.images.ImageLink;
 import jsettlers.common.images.OriginalImageLink;
 import jsettlers.common.images.TextureMap;
+import jsettlers.common.resources.ResourceManager;
 import jsettlers.graphics.image.GuiImage;
 import jsettlers.graphics.image.Image;
 import jsettlers.graphics.image.ImageIndexFile;
@@ -37,6 +39,7 @@ import jsettlers.graphics.image.NullImage;
 import jsettlers.graphics.image.SingleImage;
 import jsettlers.graphics.reader.AdvancedDatFileReader;
 import jsettlers.graphics.reader.DatFileSet;
+import jsettlers.graphics.reader.ICacheProgressListener;
 import jsettlers.graphics.reader.SequenceList;
 import jsettlers.graphics.sequence.ArraySequence;
 import jsettlers.graphics.sequence.Sequence;
@@ -51,6 +54,10 @@ public final class ImageProvider {
 	private static final String FILE_PREFIX = "siedler3_";
 	private static final int LAST_SEQUENCE_NUMBER = 2;
 	private static final List<Integer> HIGHRES_IMAGE_FILE_NUMBERS = Arrays.asList(3, 14);
+	/**
+	 * The time the OpenGL preload tasks may take per frame. The first task of a frame is always executed.
+	 */
+	private static final long PRELOAD_TASKS_NANOS_PER_FRAME = 4 * 1000 * 1000;
 
 	private Queue<GLPreloadTask> tasks = new ConcurrentLinkedQueue<GLPreloadTask>();
 	private ImageIndexFile indexFile = null;
@@ -92,6 +99,22 @@ public final class ImageProvider {
 	 */
 	private List<File> lookupPaths = new ArrayList<File>();
 
+	private final List<ICacheProgressListener> cacheProgressListeners = new CopyOnWriteArrayList<ICacheProgressListener>();
+	private final ICacheProgressListener cacheProgressDispatcher = new ICacheProgressListener() {
+		@Override
+		public void progressChanged(float progress) {
+			for (ICacheProgressListener listener : cacheProgressListeners) {
+				listener.progressChanged(progress);
+			}
+		}
+	};
+	private Thread preloadThread;
+	/**
+	 * The pool loading the images in the background. It is <code>null</code> until the preloading has been started. Until then, all images are
+	 * loaded when they are requested.
+	 */
+	private volatile ImageLoadingPool loadingPool;
+
 	private ImageProvider() {
 	}
 
@@ -280,6 +303,16 @@ public final class ImageProvider {
 	 * @return The settler sequence.
 	 */
 	public Sequence<? extends Image> getSettlerSequence(int file, int seqnumber) {
+		ImageLoadingPool pool = loadingPool;
+		if (pool != null) {
+			AdvancedDatFileReader reader = getFileReader(file);
+			if (reader != null && !reader.isSettlerSequenceAvailable(seqnumber)) {
+				// don't block the drawing. The sequence is drawn as soon as it has been loaded.
+				loadSettlerSequence(pool, reader, file, seqnumber, EImageLoadPriority.VISIBLE);
+				return ArraySequence.getNullSequence();
+			}
+		}
+
 		DatFileSet set = getFileSet(file);
 		if (set != null && set.getSettlers().size() > seqnumber) {
 			return set.getSettlers().get(seqnumber);
@@ -288,6 +321,70 @@ public final class ImageProvider {
 		}
 	}
 
+	/**
+	 * Requests an image to be loaded in the background, so that it is available when it is needed. This has no effect if the preloading has not
+	 * been started.
+	 * 
+	 * @param link
+	 *            The link of the image.
+	 * @param priority
+	 *            The priority of the image.
+	 */
+	public void requestImage(ImageLink link, EImageLoadPriority priority) {
+		ImageLoadingPool pool = loadingPool;
+		if (pool == null || !(link instanceof OriginalImageLink)) {
+			return;
+		}
+
+		OriginalImageLink olink = (OriginalImageLink) link;
+		final AdvancedDatFileReader reader = getFileReader(olink.getFile());
+		if (reader == null) {
+			return;
+		}
+
+		final int sequence = olink.getSequence();
+		switch (olink.getType()) {
+		case SETTLER:
+			if (!reader.isSettlerSequenceAvailable(sequence)) {
+				loadSettlerSequence(pool, reader, olink.getFile(), sequence, priority);
+			}
+			break;
+		case GUI:
+			pool.add(getImageKey(EImageLinkType.GUI, olink.getFile(), sequence), priority, new Runnable() {
+				@Override
+				public void run() {
+					reader.getGuis().getImageSafe(sequence);
+				}
+			});
+			break;
+		case LANDSCAPE:
+			pool.add(getImageKey(EImageLinkType.LANDSCAPE, olink.getFile(), sequence), priority, new Runnable() {
+				@Override
+				public void run() {
+					reader.getLandscapes().getImageSafe(sequence);
+				}
+			});
+			break;
+		}
+	}
+
+	private static void loadSettlerSequence(ImageLoadingPool pool, final AdvancedDatFileReader reader, int file, final int sequence,
+			EImageLoadPriority priority) {
+		pool.add(getImageKey(EImageLinkType.SETTLER, file, sequence), priority, new Runnable() {
+			@Override
+			public void run() {
+				SequenceList<Image> settlers = reader.getSettlers();
+				if (sequence >= 0 && sequence < settlers.size()) {
+					settlers.get(sequence);
+				}
+			}
+		});
+	}
+
+	private static Long getImageKey(EImageLinkType type, int file, int sequence) {
+		return Long.valueOf(((long) type.ordinal() << 48) | ((long) file << 32) | (sequence & 0xffffffffL));
+	}
+
 	/**
 	 * marks all loaded images as invalid. TODO: ensure that they get deleted
 	 */
@@ -313,7 +410,8 @@ public final class ImageProvider {
 		File file = findFileInPaths(fileName);
 
 		if (file != null) {
-			return new AdvancedDatFileReader(file);
+			File cacheFile = new File(new File(ResourceManager.getSaveDirectory(), "cache"), fileName + ".cache");
+			return new AdvancedDatFileReader(file, cacheFile);
 		} else {
 			System.err.println("Could not find/load file " + fileName);
 			return null;
@@ -321,20 +419,42 @@ public final class ImageProvider {
 	}
 
 	/**
-	 * Starts preloading the images, if lookup paths have been set.
+	 * Starts preloading the images, if lookup paths have been set. On the first start, this writes the image cache, which may take a while.
+	 * <p>
+	 * From now on, settler sequences that have not been loaded yet are loaded in the background. Until they have been loaded, an empty sequence is
+	 * returned for them.
 	 * 
-	 * @return
+	 * @return The thread preloading the images. If the images are already being preloaded, the running thread is returned.
 	 */
-	public Thread startPreloading() {
-		if (!lookupPaths.isEmpty()) {
-			Thread thread = new Thread(new ImagePreloadTask(), "image preloader");
-			thread.start();
-			return thread;
+	public synchronized Thread startPreloading() {
+		if (preloadThread != null && preloadThread.isAlive()) {
+			return preloadThread;
+		} else if (!lookupPaths.isEmpty()) {
+			if (loadingPool == null) {
+				loadingPool = new ImageLoadingPool();
+			}
+			preloadThread = new Thread(new ImagePreloadTask(loadingPool, cacheProgressDispatcher), "image preloader");
+			preloadThread.start();
+			return preloadThread;
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Adds a listener that is informed about the progress of writing the image cache while preloading the images.
+	 * 
+	 * @param listener
+	 *            The listener. It is called by the preloading thread.
+	 */
+	public void addCacheProgressListener(ICacheProgressListener listener) {
+		cacheProgressListeners.add(listener);
+	}
+
+	public void removeCacheProgressListener(ICacheProgressListener listener) {
+		cacheProgressListeners.remove(listener);
+	}
+
 	/**
 	 * Adds a preload task that is executed on the OpenGl thread with a opengl context.
 	 * <p>
@@ -344,11 +464,21 @@ public final class ImageProvider {
 		tasks.add(task);
 	}
 
+	/**
+	 * Runs the preload tasks that have been added. To keep the frame rate, the tasks are only run for a few milliseconds per call. The remaining
+	 * tasks are run by the next calls.
+	 * 
+	 * @param context
+	 *            The context to use.
+	 */
 	public void runPreloadTasks(GLDrawContext context) {
+		long start = System.nanoTime();
 		GLPreloadTask task;
 		while ((task = tasks.poll()) != null) {
-			System.out.println("running opengl preload task");
 			task.run(context);
+			if (System.nanoTime() - start > PRELOAD_TASKS_NANOS_PER_FRAME) {
+				break;
+			}
 		}
 	}
 }
@@ -44,7 +44,6 @@ import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.sound.ISoundable;
 import jsettlers.graphics.image.Image;
-import jsettlers.graphics.image.SingleImage;
 import jsettlers.graphics.map.MapDrawContext;
 import jsettlers.graphics.map.draw.settlerimages.SettlerImageMap;
 import jsettlers.graphics.map.geometry.MapCoordinateConverter;
@@ -606,8 +605,8 @@ public class MapObjectDrawer {
 		Sequence<? extends Image> seq =
 				this.imageProvider.getSettlerSequence(OBJECTS_FILE, WAVES);
 		int len = seq.length();
-		int step = (animationStep / 2 + x / 2 + y / 2) % len;
-		if (step < len) {
+		if (len > 0) {
+			int step = (animationStep / 2 + x / 2 + y / 2) % len;
 			draw(seq.getImageSafe(step), x, y, color);
 		}
 	}
@@ -714,8 +713,10 @@ public class MapObjectDrawer {
 				this.imageProvider.getSettlerSequence(OBJECTS_FILE,
 						TREE_SEQUENCES[treeType]);
 
-		int step = getAnimationStep(x, y) % seq.length();
-		draw(seq.getImageSafe(step), x, y, color);
+		if (seq.length() > 0) {
+			int step = getAnimationStep(x, y) % seq.length();
+			draw(seq.getImageSafe(step), x, y, color);
+		}
 	}
 
 	private void drawTreeTest(int x, int y, float color) {
@@ -955,16 +956,12 @@ public class MapObjectDrawer {
 	}
 
 	private void drawWithConstructionMask(int x, int y, float maskState,
-			Image unsafeimage, float color) {
-		if (!(unsafeimage instanceof SingleImage)) {
-			return; // should not happen
-		}
+			Image image, float color) {
 		int height = context.getHeight(x, y);
 		float viewX = context.getConverter().getViewX(x, y, height);
 		float viewY = context.getConverter().getViewY(x, y, height);
 		int iColor = Color.getABGR(color, color, color, 1);
 
-		SingleImage image = (SingleImage) unsafeimage;
 		// number of tiles in x direction, can be adjusted for performance
 		int tiles = 6;
 
@@ -1008,9 +1005,11 @@ public class MapObjectDrawer {
 			int sequenceIndex, IMapObject object, float basecolor) {
 		Sequence<? extends Image> sequence =
 				this.imageProvider.getSettlerSequence(file, sequenceIndex);
-		int index = animationStep % sequence.length();
-		Color color = getColor(object);
-		draw(sequence.getImageSafe(index), x, y, color, basecolor);
+		if (sequence.length() > 0) {
+			int index = animationStep % sequence.length();
+			Color color = getColor(object);
+			draw(sequence.getImageSafe(index), x, y, color, basecolor);
+		}
 	}
 
 	private void drawByProgress(int x, int y, int file, int sequenceIndex,
@@ -21,7 +21,6 @@ import java.io.RandomAccessFile;
 import jsettlers.graphics.image.GuiImage;
 import jsettlers.graphics.image.Image;
 import jsettlers.graphics.image.LandscapeImage;
-import jsettlers.graphics.image.MultiImageMap;
 import jsettlers.graphics.image.NullImage;
 import jsettlers.graphics.image.SettlerImage;
 import jsettlers.graphics.image.ShadowImage;
@@ -204,8 +203,11 @@ public class AdvancedDatFileReader implements DatFileSet {
 	static final DatBitmapTranslator<GuiImage> GUI_TRANSLATOR =
 			new GuiTranslator();
 
-	private ByteReader reader = null;
+	private volatile ByteReader reader = null;
 	private final File file;
+	private final File cacheFile;
+	private volatile DatFileCache cache = null;
+	private volatile boolean initialized = false;
 
 	/**
 	 * This is a list of file positions where the settler sequences start.
@@ -244,7 +246,20 @@ public class AdvancedDatFileReader implements DatFileSet {
 	};
 
 	public AdvancedDatFileReader(File file) {
+		this(file, null);
+	}
+
+	/**
+	 * Creates a reader that reads the images from the given cache if it is up to date.
+	 * 
+	 * @param file
+	 *            The dat file.
+	 * @param cacheFile
+	 *            The file of the {@link DatFileCache} of the dat file or <code>null</code> if no cache should be used.
+	 */
+	public AdvancedDatFileReader(File file, File cacheFile) {
 		this.file = file;
+		this.cacheFile = cacheFile;
 		directSettlerList = new DirectSettlerSequenceList();
 	}
 
@@ -252,7 +267,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 	 * Initializes the reader, reads the index.
 	 */
 	@SuppressWarnings("unchecked")
-	public void initialize() {
+	public synchronized void initialize() {
 		try {
 			try {
 				reader = new ByteReader(new RandomAccessFile(file, "r"));
@@ -299,6 +314,11 @@ public class AdvancedDatFileReader implements DatFileSet {
 				torsostarts[i] = -1;
 			}
 		}
+
+		if (cacheFile != null) {
+			cache = DatFileCache.open(cacheFile, file);
+		}
+		initialized = true;
 	}
 
 	private void initFromReader(File file, ByteReader reader)
@@ -412,9 +432,27 @@ public class AdvancedDatFileReader implements DatFileSet {
 	}
 
 	private void initializeIfNeeded() {
-		if (settlersequences == null) {
-			initialize();
+		if (!initialized) {
+			synchronized (this) {
+				if (!initialized) {
+					initialize();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if a settler sequence can be returned without decoding its images, because it has already been loaded or can be read from the cache.
+	 * 
+	 * @param index
+	 *            The index of the sequence.
+	 * @return <code>false</code> if getting the sequence would read the dat file.
+	 */
+	public boolean isSettlerSequenceAvailable(int index) {
+		if (!initialized) {
+			return false;
 		}
+		return index < 0 || index >= settlersequences.length || settlersequences[index] != null || cache != null;
 	}
 
 	@Override
@@ -432,11 +470,17 @@ public class AdvancedDatFileReader implements DatFileSet {
 			initializeIfNeeded();
 			if (settlersequences[index] == null) {
 				settlersequences[index] = NULL_SETTLER_SEQUENCE;
-				try {
-					System.out.println("Loading Sequence number " + index);
-
-					loadSettlers(index);
-				} catch (Exception e) {
+				DatFileCache currentCache = cache;
+				Sequence<Image> cached = currentCache == null ? null : currentCache.getSettlerSequence(index);
+				if (cached != null) {
+					settlersequences[index] = cached;
+				} else {
+					try {
+						System.out.println("Loading Sequence number " + index);
+
+						loadSettlers(index);
+					} catch (Exception e) {
+					}
 				}
 			}
 			return settlersequences[index];
@@ -449,10 +493,11 @@ public class AdvancedDatFileReader implements DatFileSet {
 		}
 	}
 
-	private synchronized void loadSettlers(int index) throws IOException {
+	private void loadSettlers(int index) throws IOException {
+		ByteReader reader = createReader();
 
 		int position = settlerstarts[index];
-		long[] framePositions = readSequenceHeader(position);
+		long[] framePositions = readSequenceHeader(reader, position);
 
 		SettlerImage[] images = new SettlerImage[framePositions.length];
 		for (int i = 0; i < framePositions.length; i++) {
@@ -462,7 +507,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 		int torsoposition = torsostarts[index];
 		if (torsoposition >= 0) {
-			long[] torsoPositions = readSequenceHeader(torsoposition);
+			long[] torsoPositions = readSequenceHeader(reader, torsoposition);
 			for (int i = 0; i < torsoPositions.length
 					&& i < framePositions.length; i++) {
 				reader.skipTo(torsoPositions[i]);
@@ -475,7 +520,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 		settlersequences[index] = new ArraySequence<Image>(images);
 	}
 
-	private long[] readSequenceHeader(int position) throws IOException {
+	private static long[] readSequenceHeader(ByteReader reader, int position) throws IOException {
 		reader.skipTo(position);
 
 		reader.assumeToRead(START);
@@ -538,13 +583,19 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 	public ByteReader getReaderForLandscape(int index) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(landscapestarts[index]);
-		return reader;
+		return createReader().createReaderAt(landscapestarts[index]);
 	}
 
 	private void loadLandscapeImage(int index) {
+		DatFileCache currentCache = cache;
+		LandscapeImage cached = currentCache == null ? null : currentCache.getLandscapeImage(index);
+		if (cached != null) {
+			landscapeimages[index] = cached;
+			return;
+		}
+
 		try {
-			reader.skipTo(landscapestarts[index]);
+			ByteReader reader = createReader().createReaderAt(landscapestarts[index]);
 			LandscapeImage image =
 					DatBitmapReader.getImage(LANDSCAPE_TRANSLATOR, reader);
 			landscapeimages[index] = image;
@@ -592,8 +643,15 @@ public class AdvancedDatFileReader implements DatFileSet {
 	}
 
 	private void loadGuiImage(int index) {
+		DatFileCache currentCache = cache;
+		GuiImage cached = currentCache == null ? null : currentCache.getGuiImage(index);
+		if (cached != null) {
+			guiimages[index] = cached;
+			return;
+		}
+
 		try {
-			reader.skipTo(guistarts[index]);
+			ByteReader reader = createReader().createReaderAt(guistarts[index]);
 			GuiImage image = DatBitmapReader.getImage(GUI_TRANSLATOR, reader);
 			guiimages[index] = image;
 		} catch (IOException e) {
@@ -603,14 +661,22 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 	public long[] getSettlerPointers(int seqindex) throws IOException {
 		initializeIfNeeded();
-		return readSequenceHeader(settlerstarts[seqindex]);
+		return readSettlerPointers(createReader(), seqindex);
 	}
 
 	public long[] getTorsoPointers(int seqindex) throws IOException {
 		initializeIfNeeded();
+		return readTorsoPointers(createReader(), seqindex);
+	}
+
+	long[] readSettlerPointers(ByteReader reader, int seqindex) throws IOException {
+		return readSequenceHeader(reader, settlerstarts[seqindex]);
+	}
+
+	long[] readTorsoPointers(ByteReader reader, int seqindex) throws IOException {
 		int position = torsostarts[seqindex];
 		if (position >= 0) {
-			return readSequenceHeader(position);
+			return readSequenceHeader(reader, position);
 		} else {
 			return null;
 		}
@@ -625,18 +691,99 @@ public class AdvancedDatFileReader implements DatFileSet {
 	 */
 	public ByteReader getReaderForPointer(long pointer) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(pointer);
-		return reader;
+		return createReader().createReaderAt(pointer);
 	}
 
-	public void generateImageMap(int width, int height, int[] sequences,
-			String id) throws IOException {
+	/**
+	 * Creates a reader for the dat file that can be used independently of all other readers. All readers share the data of the file mapped into
+	 * memory, so creating a reader is cheap and the images can be decoded by multiple threads at the same time.
+	 * 
+	 * @return The new reader.
+	 * @throws IOException
+	 *             If the file could not be opened.
+	 */
+	ByteReader createReader() throws IOException {
+		ByteReader fileReader = reader;
+		if (fileReader == null) {
+			throw new IOException("Could not open " + file);
+		}
+		return fileReader.createReaderAt(0);
+	}
+
+	/**
+	 * Makes sure the {@link DatFileCache} of this file is up to date. If it is not, all images of the file are decoded and written to the cache.
+	 * Afterwards, the images are read from the cache. The settler sequences that have already been loaded are replaced by the ones on the texture
+	 * pages.
+	 * 
+	 * @param atlasSequences
+	 *            The settler sequences that are put on the first texture pages. The other settler sequences are put on the pages after them.
+	 * @param pageWidth
+	 *            The width of the texture pages.
+	 * @param pageHeight
+	 *            The height of the texture pages.
+	 * @param listener
+	 *            The listener that is informed about the progress of writing the cache.
+	 * @throws IOException
+	 *             If the cache could not be written.
+	 */
+	public void updateCache(int[] atlasSequences, int pageWidth, int pageHeight, ICacheProgressListener listener) throws IOException {
 		initializeIfNeeded();
+		if (cacheFile == null) {
+			return;
+		}
 
-		MultiImageMap map = new MultiImageMap(width, height, id);
-		if (!map.hasCache()) {
-			map.addSequences(this, sequences, settlersequences);
-			map.writeCache();
+		int atlasHash = DatFileCache.getAtlasHash(atlasSequences, pageWidth, pageHeight);
+		DatFileCache currentCache = cache;
+		if (currentCache == null || currentCache.getAtlasHash() != atlasHash) {
+			System.out.println("Writing image cache " + cacheFile);
+			new DatFileCacheWriter(this, pageWidth, pageHeight, listener).write(cacheFile, atlasSequences, atlasHash);
+			currentCache = DatFileCache.open(cacheFile, file);
+			if (currentCache == null) {
+				throw new IOException("Could not open the image cache " + cacheFile);
+			}
+			cache = currentCache;
+
+			// use the texture pages instead of the images that have already been loaded from the dat file.
+			for (int sequence = 0; sequence < settlersequences.length; sequence++) {
+				if (settlersequences[sequence] != null) {
+					Sequence<Image> cached = currentCache.getSettlerSequence(sequence);
+					if (cached != null) {
+						settlersequences[sequence] = cached;
+					}
+				}
+			}
 		}
+		listener.progressChanged(1);
+	}
+
+	/**
+	 * @return The cache the images are read from or <code>null</code> if the images are decoded from the dat file.
+	 */
+	public DatFileCache getCache() {
+		return cache;
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	int getSettlerSequenceCount() {
+		return settlerstarts.length;
+	}
+
+	int getGuiCount() {
+		return guistarts.length;
+	}
+
+	long getGuiPosition(int index) {
+		return guistarts[index];
+	}
+
+	int getLandscapeCount() {
+		return landscapestarts.length;
+	}
+
+	long getLandscapePosition(int index) {
+		return landscapestarts[index];
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.reader;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import jsettlers.graphics.image.GuiImage;
+import jsettlers.graphics.image.Image;
+import jsettlers.graphics.image.LandscapeImage;
+import jsettlers.graphics.image.MultiImageImage;
+import jsettlers.graphics.image.MultiImageMap;
+import jsettlers.graphics.image.SettlerImage;
+import jsettlers.graphics.image.Torso;
+import jsettlers.graphics.sequence.ArraySequence;
+import jsettlers.graphics.sequence.Sequence;
+
+/**
+ * A memory mapped cache of the decoded images of a dat file. The cache is written by the {@link DatFileCacheWriter} and lets the images be created
+ * without decoding them again. The image data is not copied: the images and texture pages use buffers pointing into the mapped file.
+ * <p>
+ * The file starts with a header (see {@link #HEADER_LENGTH}), followed by the pixel data of the texture pages and of the images that are not on a
+ * page. The index describing the pages and images is at the end of the file:
+ * <ul>
+ * <li>The pages: their count, then width, height and data position of every page.</li>
+ * <li>The settler sequences: their count, then for every sequence the number of images (-1 if the sequence could not be read) followed by the
+ * settler and the torso of every image.</li>
+ * <li>The gui images and the landscape images: their count, then every image.</li>
+ * </ul>
+ * An image is stored as a flag if it exists, its size and offset and either the page and position on the page or the position of its own data.
+ */
+public final class DatFileCache {
+	static final int MAGIC = 0x4a534943;
+	/**
+	 * Needs to be increased if the format of the cache changes.
+	 */
+	static final int VERSION = 2;
+	/**
+	 * Magic, version, length and modification time of the dat file, hash of the texture pages, byte order and position of the index.
+	 */
+	static final int HEADER_LENGTH = 4 + 4 + 8 + 8 + 4 + 4 + 8;
+	static final int NO_PAGE = -1;
+
+	private final ByteBuffer buffer;
+	private final int atlasHash;
+	private final MultiImageMap[] pages;
+	private final CachedImage[][] settlers;
+	private final CachedImage[][] torsos;
+	private final CachedImage[] guis;
+	private final CachedImage[] landscapes;
+
+	private DatFileCache(ByteBuffer buffer, int atlasHash) {
+		this.buffer = buffer;
+		this.atlasHash = atlasHash;
+
+		pages = new MultiImageMap[buffer.getInt()];
+		for (int i = 0; i < pages.length; i++) {
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			pages[i] = new MultiImageMap(width, height, getData(buffer.getLong(), width * height));
+		}
+
+		int sequenceCount = buffer.getInt();
+		settlers = new CachedImage[sequenceCount][];
+		torsos = new CachedImage[sequenceCount][];
+		for (int sequence = 0; sequence < sequenceCount; sequence++) {
+			int imageCount = buffer.getInt();
+			if (imageCount >= 0) {
+				settlers[sequence] = new CachedImage[imageCount];
+				torsos[sequence] = new CachedImage[imageCount];
+				for (int i = 0; i < imageCount; i++) {
+					settlers[sequence][i] = CachedImage.readFrom(buffer);
+					torsos[sequence][i] = CachedImage.readFrom(buffer);
+				}
+			}
+		}
+
+		guis = readImages(buffer);
+		landscapes = readImages(buffer);
+	}
+
+	private static CachedImage[] readImages(ByteBuffer buffer) {
+		CachedImage[] images = new CachedImage[buffer.getInt()];
+		for (int i = 0; i < images.length; i++) {
+			images[i] = CachedImage.readFrom(buffer);
+		}
+		return images;
+	}
+
+	/**
+	 * Opens the cache of the given dat file.
+	 * 
+	 * @param cacheFile
+	 *            The file of the cache.
+	 * @param datFile
+	 *            The dat file the cache was created for.
+	 * @return The cache or <code>null</code> if there is no cache or it does not belong to the current version of the dat file.
+	 */
+	public static DatFileCache open(File cacheFile, File datFile) {
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+
+		try {
+			RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+			try {
+				// check the header before the file is mapped, so that an outdated cache is not locked.
+				if (file.length() < HEADER_LENGTH || file.readInt() != MAGIC || file.readInt() != VERSION || file.readLong() != datFile.length()
+						|| file.readLong() != datFile.lastModified()) {
+					return null;
+				}
+				int atlasHash = file.readInt();
+				if (file.readInt() != getByteOrderId()) {
+					return null;
+				}
+				long indexPosition = file.readLong();
+
+				FileChannel channel = file.getChannel();
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+				buffer.position((int) indexPosition);
+				return new DatFileCache(buffer, atlasHash);
+			} finally {
+				file.close(); // the mapping stays valid
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read the image cache " + cacheFile + ": " + e.getMessage());
+		} catch (BufferUnderflowException e) {
+			System.err.println("The image cache " + cacheFile + " is corrupt.");
+		} catch (IllegalArgumentException e) {
+			System.err.println("The image cache " + cacheFile + " is corrupt.");
+		}
+		return null;
+	}
+
+	static int getByteOrderId() {
+		return ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 1 : 0;
+	}
+
+	/**
+	 * Calculates the hash identifying the images that are put on texture pages.
+	 * 
+	 * @param atlasSequences
+	 *            The settler sequences that are put on texture pages.
+	 * @param pageWidth
+	 *            The width of a texture page.
+	 * @param pageHeight
+	 *            The height of a texture page.
+	 * @return The hash.
+	 */
+	public static int getAtlasHash(int[] atlasSequences, int pageWidth, int pageHeight) {
+		return (Arrays.hashCode(atlasSequences) * 31 + pageWidth) * 31 + pageHeight;
+	}
+
+	public int getAtlasHash() {
+		return atlasHash;
+	}
+
+	/**
+	 * @return The texture pages of this cache.
+	 */
+	public MultiImageMap[] getPages() {
+		return pages.clone();
+	}
+
+	/**
+	 * Gets the texture pages the images of the given settler sequences are on.
+	 * 
+	 * @param sequences
+	 *            The indexes of the settler sequences.
+	 * @return The pages in the order they are stored in the cache.
+	 */
+	public MultiImageMap[] getPages(int[] sequences) {
+		boolean[] used = new boolean[pages.length];
+		for (int sequence : sequences) {
+			if (sequence >= 0 && sequence < settlers.length && settlers[sequence] != null) {
+				for (CachedImage settler : settlers[sequence]) {
+					if (settler != null && settler.page != NO_PAGE) {
+						used[settler.page] = true;
+					}
+				}
+			}
+		}
+
+		ArrayList<MultiImageMap> usedPages = new ArrayList<MultiImageMap>();
+		for (int page = 0; page < pages.length; page++) {
+			if (used[page]) {
+				usedPages.add(pages[page]);
+			}
+		}
+		return usedPages.toArray(new MultiImageMap[usedPages.size()]);
+	}
+
+	/**
+	 * Creates the images of a settler sequence.
+	 * 
+	 * @param index
+	 *            The index of the sequence.
+	 * @return The sequence or <code>null</code> if it is not in the cache.
+	 */
+	public Sequence<Image> getSettlerSequence(int index) {
+		if (index < 0 || index >= settlers.length || settlers[index] == null) {
+			return null;
+		}
+
+		CachedImage[] sequenceSettlers = settlers[index];
+		CachedImage[] sequenceTorsos = torsos[index];
+		Image[] images = new Image[sequenceSettlers.length];
+		for (int i = 0; i < images.length; i++) {
+			images[i] = createSettlerImage(sequenceSettlers[i], sequenceTorsos[i]);
+		}
+		return new ArraySequence<Image>(images);
+	}
+
+	private Image createSettlerImage(CachedImage settler, CachedImage torso) {
+		if (settler.page != NO_PAGE) {
+			// the writer puts the torso on the page of the settler
+			if (torso == null) {
+				return new MultiImageImage(pages[settler.page], settler.getMetadata(), settler.x, settler.y, null, 0, 0);
+			} else {
+				return new MultiImageImage(pages[settler.page], settler.getMetadata(), settler.x, settler.y, torso.getMetadata(), torso.x, torso.y);
+			}
+		} else {
+			SettlerImage image = new SettlerImage(settler.getMetadata(), getData(settler));
+			if (torso != null) {
+				image.setTorso(new Torso(torso.getMetadata(), getData(torso)));
+			}
+			return image;
+		}
+	}
+
+	/**
+	 * @return The gui image with the given index or <code>null</code> if it is not in the cache.
+	 */
+	public GuiImage getGuiImage(int index) {
+		if (index < 0 || index >= guis.length || guis[index] == null) {
+			return null;
+		}
+		return new GuiImage(guis[index].getMetadata(), getData(guis[index]));
+	}
+
+	/**
+	 * @return The landscape image with the given index or <code>null</code> if it is not in the cache.
+	 */
+	public LandscapeImage getLandscapeImage(int index) {
+		if (index < 0 || index >= landscapes.length || landscapes[index] == null) {
+			return null;
+		}
+		return new LandscapeImage(landscapes[index].getMetadata(), getData(landscapes[index]));
+	}
+
+	private ShortBuffer getData(CachedImage image) {
+		return getData(image.dataPosition, image.width * image.height);
+	}
+
+	private ShortBuffer getData(long position, int length) {
+		ByteBuffer data = buffer.duplicate();
+		data.limit((int) position + length * 2);
+		data.position((int) position);
+		return data.slice().order(ByteOrder.nativeOrder()).asShortBuffer();
+	}
+
+	/**
+	 * The index entry of an image.
+	 */
+	static final class CachedImage {
+		private final int width;
+		private final int height;
+		private final int offsetX;
+		private final int offsetY;
+		private final int page;
+		private final int x;
+		private final int y;
+		private final long dataPosition;
+
+		/**
+		 * Creates the entry of an image on a texture page.
+		 */
+		CachedImage(ImageMetadata metadata, int page, int x, int y) {
+			this(metadata, page, x, y, 0);
+		}
+
+		/**
+		 * Creates the entry of an image with its own data.
+		 */
+		CachedImage(ImageMetadata metadata, long dataPosition) {
+			this(metadata, NO_PAGE, 0, 0, dataPosition);
+		}
+
+		private CachedImage(ImageMetadata metadata, int page, int x, int y, long dataPosition) {
+			this(metadata.width, metadata.height, metadata.offsetX, metadata.offsetY, page, x, y, dataPosition);
+		}
+
+		private CachedImage(int width, int height, int offsetX, int offsetY, int page, int x, int y, long dataPosition) {
+			this.width = width;
+			this.height = height;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+			this.page = page;
+			this.x = x;
+			this.y = y;
+			this.dataPosition = dataPosition;
+		}
+
+		ImageMetadata getMetadata() {
+			ImageMetadata metadata = new ImageMetadata();
+			metadata.width = width;
+			metadata.height = height;
+			metadata.offsetX = offsetX;
+			metadata.offsetY = offsetY;
+			return metadata;
+		}
+
+		/**
+		 * Writes the given entry.
+		 * 
+		 * @param image
+		 *            The entry or <code>null</code> if the image does not exist.
+		 */
+		static void writeTo(DataOutputStream out, CachedImage image) throws IOException {
+			out.writeBoolean(image != null);
+			if (image != null) {
+				out.writeInt(image.width);
+				out.writeInt(image.height);
+				out.writeInt(image.offsetX);
+				out.writeInt(image.offsetY);
+				out.writeInt(image.page);
+				if (image.page == NO_PAGE) {
+					out.writeLong(image.dataPosition);
+				} else {
+					out.writeInt(image.x);
+					out.writeInt(image.y);
+				}
+			}
+		}
+
+		static CachedImage readFrom(ByteBuffer in) {
+			if (in.get() == 0) {
+				return null;
+			}
+
+			int width = in.getInt();
+			int height = in.getInt();
+			int offsetX = in.getInt();
+			int offsetY = in.getInt();
+			int page = in.getInt();
+			if (page == NO_PAGE) {
+				return new CachedImage(width, height, offsetX, offsetY, page, 0, 0, in.getLong());
+			} else {
+				int x = in.getInt();
+				int y = in.getInt();
+				return new CachedImage(width, height, offsetX, offsetY, page, x, y, 0);
+			}
+		}
+	}
+}
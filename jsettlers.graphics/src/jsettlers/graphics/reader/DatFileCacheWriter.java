@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.reader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import jsettlers.graphics.reader.DatFileCache.CachedImage;
+import jsettlers.graphics.reader.bytereader.ByteReader;
+import jsettlers.graphics.reader.translator.DatBitmapTranslator;
+
+/**
+ * Decodes all images of a dat file and writes them to a {@link DatFileCache}.
+ * <p>
+ * All settler sequences are packed on texture pages, so that the map can be drawn with few textures. The sequences given as atlas sequences are
+ * packed first, so that the images drawn most often share their pages. A settler and its torso are always put on the same page. The gui and
+ * landscape images and the settlers that are too big for a page are written one after the other.
+ */
+final class DatFileCacheWriter {
+	private final AdvancedDatFileReader datFile;
+	private final ICacheProgressListener listener;
+	private final AtlasPage page;
+
+	private final ArrayList<long[]> writtenPages = new ArrayList<long[]>();
+	private ByteBuffer writeBuffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.nativeOrder());
+
+	private ByteReader reader;
+	private FileChannel out;
+
+	private int imagesToWrite;
+	private int writtenImages;
+
+	DatFileCacheWriter(AdvancedDatFileReader datFile, int pageWidth, int pageHeight, ICacheProgressListener listener) {
+		this.datFile = datFile;
+		this.listener = listener;
+		this.page = new AtlasPage(pageWidth, pageHeight);
+	}
+
+	/**
+	 * Writes the cache. The cache is written to a temporary file first, so that the old cache file is only replaced by a complete one.
+	 * 
+	 * @param cacheFile
+	 *            The file to write the cache to.
+	 * @param atlasSequences
+	 *            The settler sequences to put on the first texture pages.
+	 * @param atlasHash
+	 *            The hash of the texture pages as given by {@link DatFileCache#getAtlasHash(int[], int, int)}.
+	 * @throws IOException
+	 *             If the cache could not be written.
+	 */
+	void write(File cacheFile, int[] atlasSequences, int atlasHash) throws IOException {
+		int sequenceCount = datFile.getSettlerSequenceCount();
+		imagesToWrite = sequenceCount + datFile.getGuiCount() + datFile.getLandscapeCount();
+		writtenImages = 0;
+
+		cacheFile.getParentFile().mkdirs();
+		File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+		RandomAccessFile file = new RandomAccessFile(tempFile, "rw");
+		reader = datFile.createReader();
+		try {
+			file.setLength(0);
+			out = file.getChannel();
+			out.position(DatFileCache.HEADER_LENGTH);
+
+			CachedImage[][] settlers = new CachedImage[sequenceCount][];
+			CachedImage[][] torsos = new CachedImage[sequenceCount][];
+			boolean[] written = new boolean[sequenceCount];
+			for (int sequence : atlasSequences) {
+				if (sequence >= 0 && sequence < sequenceCount && !written[sequence]) {
+					written[sequence] = true;
+					writeSettlers(sequence, settlers, torsos);
+				}
+			}
+			flushPage();
+
+			for (int sequence = 0; sequence < sequenceCount; sequence++) {
+				if (!written[sequence]) {
+					writeSettlers(sequence, settlers, torsos);
+				}
+			}
+			flushPage();
+
+			CachedImage[] guis = new CachedImage[datFile.getGuiCount()];
+			for (int i = 0; i < guis.length; i++) {
+				guis[i] = writeImageOrNull(AdvancedDatFileReader.GUI_TRANSLATOR, datFile.getGuiPosition(i));
+			}
+
+			CachedImage[] landscapes = new CachedImage[datFile.getLandscapeCount()];
+			for (int i = 0; i < landscapes.length; i++) {
+				landscapes[i] = writeImageOrNull(AdvancedDatFileReader.LANDSCAPE_TRANSLATOR, datFile.getLandscapePosition(i));
+			}
+
+			long indexPosition = out.position();
+			writeBytes(createIndex(settlers, torsos, guis, landscapes));
+			out.position(0);
+			writeBytes(createHeader(atlasHash, indexPosition));
+		} finally {
+			file.close();
+		}
+
+		cacheFile.delete();
+		if (!tempFile.renameTo(cacheFile)) {
+			tempFile.delete();
+			throw new IOException("Could not replace the image cache " + cacheFile);
+		}
+	}
+
+	private void writeSettlers(int sequence, CachedImage[][] settlers, CachedImage[][] torsos) {
+		try {
+			long[] settlerPointers = datFile.readSettlerPointers(reader, sequence);
+			long[] torsoPointers = datFile.readTorsoPointers(reader, sequence);
+
+			CachedImage[] sequenceSettlers = new CachedImage[settlerPointers.length];
+			CachedImage[] sequenceTorsos = new CachedImage[settlerPointers.length];
+			for (int i = 0; i < settlerPointers.length; i++) {
+				long torsoPointer = torsoPointers != null && i < torsoPointers.length ? torsoPointers[i] : -1;
+
+				if (!addToPage(settlerPointers[i], torsoPointer, sequenceSettlers, sequenceTorsos, i)) {
+					sequenceSettlers[i] = writeImage(AdvancedDatFileReader.SETTLER_TRANSLATOR, settlerPointers[i]);
+					if (torsoPointer >= 0) {
+						sequenceTorsos[i] = writeImage(AdvancedDatFileReader.TORSO_TRANSLATOR, torsoPointer);
+					}
+				}
+			}
+
+			settlers[sequence] = sequenceSettlers;
+			torsos[sequence] = sequenceTorsos;
+		} catch (IOException e) {
+			System.err.println("Could not cache sequence " + sequence + " of " + datFile.getFile() + ": " + e.getMessage());
+		}
+		imageWritten();
+	}
+
+	/**
+	 * Adds the settler and torso to the current page. If they don't fit on it, a new page is started.
+	 * 
+	 * @return false if the images are too big for an empty page.
+	 */
+	private boolean addToPage(long settlerPointer, long torsoPointer, CachedImage[] settlers, CachedImage[] torsos, int index)
+			throws IOException {
+		for (int attempt = 0; attempt < 2; attempt++) {
+			if (attempt > 0) {
+				if (page.isEmpty()) {
+					return false;
+				}
+				flushPage();
+			}
+
+			settlers[index] = page.add(AdvancedDatFileReader.SETTLER_TRANSLATOR, settlerPointer);
+			if (settlers[index] != null) {
+				if (torsoPointer < 0) {
+					return true;
+				}
+				torsos[index] = page.add(AdvancedDatFileReader.TORSO_TRANSLATOR, torsoPointer);
+				if (torsos[index] != null) {
+					return true;
+				}
+			}
+		}
+		settlers[index] = null;
+		return false;
+	}
+
+	private void flushPage() throws IOException {
+		if (!page.isEmpty()) {
+			writtenPages.add(new long[] { page.width, page.height, out.position() });
+			page.bytes.rewind();
+			writeBytes(page.bytes);
+			page.clear(writtenPages.size());
+		}
+	}
+
+	private CachedImage writeImageOrNull(DatBitmapTranslator<?> translator, long pointer) {
+		CachedImage image = null;
+		try {
+			image = writeImage(translator, pointer);
+		} catch (IOException e) {
+			System.err.println("Could not cache image at " + pointer + " of " + datFile.getFile() + ": " + e.getMessage());
+		}
+		imageWritten();
+		return image;
+	}
+
+	private CachedImage writeImage(DatBitmapTranslator<?> translator, long pointer) throws IOException {
+		ImageMetadata metadata = new ImageMetadata();
+		ShortArrayWriter data = new ShortArrayWriter();
+		reader.skipTo(pointer);
+		DatBitmapReader.uncompressImage(reader, translator, metadata, data);
+
+		short[] pixels = data.getArray();
+		if (writeBuffer.capacity() < pixels.length * 2) {
+			writeBuffer = ByteBuffer.allocate(pixels.length * 2).order(ByteOrder.nativeOrder());
+		}
+		writeBuffer.clear();
+		writeBuffer.asShortBuffer().put(pixels);
+		writeBuffer.limit(pixels.length * 2);
+
+		long position = out.position();
+		writeBytes(writeBuffer);
+		return new CachedImage(metadata, position);
+	}
+
+	private void writeBytes(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			out.write(bytes);
+		}
+	}
+
+	private void imageWritten() {
+		writtenImages++;
+		listener.progressChanged((float) writtenImages / imagesToWrite);
+	}
+
+	private ByteBuffer createIndex(CachedImage[][] settlers, CachedImage[][] torsos, CachedImage[] guis, CachedImage[] landscapes)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(bytes);
+
+		index.writeInt(writtenPages.size());
+		for (long[] writtenPage : writtenPages) {
+			index.writeInt((int) writtenPage[0]);
+			index.writeInt((int) writtenPage[1]);
+			index.writeLong(writtenPage[2]);
+		}
+
+		index.writeInt(settlers.length);
+		for (int sequence = 0; sequence < settlers.length; sequence++) {
+			if (settlers[sequence] == null) {
+				index.writeInt(-1);
+			} else {
+				index.writeInt(settlers[sequence].length);
+				for (int i = 0; i < settlers[sequence].length; i++) {
+					CachedImage.writeTo(index, settlers[sequence][i]);
+					CachedImage.writeTo(index, torsos[sequence][i]);
+				}
+			}
+		}
+
+		writeImages(index, guis);
+		writeImages(index, landscapes);
+
+		index.flush();
+		return ByteBuffer.wrap(bytes.toByteArray());
+	}
+
+	private static void writeImages(DataOutputStream index, CachedImage[] images) throws IOException {
+		index.writeInt(images.length);
+		for (CachedImage image : images) {
+			CachedImage.writeTo(index, image);
+		}
+	}
+
+	private ByteBuffer createHeader(int atlasHash, long indexPosition) {
+		ByteBuffer header = ByteBuffer.allocate(DatFileCache.HEADER_LENGTH);
+		header.putInt(DatFileCache.MAGIC);
+		header.putInt(DatFileCache.VERSION);
+		header.putLong(datFile.getFile().length());
+		header.putLong(datFile.getFile().lastModified());
+		header.putInt(atlasHash);
+		header.putInt(DatFileCache.getByteOrderId());
+		header.putLong(indexPosition);
+		header.flip();
+		return header;
+	}
+
+	/**
+	 * A texture page the images are packed on line by line.
+	 */
+	private final class AtlasPage implements ImageArrayProvider {
+		private final int width;
+		private final int height;
+		private final ByteBuffer bytes;
+		private final ShortBuffer pixels;
+		private final short[] emptyLine;
+
+		private int pageIndex = 0;
+		private int drawx = 0; // x coordinate of free space
+		private int linetop = 0;
+		private int linebottom = 0;
+		private int drawpointer = 0;
+		private boolean drawEnabled = false;
+		private int imageWidth;
+
+		AtlasPage(int width, int height) {
+			this.width = width;
+			this.height = height;
+			this.bytes = ByteBuffer.allocateDirect(width * height * 2).order(ByteOrder.nativeOrder());
+			this.pixels = bytes.asShortBuffer();
+			this.emptyLine = new short[width];
+		}
+
+		/**
+		 * Decodes the image at the given position onto this page.
+		 * 
+		 * @return The entry of the image or <code>null</code> if there is no space left for it.
+		 */
+		CachedImage add(DatBitmapTranslator<?> translator, long pointer) throws IOException {
+			ImageMetadata metadata = new ImageMetadata();
+			reader.skipTo(pointer);
+			DatBitmapReader.uncompressImage(reader, translator, metadata, this);
+			if (!drawEnabled) {
+				return null;
+			}
+			return new CachedImage(metadata, pageIndex, drawx - metadata.width, linetop);
+		}
+
+		boolean isEmpty() {
+			return drawx == 0 && linebottom == 0;
+		}
+
+		/**
+		 * Removes all images from this page.
+		 * 
+		 * @param newPageIndex
+		 *            The index of the next page.
+		 */
+		void clear(int newPageIndex) {
+			pixels.clear();
+			for (int y = 0; y < height; y++) {
+				pixels.put(emptyLine);
+			}
+			pageIndex = newPageIndex;
+			drawx = 0;
+			linetop = 0;
+			linebottom = 0;
+		}
+
+		@Override
+		public void startImage(int width, int height) throws IOException {
+			drawEnabled = false;
+			if (width > this.width) {
+				return;
+			}
+
+			if (this.width < drawx + width) {
+				if (linebottom + height <= this.height) {
+					linetop = linebottom;
+					drawx = 0;
+				} else {
+					return; // there is no space to open a new row
+				}
+			}
+
+			if (linetop + height < this.height) {
+				drawEnabled = true;
+				imageWidth = width;
+				drawpointer = drawx + linetop * this.width;
+				drawx += width;
+				linebottom = Math.max(linebottom, linetop + height);
+			}
+		}
+
+		@Override
+		public void writeLine(short[] data, int length) throws IOException {
+			if (drawEnabled) {
+				pixels.position(drawpointer);
+				pixels.put(data, 0, Math.min(length, imageWidth));
+				drawpointer += this.width;
+			}
+		}
+	}
+}
@@ -14,42 +14,32 @@
  *******************************************************************************/
 package jsettlers.graphics.reader.bytereader;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
 
 /**
  * This class provides a little endian wrapper of a reader.
+ * <p>
+ * The file is mapped into memory, so reading does not need a system call. A reader is not thread safe, but {@link #createReaderAt(long)} creates
+ * independent readers sharing the mapped data, so that several threads can read the same file at the same time.
  * 
  * @author michael
  */
 public class ByteReader {
 
-	private static final int CACHE_SIZE = 10000;
-
-	/**
-	 * The position the input stram is currently at.
-	 */
-	private long inputStreamPosition = 0;
-	/**
-	 * The current cache position the user is reading from next.
-	 * <p>
-	 * It may never be greater than CACHE_SIZE.
-	 * 
-	 * @see ByteReader#assertCacheHolds(int);
-	 */
-	private int cachePosition;
 	/**
-	 * The start of the cache in the file.
-	 * <p>
-	 * Initialize so that jump does good work.
+	 * The data of the whole file. The position of the buffer is the position in the file.
 	 */
-	private long cacheStart = -2 * CACHE_SIZE;
+	private final ByteBuffer buffer;
 
 	/**
-	 * The data cache
+	 * The file the data is mapped from or <code>null</code> if this reader was created by {@link #createReaderAt(long)}.
 	 */
-	private byte[] cache = new byte[CACHE_SIZE];
-
 	private final RandomAccessFile in;
 
 	/**
@@ -61,78 +51,49 @@ public class ByteReader {
 	 *             It an IO error occured.
 	 */
 	public ByteReader(RandomAccessFile in) throws IOException {
-		this.in = in;
-		jumpCachePosition(0);
+		this(map(in), in);
 	}
 
-	/**
-	 * Reads a 16 bit int.
-	 * 
-	 * @return The int.
-	 * @throws IOException
-	 *             If an io error occured.
-	 */
-	public int read16() throws IOException {
-		assertCacheHolds(2);
-
-		int c = this.cachePosition;
-		int byte0 = this.cache[c];
-		int byte1 = this.cache[c + 1];
-		this.cachePosition = c + 2;
+	private ByteReader(ByteBuffer buffer, RandomAccessFile in) {
+		this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+		this.in = in;
+	}
 
-		return (0xff & byte0) | ((0xff & byte1) << 8);
+	private static ByteBuffer map(RandomAccessFile in) throws IOException {
+		long length = in.length();
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("File too long to be mapped: " + length + " bytes");
+		}
+		return in.getChannel().map(MapMode.READ_ONLY, 0, length);
 	}
 
 	/**
-	 * Sets the cache position pointer and the cache so that the pointer is on the given position in the file.
+	 * Creates a new reader that reads the same data as this reader, but has its own position. The new reader does not need to be closed.
 	 * 
-	 * @param newCachePosition
-	 *            A file position
+	 * @param pos
+	 *            The position the new reader starts at.
+	 * @return The new reader.
 	 * @throws IOException
+	 *             If the position is outside of the data.
 	 */
-	private void jumpCachePosition(long newCachePosition) throws IOException {
-		long positionInCache = newCachePosition - this.cacheStart;
-		if (positionInCache >= 0 && positionInCache < CACHE_SIZE) {
-			this.cachePosition = (int) positionInCache;
-		} else {
-			// we have to reload...
-			this.in.seek(newCachePosition);
-			this.inputStreamPosition = newCachePosition;
-			this.cacheStart = this.inputStreamPosition;
-
-			this.inputStreamPosition += this.in.read(this.cache, 0, CACHE_SIZE);
-			this.cachePosition = 0;
-		}
+	public ByteReader createReaderAt(long pos) throws IOException {
+		ByteReader reader = new ByteReader(buffer.duplicate(), null);
+		reader.skipTo(pos);
+		return reader;
 	}
 
 	/**
-	 * Asserts that the cache hold bytecount valid bytes.
-	 * <p>
-	 * if the rest of the cache is not long enough
+	 * Reads a 16 bit int.
 	 * 
-	 * @param bytecount
+	 * @return The int.
 	 * @throws IOException
+	 *             If an io error occured.
 	 */
-	private void assertCacheHolds(int bytecount) throws IOException {
-
-		if (bytecount >= CACHE_SIZE) {
-			throw new IllegalArgumentException(
-					"Cache buffer to small to read that many bytes");
-		}
-
-		int remaining = CACHE_SIZE - this.cachePosition;
-		if (remaining < bytecount) {
-			// refill buffer
-			for (int i = 0; i < remaining; i++) {
-				this.cache[i] = this.cache[this.cachePosition + i];
-			}
-
-			// todo: save until where cache is valid, if file to long.
-			int length = (int) Math.min(CACHE_SIZE - remaining, this.in.length() - this.in.getFilePointer());
-			this.inputStreamPosition += this.in.read(this.cache, remaining, length);
-			// TODO: store how long buffer is valid
-			this.cacheStart += this.cachePosition;
-			this.cachePosition = 0;
+	public int read16() throws IOException {
+		try {
+			return 0xffff & buffer.getShort();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
 		}
 	}
 
@@ -144,18 +105,11 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public int read32() throws IOException {
-		assertCacheHolds(4);
-
-		byte byte0 = this.cache[this.cachePosition++];
-		byte byte1 = this.cache[this.cachePosition++];
-		byte byte2 = this.cache[this.cachePosition++];
-		byte byte3 = this.cache[this.cachePosition++];
-
-		int value =
-				(0xff & byte0) | ((0xff & byte1) << 8)
-						| ((0xff & byte2) << 16)
-						| ((0xff & byte3) << 24);
-		return value;
+		try {
+			return buffer.getInt();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
+		}
 	}
 
 	/**
@@ -167,14 +121,15 @@ public class ByteReader {
 	 *             If the read data does not match the given data.
 	 */
 	public void assumeToRead(byte[] toRead) throws IOException {
-		assertCacheHolds(toRead.length);
-		byte[] realRead = new byte[toRead.length];
+		if (buffer.remaining() < toRead.length) {
+			throw endOfData();
+		}
 
 		for (int i = 0; i < toRead.length; i++) {
-			byte read = this.cache[this.cachePosition++];
+			byte read = buffer.get();
 			if (read != toRead[i]) {
 				throw new IOException("IO error: expected to read " + toRead[i]
-						+ " but got " + realRead[i]);
+						+ " but got " + read);
 			}
 		}
 	}
@@ -187,11 +142,10 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public int read16signed() throws IOException {
-		int read = read16();
-		if (read < 0x8000) {
-			return read;
-		} else {
-			return read - 0x10000;
+		try {
+			return buffer.getShort();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
 		}
 	}
 
@@ -203,14 +157,15 @@ public class ByteReader {
 	 *             If an io error occured.
 	 */
 	public int read8() throws IOException {
-		assertCacheHolds(1);
-		return 0xff & this.cache[this.cachePosition++];
+		try {
+			return 0xff & buffer.get();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
+		}
 	}
 
 	/**
 	 * Reads a byte stream from the stream.
-	 * <p>
-	 * Warning: this is not guaranteed to work for long arrays.
 	 * 
 	 * @param b
 	 *            The byte array to read to.
@@ -223,12 +178,12 @@ public class ByteReader {
 	 *             If an io error occurred.
 	 */
 	public int read(byte[] b, int off, int len) throws IOException {
-		assertCacheHolds(len);
-
-		for (int i = 0; i < len; i++) {
-			b[off + i] = this.cache[this.cachePosition++];
+		try {
+			buffer.get(b, off, len);
+			return len;
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
 		}
-		return len;
 	}
 
 	/**
@@ -241,27 +196,37 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public long skipTo(long pos) throws IOException {
-		jumpCachePosition(pos);
-		return this.cacheStart + this.cachePosition;
+		if (pos < 0 || pos > buffer.limit()) {
+			throw new IOException("Position " + pos + " is outside of the data of length " + buffer.limit());
+		}
+		buffer.position((int) pos);
+		return pos;
 	}
 
 	/**
-	 * gets the number of read or skipped bytes. It is equal to the position in the stream, as long as no {@link IOException}s occurred and reset()
-	 * was not used.
+	 * gets the number of read or skipped bytes. It is equal to the position in the stream.
 	 * 
 	 * @return The number.
 	 */
 	public long getReadBytes() {
-		return this.cacheStart + this.cachePosition;
+		return buffer.position();
+	}
+
+	private EOFException endOfData() {
+		return new EOFException("Unexpected end of data at position " + buffer.position());
 	}
 
 	/**
-	 * Closes the underlying stream.
+	 * Closes the underlying stream. Readers created by {@link #createReaderAt(long)} don't need to be closed.
+	 * <p>
+	 * The mapped data stays valid until all readers sharing it have been garbage collected.
 	 * 
 	 * @throws IOException
 	 *             If the close failed.
 	 */
 	public void close() throws IOException {
-		this.in.close();
+		if (in != null) {
+			in.close();
+		}
 	}
 }
@@ -15,6 +15,7 @@
 package jsettlers.algorithms.borders;
 
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
@@ -29,6 +30,7 @@ public class BordersThread implements Runnable {
 
 	private final IBordersThreadGrid grid;
 	private final LinkedBlockingQueue<ShortPoint2D> positionsQueue = new LinkedBlockingQueue<ShortPoint2D>();
+	private final AtomicInteger pendingPositions = new AtomicInteger();
 	private final Thread bordersThread;
 
 	private boolean canceled = false;
@@ -58,6 +60,7 @@ public class BordersThread implements Runnable {
 			}
 			if (!canceled) {
 				calculateForPosition(position);
+				pendingPositions.decrementAndGet();
 			}
 		}
 	}
@@ -106,15 +109,28 @@ public class BordersThread implements Runnable {
 	}
 
 	public void checkPosition(ShortPoint2D position) {
+		pendingPositions.incrementAndGet();
 		this.positionsQueue.offer(position);
 	}
 
 	public void checkPositions(Iterable<ShortPoint2D> positions) {
 		for (ShortPoint2D currPos : positions) {
+			pendingPositions.incrementAndGet();
 			positionsQueue.offer(currPos);
 		}
 	}
 
+	/**
+	 * Blocks until all positions that have been queued before this call have been calculated. Returns immediately if the thread is not running.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void waitUntilIdle() throws InterruptedException {
+		while (pendingPositions.get() > 0 && bordersThread.isAlive()) {
+			Thread.sleep(1);
+		}
+	}
+
 	public void cancel() {
 		this.canceled = true;
 		bordersThread.interrupt();
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.algorithms.fogofwar;
 
+import java.util.Arrays;
+
 import jsettlers.common.CommonConstants;
 import jsettlers.common.map.shapes.MapCircle;
 import jsettlers.common.map.shapes.MapCircleIterator;
@@ -31,6 +33,20 @@ public final class CachedViewCircle {
 	final byte[] sight;
 	final int size;
 
+	/**
+	 * The maximum absolute x or y coordinate of a position of the circle.
+	 */
+	private final int extent;
+	private final int lookupWidth;
+	/**
+	 * The sight values of the circle positions indexed by (y + extent) * lookupWidth + x + extent. Positions outside the circle have a value of -1.
+	 */
+	private final byte[] sightLookup;
+	/**
+	 * The changes of moving this circle by one position, indexed by (dy + 1) * 3 + dx + 1. They are created when they are used first.
+	 */
+	private final MoveDelta[] moveDeltas = new MoveDelta[9];
+
 	public CachedViewCircle(int radius) {
 		radius -= FogOfWar.PADDING / 2;
 		MapCircle circle = new MapCircle(0, 0, radius + FogOfWar.PADDING);
@@ -63,6 +79,56 @@ public final class CachedViewCircle {
 
 			i++;
 		}
+
+		int maxCoordinate = 0;
+		for (i = 0; i < size; i++) {
+			maxCoordinate = Math.max(maxCoordinate, Math.max(Math.abs(x[i]), Math.abs(y[i])));
+		}
+		extent = maxCoordinate;
+		lookupWidth = 2 * extent + 1;
+		sightLookup = new byte[lookupWidth * lookupWidth];
+		Arrays.fill(sightLookup, (byte) -1);
+		for (i = 0; i < size; i++) {
+			sightLookup[(y[i] + extent) * lookupWidth + x[i] + extent] = sight[i];
+		}
+	}
+
+	/**
+	 * Gets the sight value of the given position relative to the center of the circle.
+	 * 
+	 * @param dx
+	 * @param dy
+	 * @return The sight value of the position or -1 if the position is not part of this circle.
+	 */
+	public byte getSight(int dx, int dy) {
+		if (dx < -extent || dx > extent || dy < -extent || dy > extent) {
+			return -1;
+		}
+		return sightLookup[(dy + extent) * lookupWidth + dx + extent];
+	}
+
+	/**
+	 * @return The maximum absolute x or y coordinate of a position of this circle.
+	 */
+	public int getExtent() {
+		return extent;
+	}
+
+	/**
+	 * Gets the positions whose sight changes if the center of this circle moves by the given offset.
+	 * 
+	 * @param dx
+	 *            The x offset of the move in [-1, 1].
+	 * @param dy
+	 *            The y offset of the move in [-1, 1].
+	 * @return The changed positions relative to the new center.
+	 */
+	MoveDelta getMoveDelta(int dx, int dy) {
+		final int deltaIndex = (dy + 1) * 3 + dx + 1;
+		if (moveDeltas[deltaIndex] == null) {
+			moveDeltas[deltaIndex] = new MoveDelta(this, dx, dy);
+		}
+		return moveDeltas[deltaIndex];
 	}
 
 	private int countElements(MapCircle circle) {
@@ -76,6 +142,81 @@ public final class CachedViewCircle {
 		return counter;
 	}
 
+	/**
+	 * The positions whose sight changes if the circle moves by one position, relative to the new center. The positions that become
+	 * {@link CommonConstants#FOG_OF_WAR_VISIBLE} and the positions that stop being {@link CommonConstants#FOG_OF_WAR_VISIBLE} are listed one by one.
+	 * The other changed positions are given as spans of the rows.
+	 */
+	static final class MoveDelta {
+		final short[] gainedX;
+		final short[] gainedY;
+		final int gainedCount;
+		final short[] lostX;
+		final short[] lostY;
+		final int lostCount;
+		final short[] spanY;
+		final short[] spanMinX;
+		final short[] spanMaxX;
+		final int spanCount;
+
+		private MoveDelta(CachedViewCircle circle, int dx, int dy) {
+			final int extent = circle.extent + 1;
+			final int maxCount = (2 * extent + 1) * (2 * extent + 1);
+			short[] gainedX = new short[maxCount];
+			short[] gainedY = new short[maxCount];
+			short[] lostX = new short[maxCount];
+			short[] lostY = new short[maxCount];
+			short[] spanY = new short[maxCount];
+			short[] spanMinX = new short[maxCount];
+			short[] spanMaxX = new short[maxCount];
+			int gainedCount = 0;
+			int lostCount = 0;
+			int spanCount = 0;
+
+			for (int y = -extent; y <= extent; y++) {
+				boolean inSpan = false;
+				for (int x = -extent; x <= extent; x++) {
+					byte oldSight = circle.getSight(x + dx, y + dy);
+					byte newSight = circle.getSight(x, y);
+					boolean changed = false;
+
+					if (newSight == CommonConstants.FOG_OF_WAR_VISIBLE && oldSight != CommonConstants.FOG_OF_WAR_VISIBLE) {
+						gainedX[gainedCount] = (short) x;
+						gainedY[gainedCount] = (short) y;
+						gainedCount++;
+					} else if (oldSight == CommonConstants.FOG_OF_WAR_VISIBLE && newSight != CommonConstants.FOG_OF_WAR_VISIBLE) {
+						lostX[lostCount] = (short) x;
+						lostY[lostCount] = (short) y;
+						lostCount++;
+					} else {
+						changed = oldSight != newSight;
+					}
+
+					if (changed) {
+						if (!inSpan) {
+							spanY[spanCount] = (short) y;
+							spanMinX[spanCount] = (short) x;
+							spanCount++;
+						}
+						spanMaxX[spanCount - 1] = (short) x;
+					}
+					inSpan = changed;
+				}
+			}
+
+			this.gainedX = Arrays.copyOf(gainedX, gainedCount);
+			this.gainedY = Arrays.copyOf(gainedY, gainedCount);
+			this.gainedCount = gainedCount;
+			this.lostX = Arrays.copyOf(lostX, lostCount);
+			this.lostY = Arrays.copyOf(lostY, lostCount);
+			this.lostCount = lostCount;
+			this.spanY = Arrays.copyOf(spanY, spanCount);
+			this.spanMinX = Arrays.copyOf(spanMinX, spanCount);
+			this.spanMaxX = Arrays.copyOf(spanMaxX, spanCount);
+			this.spanCount = spanCount;
+		}
+	}
+
 	public CachedViewCircleIterator iterator(int xOffset, int yOffset) {
 		return new CachedViewCircleIterator(xOffset, yOffset);
 	}
@@ -84,7 +225,7 @@ public final class CachedViewCircle {
 		private final int xOffset;
 		private final int yOffset;
 
-		private int idx;
+		private int idx = -1;
 
 		public CachedViewCircleIterator(int xOffset, int yOffset) {
 			this.xOffset = xOffset;
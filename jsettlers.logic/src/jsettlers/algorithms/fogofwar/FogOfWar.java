@@ -17,14 +17,12 @@ package jsettlers.algorithms.fogofwar;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
+import java.util.BitSet;
 
 import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
-import jsettlers.common.logging.MilliStopWatch;
-import jsettlers.common.logging.StopWatch;
 import jsettlers.common.player.IPlayerable;
-import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.MatchConstants;
 
 /**
@@ -39,17 +37,40 @@ public final class FogOfWar implements Serializable {
 	 */
 	static final byte MAX_VIEWDISTANCE = 65;
 	static final int PADDING = 10;
+	static final byte DIM_DOWN_SPEED = 10;
+	/**
+	 * Time between two dim down steps of the sight in ms.
+	 */
+	private static final int DIM_DOWN_PERIOD = 800;
+	/**
+	 * Time between two incremental updates in ms. Must be a divisor of {@link #DIM_DOWN_PERIOD}.
+	 */
+	private static final int INCREMENTAL_UPDATE_PERIOD = 200;
 
-	private final byte player;
+	// the fields are not final, because readObject() sets them
+	private byte player;
 
-	final short width;
-	final short height;
-	byte[][] sight;
+	short width;
+	short height;
+	/**
+	 * The sight values of the positions stored line by line (index = x + y * width).
+	 */
+	byte[] sight;
 
 	private transient boolean enabled = true;
 	transient private IFogOfWarGrid grid;
 	private transient boolean canceled;
 
+	private transient int tilesPerLine;
+	/**
+	 * Tiles changed by the fog of war thread since the last publishing. Only accessed by the fog of war thread.
+	 */
+	private transient BitSet pendingChangedTiles;
+	/**
+	 * Tiles changed since the last call to {@link #collectChangedTiles(BitSet)}.
+	 */
+	private transient BitSet changedTiles;
+
 	public FogOfWar(short width, short height) {
 		this(width, height, (byte) 0, false);
 	}
@@ -58,22 +79,44 @@ public final class FogOfWar implements Serializable {
 		this.width = width;
 		this.height = height;
 		this.player = player;
-		this.sight = new byte[width][height];
+		this.sight = new byte[width * height];
 
-		byte defaultSight = 0;
 		if (exploredOnStart) {
-			defaultSight = CommonConstants.FOG_OF_WAR_EXPLORED;
-		}
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				sight[x][y] = defaultSight;
-			}
+			Arrays.fill(sight, (byte) CommonConstants.FOG_OF_WAR_EXPLORED);
 		}
+
+		initChangedTiles();
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		player = fields.get("player", (byte) 0);
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+
+		Object storedSight = fields.get("sight", null);
+		if (storedSight instanceof byte[][]) { // savegames of the old format store the sight by columns
+			byte[][] columns = (byte[][]) storedSight;
+			sight = new byte[width * height];
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					sight[x + y * width] = columns[x][y];
+				}
+			}
+		} else {
+			sight = (byte[]) storedSight;
+		}
+
 		enabled = true;
+		initChangedTiles();
+	}
+
+	private void initChangedTiles() {
+		tilesPerLine = (width + CommonConstants.FOG_OF_WAR_TILE_SIZE - 1) >> CommonConstants.FOG_OF_WAR_TILE_BITS;
+		int tilesPerColumn = (height + CommonConstants.FOG_OF_WAR_TILE_SIZE - 1) >> CommonConstants.FOG_OF_WAR_TILE_BITS;
+		pendingChangedTiles = new BitSet(tilesPerLine * tilesPerColumn);
+		changedTiles = new BitSet(tilesPerLine * tilesPerColumn);
+		changedTiles.set(0, tilesPerLine * tilesPerColumn);
 	}
 
 	public void start(IFogOfWarGrid grid) {
@@ -93,93 +136,118 @@ public final class FogOfWar implements Serializable {
 	 */
 	public final byte getVisibleStatus(int x, int y) {
 		if (enabled) {
-			return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+			return (byte) Math.min(sight[x + y * width], CommonConstants.FOG_OF_WAR_VISIBLE);
 		} else {
 			return CommonConstants.FOG_OF_WAR_VISIBLE;
 		}
 	}
 
-	private final boolean isPlayerOK(IPlayerable playerable) {
+	final boolean isPlayerOK(IPlayerable playerable) {
 		return (MatchConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR || (playerable.getPlayerId() == player));
 	}
 
+	/**
+	 * Checks if a position of a view circle is on the map. This check is used by all ways of updating the sight, so that they give the same result.
+	 */
+	final boolean isInMap(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+
 	public final boolean isVisible(int centerx, int centery) {
-		return sight[centerx][centery] >= CommonConstants.FOG_OF_WAR_VISIBLE;
+		return sight[centerx + centery * width] >= CommonConstants.FOG_OF_WAR_VISIBLE;
 	}
 
 	public final void toggleEnabled() {
 		enabled = !enabled;
+
+		synchronized (changedTiles) { // the visible status of all positions changed
+			changedTiles.set(0, changedTiles.size());
+		}
 	}
 
-	final class NewFoWThread extends Thread {
-		private static final byte DIM_DOWN_SPEED = 10;
-		private final CircleDrawer drawer;
-		private byte[][] buffer;
+	/**
+	 * Marks the tile of the given position as changed. Must only be called by the fog of war thread.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	final void markChanged(int x, int y) {
+		pendingChangedTiles.set((x >> CommonConstants.FOG_OF_WAR_TILE_BITS) + (y >> CommonConstants.FOG_OF_WAR_TILE_BITS) * tilesPerLine);
+	}
 
+	/**
+	 * Makes the tiles marked by {@link #markChanged(int, int)} available for {@link #collectChangedTiles(BitSet)}.
+	 */
+	final void publishChangedTiles() {
+		if (!pendingChangedTiles.isEmpty()) {
+			synchronized (changedTiles) {
+				changedTiles.or(pendingChangedTiles);
+			}
+			pendingChangedTiles.clear();
+		}
+	}
+
+	/**
+	 * Adds the tiles whose visible status changed since the last call of this method to the given {@link BitSet}. A tile contains
+	 * {@link CommonConstants#FOG_OF_WAR_TILE_SIZE} x {@link CommonConstants#FOG_OF_WAR_TILE_SIZE} positions. The tile of position (x, y) has the
+	 * index (x / {@link CommonConstants#FOG_OF_WAR_TILE_SIZE}) + (y / {@link CommonConstants#FOG_OF_WAR_TILE_SIZE}) * tilesPerLine, with
+	 * tilesPerLine = ceil(width / {@link CommonConstants#FOG_OF_WAR_TILE_SIZE}).
+	 * 
+	 * @param result
+	 *            The {@link BitSet} the changed tiles are added to.
+	 */
+	public final void collectChangedTiles(BitSet result) {
+		synchronized (changedTiles) {
+			result.or(changedTiles);
+			changedTiles.clear();
+		}
+	}
+
+	static int getCircleRadius(int viewDistance) {
+		return Math.min(viewDistance + PADDING, MAX_VIEWDISTANCE - 1);
+	}
+
+	final class NewFoWThread extends Thread {
 		NewFoWThread() {
 			super("NewFoWThread");
 			super.setDaemon(true);
-			this.buffer = new byte[width][height];
-			drawer = new CircleDrawer();
 		}
 
 		@Override
 		public final void run() {
 			mySleep(500);
 
+			if (MatchConstants.ENABLE_INCREMENTAL_FOG_OF_WAR) {
+				runIncrementalUpdates();
+			} else {
+				runFullRebuilds();
+			}
+		}
+
+		private void runFullRebuilds() {
+			FullFogOfWarRebuilder rebuilder = new FullFogOfWarRebuilder(FogOfWar.this);
+
 			while (!canceled) {
-				StopWatch watch = new MilliStopWatch();
-				watch.restart();
 				if (enabled) {
-					rebuildSight();
+					rebuilder.rebuild(grid.getBuildingViewDistancables(), grid.getMovableViewDistancables());
 				}
-				// watch.stop("NewFoWThread needed: ");
 
-				mySleep(800);
+				mySleep(DIM_DOWN_PERIOD);
 			}
 		}
 
-		private final void rebuildSight() {
-			drawer.setBuffer(buffer);
+		private void runIncrementalUpdates() {
+			IncrementalFogOfWarUpdater updater = new IncrementalFogOfWarUpdater(FogOfWar.this);
+			final int updatesPerDimDown = DIM_DOWN_PERIOD / INCREMENTAL_UPDATE_PERIOD;
+			int updates = 0;
 
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
-
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
-						}
-					} else {
-						buffer[x][y] = sight[x][y];
-					}
+			while (!canceled) {
+				if (enabled) {
+					updates++;
+					updater.update(grid.getBuildingViewDistancables(), grid.getMovableViewDistancables(), updates % updatesPerDimDown == 0);
 				}
-			}
-
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
-
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
 
-			byte[][] temp = sight;
-			sight = buffer;
-			buffer = temp;
-		}
-
-		private final void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
-			for (IViewDistancable curr : objects) {
-				if (isPlayerOK(curr)) {
-					short distance = curr.getViewDistance();
-					if (distance > 0) {
-						ShortPoint2D pos = curr.getPos();
-						if (pos != null)
-							drawer.drawCircleToBuffer(pos.x, pos.y, distance);
-					}
-				}
+				mySleep(INCREMENTAL_UPDATE_PERIOD);
 			}
 		}
 
@@ -194,16 +262,15 @@ public final class FogOfWar implements Serializable {
 	}
 
 	final class CircleDrawer {
-		private byte[][] buffer;
+		private byte[] buffer;
 		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEWDISTANCE];
 
-		public final void setBuffer(byte[][] buffer) {
+		public final void setBuffer(byte[] buffer) {
 			this.buffer = buffer;
 		}
 
 		/**
-		 * Draws a circle to the buffer line. Each point is only brightened and onlydrawn if its x coordinate is in [0, mapWidth - 1] and its computed
-		 * y coordinate is bigger than 0.
+		 * Draws a circle to the buffer line. Each point is only brightened and only drawn if it is on the map.
 		 */
 		final void drawCircleToBuffer(int bufferX, int bufferY, int viewDistance) {
 			CachedViewCircle circle = getCachedCircle(viewDistance);
@@ -213,12 +280,13 @@ public final class FogOfWar implements Serializable {
 				final int x = iterator.getCurrX();
 				final int y = iterator.getCurrY();
 
-				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
+				if (isInMap(x, y)) {
+					final int index = x + y * width;
+					byte oldSight = buffer[index];
 					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
 						byte newSight = iterator.getCurrSight();
 						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
+							buffer[index] = newSight;
 						}
 					}
 				}
@@ -226,7 +294,7 @@ public final class FogOfWar implements Serializable {
 		}
 
 		private CachedViewCircle getCachedCircle(int viewDistance) {
-			int radius = Math.min(viewDistance + PADDING, MAX_VIEWDISTANCE - 1);
+			int radius = getCircleRadius(viewDistance);
 			if (cachedCircles[radius] == null) {
 				cachedCircles[radius] = new CachedViewCircle(radius);
 			}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.algorithms.fogofwar.FogOfWar.CircleDrawer;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Rebuilds the sight of a {@link FogOfWar} from scratch. All positions are dimmed down one step and the view circles of all viewers are drawn
+ * again.
+ */
+public final class FullFogOfWarRebuilder {
+	private final FogOfWar fogOfWar;
+	private final CircleDrawer drawer;
+	private byte[] buffer;
+
+	public FullFogOfWarRebuilder(FogOfWar fogOfWar) {
+		this.fogOfWar = fogOfWar;
+		this.drawer = fogOfWar.new CircleDrawer();
+		this.buffer = new byte[fogOfWar.width * fogOfWar.height];
+	}
+
+	public void rebuild(ConcurrentLinkedQueue<? extends IViewDistancable> buildings, ConcurrentLinkedQueue<? extends IViewDistancable> movables) {
+		final byte[] sight = fogOfWar.sight;
+		final short width = fogOfWar.width;
+		final short height = fogOfWar.height;
+
+		drawer.setBuffer(buffer);
+
+		for (int index = 0; index < buffer.length; index++) {
+			byte currSight = sight[index];
+
+			if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+				byte newSight = (byte) (currSight - FogOfWar.DIM_DOWN_SPEED);
+				if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
+					buffer[index] = CommonConstants.FOG_OF_WAR_EXPLORED;
+				} else {
+					buffer[index] = newSight;
+				}
+			} else {
+				buffer[index] = currSight;
+			}
+		}
+
+		applyViewDistances(buildings);
+		applyViewDistances(movables);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (buffer[x + y * width] != sight[x + y * width]) {
+					fogOfWar.markChanged(x, y);
+				}
+			}
+		}
+
+		fogOfWar.sight = buffer;
+		buffer = sight;
+
+		fogOfWar.publishChangedTiles();
+	}
+
+	private void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+		for (IViewDistancable curr : objects) {
+			if (fogOfWar.isPlayerOK(curr)) {
+				short distance = curr.getViewDistance();
+				if (distance > 0) {
+					ShortPoint2D pos = curr.getPos();
+					if (pos != null)
+						drawer.drawCircleToBuffer(pos.x, pos.y, distance);
+				}
+			}
+		}
+	}
+}
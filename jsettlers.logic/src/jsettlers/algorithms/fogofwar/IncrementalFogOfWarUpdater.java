@@ -0,0 +1,508 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.algorithms.fogofwar.CachedViewCircle.MoveDelta;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Updates the sight of a {@link FogOfWar} incrementally.
+ * <p>
+ * For every position, the number of viewers it is {@link CommonConstants#FOG_OF_WAR_VISIBLE} for is stored. Only for the positions that are not
+ * visible, the highest sight value of the viewers and the number of viewers giving this highest value are stored, too. Each update only applies the
+ * changes of the viewers since the last update: A viewer that moved by one position only changes the positions whose sight differs between its old
+ * and its new circle, and of these only the visible ones and the ones that are not visible for another viewer. If a position stops being visible or
+ * the last viewer with its highest sight value leaves it, the highest value of the remaining viewers is looked up again. Only the viewers near the
+ * position are asked, because the viewers are sorted into buckets by their position. Positions whose sight is above the value of their viewers are
+ * remembered and only these are dimmed down afterwards.
+ * <p>
+ * The resulting sight is the same as the one of the {@link FullFogOfWarRebuilder}, if the dim down steps are done at the same time.
+ */
+public final class IncrementalFogOfWarUpdater {
+	private static final int BUCKET_BITS = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_BITS;
+
+	private final FogOfWar fogOfWar;
+	private final short width;
+	private final short height;
+
+	/**
+	 * Number of viewers a position is {@link CommonConstants#FOG_OF_WAR_VISIBLE} for.
+	 */
+	private final short[] visibleCounts;
+	/**
+	 * Highest sight value of the viewers of a position. It is {@link CommonConstants#FOG_OF_WAR_VISIBLE} for the visible positions.
+	 */
+	private final byte[] viewerSight;
+	/**
+	 * Number of viewers giving a position its {@link #viewerSight}. Only kept up to date for the positions that are not visible.
+	 */
+	private final short[] viewerSightCounts;
+	private final IdentityHashMap<IViewDistancable, ViewerState> viewers = new IdentityHashMap<IViewDistancable, ViewerState>();
+	private final CachedViewCircle[] cachedCircles = new CachedViewCircle[FogOfWar.MAX_VIEWDISTANCE];
+	private int maxCircleExtent = 0;
+
+	/**
+	 * The viewers sorted by their position into square buckets of {@link #BUCKET_SIZE} x {@link #BUCKET_SIZE} positions.
+	 */
+	private final ArrayList<ViewerState>[] viewerBuckets;
+	private final int bucketsPerRow;
+	/**
+	 * Number of positions of a bucket that are not visible. The spans of a moved circle are skipped in buckets that are completely visible.
+	 */
+	private final short[] notVisibleCounts;
+	private final ArrayList<ViewerState> candidates = new ArrayList<ViewerState>();
+
+	private final BitSet fadingMarks;
+	private int[] fadingPositions = new int[1024];
+	private int fadingCount = 0;
+
+	private final BitSet staleMarks;
+	/**
+	 * The buckets containing stale positions.
+	 */
+	private final BitSet staleBuckets;
+
+	private int updateCycle = 0;
+
+	@SuppressWarnings("unchecked")
+	public IncrementalFogOfWarUpdater(FogOfWar fogOfWar) {
+		this.fogOfWar = fogOfWar;
+		this.width = fogOfWar.width;
+		this.height = fogOfWar.height;
+		this.visibleCounts = new short[width * height];
+		this.viewerSight = new byte[width * height];
+		this.viewerSightCounts = new short[width * height];
+		this.fadingMarks = new BitSet(width * height);
+		this.staleMarks = new BitSet(width * height);
+
+		this.bucketsPerRow = (width + BUCKET_SIZE - 1) >> BUCKET_BITS;
+		int bucketRows = (height + BUCKET_SIZE - 1) >> BUCKET_BITS;
+		this.viewerBuckets = new ArrayList[bucketsPerRow * bucketRows];
+		for (int i = 0; i < viewerBuckets.length; i++) {
+			viewerBuckets[i] = new ArrayList<ViewerState>();
+		}
+		this.staleBuckets = new BitSet(viewerBuckets.length);
+		this.notVisibleCounts = new short[viewerBuckets.length];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				notVisibleCounts[getBucket(x, y)]++;
+			}
+		}
+
+		// positions that are visible when we start (e.g. after loading a savegame) need to be dimmed if no viewer sees them.
+		for (int index = 0; index < fogOfWar.sight.length; index++) {
+			if (fogOfWar.sight[index] > CommonConstants.FOG_OF_WAR_EXPLORED) {
+				markFading(index);
+			}
+		}
+	}
+
+	/**
+	 * Applies the changes of the given viewers since the last update.
+	 * 
+	 * @param buildings
+	 * @param movables
+	 * @param dimDown
+	 *            If true, the positions no longer seen by any viewer are dimmed down one step.
+	 */
+	public void update(ConcurrentLinkedQueue<? extends IViewDistancable> buildings, ConcurrentLinkedQueue<? extends IViewDistancable> movables,
+			boolean dimDown) {
+		updateCycle++;
+
+		updateViewers(buildings);
+		updateViewers(movables);
+		removeVanishedViewers();
+
+		if (dimDown) {
+			updateStaleViewerSights();
+			dimDownFadingPositions();
+		}
+
+		fogOfWar.publishChangedTiles();
+	}
+
+	private void updateViewers(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+		for (IViewDistancable curr : objects) {
+			ViewerState state = viewers.get(curr);
+
+			ShortPoint2D pos = null;
+			short distance = curr.getViewDistance();
+			if (distance > 0 && fogOfWar.isPlayerOK(curr)) {
+				pos = curr.getPos();
+			}
+
+			if (pos == null) {
+				if (state != null) {
+					removeViewer(state);
+					viewers.remove(curr);
+				}
+			} else if (state == null) {
+				state = new ViewerState(getCachedCircle(distance), pos.x, pos.y, getBucket(pos.x, pos.y));
+				state.updateCycle = updateCycle;
+				viewers.put(curr, state);
+				viewerBuckets[state.bucket].add(state);
+				addCircle(state.circle, pos.x, pos.y);
+			} else {
+				state.updateCycle = updateCycle;
+				CachedViewCircle circle = getCachedCircle(distance);
+				if (circle != state.circle || pos.x != state.x || pos.y != state.y) {
+					moveCircle(state, circle, pos.x, pos.y);
+				}
+			}
+		}
+	}
+
+	private void removeVanishedViewers() {
+		for (Iterator<Entry<IViewDistancable, ViewerState>> iter = viewers.entrySet().iterator(); iter.hasNext();) {
+			ViewerState state = iter.next().getValue();
+			if (state.updateCycle != updateCycle) {
+				removeViewer(state);
+				iter.remove();
+			}
+		}
+	}
+
+	private void removeViewer(ViewerState state) {
+		viewerBuckets[state.bucket].remove(state);
+		removeCircle(state.circle, state.x, state.y);
+	}
+
+	private void addCircle(CachedViewCircle circle, int centerX, int centerY) {
+		for (int i = 0; i < circle.size; i++) { // the visible positions first, so that the others are only added where they matter
+			final int x = circle.x[i] + centerX;
+			final int y = circle.y[i] + centerY;
+
+			if (circle.sight[i] == CommonConstants.FOG_OF_WAR_VISIBLE && fogOfWar.isInMap(x, y)) {
+				addVisible(x, y);
+			}
+		}
+		for (int i = 0; i < circle.size; i++) {
+			final int x = circle.x[i] + centerX;
+			final int y = circle.y[i] + centerY;
+
+			if (circle.sight[i] != CommonConstants.FOG_OF_WAR_VISIBLE && fogOfWar.isInMap(x, y) && visibleCounts[x + y * width] == 0) {
+				changeViewerSight(x, y, (byte) -1, circle.sight[i]);
+			}
+		}
+	}
+
+	private void removeCircle(CachedViewCircle circle, int centerX, int centerY) {
+		for (int i = 0; i < circle.size; i++) {
+			final int x = circle.x[i] + centerX;
+			final int y = circle.y[i] + centerY;
+
+			if (fogOfWar.isInMap(x, y)) {
+				if (circle.sight[i] == CommonConstants.FOG_OF_WAR_VISIBLE) {
+					removeVisible(x + y * width);
+				} else if (visibleCounts[x + y * width] == 0) {
+					changeViewerSight(x, y, circle.sight[i], (byte) -1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the circle of the given viewer. A move by one position only visits the positions whose sight changes. Other moves remove the old circle
+	 * and add the new one.
+	 */
+	private void moveCircle(ViewerState state, CachedViewCircle newCircle, short newX, short newY) {
+		final CachedViewCircle oldCircle = state.circle;
+		final int oldX = state.x;
+		final int oldY = state.y;
+
+		state.circle = newCircle;
+		state.x = newX;
+		state.y = newY;
+
+		int newBucket = getBucket(newX, newY);
+		if (newBucket != state.bucket) {
+			viewerBuckets[state.bucket].remove(state);
+			viewerBuckets[newBucket].add(state);
+			state.bucket = newBucket;
+		}
+
+		if (newCircle == oldCircle && Math.abs(newX - oldX) <= 1 && Math.abs(newY - oldY) <= 1) {
+			applyMoveDelta(newCircle, newCircle.getMoveDelta(newX - oldX, newY - oldY), oldX, oldY, newX, newY);
+		} else {
+			removeCircle(oldCircle, oldX, oldY);
+			addCircle(newCircle, newX, newY);
+		}
+	}
+
+	/**
+	 * Applies the given changes of a circle that moved by one position. In the spans of changed positions, only the positions that are not visible
+	 * are visited.
+	 */
+	private void applyMoveDelta(CachedViewCircle circle, MoveDelta delta, int oldX, int oldY, int newX, int newY) {
+		for (int i = 0; i < delta.gainedCount; i++) {
+			final int x = delta.gainedX[i] + newX;
+			final int y = delta.gainedY[i] + newY;
+			if (fogOfWar.isInMap(x, y)) {
+				addVisible(x, y);
+			}
+		}
+		for (int i = 0; i < delta.lostCount; i++) {
+			final int x = delta.lostX[i] + newX;
+			final int y = delta.lostY[i] + newY;
+			if (fogOfWar.isInMap(x, y)) {
+				removeVisible(x + y * width);
+			}
+		}
+
+		for (int i = 0; i < delta.spanCount; i++) {
+			final int y = delta.spanY[i] + newY;
+			final int minX = Math.max(0, delta.spanMinX[i] + newX);
+			final int maxX = Math.min(width - 1, delta.spanMaxX[i] + newX);
+			if (y < 0 || y >= height || minX > maxX || areAllVisible(getBucket(minX, y), getBucket(maxX, y))) {
+				continue;
+			}
+
+			for (int x = minX; x <= maxX; x++) {
+				if (visibleCounts[x + y * width] == 0) {
+					changeViewerSight(x, y, circle.getSight(x - oldX, y - oldY), circle.getSight(x - newX, y - newY));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if all positions of the given buckets are visible.
+	 */
+	private boolean areAllVisible(int firstBucket, int lastBucket) {
+		for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+			if (notVisibleCounts[bucket] > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addVisible(int x, int y) {
+		final int index = x + y * width;
+		if (visibleCounts[index]++ == 0) {
+			notVisibleCounts[getBucket(x, y)]--;
+			viewerSight[index] = CommonConstants.FOG_OF_WAR_VISIBLE;
+			raiseSight(x, y, (byte) CommonConstants.FOG_OF_WAR_VISIBLE);
+		}
+	}
+
+	/**
+	 * If the position is no longer visible, the sight of the other viewers has to be looked up. Until then, the position keeps its visible
+	 * {@link #viewerSight}.
+	 */
+	private void removeVisible(int index) {
+		if (--visibleCounts[index] == 0) {
+			notVisibleCounts[getBucket(index % width, index / width)]++;
+			viewerSightCounts[index] = 0;
+			markStale(index);
+		}
+	}
+
+	/**
+	 * Changes the sight a viewer gives a position that is not visible.
+	 * 
+	 * @param oldSight
+	 *            The sight the viewer gave the position before or -1 if it did not see it.
+	 * @param newSight
+	 *            The sight the viewer gives the position now or -1 if it does not see it.
+	 */
+	private void changeViewerSight(int x, int y, byte oldSight, byte newSight) {
+		if (oldSight == newSight) {
+			return;
+		}
+
+		final int index = x + y * width;
+		if (viewerSight[index] < newSight) {
+			viewerSight[index] = newSight;
+			viewerSightCounts[index] = 1;
+			raiseSight(x, y, newSight);
+		} else if (viewerSight[index] == newSight) {
+			viewerSightCounts[index]++;
+		} else if (oldSight == viewerSight[index] && --viewerSightCounts[index] == 0) {
+			markStale(index);
+		}
+	}
+
+	private void raiseSight(int x, int y, byte newSight) {
+		final int index = x + y * width;
+		if (fogOfWar.sight[index] < newSight) {
+			fogOfWar.sight[index] = newSight;
+			fogOfWar.markChanged(x, y);
+		}
+	}
+
+	/**
+	 * Remembers a position whose highest viewer sight may have dropped, because it stopped being visible or the last viewer giving it has left. Until
+	 * the stale positions are updated, their highest viewer sight may be too high, which only matters for dimming them down.
+	 */
+	private void markStale(int index) {
+		staleMarks.set(index);
+		staleBuckets.set(getBucket(index % width, index / width));
+	}
+
+	/**
+	 * Looks up the highest sight value of the remaining viewers of the stale positions. Positions whose sight is now above this value start fading.
+	 * <p>
+	 * The stale positions are handled bucket by bucket. Only the viewers whose circle may reach the bucket are asked for the positions of a bucket.
+	 */
+	private void updateStaleViewerSights() {
+		for (int bucket = staleBuckets.nextSetBit(0); bucket >= 0; bucket = staleBuckets.nextSetBit(bucket + 1)) {
+			final int minX = (bucket % bucketsPerRow) << BUCKET_BITS;
+			final int minY = (bucket / bucketsPerRow) << BUCKET_BITS;
+			final int maxX = Math.min(width, minX + BUCKET_SIZE) - 1;
+			final int maxY = Math.min(height, minY + BUCKET_SIZE) - 1;
+			collectCandidates(minX, minY, maxX, maxY);
+
+			for (int y = minY; y <= maxY; y++) {
+				final int lineStart = y * width;
+				int index = staleMarks.nextSetBit(lineStart + minX);
+				while (index >= 0 && index <= lineStart + maxX) {
+					updateStaleViewerSight(index, index - lineStart, y);
+					index = staleMarks.nextSetBit(index + 1);
+				}
+				staleMarks.clear(lineStart + minX, lineStart + maxX + 1);
+			}
+		}
+
+		staleBuckets.clear();
+		candidates.clear();
+	}
+
+	/**
+	 * Collects the viewers whose circle may contain positions of the given area.
+	 */
+	private void collectCandidates(int minX, int minY, int maxX, int maxY) {
+		candidates.clear();
+
+		final int minBucketX = Math.max(0, minX - maxCircleExtent) >> BUCKET_BITS;
+		final int minBucketY = Math.max(0, minY - maxCircleExtent) >> BUCKET_BITS;
+		final int maxBucketX = Math.min(width - 1, maxX + maxCircleExtent) >> BUCKET_BITS;
+		final int maxBucketY = Math.min(height - 1, maxY + maxCircleExtent) >> BUCKET_BITS;
+
+		for (int bucketY = minBucketY; bucketY <= maxBucketY; bucketY++) {
+			for (int bucketX = minBucketX; bucketX <= maxBucketX; bucketX++) {
+				for (ViewerState state : viewerBuckets[bucketX + bucketY * bucketsPerRow]) {
+					final int extent = state.circle.getExtent();
+					if (state.x + extent >= minX && state.x - extent <= maxX && state.y + extent >= minY && state.y - extent <= maxY) {
+						candidates.add(state);
+					}
+				}
+			}
+		}
+	}
+
+	private void updateStaleViewerSight(int index, int x, int y) {
+		if (visibleCounts[index] > 0) { // visible again
+			return;
+		}
+
+		byte highestSight = 0;
+		short highestSightCount = 0;
+		for (int i = 0; i < candidates.size(); i++) {
+			ViewerState state = candidates.get(i);
+			byte sight = state.circle.getSight(x - state.x, y - state.y);
+			if (sight > highestSight) {
+				highestSight = sight;
+				highestSightCount = 1;
+			} else if (sight == highestSight) {
+				highestSightCount++;
+			}
+		}
+
+		viewerSight[index] = highestSight;
+		viewerSightCounts[index] = highestSightCount;
+		if (fogOfWar.sight[index] > highestSight) {
+			markFading(index);
+		}
+	}
+
+	private void markFading(int index) {
+		if (!fadingMarks.get(index)) {
+			fadingMarks.set(index);
+			if (fadingCount >= fadingPositions.length) {
+				fadingPositions = Arrays.copyOf(fadingPositions, fadingPositions.length * 2);
+			}
+			fadingPositions[fadingCount++] = index;
+		}
+	}
+
+	/**
+	 * Dims down all positions whose sight is above the sight of their viewers. Positions that reached the sight of their viewers or
+	 * {@link CommonConstants#FOG_OF_WAR_EXPLORED} are removed from the list of fading positions.
+	 */
+	private void dimDownFadingPositions() {
+		int remaining = 0;
+
+		for (int i = 0; i < fadingCount; i++) {
+			final int index = fadingPositions[i];
+			byte currSight = fogOfWar.sight[index];
+			byte lowestSight = (byte) Math.max(CommonConstants.FOG_OF_WAR_EXPLORED, viewerSight[index]);
+			if (currSight > lowestSight) {
+				byte newSight = (byte) Math.max(lowestSight, currSight - FogOfWar.DIM_DOWN_SPEED);
+				fogOfWar.sight[index] = newSight;
+				fogOfWar.markChanged(index % width, index / width);
+
+				if (newSight > lowestSight) {
+					fadingPositions[remaining++] = index;
+					continue;
+				}
+			}
+			fadingMarks.clear(index);
+		}
+
+		fadingCount = remaining;
+	}
+
+	private int getBucket(int x, int y) {
+		return (x >> BUCKET_BITS) + (y >> BUCKET_BITS) * bucketsPerRow;
+	}
+
+	private CachedViewCircle getCachedCircle(int viewDistance) {
+		int radius = FogOfWar.getCircleRadius(viewDistance);
+		if (cachedCircles[radius] == null) {
+			cachedCircles[radius] = new CachedViewCircle(radius);
+			maxCircleExtent = Math.max(maxCircleExtent, cachedCircles[radius].getExtent());
+		}
+		return cachedCircles[radius];
+	}
+
+	/**
+	 * The circle of a viewer as it has been applied to the counters.
+	 */
+	private static final class ViewerState {
+		private CachedViewCircle circle;
+		private short x;
+		private short y;
+		private int bucket;
+		private int updateCycle;
+
+		ViewerState(CachedViewCircle circle, short x, short y, int bucket) {
+			this.circle = circle;
+			this.x = x;
+			this.y = y;
+			this.bucket = bucket;
+		}
+	}
+}
@@ -124,6 +124,24 @@ public class Path implements Serializable {
 		return pathY[0];
 	}
 
+	/**
+	 * @param idx
+	 *            NOTE: this must be in the integer interval [0, pathlength -1]!
+	 * @return x coordinate of the step with the given index.
+	 */
+	public final short getX(int idx) {
+		return pathX[idx];
+	}
+
+	/**
+	 * @param idx
+	 *            NOTE: this must be in the integer interval [0, pathlength -1]!
+	 * @return y coordinate of the step with the given index.
+	 */
+	public final short getY(int idx) {
+		return pathY[idx];
+	}
+
 	public final short getTargetX() {
 		return pathX[pathX.length - 1];
 	}
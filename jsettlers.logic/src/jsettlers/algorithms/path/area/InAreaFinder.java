@@ -15,6 +15,7 @@
 package jsettlers.algorithms.path.area;
 
 import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.arrays.SearchMarks;
 import jsettlers.common.material.ESearchType;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.network.synchronic.random.RandomSingleton;
@@ -31,11 +32,27 @@ public final class InAreaFinder {
 	private final IInAreaFinderMap map;
 	private final short width;
 	private final short height;
+	private final SearchMarks marks;
 
 	public InAreaFinder(IInAreaFinderMap map, short width, short height) {
+		this(map, width, height, new SearchMarks(width * height));
+	}
+
+	/**
+	 * Creates a new {@link InAreaFinder} using the given {@link SearchMarks} to remember the already checked positions.
+	 * 
+	 * @param map
+	 * @param width
+	 * @param height
+	 * @param marks
+	 *            {@link SearchMarks} with a size of at least width * height. They can be shared with other algorithms that don't run at the
+	 *            same time.
+	 */
+	public InAreaFinder(IInAreaFinderMap map, short width, short height, SearchMarks marks) {
 		this.map = map;
 		this.width = width;
 		this.height = height;
+		this.marks = marks;
 	}
 
 	/**
@@ -49,6 +66,7 @@ public final class InAreaFinder {
 	 *         null if it hasn't been found.
 	 */
 	public final ShortPoint2D find(IPathCalculatable requester, short centerX, short centerY, short searchRadius, ESearchType searched) {
+		marks.startNewSearch();
 
 		for (int i = 0; i < 100; i++) {
 			double angle = RandomSingleton.nextD() * 2 * Math.PI; // get an angle in the interval [0, 2PI]
@@ -57,7 +75,18 @@ public final class InAreaFinder {
 			short tileX = (short) (Math.cos(angle) * radius + centerX);
 			short tileY = (short) (Math.sin(angle) * radius + centerY);
 
-			if (isInBounds(tileX, tileY) && !map.isBlocked(requester, tileX, tileY) && map.fitsSearchType(tileX, tileY, searched, requester)) {
+			if (!isInBounds(tileX, tileY)) {
+				continue;
+			}
+
+			// the positions are concentrated around the center => don't check a position twice (the random numbers are still consumed)
+			int flatIdx = tileX + tileY * width;
+			if (marks.isClosed(flatIdx)) {
+				continue;
+			}
+			marks.setClosed(flatIdx);
+
+			if (!map.isBlocked(requester, tileX, tileY) && map.fitsSearchType(tileX, tileY, searched, requester)) {
 				return new ShortPoint2D(tileX, tileY);
 			}
 		}
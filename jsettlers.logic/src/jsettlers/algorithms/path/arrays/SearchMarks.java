@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.arrays;
+
+import java.util.Arrays;
+
+/**
+ * Stores the open and closed marks of the positions of a search.
+ * <p>
+ * Instead of clearing the marks of all positions before every search, every search gets a new generation number. A position is only open or
+ * closed if its stamp equals the current generation. Therefore starting a new search is in O(1) and a search only touches the positions it
+ * visits.
+ * <p>
+ * One instance can be shared by multiple search algorithms as long as their searches don't run at the same time or nested into each other.
+ */
+public final class SearchMarks {
+	private final int[] stamps;
+	private int openStamp = 0;
+	private int closedStamp = 1;
+
+	public SearchMarks(int size) {
+		this.stamps = new int[size];
+	}
+
+	/**
+	 * Removes the marks of all positions by starting a new generation.
+	 */
+	public void startNewSearch() {
+		if (openStamp >= Integer.MAX_VALUE - 2) { // the stamps would overflow => start from the beginning
+			Arrays.fill(stamps, 0);
+			openStamp = 0;
+		}
+
+		openStamp += 2;
+		closedStamp = openStamp + 1;
+	}
+
+	public boolean isOpen(int idx) {
+		return stamps[idx] == openStamp;
+	}
+
+	public boolean isClosed(int idx) {
+		return stamps[idx] == closedStamp;
+	}
+
+	/**
+	 * @param idx
+	 * @return Returns true if the position has been opened or closed in the current search.
+	 */
+	public boolean isMarked(int idx) {
+		return stamps[idx] >= openStamp;
+	}
+
+	public void setOpen(int idx) {
+		stamps[idx] = openStamp;
+	}
+
+	public void setClosed(int idx) {
+		stamps[idx] = closedStamp;
+	}
+
+	public int size() {
+		return stamps.length;
+	}
+}
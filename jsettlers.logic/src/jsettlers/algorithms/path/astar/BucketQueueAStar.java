@@ -14,11 +14,10 @@
  *******************************************************************************/
 package jsettlers.algorithms.path.astar;
 
-import java.util.BitSet;
-
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.arrays.SearchMarks;
 import jsettlers.algorithms.path.astar.queues.bucket.AbstractBucketQueue;
 import jsettlers.algorithms.path.astar.queues.bucket.ListMinBucketQueue;
 import jsettlers.common.movable.EDirection;
@@ -39,8 +38,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 	private final short height;
 	private final short width;
 
-	private final BitSet openBitSet;
-	private final BitSet closedBitSet;
+	private final SearchMarks marks;
 
 	final float[] costs;
 
@@ -49,14 +47,27 @@ public final class BucketQueueAStar extends AbstractAStar {
 	private final AbstractBucketQueue open;
 
 	public BucketQueueAStar(IAStarPathMap map, short width, short height) {
+		this(map, width, height, new SearchMarks(width * height));
+	}
+
+	/**
+	 * Creates a new {@link BucketQueueAStar} using the given {@link SearchMarks}.
+	 * 
+	 * @param map
+	 * @param width
+	 * @param height
+	 * @param marks
+	 *            {@link SearchMarks} with a size of at least width * height. They can be shared with other algorithms that don't run at the
+	 *            same time.
+	 */
+	public BucketQueueAStar(IAStarPathMap map, short width, short height, SearchMarks marks) {
 		this.map = map;
 		this.width = width;
 		this.height = height;
 
 		this.open = new ListMinBucketQueue(width * height);
 
-		this.openBitSet = new BitSet(width * height);
-		this.closedBitSet = new BitSet(width * height);
+		this.marks = marks;
 		this.costs = new float[width * height];
 
 		this.depthParentHeap = new int[width * height * 2];
@@ -85,8 +96,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 		final int targetFlatIdx = getFlatIdx(tx, ty);
 
-		closedBitSet.clear();
-		openBitSet.clear();
+		marks.startNewSearch();
 
 		open.clear();
 		boolean found = false;
@@ -114,10 +124,10 @@ public final class BucketQueueAStar extends AbstractAStar {
 				if (isValidPosition(requester, neighborX, neighborY, blockedAtStart)) {
 					final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
 
-					if (!closedBitSet.get(flatNeighborIdx)) {
+					if (!marks.isClosed(flatNeighborIdx)) {
 						final float newCosts = currPositionCosts + map.getCost(x, y, neighborX, neighborY);
 
-						if (openBitSet.get(flatNeighborIdx)) {
+						if (marks.isOpen(flatNeighborIdx)) {
 							final float oldCosts = costs[flatNeighborIdx];
 
 							if (oldCosts > newCosts) {
@@ -133,7 +143,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 							costs[flatNeighborIdx] = newCosts;
 							depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
 							depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
-							openBitSet.set(flatNeighborIdx);
+							marks.setOpen(flatNeighborIdx);
 							open.insert(flatNeighborIdx, newCosts + getHeuristicCost(neighborX, neighborY, tx, ty));
 
 							map.markAsOpen(neighborX, neighborY);
@@ -171,7 +181,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 	}
 
 	private final void setClosed(int x, int y) {
-		closedBitSet.set(getFlatIdx(x, y));
+		marks.setClosed(getFlatIdx(x, y));
 		map.markAsClosed(x, y);
 	}
 
@@ -182,7 +192,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 		costs[flatIdx] = 0;
 
 		open.insert(flatIdx, 0 + getHeuristicCost(sx, sy, tx, ty));
-		openBitSet.set(flatIdx);
+		marks.setOpen(flatIdx);
 	}
 
 	private final boolean isValidPosition(IPathCalculatable requester, int x, int y, boolean blockedAtStart) {
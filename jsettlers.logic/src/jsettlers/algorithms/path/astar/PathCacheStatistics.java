@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+/**
+ * Immutable snapshot of the counters of a {@link PathCachingAStar}.
+ */
+public final class PathCacheStatistics {
+	private final long hits;
+	private final long misses;
+	private final long invalidatedPaths;
+	private final int cachedPaths;
+
+	PathCacheStatistics(long hits, long misses, long invalidatedPaths, int cachedPaths) {
+		this.hits = hits;
+		this.misses = misses;
+		this.invalidatedPaths = invalidatedPaths;
+		this.cachedPaths = cachedPaths;
+	}
+
+	/**
+	 * @return The number of path requests that have been answered from the cache.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return The number of path requests that had to be calculated.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return The number of cached paths that have been removed because of changes of the map.
+	 */
+	public long getInvalidatedPaths() {
+		return invalidatedPaths;
+	}
+
+	/**
+	 * @return The number of paths currently stored in the cache.
+	 */
+	public int getCachedPaths() {
+		return cachedPaths;
+	}
+
+	/**
+	 * @return The share of the requests that have been answered from the cache (0 to 1).
+	 */
+	public float getHitRate() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (float) hits / requests;
+	}
+
+	@Override
+	public String toString() {
+		return "PathCacheStatistics [hits=" + hits + ", misses=" + misses + ", invalidatedPaths=" + invalidatedPaths + ", cachedPaths=" + cachedPaths
+				+ ", hitRate=" + getHitRate() + "]";
+	}
+}
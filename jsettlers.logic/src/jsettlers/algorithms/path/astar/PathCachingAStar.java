@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * {@link AbstractAStar} that caches the paths calculated by another {@link AbstractAStar}.
+ * <p>
+ * The paths are stored in a LRU cache with the key (start, target, blocked partition, requester class, player). If the blocking or the player of
+ * a position changes, {@link #invalidate(int, int)} must be called to remove all paths that may be affected by the change.
+ * <p>
+ * A path of the length L is affected by all positions P with dist(start, P) + dist(P, target) <= L: If P becomes blocked, it may be part of the
+ * path. If it becomes free, a path through P may be shorter. Every step changes the x and the y coordinate by at most one, so these positions lie
+ * in the bounding box of start and target widened by (L - |target.x - start.x|) / 2 in x and by (L - |target.y - start.y|) / 2 in y direction.
+ * Every cached path is registered at the regions of {@value #REGION_SIZE} x {@value #REGION_SIZE} positions overlapping this box. The cost of
+ * every step must be at least 1, so that the cost of a path is an upper bound of its number of steps.
+ * <p>
+ * The cache is only changed by path requests and invalidations. As long as these happen in the game logic (and therefore in the same order on
+ * all clients), the results stay deterministic.
+ */
+public final class PathCachingAStar extends AbstractAStar {
+	private static final int REGION_BITS = 5;
+	private static final int REGION_SIZE = 1 << REGION_BITS;
+
+	private final AbstractAStar aStar;
+	private final IAStarPathMap map;
+	private final short width;
+	private final short height;
+	private final int regionsPerLine;
+
+	private final LinkedHashMap<PathKey, CachedPath> cache;
+	private final HashMap<Integer, ArrayList<PathKey>> pathsOfRegions = new HashMap<Integer, ArrayList<PathKey>>();
+
+	private long hits;
+	private long misses;
+	private long invalidatedPaths;
+
+	public PathCachingAStar(AbstractAStar aStar, IAStarPathMap map, short width, short height, final int capacity) {
+		this.aStar = aStar;
+		this.map = map;
+		this.width = width;
+		this.height = height;
+		this.regionsPerLine = (width + REGION_SIZE - 1) / REGION_SIZE;
+
+		this.cache = new LinkedHashMap<PathKey, CachedPath>(capacity, 0.75f, true) {
+			private static final long serialVersionUID = -2054446329520018713L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PathKey, CachedPath> eldest) {
+				if (size() > capacity) {
+					unregister(eldest.getKey(), eldest.getValue());
+					return true;
+				} else {
+					return false;
+				}
+			}
+		};
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public synchronized Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (!isInBounds(sx, sy) || !isInBounds(tx, ty) || map.isBlocked(requester, sx, sy)) {
+			return aStar.findPath(requester, sx, sy, tx, ty); // paths that start on blocked positions may cross blocked positions => don't cache them
+		}
+
+		PathKey key = new PathKey(requester, sx, sy, tx, ty, map.getBlockedPartition(sx, sy));
+		CachedPath cachedPath = cache.get(key);
+		if (cachedPath != null) {
+			hits++;
+			return cachedPath.createPath();
+		}
+
+		misses++;
+		Path path = aStar.findPath(requester, sx, sy, tx, ty);
+		if (path != null) {
+			cachedPath = new CachedPath(path, sx, sy, tx, ty);
+			cache.put(key, cachedPath);
+			register(key, cachedPath);
+		}
+		return path;
+	}
+
+	/**
+	 * Removes all cached paths that may be affected by the region of the given position. This method needs to be called whenever a position changes
+	 * its blocking or its player.
+	 * 
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	public synchronized void invalidate(int x, int y) {
+		ArrayList<PathKey> paths = pathsOfRegions.remove(getRegion(x, y));
+		if (paths == null) {
+			return;
+		}
+
+		for (PathKey key : paths) {
+			CachedPath cachedPath = cache.remove(key);
+			if (cachedPath != null) {
+				invalidatedPaths++;
+				unregister(key, cachedPath);
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached paths.
+	 */
+	public synchronized void clear() {
+		invalidatedPaths += cache.size();
+		cache.clear();
+		pathsOfRegions.clear();
+	}
+
+	public synchronized PathCacheStatistics getStatistics() {
+		return new PathCacheStatistics(hits, misses, invalidatedPaths, cache.size());
+	}
+
+	private void register(PathKey key, CachedPath cachedPath) {
+		for (int region : cachedPath.regions) {
+			ArrayList<PathKey> paths = pathsOfRegions.get(region);
+			if (paths == null) {
+				paths = new ArrayList<PathKey>();
+				pathsOfRegions.put(region, paths);
+			}
+			paths.add(key);
+		}
+	}
+
+	private void unregister(PathKey key, CachedPath cachedPath) {
+		for (int region : cachedPath.regions) {
+			ArrayList<PathKey> paths = pathsOfRegions.get(region);
+			if (paths != null) {
+				Iterator<PathKey> iter = paths.iterator();
+				while (iter.hasNext()) {
+					if (iter.next() == key) {
+						iter.remove();
+						break;
+					}
+				}
+				if (paths.isEmpty()) {
+					pathsOfRegions.remove(region);
+				}
+			}
+		}
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getRegion(int x, int y) {
+		return (y >> REGION_BITS) * regionsPerLine + (x >> REGION_BITS);
+	}
+
+	/**
+	 * Immutable copy of a calculated path and the regions it may be affected by.
+	 */
+	private final class CachedPath {
+		private final short[] xs;
+		private final short[] ys;
+		private final int[] regions;
+
+		CachedPath(Path path, short sx, short sy, short tx, short ty) {
+			int length = path.getLength();
+			xs = new short[length];
+			ys = new short[length];
+
+			float cost = 0;
+			for (int i = 0; i < length; i++) {
+				xs[i] = path.getX(i);
+				ys[i] = path.getY(i);
+				cost += i == 0 ? map.getCost(sx, sy, xs[i], ys[i]) : map.getCost(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+			}
+
+			int maxSteps = (int) Math.ceil(cost);
+			int marginX = Math.max(0, maxSteps - Math.abs(tx - sx)) / 2;
+			int marginY = Math.max(0, maxSteps - Math.abs(ty - sy)) / 2;
+			int minRegionX = Math.max(0, Math.min(sx, tx) - marginX) >> REGION_BITS;
+			int maxRegionX = Math.min(width - 1, Math.max(sx, tx) + marginX) >> REGION_BITS;
+			int minRegionY = Math.max(0, Math.min(sy, ty) - marginY) >> REGION_BITS;
+			int maxRegionY = Math.min(height - 1, Math.max(sy, ty) + marginY) >> REGION_BITS;
+
+			regions = new int[(maxRegionX - minRegionX + 1) * (maxRegionY - minRegionY + 1)];
+			int i = 0;
+			for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+				for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+					regions[i++] = regionY * regionsPerLine + regionX;
+				}
+			}
+		}
+
+		Path createPath() {
+			Path path = new Path(xs.length);
+			for (int i = 0; i < xs.length; i++) {
+				path.insertAt(i, xs[i], ys[i]);
+			}
+			return path;
+		}
+	}
+
+	private static final class PathKey {
+		private final short sx;
+		private final short sy;
+		private final short tx;
+		private final short ty;
+		private final short blockedPartition;
+		private final Class<?> requesterClass;
+		private final byte playerId;
+
+		PathKey(IPathCalculatable requester, short sx, short sy, short tx, short ty, short blockedPartition) {
+			this.sx = sx;
+			this.sy = sy;
+			this.tx = tx;
+			this.ty = ty;
+			this.blockedPartition = blockedPartition;
+			this.requesterClass = requester.getClass();
+			// the player only matters if the requester needs its ground
+			this.playerId = requester.needsPlayersGround() ? requester.getPlayerId() : -1;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = sx;
+			result = 31 * result + sy;
+			result = 31 * result + tx;
+			result = 31 * result + ty;
+			result = 31 * result + blockedPartition;
+			result = 31 * result + requesterClass.getName().hashCode();
+			result = 31 * result + playerId;
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PathKey)) {
+				return false;
+			}
+			PathKey other = (PathKey) obj;
+			return sx == other.sx && sy == other.sy && tx == other.tx && ty == other.ty && blockedPartition == other.blockedPartition
+					&& requesterClass == other.requesterClass && playerId == other.playerId;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+/**
+ * Priority queue of the abstract nodes of the {@link HierarchicalAStar}.
+ * <p>
+ * The entries are stored in a binary heap of parallel arrays, that only grow and are reused by every search. Entries with the same rank are
+ * polled in the order they have been inserted. Outdated entries are not removed, they need to be skipped by the caller.
+ */
+final class AbstractNodeQueue {
+	private int[] references = new int[64];
+	private int[] costs = new int[64];
+	private int[] ranks = new int[64];
+	private int[] sequenceNumbers = new int[64];
+
+	private int size = 0;
+	private int nextSequenceNumber = 0;
+
+	void clear() {
+		size = 0;
+		nextSequenceNumber = 0;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void insert(int reference, int costs, int rank) {
+		if (size >= references.length) {
+			int newLength = references.length * 2;
+			references = copyOf(references, newLength);
+			this.costs = copyOf(this.costs, newLength);
+			ranks = copyOf(ranks, newLength);
+			sequenceNumbers = copyOf(sequenceNumbers, newLength);
+		}
+
+		int idx = size++;
+		set(idx, reference, costs, rank, nextSequenceNumber++);
+
+		while (idx > 0) {
+			int parent = (idx - 1) / 2;
+			if (!isLess(idx, parent)) {
+				break;
+			}
+			swap(idx, parent);
+			idx = parent;
+		}
+	}
+
+	/**
+	 * @return Returns the reference of the entry with the lowest rank.
+	 */
+	int getMinReference() {
+		return references[0];
+	}
+
+	/**
+	 * @return Returns the costs of the entry with the lowest rank.
+	 */
+	int getMinCosts() {
+		return costs[0];
+	}
+
+	/**
+	 * Removes the entry with the lowest rank.
+	 */
+	void deleteMin() {
+		size--;
+		set(0, references[size], costs[size], ranks[size], sequenceNumbers[size]);
+
+		int idx = 0;
+		while (true) {
+			int smallest = idx;
+			int left = 2 * idx + 1;
+			int right = left + 1;
+			if (left < size && isLess(left, smallest)) {
+				smallest = left;
+			}
+			if (right < size && isLess(right, smallest)) {
+				smallest = right;
+			}
+			if (smallest == idx) {
+				break;
+			}
+			swap(idx, smallest);
+			idx = smallest;
+		}
+	}
+
+	private boolean isLess(int idx, int otherIdx) {
+		if (ranks[idx] != ranks[otherIdx]) {
+			return ranks[idx] < ranks[otherIdx];
+		}
+		return sequenceNumbers[idx] < sequenceNumbers[otherIdx];
+	}
+
+	private void swap(int idx, int otherIdx) {
+		int reference = references[idx];
+		int cost = costs[idx];
+		int rank = ranks[idx];
+		int sequenceNumber = sequenceNumbers[idx];
+		set(idx, references[otherIdx], costs[otherIdx], ranks[otherIdx], sequenceNumbers[otherIdx]);
+		set(otherIdx, reference, cost, rank, sequenceNumber);
+	}
+
+	private void set(int idx, int reference, int cost, int rank, int sequenceNumber) {
+		references[idx] = reference;
+		costs[idx] = cost;
+		ranks[idx] = rank;
+		sequenceNumbers[idx] = sequenceNumber;
+	}
+
+	private static int[] copyOf(int[] array, int newLength) {
+		int[] newArray = new int[newLength];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+/**
+ * A cluster of the abstract graph of the {@link HierarchicalAStar}.
+ * <p>
+ * A cluster stores its transitions to the neighboring clusters, its entrance nodes and the edges between them. It also stores the state of the
+ * abstract search for its nodes.
+ */
+final class Cluster {
+	private static final int[] EMPTY = new int[0];
+	private static final int[][] NO_EDGES = new int[0][];
+
+	final int minX;
+	final int minY;
+	final int maxX;
+	final int maxY;
+
+	/**
+	 * Flat indexes of the positions inside this cluster that are the start of a transition.
+	 */
+	int[] transitionsInner = EMPTY;
+	/**
+	 * Flat indexes of the positions in the neighbor clusters that are the end of a transition.
+	 */
+	int[] transitionsOuter = EMPTY;
+
+	/**
+	 * Flat indexes of the distinct entrance positions of this cluster.
+	 */
+	int[] nodes = EMPTY;
+	/**
+	 * Local indexes of the nodes that can be reached from a node without leaving this cluster.
+	 */
+	int[][] edgeTargets = NO_EDGES;
+	/**
+	 * The number of steps of the edges in {@link #edgeTargets}.
+	 */
+	int[][] edgeCosts = NO_EDGES;
+	/**
+	 * References ({@link HierarchicalAStar#getNodeReference(int, int)}) to the nodes in the neighbor clusters that can be reached with a single
+	 * step.
+	 */
+	int[][] transitionTargets = NO_EDGES;
+
+	int[] searchCosts = EMPTY;
+	int[] searchParents = EMPTY;
+	int[] searchGenerations = EMPTY;
+
+	Cluster(int minX, int minY, int maxX, int maxY) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+	}
+
+	boolean contains(int x, int y) {
+		return minX <= x && x < maxX && minY <= y && y < maxY;
+	}
+
+	/**
+	 * @param flatIdx
+	 * @return Returns the index of the node with the given flat index or -1 if there is no such node.
+	 */
+	int getNodeIndex(int flatIdx) {
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i] == flatIdx) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	void setNodes(int[] nodes) {
+		this.nodes = nodes;
+		this.edgeTargets = new int[nodes.length][];
+		this.edgeCosts = new int[nodes.length][];
+		this.transitionTargets = new int[nodes.length][];
+		this.searchCosts = new int[nodes.length];
+		this.searchParents = new int[nodes.length];
+		this.searchGenerations = new int[nodes.length];
+	}
+}
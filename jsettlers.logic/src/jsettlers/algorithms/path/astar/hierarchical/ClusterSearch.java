@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+
+/**
+ * Breadth first search that is limited to the positions of a single {@link Cluster}.
+ */
+final class ClusterSearch {
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	private final IAStarPathMap map;
+	private final IPathCalculatable requester;
+	private final int mapWidth;
+	private final int clusterSize;
+
+	private final boolean[] blocked;
+	private final int[] distances;
+	private final int[] parents;
+	private final int[] queue;
+
+	private Cluster cluster;
+
+	ClusterSearch(IAStarPathMap map, IPathCalculatable requester, int mapWidth, int clusterSize) {
+		this.map = map;
+		this.requester = requester;
+		this.mapWidth = mapWidth;
+		this.clusterSize = clusterSize;
+
+		this.blocked = new boolean[clusterSize * clusterSize];
+		this.distances = new int[clusterSize * clusterSize];
+		this.parents = new int[clusterSize * clusterSize];
+		this.queue = new int[clusterSize * clusterSize];
+	}
+
+	/**
+	 * Sets the cluster for the following searches and reads its blocking. This needs to be called again if the blocking of the cluster changed.
+	 * 
+	 * @param cluster
+	 *            The cluster to search in.
+	 */
+	void setCluster(Cluster cluster) {
+		this.cluster = cluster;
+		for (int y = cluster.minY; y < cluster.maxY; y++) {
+			for (int x = cluster.minX; x < cluster.maxX; x++) {
+				blocked[getLocalIdx(x, y)] = map.isBlocked(requester, x, y);
+			}
+		}
+	}
+
+	/**
+	 * Searches all positions of the current cluster that can be reached from the given start position without leaving the cluster.
+	 * 
+	 * @param startFlatIdx
+	 *            The flat index of the start position. This position must be inside the cluster.
+	 */
+	void search(int startFlatIdx) {
+		for (int i = 0; i < distances.length; i++) {
+			distances[i] = -1;
+		}
+
+		int startLocalIdx = getLocalIdx(startFlatIdx % mapWidth, startFlatIdx / mapWidth);
+		distances[startLocalIdx] = 0;
+		parents[startLocalIdx] = -1;
+		queue[0] = startLocalIdx;
+
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int currLocalIdx = queue[head++];
+			int x = cluster.minX + currLocalIdx % clusterSize;
+			int y = cluster.minY + currLocalIdx / clusterSize;
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				int neighborX = x + xDeltaArray[i];
+				int neighborY = y + yDeltaArray[i];
+
+				if (cluster.contains(neighborX, neighborY)) {
+					int neighborLocalIdx = getLocalIdx(neighborX, neighborY);
+					if (distances[neighborLocalIdx] < 0 && !blocked[neighborLocalIdx]) {
+						distances[neighborLocalIdx] = distances[currLocalIdx] + 1;
+						parents[neighborLocalIdx] = currLocalIdx;
+						queue[tail++] = neighborLocalIdx;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param flatIdx
+	 *            Flat index of a position inside the searched cluster.
+	 * @return Returns the number of steps from the start of the last search to the given position or -1 if the position can't be reached.
+	 */
+	int getDistance(int flatIdx) {
+		return distances[getLocalIdx(flatIdx % mapWidth, flatIdx / mapWidth)];
+	}
+
+	/**
+	 * Writes the flat indexes of the path from the start of the last search to the given position into the given array.
+	 * 
+	 * @param targetFlatIdx
+	 *            Flat index of a reachable position inside the searched cluster.
+	 * @param path
+	 *            The array to write the path to.
+	 * @param offset
+	 *            The index the first step of the path will be written to. The start position is not part of the path.
+	 * @return Returns the index behind the last written step.
+	 */
+	int writePath(int targetFlatIdx, int[] path, int offset) {
+		int end = offset + getDistance(targetFlatIdx);
+		int localIdx = getLocalIdx(targetFlatIdx % mapWidth, targetFlatIdx / mapWidth);
+		for (int i = end - 1; i >= offset; i--) {
+			path[i] = (cluster.minX + localIdx % clusterSize) + (cluster.minY + localIdx / clusterSize) * mapWidth;
+			localIdx = parents[localIdx];
+		}
+		return end;
+	}
+
+	private int getLocalIdx(int x, int y) {
+		return (x - cluster.minX) + (y - cluster.minY) * clusterSize;
+	}
+}
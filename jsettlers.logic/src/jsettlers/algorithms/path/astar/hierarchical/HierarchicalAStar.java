@@ -0,0 +1,522 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import java.util.BitSet;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Hierarchical path finder (HPA*) for long paths.
+ * <p>
+ * The map is divided into clusters of {@value #CLUSTER_SIZE} x {@value #CLUSTER_SIZE} positions. For every connected run of free positions along
+ * the border of two clusters, one transition is stored. The distances between the transitions of a cluster are precomputed. Long paths are first
+ * searched on this small abstract graph and then refined inside the single clusters.
+ * <p>
+ * If the blocking of a position changes, {@link #blockingChanged(int, int)} needs to be called. The affected clusters are then updated before the
+ * next hierarchical search.
+ * <p>
+ * Short paths, paths of requesters that need their player's ground and paths starting at blocked positions are calculated by the given
+ * {@link AbstractAStar}. It's also used as fallback if the abstract graph finds no path.
+ * <p>
+ * The buffers of the searches and updates are kept and only grow, so a search doesn't allocate anything but the resulting path.
+ * <p>
+ * NOTE: The abstract graph assumes that every step costs the same and that the blocking is the same for all requesters that don't need their
+ * player's ground.
+ */
+public final class HierarchicalAStar extends AbstractAStar {
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	private static final int CLUSTER_BITS = 4;
+	private static final int CLUSTER_SIZE = 1 << CLUSTER_BITS;
+	private static final int MIN_HIERARCHICAL_DISTANCE = 3 * CLUSTER_SIZE;
+
+	private static final int MAX_TRANSITION_CANDIDATES = 4 * CLUSTER_SIZE;
+	private static final int NODE_BITS = 10; // a cluster has at most 2 * CLUSTER_SIZE transitions per direction
+	private static final int NODE_MASK = (1 << NODE_BITS) - 1;
+	private static final int START_NODE = -1;
+	private static final int TARGET_NODE = -2;
+
+	private static final IPathCalculatable GRAPH_REQUESTER = new IPathCalculatable() {
+		@Override
+		public ShortPoint2D getPos() {
+			return null;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return 0;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	};
+
+	private final AbstractAStar aStar;
+	private final IAStarPathMap map;
+	private final short width;
+	private final short height;
+
+	private final int clustersPerLine;
+	private final Cluster[] clusters;
+	private final BitSet dirtyClusters;
+	private final BitSet changedClusters;
+	private final BitSet referencingClusters;
+
+	private final ClusterSearch clusterSearch;
+	private final ClusterSearch targetSearch;
+
+	private final int[] candidatesInner = new int[MAX_TRANSITION_CANDIDATES];
+	private final int[] candidatesOuter = new int[MAX_TRANSITION_CANDIDATES];
+	private final int[] candidatesCluster = new int[MAX_TRANSITION_CANDIDATES];
+	private final boolean[] candidatesDone = new boolean[MAX_TRANSITION_CANDIDATES];
+	private final int[] runBuffer = new int[MAX_TRANSITION_CANDIDATES];
+
+	private int[] transitionsInnerBuffer = new int[8];
+	private int[] transitionsOuterBuffer = new int[8];
+	private int[] nodesBuffer = new int[8];
+	private int[] edgeTargetsBuffer = new int[8];
+	private int[] edgeCostsBuffer = new int[8];
+	private int[] stepsBuffer = new int[64];
+
+	private final AbstractNodeQueue open = new AbstractNodeQueue();
+	private int searchGeneration = 0;
+	private int targetCosts;
+	private int targetParent;
+
+	public HierarchicalAStar(AbstractAStar aStar, IAStarPathMap map, short width, short height) {
+		this.aStar = aStar;
+		this.map = map;
+		this.width = width;
+		this.height = height;
+
+		this.clustersPerLine = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		int clustersPerColumn = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.clusters = new Cluster[clustersPerLine * clustersPerColumn];
+		for (int cy = 0; cy < clustersPerColumn; cy++) {
+			for (int cx = 0; cx < clustersPerLine; cx++) {
+				int minX = cx * CLUSTER_SIZE;
+				int minY = cy * CLUSTER_SIZE;
+				clusters[cx + cy * clustersPerLine] = new Cluster(minX, minY, Math.min(minX + CLUSTER_SIZE, width), Math.min(minY + CLUSTER_SIZE,
+						height));
+			}
+		}
+
+		this.dirtyClusters = new BitSet(clusters.length);
+		this.dirtyClusters.set(0, clusters.length);
+		this.changedClusters = new BitSet(clusters.length);
+		this.referencingClusters = new BitSet(clusters.length);
+
+		this.clusterSearch = new ClusterSearch(map, GRAPH_REQUESTER, width, CLUSTER_SIZE);
+		this.targetSearch = new ClusterSearch(map, GRAPH_REQUESTER, width, CLUSTER_SIZE);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public synchronized Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (requester.needsPlayersGround() || !isInBounds(sx, sy) || !isInBounds(tx, ty)
+				|| ShortPoint2D.getOnGridDist(tx - sx, ty - sy) < MIN_HIERARCHICAL_DISTANCE || map.isBlocked(requester, sx, sy)) {
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		} else if (map.isBlocked(requester, tx, ty) || map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+			return null; // target can not be reached
+		}
+
+		updateAbstractGraph();
+
+		Path path = findHierarchicalPath(sx, sy, tx, ty);
+		if (path == null) {
+			path = aStar.findPath(requester, sx, sy, tx, ty);
+		}
+		return path;
+	}
+
+	/**
+	 * This method needs to be called whenever the blocking of a position changes.
+	 * 
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	public synchronized void blockingChanged(int x, int y) {
+		dirtyClusters.set(getClusterIdx(x, y));
+	}
+
+	/**
+	 * Updates all clusters whose blocking changed. This is done automatically before every hierarchical search, but it can be called in advance
+	 * to prevent a delay of the first search.
+	 */
+	public synchronized void updateAbstractGraph() {
+		if (dirtyClusters.isEmpty()) {
+			return;
+		}
+
+		// the transitions of a cluster depend on the blocking of the cluster and its neighbors
+		getClustersAround(dirtyClusters, changedClusters);
+		dirtyClusters.clear();
+
+		for (int clusterIdx = changedClusters.nextSetBit(0); clusterIdx >= 0; clusterIdx = changedClusters.nextSetBit(clusterIdx + 1)) {
+			computeTransitions(clusters[clusterIdx]);
+		}
+		for (int clusterIdx = changedClusters.nextSetBit(0); clusterIdx >= 0; clusterIdx = changedClusters.nextSetBit(clusterIdx + 1)) {
+			computeNodesAndEdges(clusters[clusterIdx]);
+		}
+
+		// the neighbors of the changed clusters reference the nodes of the changed clusters
+		getClustersAround(changedClusters, referencingClusters);
+		for (int clusterIdx = referencingClusters.nextSetBit(0); clusterIdx >= 0; clusterIdx = referencingClusters.nextSetBit(clusterIdx + 1)) {
+			computeTransitionTargets(clusters[clusterIdx]);
+		}
+	}
+
+	private void getClustersAround(BitSet clusterSet, BitSet result) {
+		result.clear();
+		int clustersPerColumn = clusters.length / clustersPerLine;
+
+		for (int clusterIdx = clusterSet.nextSetBit(0); clusterIdx >= 0; clusterIdx = clusterSet.nextSetBit(clusterIdx + 1)) {
+			int cx = clusterIdx % clustersPerLine;
+			int cy = clusterIdx / clustersPerLine;
+			for (int ny = Math.max(0, cy - 1); ny <= Math.min(clustersPerColumn - 1, cy + 1); ny++) {
+				for (int nx = Math.max(0, cx - 1); nx <= Math.min(clustersPerLine - 1, cx + 1); nx++) {
+					result.set(nx + ny * clustersPerLine);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the transitions from the given cluster to its neighbors. For every direction and neighbor cluster, the border positions are split into
+	 * connected runs and the middle of each run is used as transition.
+	 * <p>
+	 * As the neighbor cluster finds the same runs in the opposite direction, every transition exists in both directions.
+	 */
+	private void computeTransitions(Cluster cluster) {
+		int numberOfTransitions = 0;
+
+		for (int direction = 0; direction < EDirection.NUMBER_OF_DIRECTIONS; direction++) {
+			int numberOfCandidates = 0;
+			for (int y = cluster.minY; y < cluster.maxY; y++) {
+				for (int x = cluster.minX; x < cluster.maxX; x++) {
+					int neighborX = x + xDeltaArray[direction];
+					int neighborY = y + yDeltaArray[direction];
+
+					if (cluster.contains(neighborX, neighborY) || !isInBounds(neighborX, neighborY) || isBlocked(x, y)
+							|| isBlocked(neighborX, neighborY)) {
+						continue;
+					}
+
+					candidatesInner[numberOfCandidates] = getFlatIdx(x, y);
+					candidatesOuter[numberOfCandidates] = getFlatIdx(neighborX, neighborY);
+					candidatesCluster[numberOfCandidates] = getClusterIdx(neighborX, neighborY);
+					candidatesDone[numberOfCandidates] = false;
+					numberOfCandidates++;
+				}
+			}
+
+			for (int first = 0; first < numberOfCandidates; first++) {
+				if (candidatesDone[first]) {
+					continue;
+				}
+
+				// collect all candidates leading to the same neighbor cluster and split them into connected runs
+				int runLength = 0;
+				for (int i = first; i <= numberOfCandidates; i++) {
+					boolean endOfCandidates = i == numberOfCandidates;
+					if (!endOfCandidates && candidatesCluster[i] != candidatesCluster[first]) {
+						continue;
+					}
+
+					if (endOfCandidates || (runLength > 0 && !isNeighborOnBorder(candidatesInner[runBuffer[runLength - 1]], candidatesInner[i]))) {
+						if (numberOfTransitions >= transitionsInnerBuffer.length) {
+							transitionsInnerBuffer = grow(transitionsInnerBuffer);
+							transitionsOuterBuffer = grow(transitionsOuterBuffer);
+						}
+						int middle = runBuffer[(runLength - 1) / 2];
+						transitionsInnerBuffer[numberOfTransitions] = candidatesInner[middle];
+						transitionsOuterBuffer[numberOfTransitions] = candidatesOuter[middle];
+						numberOfTransitions++;
+						runLength = 0;
+					}
+
+					if (!endOfCandidates) {
+						candidatesDone[i] = true;
+						runBuffer[runLength++] = i;
+					}
+				}
+			}
+		}
+
+		cluster.transitionsInner = new int[numberOfTransitions];
+		cluster.transitionsOuter = new int[numberOfTransitions];
+		System.arraycopy(transitionsInnerBuffer, 0, cluster.transitionsInner, 0, numberOfTransitions);
+		System.arraycopy(transitionsOuterBuffer, 0, cluster.transitionsOuter, 0, numberOfTransitions);
+	}
+
+	private boolean isNeighborOnBorder(int previousFlatIdx, int flatIdx) {
+		int delta = flatIdx - previousFlatIdx;
+		return delta == 1 || delta == width; // the candidates are sorted line by line
+	}
+
+	private void computeNodesAndEdges(Cluster cluster) {
+		nodesBuffer = ensureCapacity(nodesBuffer, cluster.transitionsInner.length);
+		final int[] nodes = nodesBuffer;
+		int numberOfNodes = 0;
+		for (int transitionInner : cluster.transitionsInner) {
+			boolean known = false;
+			for (int i = 0; i < numberOfNodes && !known; i++) {
+				known = nodes[i] == transitionInner;
+			}
+			if (!known) {
+				nodes[numberOfNodes++] = transitionInner;
+			}
+		}
+
+		int[] trimmedNodes = new int[numberOfNodes];
+		System.arraycopy(nodes, 0, trimmedNodes, 0, numberOfNodes);
+		cluster.setNodes(trimmedNodes);
+
+		edgeTargetsBuffer = ensureCapacity(edgeTargetsBuffer, numberOfNodes);
+		edgeCostsBuffer = ensureCapacity(edgeCostsBuffer, numberOfNodes);
+		final int[] targets = edgeTargetsBuffer;
+		final int[] costs = edgeCostsBuffer;
+		clusterSearch.setCluster(cluster);
+		for (int i = 0; i < numberOfNodes; i++) {
+			clusterSearch.search(trimmedNodes[i]);
+
+			int numberOfEdges = 0;
+			for (int j = 0; j < numberOfNodes; j++) {
+				int distance = clusterSearch.getDistance(trimmedNodes[j]);
+				if (distance > 0) {
+					targets[numberOfEdges] = j;
+					costs[numberOfEdges] = distance;
+					numberOfEdges++;
+				}
+			}
+
+			cluster.edgeTargets[i] = new int[numberOfEdges];
+			cluster.edgeCosts[i] = new int[numberOfEdges];
+			System.arraycopy(targets, 0, cluster.edgeTargets[i], 0, numberOfEdges);
+			System.arraycopy(costs, 0, cluster.edgeCosts[i], 0, numberOfEdges);
+		}
+	}
+
+	private void computeTransitionTargets(Cluster cluster) {
+		for (int nodeIdx = 0; nodeIdx < cluster.nodes.length; nodeIdx++) {
+			int node = cluster.nodes[nodeIdx];
+
+			int numberOfTargets = 0;
+			for (int transitionInner : cluster.transitionsInner) {
+				if (transitionInner == node) {
+					numberOfTargets++;
+				}
+			}
+
+			int[] targets = new int[numberOfTargets];
+			numberOfTargets = 0;
+			for (int i = 0; i < cluster.transitionsInner.length; i++) {
+				if (cluster.transitionsInner[i] == node) {
+					int outer = cluster.transitionsOuter[i];
+					int outerClusterIdx = getClusterIdx(outer % width, outer / width);
+					targets[numberOfTargets++] = getNodeReference(outerClusterIdx, clusters[outerClusterIdx].getNodeIndex(outer));
+				}
+			}
+			cluster.transitionTargets[nodeIdx] = targets;
+		}
+	}
+
+	private Path findHierarchicalPath(int sx, int sy, int tx, int ty) {
+		final int startFlatIdx = getFlatIdx(sx, sy);
+		final int targetFlatIdx = getFlatIdx(tx, ty);
+		final int startClusterIdx = getClusterIdx(sx, sy);
+		final int targetClusterIdx = getClusterIdx(tx, ty);
+		final Cluster startCluster = clusters[startClusterIdx];
+		final Cluster targetCluster = clusters[targetClusterIdx];
+
+		searchGeneration++;
+		targetCosts = Integer.MAX_VALUE;
+		targetParent = START_NODE;
+
+		targetSearch.setCluster(targetCluster);
+		targetSearch.search(targetFlatIdx);
+		clusterSearch.setCluster(startCluster);
+		clusterSearch.search(startFlatIdx);
+
+		open.clear();
+
+		for (int i = 0; i < startCluster.nodes.length; i++) {
+			int distance = clusterSearch.getDistance(startCluster.nodes[i]);
+			if (distance >= 0) {
+				relax(START_NODE, getNodeReference(startClusterIdx, i), distance, tx, ty);
+			}
+		}
+
+		while (!open.isEmpty()) {
+			final int reference = open.getMinReference();
+			final int costs = open.getMinCosts();
+			open.deleteMin();
+
+			if (reference == TARGET_NODE) {
+				return refinePath(startFlatIdx, targetFlatIdx);
+			}
+
+			int clusterIdx = getClusterIdxOfReference(reference);
+			int nodeIdx = getNodeIdxOfReference(reference);
+			Cluster cluster = clusters[clusterIdx];
+			if (costs > cluster.searchCosts[nodeIdx]) {
+				continue; // outdated entry
+			}
+
+			int[] edgeTargets = cluster.edgeTargets[nodeIdx];
+			int[] edgeCosts = cluster.edgeCosts[nodeIdx];
+			for (int i = 0; i < edgeTargets.length; i++) {
+				relax(reference, getNodeReference(clusterIdx, edgeTargets[i]), costs + edgeCosts[i], tx, ty);
+			}
+			for (int transitionTarget : cluster.transitionTargets[nodeIdx]) {
+				relax(reference, transitionTarget, costs + 1, tx, ty);
+			}
+			if (clusterIdx == targetClusterIdx) {
+				int distance = targetSearch.getDistance(cluster.nodes[nodeIdx]);
+				if (distance >= 0) {
+					relax(reference, TARGET_NODE, costs + distance, tx, ty);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private void relax(int parent, int reference, int newCosts, int tx, int ty) {
+		if (reference == TARGET_NODE) {
+			if (newCosts < targetCosts) {
+				targetCosts = newCosts;
+				targetParent = parent;
+				open.insert(TARGET_NODE, newCosts, newCosts);
+			}
+			return;
+		}
+
+		Cluster cluster = clusters[getClusterIdxOfReference(reference)];
+		int nodeIdx = getNodeIdxOfReference(reference);
+		if (cluster.searchGenerations[nodeIdx] != searchGeneration || newCosts < cluster.searchCosts[nodeIdx]) {
+			cluster.searchGenerations[nodeIdx] = searchGeneration;
+			cluster.searchCosts[nodeIdx] = newCosts;
+			cluster.searchParents[nodeIdx] = parent;
+			open.insert(reference, newCosts, newCosts + getHeuristicCost(cluster.nodes[nodeIdx], tx, ty));
+		}
+	}
+
+	private Path refinePath(int startFlatIdx, int targetFlatIdx) {
+		// collect the positions of the abstract nodes from the target to the start
+		int[] nodes = nodesBuffer;
+		int numberOfNodes = 0;
+		nodes[numberOfNodes++] = targetFlatIdx;
+		for (int reference = targetParent; reference != START_NODE;) {
+			if (numberOfNodes + 1 >= nodes.length) {
+				nodes = nodesBuffer = grow(nodes);
+			}
+			Cluster cluster = clusters[getClusterIdxOfReference(reference)];
+			int nodeIdx = getNodeIdxOfReference(reference);
+			nodes[numberOfNodes++] = cluster.nodes[nodeIdx];
+			reference = cluster.searchParents[nodeIdx];
+		}
+		nodes[numberOfNodes++] = startFlatIdx;
+
+		stepsBuffer = ensureCapacity(stepsBuffer, targetCosts);
+		final int[] steps = stepsBuffer;
+		int offset = 0;
+		for (int i = numberOfNodes - 1; i > 0; i--) {
+			int from = nodes[i];
+			int to = nodes[i - 1];
+			Cluster fromCluster = clusters[getClusterIdx(from % width, from / width)];
+
+			if (fromCluster.contains(to % width, to / width)) {
+				clusterSearch.setCluster(fromCluster);
+				clusterSearch.search(from);
+				offset = clusterSearch.writePath(to, steps, offset);
+			} else {
+				steps[offset++] = to;
+			}
+		}
+
+		Path path = new Path(offset);
+		for (int i = 0; i < offset; i++) {
+			path.insertAt(i, (short) (steps[i] % width), (short) (steps[i] / width));
+		}
+		return path;
+	}
+
+	/**
+	 * @param clusterIdx
+	 * @param nodeIdx
+	 * @return Returns a reference to the given node of the given cluster that is unique in the whole abstract graph.
+	 */
+	static int getNodeReference(int clusterIdx, int nodeIdx) {
+		return (clusterIdx << NODE_BITS) | nodeIdx;
+	}
+
+	private static int getClusterIdxOfReference(int reference) {
+		return reference >>> NODE_BITS;
+	}
+
+	private static int getNodeIdxOfReference(int reference) {
+		return reference & NODE_MASK;
+	}
+
+	private boolean isBlocked(int x, int y) {
+		return map.isBlocked(GRAPH_REQUESTER, x, y);
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private int getClusterIdx(int x, int y) {
+		return (y >> CLUSTER_BITS) * clustersPerLine + (x >> CLUSTER_BITS);
+	}
+
+	private int getHeuristicCost(int flatIdx, int tx, int ty) {
+		return ShortPoint2D.getOnGridDist(tx - flatIdx % width, ty - flatIdx / width);
+	}
+
+	private static int[] grow(int[] array) {
+		int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static int[] ensureCapacity(int[] array, int capacity) {
+		if (array.length >= capacity) {
+			return array;
+		}
+		return new int[Math.max(capacity, array.length * 2)];
+	}
+}
@@ -26,6 +26,10 @@ import jsettlers.common.position.ShortPoint2D;
 
 /**
  * this class implements a strict dijkstra algorithm
+ * <p>
+ * The positions are visited ring by ring around the center, so every position is visited at most once per search without remembering it. Therefore
+ * no open or closed marks are needed here. The paths to the found positions are calculated by the given {@link AbstractAStar}, which uses its own
+ * {@link jsettlers.algorithms.path.arrays.SearchMarks}.
  * 
  * @author Andreas Eberle
  * 
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.input.tasks;
+
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.client.task.packets.TaskPacketTypes;
+import jsettlers.network.client.task.packets.TaskPacketTypes.ITaskPacketFactory;
+
+/**
+ * Registers the type ids of the gui tasks in the {@link TaskPacketTypes}. The ids are part of the network protocol and of the replay files, so
+ * they must never be changed or reused.
+ */
+public final class GuiTaskTypes {
+	private static boolean registered = false;
+
+	private GuiTaskTypes() {
+	}
+
+	/**
+	 * Registers all gui tasks. This must be called before tasks are sent or received. Calling it more than once has no effect.
+	 */
+	public static synchronized void register() {
+		if (registered) {
+			return;
+		}
+		registered = true;
+
+		TaskPacketTypes.register((short) 1, SimpleGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SimpleGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 2, MovableGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new MovableGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 3, MoveToGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new MoveToGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 4, ConvertGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new ConvertGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 5, ConstructBuildingTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new ConstructBuildingTask();
+			}
+		});
+		TaskPacketTypes.register((short) 6, DestroyBuildingGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new DestroyBuildingGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 7, WorkAreaGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new WorkAreaGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 8, SetBuildingPriorityGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SetBuildingPriorityGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 9, SetMaterialDistributionSettingsGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SetMaterialDistributionSettingsGuiTask();
+			}
+		});
+		TaskPacketTypes.register((short) 10, SetMaterialPrioritiesGuiTask.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new SetMaterialPrioritiesGuiTask();
+			}
+		});
+	}
+}
@@ -30,6 +30,8 @@ public final class Constants {
 
 	public static final float TILE_PATHFINDER_COST = 1.0f;
 
+	public static final int PATH_CACHE_SIZE = 2048;
+
 	public static final byte STACK_SIZE = 8;
 
 	public static final short WIDTH = 400;
@@ -38,4 +38,15 @@ public final class MatchConstants {
 	public static boolean ENABLE_ALL_PLAYER_SELECTION = false;
 
 	public static boolean ENABLE_FOG_OF_WAR_DISABLING = false;
+
+	/**
+	 * if true, the fog of war only applies the changes of the viewers instead of rebuilding the whole sight in every cycle.
+	 */
+	public static boolean ENABLE_INCREMENTAL_FOG_OF_WAR = false;
+
+	/**
+	 * if true, long paths of the movables are searched on an abstract graph of map clusters. These paths may be a few steps longer than the ones of
+	 * the normal A*.
+	 */
+	public static boolean ENABLE_HIERARCHICAL_PATH_FINDING = false;
 }
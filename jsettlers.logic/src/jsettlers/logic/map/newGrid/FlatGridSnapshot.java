@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * Copies of the primitive data of an {@link IFlatSerializable} grid. The game thread only copies the arrays into the snapshot, they are written
+ * with {@link #writeTo(DataOutputStream)} by another thread while the game continues.
+ * <p />
+ * The copies are kept when the snapshot is cleared and are overwritten by the next snapshot if they have the same length. So once the buffers have
+ * been allocated, taking a snapshot of a grid doesn't allocate memory anymore.
+ */
+public final class FlatGridSnapshot {
+	private final ArrayList<Object> copies = new ArrayList<Object>();
+	private int size = 0; // the number of copies of the current snapshot
+
+	FlatGridSnapshot() {
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	public void addBytes(byte[] data) {
+		Object reusable = getReusable();
+		byte[] copy = reusable instanceof byte[] && ((byte[]) reusable).length == data.length ? (byte[]) reusable : new byte[data.length];
+		System.arraycopy(data, 0, copy, 0, data.length);
+		add(copy);
+	}
+
+	public void addShorts(short[] data) {
+		Object reusable = getReusable();
+		short[] copy = reusable instanceof short[] && ((short[]) reusable).length == data.length ? (short[]) reusable : new short[data.length];
+		System.arraycopy(data, 0, copy, 0, data.length);
+		add(copy);
+	}
+
+	public void addInts(int[] data) {
+		Object reusable = getReusable();
+		int[] copy = reusable instanceof int[] && ((int[]) reusable).length == data.length ? (int[]) reusable : new int[data.length];
+		System.arraycopy(data, 0, copy, 0, data.length);
+		add(copy);
+	}
+
+	public void addBitSet(BitSet data) {
+		Object reusable = getReusable();
+		BitSet copy = reusable instanceof BitSet ? (BitSet) reusable : new BitSet(data.size());
+		copy.clear();
+		copy.or(data);
+		add(copy);
+	}
+
+	private Object getReusable() {
+		return size < copies.size() ? copies.get(size) : null;
+	}
+
+	private void add(Object copy) {
+		if (size < copies.size()) {
+			copies.set(size, copy);
+		} else {
+			copies.add(copy);
+		}
+		size++;
+	}
+
+	/**
+	 * Writes the copies with the {@link FlatSerializationUtils}, so that {@link IFlatSerializable#readFlat(java.io.DataInputStream)} can read them
+	 * with the methods of the same type in the same order.
+	 * 
+	 * @param out
+	 *            The stream of the section.
+	 * @throws IOException
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		for (int i = 0; i < size; i++) {
+			Object copy = copies.get(i);
+			if (copy instanceof byte[]) {
+				FlatSerializationUtils.writeBytes(out, (byte[]) copy);
+			} else if (copy instanceof short[]) {
+				FlatSerializationUtils.writeShorts(out, (short[]) copy);
+			} else if (copy instanceof int[]) {
+				FlatSerializationUtils.writeInts(out, (int[]) copy);
+			} else {
+				FlatSerializationUtils.writeBitSet(out, (BitSet) copy);
+			}
+		}
+	}
+}
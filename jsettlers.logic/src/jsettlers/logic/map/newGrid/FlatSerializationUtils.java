@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Helper methods to write arrays and {@link BitSet}s for the {@link IFlatSerializable} grids. Every array is prefixed with its length, so that a
+ * corrupted or mismatching savegame is detected when reading it.
+ */
+public final class FlatSerializationUtils {
+	private FlatSerializationUtils() {
+	}
+
+	public static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	public static byte[] readBytes(DataInputStream in, int expectedLength) throws IOException {
+		byte[] data = new byte[readLength(in, expectedLength)];
+		in.readFully(data);
+		return data;
+	}
+
+	public static void writeShorts(DataOutputStream out, short[] data) throws IOException {
+		out.writeInt(data.length);
+		ByteBuffer buffer = ByteBuffer.allocate(data.length * 2);
+		buffer.asShortBuffer().put(data);
+		out.write(buffer.array());
+	}
+
+	public static short[] readShorts(DataInputStream in, int expectedLength) throws IOException {
+		short[] data = new short[readLength(in, expectedLength)];
+		byte[] bytes = new byte[data.length * 2];
+		in.readFully(bytes);
+		ByteBuffer.wrap(bytes).asShortBuffer().get(data);
+		return data;
+	}
+
+	public static void writeInts(DataOutputStream out, int[] data) throws IOException {
+		out.writeInt(data.length);
+		ByteBuffer buffer = ByteBuffer.allocate(data.length * 4);
+		buffer.asIntBuffer().put(data);
+		out.write(buffer.array());
+	}
+
+	public static int[] readInts(DataInputStream in, int expectedLength) throws IOException {
+		int[] data = new int[readLength(in, expectedLength)];
+		byte[] bytes = new byte[data.length * 4];
+		in.readFully(bytes);
+		ByteBuffer.wrap(bytes).asIntBuffer().get(data);
+		return data;
+	}
+
+	public static void writeBitSet(DataOutputStream out, BitSet bitSet) throws IOException {
+		long[] words = bitSet.toLongArray();
+		out.writeInt(words.length);
+		ByteBuffer buffer = ByteBuffer.allocate(words.length * 8);
+		buffer.asLongBuffer().put(words);
+		out.write(buffer.array());
+	}
+
+	public static BitSet readBitSet(DataInputStream in) throws IOException {
+		long[] words = new long[readLength(in, -1)];
+		byte[] bytes = new byte[words.length * 8];
+		in.readFully(bytes);
+		ByteBuffer.wrap(bytes).asLongBuffer().get(words);
+		return BitSet.valueOf(words);
+	}
+
+	private static int readLength(DataInputStream in, int expectedLength) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || (expectedLength >= 0 && length != expectedLength)) {
+			throw new IOException("Invalid array length " + length + " (expected " + expectedLength + ").");
+		}
+		return length;
+	}
+}
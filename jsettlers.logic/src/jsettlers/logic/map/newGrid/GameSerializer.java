@@ -14,86 +14,291 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.InflaterInputStream;
 
 import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.timer.RescheduleTimer;
 import jsettlers.network.synchronic.random.RandomSingleton;
 
 /**
  * This class serializes and deserializes the {@link MainGrid} and therefore the complete game state.
+ * <p />
+ * A savegame is a sequence of sections. Every section starts with its id, its flags and its length, so it can be compressed on its own and it can be
+ * skipped by readers that don't know it. The game objects (movables, buildings, partition managers, timers...) reference each other and are
+ * therefore written with the java serialization into one section. The big primitive arrays of the {@link IFlatSerializable} grids are written into
+ * their own sections. The objects and movables grids write their objects as arrays into the game objects section and only the positions of them
+ * into their own sections.
+ * <p />
+ * Savegames of the old format don't start with the {@link #MAGIC_NUMBER}. They are a single java serialization stream and are still loaded.
  * 
  * @author Andreas Eberle
  * 
  */
 public class GameSerializer {
+	static final int MAGIC_NUMBER = 0x4A534156; // "JSAV"
+	/**
+	 * Only needs to be increased on incompatible changes. New sections can be added without changing the version, as unknown sections are skipped.
+	 */
+	static final short VERSION = 1;
+
+	static final byte SECTION_END = 0;
+	static final byte SECTION_GAME_OBJECTS = 1;
+	private static final byte SECTION_LANDSCAPE = 2;
+	private static final byte SECTION_FLAGS = 3;
+	private static final byte SECTION_PARTITIONS = 4;
+	private static final byte SECTION_OBJECTS = 5;
+	private static final byte SECTION_MOVABLES = 6;
+	private static final byte[] FLAT_SECTIONS = { SECTION_LANDSCAPE, SECTION_FLAGS, SECTION_PARTITIONS, SECTION_OBJECTS, SECTION_MOVABLES };
+	private static final int REQUIRED_SECTIONS = 1 << SECTION_GAME_OBJECTS | 1 << SECTION_LANDSCAPE | 1 << SECTION_FLAGS | 1 << SECTION_PARTITIONS
+			| 1 << SECTION_OBJECTS | 1 << SECTION_MOVABLES;
+
+	static final byte FLAG_DEFLATED = 1;
 
 	private static final long SAVE_STACK_SIZE = 1024 * 1024; // size of the save thread's stack
 	private static final long LOAD_STACK_SIZE = 1024 * 1024; // size of the load thread's stack
+	private static final int MAX_RECYCLED_SNAPSHOTS = 2; // one snapshot can be written while the next one is taken
+
+	private final boolean compressed;
+	private final ConcurrentLinkedQueue<GameStateSnapshot> recycledSnapshots = new ConcurrentLinkedQueue<GameStateSnapshot>();
+
+	public GameSerializer() {
+		this(true);
+	}
 
 	/**
-	 * Saves the grid to the given output file.
+	 * 
+	 * @param compressed
+	 *            If true, the sections are deflated when writing the snapshots.
+	 */
+	public GameSerializer(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * Saves the game state to the given stream.
 	 * 
 	 * @param grid
 	 *            The grid to use.
+	 * @param playerStates
+	 *            The states of the players' user interfaces.
 	 * @param out
-	 *            The output file/stream for the game.
+	 *            The output stream for the game. The stream is not closed.
 	 * @throws IOException
 	 */
-	public void save(MainGrid grid, final ObjectOutputStream oos) throws IOException {
-		GameSaveTask runnable = new GameSaveTask(grid, oos);
-		Thread t = new Thread(null, runnable, "SaveThread", SAVE_STACK_SIZE);
-		t.start();
+	public void save(MainGrid grid, PlayerState[] playerStates, OutputStream out) throws IOException {
+		GameStateSnapshot snapshot = createSnapshot(grid, playerStates);
 		try {
-			t.join();
-		} catch (InterruptedException e) {
-			throw new IOException(e);
+			snapshot.writeTo(out);
+		} finally {
+			recycle(snapshot);
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the game state. This must be called at a tick boundary by the game thread. The returned snapshot can then be written by
+	 * another thread while the game continues.
+	 * <p />
+	 * The game objects reference each other and change every tick, so their java serialization is done here on the game thread and blocks the game
+	 * for as long as it runs. The primitive arrays of the flat grids are only copied into the buffers of a recycled snapshot. Serializing and
+	 * compressing them is left to the thread writing the snapshot.
+	 * 
+	 * @param grid
+	 *            The grid to use.
+	 * @param playerStates
+	 *            The states of the players' user interfaces.
+	 * @return The snapshot of the game state.
+	 * @throws IOException
+	 */
+	public GameStateSnapshot createSnapshot(MainGrid grid, PlayerState[] playerStates) throws IOException {
+		grid.waitForThreadsToFinish();
+
+		GameStateSnapshot snapshot = recycledSnapshots.poll();
+		if (snapshot == null) {
+			snapshot = new GameStateSnapshot(compressed, FLAT_SECTIONS);
+		}
+
+		ByteArrayOutputStream gameObjects = new ByteArrayOutputStream();
+		GameSaveTask saveTask = new GameSaveTask(grid, playerStates, gameObjects);
+		runWithLargeStack(saveTask, "SaveThread", SAVE_STACK_SIZE);
+		if (saveTask.exception != null) {
+			throw new IOException("Error saving map.", saveTask.exception);
 		}
+		snapshot.setGameObjects(gameObjects.toByteArray());
 
-		if (runnable.exception != null) {
-			throw new IOException("Error saving map.", runnable.exception);
+		for (int i = 0; i < FLAT_SECTIONS.length; i++) {
+			getFlatSerializable(grid, FLAT_SECTIONS[i]).snapshotFlat(snapshot.clearFlatSection(i));
 		}
 
-		oos.flush();
+		return snapshot;
 	}
 
-	public MainGrid load(final ObjectInputStream ois) throws MapLoadException {
+	/**
+	 * Gives a written snapshot back, so that the next call of {@link #createSnapshot(MainGrid, PlayerState[])} only copies the grids into its
+	 * buffers instead of allocating new ones. The snapshot must not be used anymore after this call.
+	 * 
+	 * @param snapshot
+	 *            A snapshot created by this serializer.
+	 */
+	public void recycle(GameStateSnapshot snapshot) {
+		snapshot.setGameObjects(null);
+		if (recycledSnapshots.size() < MAX_RECYCLED_SNAPSHOTS) {
+			recycledSnapshots.offer(snapshot);
+		}
+	}
+
+	/**
+	 * Loads a game state saved with {@link #save(MainGrid, PlayerState[], OutputStream)} or a savegame of the old format. The game clock, the random
+	 * generator and the {@link RescheduleTimer} are set to the loaded state.
+	 * 
+	 * @param in
+	 *            The stream to read the savegame from. The stream is not closed.
+	 * @return The loaded grid and player states.
+	 * @throws MapLoadException
+	 */
+	public MainGridWithUiSettings load(InputStream in) throws MapLoadException {
 		try {
-			LoadRunnable runnable = new LoadRunnable(ois);
-			Thread t = new Thread(null, runnable, "LoadThread", LOAD_STACK_SIZE);
-			t.start();
-			t.join();
-
-			if (runnable.grid != null) {
-				return runnable.grid;
-			} else {
-				throw new MapLoadException("Error loading map.", runnable.exception);
+			InputStream stream = in.markSupported() ? in : new BufferedInputStream(in);
+			stream.mark(4);
+			DataInputStream dis = new DataInputStream(stream);
+			if (dis.readInt() != MAGIC_NUMBER) {
+				stream.reset();
+				return loadOldFormat(stream);
+			}
+			short version = dis.readShort();
+			if (version > VERSION) {
+				throw new MapLoadException("The savegame has been created by a newer version (" + version + ").");
+			}
+
+			LoadRunnable gameObjects = null;
+			int readSections = 0;
+
+			for (byte sectionId = dis.readByte(); sectionId != SECTION_END; sectionId = dis.readByte()) {
+				DataInputStream section = readSection(dis);
+
+				if (sectionId == SECTION_GAME_OBJECTS) {
+					gameObjects = new LoadRunnable(section, false);
+					runWithLargeStack(gameObjects, "LoadThread", LOAD_STACK_SIZE);
+					if (gameObjects.exception != null) {
+						throw new MapLoadException("Error loading map.", gameObjects.exception);
+					}
+				} else if (isFlatSection(sectionId)) {
+					if (gameObjects == null) {
+						throw new MapLoadException("The grid section " + sectionId + " is stored before the game objects.");
+					}
+					getFlatSerializable(gameObjects.grid, sectionId).readFlat(section);
+				} // else: the section was added by a later version and is skipped
+
+				section.close();
+				readSections |= 1 << sectionId;
+			}
+
+			if ((readSections & REQUIRED_SECTIONS) != REQUIRED_SECTIONS) {
+				throw new MapLoadException("The savegame is incomplete.");
+			}
+
+			return new MainGridWithUiSettings(gameObjects.grid, gameObjects.playerStates);
+		} catch (IOException e) {
+			throw new MapLoadException(e);
+		}
+	}
+
+	private static MainGridWithUiSettings loadOldFormat(InputStream in) throws IOException, MapLoadException {
+		LoadRunnable loader = new LoadRunnable(in, true);
+		runWithLargeStack(loader, "LoadThread", LOAD_STACK_SIZE);
+		if (loader.exception != null) {
+			throw new MapLoadException("Error loading savegame of the old format.", loader.exception);
+		}
+		return new MainGridWithUiSettings(loader.grid, loader.playerStates);
+	}
+
+	private static boolean isFlatSection(byte sectionId) {
+		for (byte flatSection : FLAT_SECTIONS) {
+			if (flatSection == sectionId) {
+				return true;
 			}
-		} catch (Throwable t) {
-			throw new MapLoadException(t);
 		}
+		return false;
 	}
 
-	private final class GameSaveTask implements Runnable {
+	private static IFlatSerializable getFlatSerializable(MainGrid grid, byte sectionId) {
+		switch (sectionId) {
+		case SECTION_LANDSCAPE:
+			return grid.landscapeGrid;
+		case SECTION_FLAGS:
+			return grid.flagsGrid;
+		case SECTION_PARTITIONS:
+			return grid.partitionsGrid;
+		case SECTION_OBJECTS:
+			return grid.objectsGrid;
+		case SECTION_MOVABLES:
+			return grid.movableGrid;
+		default:
+			throw new IllegalArgumentException("No grid section: " + sectionId);
+		}
+	}
+
+	private static DataInputStream readSection(DataInputStream in) throws IOException {
+		byte flags = in.readByte();
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Invalid section length: " + length);
+		}
+
+		byte[] data = new byte[length];
+		in.readFully(data);
+
+		InputStream stream = new ByteArrayInputStream(data);
+		if ((flags & FLAG_DEFLATED) != 0) {
+			stream = new BufferedInputStream(new InflaterInputStream(stream));
+		}
+		return new DataInputStream(stream);
+	}
+
+	private static void runWithLargeStack(Runnable runnable, String name, long stackSize) throws IOException {
+		Thread thread = new Thread(null, runnable, name, stackSize);
+		thread.start();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static final class GameSaveTask implements Runnable {
 		private final MainGrid grid;
-		private final ObjectOutputStream oos;
+		private final PlayerState[] playerStates;
+		private final OutputStream out;
 		Throwable exception = null;
 
-		private GameSaveTask(MainGrid grid, ObjectOutputStream oos) {
+		private GameSaveTask(MainGrid grid, PlayerState[] playerStates, OutputStream out) {
 			this.grid = grid;
-			this.oos = oos;
+			this.playerStates = playerStates;
+			this.out = out;
 		}
 
 		@Override
 		public void run() {
 			try {
-				grid.waitForThreadsToFinish();
-
+				ObjectOutputStream oos = new ObjectOutputStream(out);
 				oos.writeInt(MatchConstants.clock.getTime());
 				RandomSingleton.serialize(oos);
+				oos.writeObject(playerStates);
 				oos.writeObject(grid);
+				RescheduleTimer.saveTo(oos);
+				oos.close();
 			} catch (Throwable t) {
 				t.printStackTrace();
 				this.exception = t;
@@ -102,20 +307,38 @@ public class GameSerializer {
 	}
 
 	private static final class LoadRunnable implements Runnable {
-		private final ObjectInputStream ois;
+		private final InputStream in;
+		private final boolean oldFormat;
 		MainGrid grid = null;
+		PlayerState[] playerStates = null;
 		Throwable exception = null;
 
-		private LoadRunnable(ObjectInputStream ois) {
-			this.ois = ois;
+		/**
+		 * 
+		 * @param in
+		 *            The stream of the game objects.
+		 * @param oldFormat
+		 *            If true, the player states are read before the game clock's time, like the old format stored them.
+		 */
+		private LoadRunnable(InputStream in, boolean oldFormat) {
+			this.in = in;
+			this.oldFormat = oldFormat;
 		}
 
 		@Override
 		public void run() {
 			try {
+				ObjectInputStream ois = new ObjectInputStream(in);
+				if (oldFormat) {
+					playerStates = (PlayerState[]) ois.readObject();
+				}
 				MatchConstants.clock.setTime(ois.readInt());
 				RandomSingleton.deserialize(ois);
+				if (!oldFormat) {
+					playerStates = (PlayerState[]) ois.readObject();
+				}
 				grid = (MainGrid) ois.readObject();
+				RescheduleTimer.loadFrom(ois);
 			} catch (Throwable t) {
 				t.printStackTrace();
 				this.exception = t;
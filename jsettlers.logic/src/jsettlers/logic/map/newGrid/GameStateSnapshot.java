@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * The sections of a savegame taken at a tick boundary by {@link GameSerializer}. The game objects have already been java serialized and the flat
+ * grids have been copied into {@link FlatGridSnapshot}s. The snapshot doesn't reference the game objects anymore, so the flat grids can be
+ * serialized, compressed and written by any thread while the game keeps running.
+ * <p />
+ * The snapshot keeps its buffers after it has been written. It can be given back with {@link GameSerializer#recycle(GameStateSnapshot)}, so that
+ * the next snapshot reuses them.
+ */
+public final class GameStateSnapshot {
+	private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+	private final boolean compressed;
+	private final byte[] flatSectionIds;
+	private final FlatGridSnapshot[] flatSections;
+	private byte[] gameObjects;
+
+	GameStateSnapshot(boolean compressed, byte[] flatSectionIds) {
+		this.compressed = compressed;
+		this.flatSectionIds = flatSectionIds;
+		this.flatSections = new FlatGridSnapshot[flatSectionIds.length];
+		for (int i = 0; i < flatSections.length; i++) {
+			flatSections[i] = new FlatGridSnapshot();
+		}
+	}
+
+	void setGameObjects(byte[] gameObjects) {
+		this.gameObjects = gameObjects;
+	}
+
+	/**
+	 * @param index
+	 *            The index of the section in the flat section ids given to the constructor.
+	 * @return The cleared snapshot of the section.
+	 */
+	FlatGridSnapshot clearFlatSection(int index) {
+		flatSections[index].clear();
+		return flatSections[index];
+	}
+
+	/**
+	 * Serializes the flat grids, compresses the sections (if enabled) and writes the savegame to the given stream.
+	 * 
+	 * @param out
+	 *            The output stream for the game. The stream is not closed.
+	 * @return The number of bytes written.
+	 * @throws IOException
+	 */
+	public long writeTo(OutputStream out) throws IOException {
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(GameSerializer.MAGIC_NUMBER);
+		dos.writeShort(GameSerializer.VERSION);
+
+		writeSection(dos, GameSerializer.SECTION_GAME_OBJECTS, gameObjects);
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		for (int i = 0; i < flatSections.length; i++) {
+			buffer.reset();
+			DataOutputStream sectionStream = new DataOutputStream(buffer);
+			flatSections[i].writeTo(sectionStream);
+			sectionStream.flush();
+			writeSection(dos, flatSectionIds[i], buffer.toByteArray());
+		}
+
+		dos.writeByte(GameSerializer.SECTION_END);
+		dos.flush();
+		return dos.size();
+	}
+
+	private void writeSection(DataOutputStream dos, byte sectionId, byte[] data) throws IOException {
+		if (compressed) {
+			data = deflate(data);
+		}
+
+		dos.writeByte(sectionId);
+		dos.writeByte(compressed ? GameSerializer.FLAG_DEFLATED : 0);
+		dos.writeInt(data.length);
+		dos.write(data);
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED); // fast quick saves are more important than the last percents of the file size
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+			byte[] buffer = new byte[COMPRESSION_BUFFER_SIZE];
+			while (!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				out.write(buffer, 0, length);
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * This interface is implemented by grids that store their primitive data in an own section of the savegame (see {@link GameSerializer}) instead of
+ * writing it with the java serialization. The fields written by these methods must therefore be transient.
+ */
+public interface IFlatSerializable {
+	/**
+	 * Copies the primitive data of this grid into the given snapshot. This is called by the game thread, the snapshot is written later by another
+	 * thread.
+	 * 
+	 * @param snapshot
+	 *            The empty snapshot of the section.
+	 */
+	void snapshotFlat(FlatGridSnapshot snapshot);
+
+	/**
+	 * Reads the data copied by {@link #snapshotFlat(FlatGridSnapshot)}. This method is called after the grid itself has been deserialized.
+	 * 
+	 * @param in
+	 *            The stream of the section.
+	 * @throws IOException
+	 */
+	void readFlat(DataInputStream in) throws IOException;
+}
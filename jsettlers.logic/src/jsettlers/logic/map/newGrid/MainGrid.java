@@ -18,6 +18,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -33,9 +34,13 @@ import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.area.IInAreaFinderMap;
 import jsettlers.algorithms.path.area.InAreaFinder;
+import jsettlers.algorithms.path.arrays.SearchMarks;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.BucketQueueAStar;
 import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.astar.PathCacheStatistics;
+import jsettlers.algorithms.path.astar.PathCachingAStar;
+import jsettlers.algorithms.path.astar.hierarchical.HierarchicalAStar;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
@@ -81,6 +86,7 @@ import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.newGrid.flags.FlagsGrid;
+import jsettlers.logic.map.newGrid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.newGrid.landscape.LandscapeGrid;
 import jsettlers.logic.map.newGrid.movable.MovableGrid;
 import jsettlers.logic.map.newGrid.objects.AbstractHexMapObject;
@@ -167,6 +173,7 @@ public final class MainGrid implements Serializable {
 		this.guiInputGrid = new GUIInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
+		this.flagsGrid.setPathfinderBlockingChangedListener(movablePathfinderGrid);
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
 	}
 
@@ -184,6 +191,9 @@ public final class MainGrid implements Serializable {
 	}
 
 	public void startThreads() {
+		if (movablePathfinderGrid.hierarchicalAStar != null) {
+			movablePathfinderGrid.hierarchicalAStar.updateAbstractGraph();
+		}
 		bordersThread.start();
 		partitionsGrid.startThreads();
 		if (fogOfWar != null) {
@@ -199,10 +209,15 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * Waits until the borders thread has processed all positions queued so far. The partitions normalizer is synchronized by the lock of the
+	 * {@link PartitionsGrid} and the fog of war isn't part of the game state.
+	 */
 	public void waitForThreadsToFinish() {
 		try {
-			Thread.sleep(300); // TODO @Andreas Eberle: Wait for the threads to finish their work
+			bordersThread.waitUntilIdle();
 		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -326,6 +341,13 @@ public final class MainGrid implements Serializable {
 		return movablePathfinderGrid.pathfinderGrid;
 	}
 
+	/**
+	 * @return Returns the current counters of the path cache used for the paths of the movables.
+	 */
+	public PathCacheStatistics getPathCacheStatistics() {
+		return movablePathfinderGrid.cachingAStar.getStatistics();
+	}
+
 	public final boolean isInBounds(int x, int y) {
 		return x >= 0 && x < width && y >= 0 && y < height;
 	}
@@ -701,6 +723,12 @@ public final class MainGrid implements Serializable {
 			return fogOfWar.isVisible(x, y);
 		}
 
+		@Override
+		public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+			fogOfWar.collectChangedTiles(changedTiles);
+			return true;
+		}
+
 		@Override
 		public final void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 			landscapeGrid.setBackgroundListener(backgroundListener);
@@ -944,12 +972,14 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
-	final class MovablePathfinderGrid extends AbstractMovableGrid {
+	final class MovablePathfinderGrid extends AbstractMovableGrid implements IBlockingChangedListener {
 		private static final long serialVersionUID = 4006228724969442801L;
 
 		private transient PathfinderGrid pathfinderGrid;
 
 		private transient AbstractAStar aStar;
+		private transient HierarchicalAStar hierarchicalAStar;
+		private transient PathCachingAStar cachingAStar;
 		transient DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
 		private transient InAreaFinder inAreaFinder;
 
@@ -965,9 +995,36 @@ public final class MainGrid implements Serializable {
 		private final void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
-			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
+			SearchMarks searchMarks = new SearchMarks(width * height); // shared, because the searches never run at the same time
+
+			aStar = new BucketQueueAStar(pathfinderGrid, width, height, searchMarks);
+			if (MatchConstants.ENABLE_HIERARCHICAL_PATH_FINDING) {
+				hierarchicalAStar = new HierarchicalAStar(aStar, pathfinderGrid, width, height);
+				cachingAStar = new PathCachingAStar(hierarchicalAStar, pathfinderGrid, width, height, Constants.PATH_CACHE_SIZE);
+			} else {
+				hierarchicalAStar = null;
+				cachingAStar = new PathCachingAStar(aStar, pathfinderGrid, width, height, Constants.PATH_CACHE_SIZE);
+			}
 			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
-			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
+			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height, searchMarks);
+		}
+
+		/**
+		 * Removes the cached paths around the given position. This needs to be called when the player of a position changes.
+		 * 
+		 * @param x
+		 * @param y
+		 */
+		final void invalidatePathCache(int x, int y) {
+			cachingAStar.invalidate(x, y);
+		}
+
+		@Override
+		public final void blockingChanged(int x, int y, boolean newBlockingValue) {
+			if (hierarchicalAStar != null) {
+				hierarchicalAStar.blockingChanged(x, y);
+			}
+			invalidatePathCache(x, y);
 		}
 
 		@Override
@@ -1188,7 +1245,7 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public Path calculatePathTo(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
-			return aStar.findPath(pathRequester, targetPos);
+			return cachingAStar.findPath(pathRequester, targetPos);
 		}
 
 		@Override
@@ -1622,18 +1679,9 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final void save(PlayerState[] playerStates) throws FileNotFoundException, IOException, InterruptedException {
-			boolean savedPausingState = MatchConstants.clock.isPausing();
-			MatchConstants.clock.setPausing(true);
-			try {
-				Thread.sleep(100); // FIXME @Andreas serializer should wait until threads did their work!
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-
+			// this is called by the game thread, so the snapshot is taken at a tick boundary. Taking it blocks the game, writing the file doesn't.
 			MapList list = MapList.getDefaultList();
-			list.saveMap(playerStates, MainGrid.this);
-
-			MatchConstants.clock.setPausing(savedPausingState);
+			list.saveMapInBackground(playerStates, MainGrid.this);
 		}
 
 		@Override
@@ -1715,6 +1763,7 @@ public final class MainGrid implements Serializable {
 		public void playerChangedAt(int x, int y, byte newPlayerId) {
 			final ShortPoint2D position = new ShortPoint2D(x, y);
 			bordersThread.checkPosition(position);
+			movablePathfinderGrid.invalidatePathCache(x, y);
 
 			Building building = objectsGrid.getBuildingOn(x, y);
 			if (building != null && building.getPlayerId() != newPlayerId) {
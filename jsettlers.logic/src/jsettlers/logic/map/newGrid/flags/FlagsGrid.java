@@ -14,6 +14,7 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid.flags;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
@@ -21,6 +22,9 @@ import java.util.BitSet;
 
 import jsettlers.algorithms.interfaces.IContainingProvider;
 import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.logic.map.newGrid.FlatGridSnapshot;
+import jsettlers.logic.map.newGrid.FlatSerializationUtils;
+import jsettlers.logic.map.newGrid.IFlatSerializable;
 import jsettlers.logic.map.newGrid.partition.IPartitionsGridBlockingProvider;
 
 /**
@@ -29,20 +33,21 @@ import jsettlers.logic.map.newGrid.partition.IPartitionsGridBlockingProvider;
  * @author Andreas Eberle
  * 
  */
-public final class FlagsGrid implements Serializable, IBlockingProvider, IPartitionsGridBlockingProvider, IProtectedProvider {
+public final class FlagsGrid implements Serializable, IFlatSerializable, IBlockingProvider, IPartitionsGridBlockingProvider, IProtectedProvider {
 	private static final long serialVersionUID = -413005884613149208L;
 
-	private final short width;
+	private short width; // not final, because readObject() sets it
 
-	private final BitSet blockedGrid;
-	private final BitSet markedGrid;
-	private final BitSet protectedGrid;
-	private final BitSet bordersGrid;
+	private transient BitSet blockedGrid; // transient, they are written by snapshotFlat()
+	private transient BitSet markedGrid;
+	private transient BitSet protectedGrid;
+	private transient BitSet bordersGrid;
 
 	private IBlockingChangedListener blockingChangedListener = null;
 	private IProtectedChangedListener protectedChangedListener = null;
 
 	private transient IContainingProvider blockedContainingProvider;
+	private transient IBlockingChangedListener pathfinderBlockingChangedListener;
 
 	public FlagsGrid(final short width, final short height) {
 		this.width = width;
@@ -56,10 +61,37 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		width = fields.get("width", (short) 0);
+		blockingChangedListener = (IBlockingChangedListener) fields.get("blockingChangedListener", null);
+		protectedChangedListener = (IProtectedChangedListener) fields.get("protectedChangedListener", null);
+
+		if (fields.getObjectStreamClass().getField("blockedGrid") != null) { // savegames of the old format contain the bit sets
+			blockedGrid = (BitSet) fields.get("blockedGrid", null);
+			markedGrid = (BitSet) fields.get("markedGrid", null);
+			protectedGrid = (BitSet) fields.get("protectedGrid", null);
+			bordersGrid = (BitSet) fields.get("bordersGrid", null);
+		}
+
 		initAdditional();
 	}
 
+	@Override
+	public void snapshotFlat(FlatGridSnapshot snapshot) {
+		snapshot.addBitSet(blockedGrid);
+		snapshot.addBitSet(markedGrid);
+		snapshot.addBitSet(protectedGrid);
+		snapshot.addBitSet(bordersGrid);
+	}
+
+	@Override
+	public void readFlat(DataInputStream in) throws IOException {
+		blockedGrid = FlatSerializationUtils.readBitSet(in);
+		markedGrid = FlatSerializationUtils.readBitSet(in);
+		protectedGrid = FlatSerializationUtils.readBitSet(in);
+		bordersGrid = FlatSerializationUtils.readBitSet(in);
+	}
+
 	private void initAdditional() {
 		this.blockedContainingProvider = new IContainingProvider() {
 			@Override
@@ -103,6 +135,7 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 	 */
 	public void setBlockedAndProtected(int x, int y, boolean blocked, boolean newProtected) {
 		final int idx = x + y * width;
+		final boolean blockingChanged = this.blockedGrid.get(idx) != blocked;
 		this.blockedGrid.set(idx, blocked);
 		this.protectedGrid.set(idx, newProtected);
 
@@ -112,6 +145,9 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		if (protectedChangedListener != null) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
 		}
+		if (blockingChanged && pathfinderBlockingChangedListener != null) {
+			this.pathfinderBlockingChangedListener.blockingChanged(x, y, blocked);
+		}
 	}
 
 	public boolean isMarked(int x, int y) {
@@ -148,6 +184,17 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		this.blockingChangedListener = listener;
 	}
 
+	/**
+	 * Sets the listener that will be informed about every position that really changes its blocking. In contrast to the listener registered with
+	 * {@link #registerBlockingChangedListener(IBlockingChangedListener)}, this listener is not saved with the grid.
+	 * 
+	 * @param listener
+	 *            The listener or null if no listener should be informed.
+	 */
+	public void setPathfinderBlockingChangedListener(IBlockingChangedListener listener) {
+		this.pathfinderBlockingChangedListener = listener;
+	}
+
 	@Override
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
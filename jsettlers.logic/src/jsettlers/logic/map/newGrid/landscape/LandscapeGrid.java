@@ -14,6 +14,7 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid.landscape;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
@@ -26,6 +27,9 @@ import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.shapes.HexGridArea;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.newGrid.FlatGridSnapshot;
+import jsettlers.logic.map.newGrid.FlatSerializationUtils;
+import jsettlers.logic.map.newGrid.IFlatSerializable;
 import jsettlers.logic.map.newGrid.flags.IProtectedProvider;
 import jsettlers.logic.map.newGrid.flags.IProtectedProvider.IProtectedChangedListener;
 import jsettlers.network.synchronic.random.RandomSingleton;
@@ -35,7 +39,8 @@ import jsettlers.network.synchronic.random.RandomSingleton;
  * 
  * @author Andreas Eberle
  */
-public final class LandscapeGrid implements Serializable, IWalkableGround, IFlattenedResettable, IDebugColorSetable, IProtectedChangedListener {
+public final class LandscapeGrid implements Serializable, IFlatSerializable, IWalkableGround, IFlattenedResettable, IDebugColorSetable,
+		IProtectedChangedListener {
 	/**
 	 * This class is used as null object to get rid of a lot of null checks
 	 * 
@@ -51,18 +56,19 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 
 	private static final long serialVersionUID = -751261669662036483L;
 
-	private final byte[] heightGrid;
-	private final byte[] landscapeGrid;
-	private final byte[] resourceAmount;
-	private final byte[] temporaryFlatened;
-	private final byte[] resourceType;
-	private final short[] blockedPartitions;
+	private transient byte[] heightGrid; // transient, they are written by snapshotFlat()
+	private transient byte[] landscapeGrid;
+	private transient byte[] resourceAmount;
+	private transient byte[] temporaryFlatened;
+	private transient byte[] resourceType;
+	private transient short[] blockedPartitions;
 
-	private final short width;
-	private final short height;
+	// the fields are not final, because readObject() sets them
+	private short width;
+	private short height;
 
-	private final IProtectedProvider protectedProvider;
-	private final FlattenedResetter flattenedResetter;
+	private IProtectedProvider protectedProvider;
+	private FlattenedResetter flattenedResetter;
 
 	public transient int[] debugColors;
 	private transient IGraphicsBackgroundListener backgroundListener;
@@ -88,12 +94,47 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		protectedProvider = (IProtectedProvider) fields.get("protectedProvider", null);
+		flattenedResetter = (FlattenedResetter) fields.get("flattenedResetter", null);
+
+		if (fields.getObjectStreamClass().getField("heightGrid") != null) { // savegames of the old format contain the arrays
+			heightGrid = (byte[]) fields.get("heightGrid", null);
+			landscapeGrid = (byte[]) fields.get("landscapeGrid", null);
+			resourceAmount = (byte[]) fields.get("resourceAmount", null);
+			temporaryFlatened = (byte[]) fields.get("temporaryFlatened", null);
+			resourceType = (byte[]) fields.get("resourceType", null);
+			blockedPartitions = (short[]) fields.get("blockedPartitions", null);
+		}
+
 		setBackgroundListener(null);
 
 		initDebugColors();
 	}
 
+	@Override
+	public void snapshotFlat(FlatGridSnapshot snapshot) {
+		snapshot.addBytes(heightGrid);
+		snapshot.addBytes(landscapeGrid);
+		snapshot.addBytes(resourceAmount);
+		snapshot.addBytes(temporaryFlatened);
+		snapshot.addBytes(resourceType);
+		snapshot.addShorts(blockedPartitions);
+	}
+
+	@Override
+	public void readFlat(DataInputStream in) throws IOException {
+		final int tiles = width * height;
+		heightGrid = FlatSerializationUtils.readBytes(in, tiles);
+		landscapeGrid = FlatSerializationUtils.readBytes(in, tiles);
+		resourceAmount = FlatSerializationUtils.readBytes(in, tiles);
+		temporaryFlatened = FlatSerializationUtils.readBytes(in, tiles);
+		resourceType = FlatSerializationUtils.readBytes(in, tiles);
+		blockedPartitions = FlatSerializationUtils.readShorts(in, tiles);
+	}
+
 	private final void initDebugColors() {
 		if (CommonConstants.ENABLE_DEBUG_COLORS) {
 			this.debugColors = new int[width * height];
@@ -14,7 +14,12 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid.movable;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import jsettlers.common.map.shapes.HexBorderArea;
 import jsettlers.common.map.shapes.HexGridArea;
@@ -23,6 +28,9 @@ import jsettlers.common.movable.EMovableType;
 import jsettlers.common.movable.IMovable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.newGrid.FlatGridSnapshot;
+import jsettlers.logic.map.newGrid.FlatSerializationUtils;
+import jsettlers.logic.map.newGrid.IFlatSerializable;
 import jsettlers.logic.map.newGrid.landscape.IWalkableGround;
 import jsettlers.logic.movable.Movable;
 import jsettlers.logic.movable.interfaces.IAttackable;
@@ -32,14 +40,15 @@ import jsettlers.logic.movable.interfaces.IAttackable;
  * 
  * @author Andreas Eberle
  */
-public final class MovableGrid implements Serializable {
+public final class MovableGrid implements Serializable, IFlatSerializable {
 	private static final long serialVersionUID = 7003522358013103962L;
 
-	private final Movable[] movableGrid;
-	private final IWalkableGround ground;
-	private final short width;
+	private transient Movable[] movableGrid; // transient, the positions are written by snapshotFlat()
+	private transient Movable[] loadedMovables; // the movables read by readObject() until readFlat() puts them on their positions
+	private IWalkableGround ground; // not final, because readObject() sets them
+	private short width;
 
-	private final short height;
+	private short height;
 
 	public MovableGrid(short width, short height, IWalkableGround ground) {
 		this.width = width;
@@ -48,6 +57,76 @@ public final class MovableGrid implements Serializable {
 		this.movableGrid = new Movable[width * height];
 	}
 
+	/**
+	 * The movables are written with the java serialization as one array in the order of their positions. {@link #snapshotFlat(FlatGridSnapshot)}
+	 * only stores which positions they belong to.
+	 */
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+
+		ArrayList<Movable> movables = new ArrayList<Movable>();
+		for (int idx = 0; idx < movableGrid.length; idx++) {
+			if (movableGrid[idx] != null) {
+				movables.add(movableGrid[idx]);
+			}
+		}
+		oos.writeObject(movables.toArray(new Movable[movables.size()]));
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		ground = (IWalkableGround) fields.get("ground", null);
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+
+		if (fields.getObjectStreamClass().getField("movableGrid") != null) { // savegames of the old format contain the whole array
+			movableGrid = (Movable[]) fields.get("movableGrid", null);
+			return;
+		}
+
+		movableGrid = new Movable[width * height];
+		loadedMovables = (Movable[]) ois.readObject();
+	}
+
+	/**
+	 * Stores the positions of the movables written by {@link #writeObject(ObjectOutputStream)}. The grid must not be changed between both calls.
+	 */
+	@Override
+	public void snapshotFlat(FlatGridSnapshot snapshot) {
+		int usedPositions = 0;
+		for (int idx = 0; idx < movableGrid.length; idx++) {
+			if (movableGrid[idx] != null) {
+				usedPositions++;
+			}
+		}
+
+		int[] positions = new int[usedPositions];
+		usedPositions = 0;
+		for (int idx = 0; idx < movableGrid.length; idx++) {
+			if (movableGrid[idx] != null) {
+				positions[usedPositions++] = idx;
+			}
+		}
+		snapshot.addInts(positions);
+	}
+
+	@Override
+	public void readFlat(DataInputStream in) throws IOException {
+		if (loadedMovables == null) {
+			throw new IOException("The movables of the grid have not been loaded.");
+		}
+
+		int[] positions = FlatSerializationUtils.readInts(in, loadedMovables.length);
+		for (int i = 0; i < positions.length; i++) {
+			int idx = positions[i];
+			if (idx < 0 || idx >= movableGrid.length) {
+				throw new IOException("Invalid movable position: " + idx);
+			}
+			movableGrid[idx] = loadedMovables[i];
+		}
+		loadedMovables = null;
+	}
+
 	public final Movable getMovableAt(int x, int y) {
 		return this.movableGrid[x + y * width];
 	}
@@ -14,10 +14,12 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid.objects;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import jsettlers.common.map.shapes.FreeMapArea;
 import jsettlers.common.map.shapes.HexBorderArea;
@@ -28,6 +30,9 @@ import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.newGrid.FlatGridSnapshot;
+import jsettlers.logic.map.newGrid.FlatSerializationUtils;
+import jsettlers.logic.map.newGrid.IFlatSerializable;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.IInformable;
 
@@ -37,14 +42,17 @@ import jsettlers.logic.movable.interfaces.IInformable;
  * @author Andreas Eberle
  * 
  */
-public final class ObjectsGrid implements Serializable {
+public final class ObjectsGrid implements Serializable, IFlatSerializable {
 	private static final long serialVersionUID = 2919416226544282748L;
 
-	private final short width;
-	private final short height;
+	private short width; // not final, because readObject() sets them
+	private short height;
 
-	private transient AbstractHexMapObject[] objectsGrid; // don't use default serialization for this => transient
-	private final Building[] buildingsGrid;
+	private transient AbstractHexMapObject[] objectsGrid; // transient, the positions are written by snapshotFlat()
+	private transient Building[] buildingsGrid;
+
+	private transient AbstractHexMapObject[] loadedObjects; // the objects read by readObject() until readFlat() puts them on their positions
+	private transient Building[] loadedBuildings;
 
 	public ObjectsGrid(short width, short height) {
 		this.width = width;
@@ -53,39 +61,157 @@ public final class ObjectsGrid implements Serializable {
 		this.buildingsGrid = new Building[width * height];
 	}
 
+	/**
+	 * The objects are referenced by the timers, partitions and other objects, so they are written with the java serialization. They are written
+	 * as one array in the order of their positions, {@link #snapshotFlat(FlatGridSnapshot)} only stores which positions they belong to.
+	 */
 	private final void writeObject(ObjectOutputStream oos) throws IOException {
 		oos.defaultWriteObject();
-		int length = objectsGrid.length;
-		oos.writeInt(length);
 
-		for (int idx = 0; idx < length; idx++) {
-			AbstractHexMapObject currObject = objectsGrid[idx];
-
-			while (currObject != null) {
-				if (currObject.getObjectType() != EMapObjectType.WORKAREA_MARK) {
-					oos.writeObject(currObject);
+		ArrayList<AbstractHexMapObject> objects = new ArrayList<AbstractHexMapObject>();
+		for (int idx = 0; idx < objectsGrid.length; idx++) {
+			for (AbstractHexMapObject currObject = objectsGrid[idx]; currObject != null; currObject = currObject.getNextObject()) {
+				if (isSaved(currObject)) {
+					objects.add(currObject);
 				}
-				currObject = currObject.getNextObject();
 			}
-			oos.writeObject(null);
 		}
+		oos.writeObject(objects.toArray(new AbstractHexMapObject[objects.size()]));
+
+		ArrayList<Building> buildings = new ArrayList<Building>();
+		for (int idx = 0; idx < buildingsGrid.length; idx++) {
+			if (buildingsGrid[idx] != null) {
+				buildings.add(buildingsGrid[idx]);
+			}
+		}
+		oos.writeObject(buildings.toArray(new Building[buildings.size()]));
 	}
 
 	private final void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ois.defaultReadObject();
-		int length = ois.readInt();
-		objectsGrid = new AbstractHexMapObject[length];
+		ObjectInputStream.GetField fields = ois.readFields();
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		objectsGrid = new AbstractHexMapObject[width * height];
+
+		if (fields.getObjectStreamClass().getField("buildingsGrid") != null) { // savegames of the old format contain all positions
+			buildingsGrid = (Building[]) fields.get("buildingsGrid", null);
+			int length = ois.readInt();
+			for (int idx = 0; idx < length; idx++) {
+				readObjectsAt(ois, idx);
+			}
+			return;
+		}
 
-		for (int idx = 0; idx < length; idx++) {
-			AbstractHexMapObject currObject = (AbstractHexMapObject) ois.readObject();
-			objectsGrid[idx] = currObject;
+		buildingsGrid = new Building[width * height];
+		loadedObjects = (AbstractHexMapObject[]) ois.readObject();
+		loadedBuildings = (Building[]) ois.readObject();
+	}
+
+	private void readObjectsAt(ObjectInputStream ois, int idx) throws IOException, ClassNotFoundException {
+		AbstractHexMapObject currObject = (AbstractHexMapObject) ois.readObject();
+		objectsGrid[idx] = currObject;
+
+		while (currObject != null) {
+			AbstractHexMapObject newObject = (AbstractHexMapObject) ois.readObject();
+			currObject.addMapObject(newObject);
+			currObject = newObject;
+		}
+	}
+
+	private static boolean isSaved(AbstractHexMapObject mapObject) {
+		return mapObject.getObjectType() != EMapObjectType.WORKAREA_MARK; // the work area marks are only shown to the user
+	}
+
+	/**
+	 * Stores the positions of the objects and buildings written by {@link #writeObject(ObjectOutputStream)}. Every used position is stored with the
+	 * number of objects on it. The grid must not be changed between both calls.
+	 */
+	@Override
+	public void snapshotFlat(FlatGridSnapshot snapshot) {
+		int usedPositions = 0;
+		int buildingPositions = 0;
+		for (int idx = 0; idx < objectsGrid.length; idx++) {
+			if (countSavedObjectsAt(idx) > 0) {
+				usedPositions++;
+			}
+			if (buildingsGrid[idx] != null) {
+				buildingPositions++;
+			}
+		}
+
+		int[] positions = new int[usedPositions];
+		short[] counts = new short[usedPositions];
+		int[] buildingsPositions = new int[buildingPositions];
+		usedPositions = 0;
+		buildingPositions = 0;
+		for (int idx = 0; idx < objectsGrid.length; idx++) {
+			int count = countSavedObjectsAt(idx);
+			if (count > 0) {
+				positions[usedPositions] = idx;
+				counts[usedPositions] = (short) count;
+				usedPositions++;
+			}
+			if (buildingsGrid[idx] != null) {
+				buildingsPositions[buildingPositions++] = idx;
+			}
+		}
+
+		snapshot.addInts(positions);
+		snapshot.addShorts(counts);
+		snapshot.addInts(buildingsPositions);
+	}
+
+	private int countSavedObjectsAt(int idx) {
+		int count = 0;
+		for (AbstractHexMapObject currObject = objectsGrid[idx]; currObject != null; currObject = currObject.getNextObject()) {
+			if (isSaved(currObject)) {
+				count++;
+			}
+		}
+		return count;
+	}
 
-			while (currObject != null) {
-				AbstractHexMapObject newObject = (AbstractHexMapObject) ois.readObject();
+	@Override
+	public void readFlat(DataInputStream in) throws IOException {
+		if (loadedObjects == null) {
+			throw new IOException("The objects of the grid have not been loaded.");
+		}
+
+		int[] positions = FlatSerializationUtils.readInts(in, -1);
+		short[] counts = FlatSerializationUtils.readShorts(in, positions.length);
+		int nextObject = 0;
+		for (int i = 0; i < positions.length; i++) {
+			int idx = checkPosition(positions[i]);
+			int count = counts[i];
+			if (count <= 0 || nextObject + count > loadedObjects.length) {
+				throw new IOException("Invalid number of objects at " + idx + ": " + count);
+			}
+			AbstractHexMapObject currObject = loadedObjects[nextObject++];
+			objectsGrid[idx] = currObject;
+			for (int j = 1; j < count; j++) {
+				AbstractHexMapObject newObject = loadedObjects[nextObject++];
 				currObject.addMapObject(newObject);
 				currObject = newObject;
 			}
 		}
+		if (nextObject != loadedObjects.length) {
+			throw new IOException("Not all objects of the grid have a position.");
+		}
+
+		int[] buildingsPositions = FlatSerializationUtils.readInts(in, loadedBuildings.length);
+		for (int i = 0; i < buildingsPositions.length; i++) {
+			buildingsGrid[checkPosition(buildingsPositions[i])] = loadedBuildings[i];
+		}
+
+		loadedObjects = null;
+		loadedBuildings = null;
+	}
+
+	private int checkPosition(int idx) throws IOException {
+		if (idx < 0 || idx >= objectsGrid.length) {
+			throw new IOException("Invalid position: " + idx);
+		}
+		return idx;
 	}
 
 	public final AbstractHexMapObject getObjectsAt(int x, int y) {
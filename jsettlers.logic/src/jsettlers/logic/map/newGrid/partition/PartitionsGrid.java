@@ -14,8 +14,10 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid.partition;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -42,6 +44,9 @@ import jsettlers.common.utils.Tuple;
 import jsettlers.common.utils.collections.IPredicate;
 import jsettlers.common.utils.collections.ISerializablePredicate;
 import jsettlers.common.utils.collections.IteratorFilter;
+import jsettlers.logic.map.newGrid.FlatGridSnapshot;
+import jsettlers.logic.map.newGrid.FlatSerializationUtils;
+import jsettlers.logic.map.newGrid.IFlatSerializable;
 import jsettlers.logic.map.newGrid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
 import jsettlers.logic.map.newGrid.partition.manager.settings.PartitionManagerSettings;
@@ -54,7 +59,7 @@ import jsettlers.logic.player.Team;
  * @author Andreas Eberle
  * 
  */
-public final class PartitionsGrid implements Serializable, IBlockingChangedListener {
+public final class PartitionsGrid implements Serializable, IFlatSerializable, IBlockingChangedListener {
 	private static final long serialVersionUID = 8919380724171427679L;
 
 	private static final int NUMBER_OF_START_PARTITION_OBJECTS = 3000;
@@ -62,20 +67,21 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 
 	private static final int NO_PLAYER_PARTITION_ID = 0;
 
-	private final PartitionOccupyingTowerList occupyingTowers = new PartitionOccupyingTowerList();
+	// the fields are not final, because readObject() sets them
+	private PartitionOccupyingTowerList occupyingTowers = new PartitionOccupyingTowerList();
 
-	final short width;
-	final short height;
-	final Player[] players;
-	private final IBlockingProvider blockingProvider;
+	short width;
+	short height;
+	Player[] players;
+	private IBlockingProvider blockingProvider;
 
-	final short[] partitions;
-	final byte[] towers;
+	transient short[] partitions; // transient, they are written by snapshotFlat()
+	transient byte[] towers;
 
 	Partition[] partitionObjects = new Partition[NUMBER_OF_START_PARTITION_OBJECTS];
 	short[] partitionRepresentatives = new short[NUMBER_OF_START_PARTITION_OBJECTS];
 
-	private final short[] blockedPartitionsForPlayers;
+	private short[] blockedPartitionsForPlayers;
 
 	private transient PartitionsGridNormalizerThread gridNormalizer;
 	private transient Object partitionsWriteLock;
@@ -105,11 +111,45 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		initAdditionalFields();
 	}
 
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		synchronized (partitionsWriteLock) { // the normalizer must not change the partition objects while they are written
+			oos.defaultWriteObject();
+		}
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		occupyingTowers = (PartitionOccupyingTowerList) fields.get("occupyingTowers", null);
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		players = (Player[]) fields.get("players", null);
+		blockingProvider = (IBlockingProvider) fields.get("blockingProvider", null);
+		partitionObjects = (Partition[]) fields.get("partitionObjects", null);
+		partitionRepresentatives = (short[]) fields.get("partitionRepresentatives", null);
+		blockedPartitionsForPlayers = (short[]) fields.get("blockedPartitionsForPlayers", null);
+
+		if (fields.getObjectStreamClass().getField("partitions") != null) { // savegames of the old format contain the arrays
+			partitions = (short[]) fields.get("partitions", null);
+			towers = (byte[]) fields.get("towers", null);
+		}
+
 		initAdditionalFields();
 	}
 
+	@Override
+	public void snapshotFlat(FlatGridSnapshot snapshot) {
+		synchronized (partitionsWriteLock) {
+			snapshot.addShorts(partitions);
+			snapshot.addBytes(towers);
+		}
+	}
+
+	@Override
+	public void readFlat(DataInputStream in) throws IOException {
+		partitions = FlatSerializationUtils.readShorts(in, width * height);
+		towers = FlatSerializationUtils.readBytes(in, width * height);
+	}
+
 	private void initAdditionalFields() {
 		partitionsWriteLock = new Object();
 		this.gridNormalizer = new PartitionsGridNormalizerThread(this, partitionsWriteLock);
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import java.util.ArrayList;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+
+/**
+ * Spatial index for {@link ILocatable}s whose position never changes. The objects are sorted into square buckets of {@value #BUCKET_SIZE} x
+ * {@value #BUCKET_SIZE} positions. Searches for the closest object only look at the buckets around the searched position. The buckets are stored
+ * line by line in an array that covers the area of all inserted objects and grows with it.
+ * <p>
+ * Every inserted object gets an increasing sequence number. If two objects have the same distance, the one with the lower sequence number is
+ * returned. This gives the same results as a linear search over the objects in insertion order, even though the order of the entries in a
+ * bucket changes when an entry is removed.
+ * 
+ * 
+ * @param <T>
+ */
+final class PositionBucketIndex<T extends ILocatable> {
+	private static final int BUCKET_BITS = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_BITS;
+
+	private ArrayList<Entry<T>>[] buckets = null;
+	private int originX;
+	private int originY;
+	private int bucketsPerRow;
+	private int bucketRows;
+
+	private int size = 0;
+	private int nextSequenceNumber = 0;
+
+	private int minBucketX;
+	private int maxBucketX;
+	private int minBucketY;
+	private int maxBucketY;
+
+	void insert(T object) {
+		ShortPoint2D position = object.getPos();
+		int bucketX = position.x >> BUCKET_BITS;
+		int bucketY = position.y >> BUCKET_BITS;
+
+		ensureCovered(bucketX, bucketY);
+		int bucketIndex = bucketX - originX + (bucketY - originY) * bucketsPerRow;
+		ArrayList<Entry<T>> bucket = buckets[bucketIndex];
+		if (bucket == null) {
+			bucket = new ArrayList<Entry<T>>();
+			buckets[bucketIndex] = bucket;
+		}
+		bucket.add(new Entry<T>(object, position, nextSequenceNumber++));
+
+		if (size == 0) {
+			minBucketX = maxBucketX = bucketX;
+			minBucketY = maxBucketY = bucketY;
+		} else {
+			minBucketX = Math.min(minBucketX, bucketX);
+			maxBucketX = Math.max(maxBucketX, bucketX);
+			minBucketY = Math.min(minBucketY, bucketY);
+			maxBucketY = Math.max(maxBucketY, bucketY);
+		}
+		size++;
+	}
+
+	/**
+	 * Grows the bucket array so that it contains the given bucket. The array at least doubles in the direction of the bucket, so that a growing
+	 * area is only copied a few times.
+	 */
+	@SuppressWarnings("unchecked")
+	private void ensureCovered(int bucketX, int bucketY) {
+		if (buckets == null) {
+			buckets = new ArrayList[1];
+			originX = bucketX;
+			originY = bucketY;
+			bucketsPerRow = 1;
+			bucketRows = 1;
+			return;
+		}
+
+		int minX = originX;
+		int maxX = originX + bucketsPerRow - 1;
+		int minY = originY;
+		int maxY = originY + bucketRows - 1;
+		if (minX <= bucketX && bucketX <= maxX && minY <= bucketY && bucketY <= maxY) {
+			return;
+		}
+
+		if (bucketX < minX) {
+			minX = Math.max(0, Math.min(bucketX, minX - bucketsPerRow));
+		} else if (bucketX > maxX) {
+			maxX = Math.max(bucketX, maxX + bucketsPerRow);
+		}
+		if (bucketY < minY) {
+			minY = Math.max(0, Math.min(bucketY, minY - bucketRows));
+		} else if (bucketY > maxY) {
+			maxY = Math.max(bucketY, maxY + bucketRows);
+		}
+
+		int newBucketsPerRow = maxX - minX + 1;
+		int newBucketRows = maxY - minY + 1;
+		ArrayList<Entry<T>>[] newBuckets = new ArrayList[newBucketsPerRow * newBucketRows];
+		for (int row = 0; row < bucketRows; row++) {
+			System.arraycopy(buckets, row * bucketsPerRow, newBuckets, originX - minX + (originY - minY + row) * newBucketsPerRow, bucketsPerRow);
+		}
+
+		buckets = newBuckets;
+		originX = minX;
+		originY = minY;
+		bucketsPerRow = newBucketsPerRow;
+		bucketRows = newBucketRows;
+	}
+
+	private ArrayList<Entry<T>> getBucket(int bucketX, int bucketY) {
+		int x = bucketX - originX;
+		int y = bucketY - originY;
+		if (buckets == null || x < 0 || x >= bucketsPerRow || y < 0 || y >= bucketRows) {
+			return null;
+		}
+		return buckets[x + y * bucketsPerRow];
+	}
+
+	void remove(T object) {
+		ShortPoint2D position = object.getPos();
+		ArrayList<Entry<T>> bucket = getBucket(position.x >> BUCKET_BITS, position.y >> BUCKET_BITS);
+
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i++) {
+				if (bucket.get(i).object == object) {
+					int last = bucket.size() - 1;
+					bucket.set(i, bucket.get(last)); // the order is restored by the sequence numbers
+					bucket.remove(last);
+					size--;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param position
+	 * @return Returns the first inserted object at the given position or null if there is none.
+	 */
+	T getObjectAt(ShortPoint2D position) {
+		ArrayList<Entry<T>> bucket = getBucket(position.x >> BUCKET_BITS, position.y >> BUCKET_BITS);
+		if (bucket == null) {
+			return null;
+		}
+
+		Entry<T> first = null;
+		for (Entry<T> entry : bucket) {
+			if (entry.x == position.x && entry.y == position.y && (first == null || entry.sequenceNumber < first.sequenceNumber)) {
+				first = entry;
+			}
+		}
+		return first == null ? null : first.object;
+	}
+
+	/**
+	 * Finds the object closest to the given position by searching the buckets in rings around the bucket of the position.
+	 * 
+	 * @param position
+	 * @param acceptor
+	 *            if acceptor != null only objects accepted by the acceptor are returned.
+	 * @return The closest object or null if no (accepted) object exists.
+	 */
+	T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		if (size == 0) {
+			return null;
+		}
+
+		final int centerX = position.x >> BUCKET_BITS;
+		final int centerY = position.y >> BUCKET_BITS;
+		final int maxRing = Math.max(Math.max(centerX - minBucketX, maxBucketX - centerX), Math.max(centerY - minBucketY, maxBucketY - centerY));
+
+		SearchResult<T> result = new SearchResult<T>(position, acceptor);
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (ring > 0) {
+				// every position of this ring has at least this distance in x or y direction
+				int minDistance = (ring - 1) * BUCKET_SIZE + 1;
+				if (minDistance * minDistance > result.bestDistance) {
+					break;
+				}
+			}
+
+			int minX = Math.max(centerX - ring, minBucketX);
+			int maxX = Math.min(centerX + ring, maxBucketX);
+			int minY = Math.max(centerY - ring, minBucketY);
+			int maxY = Math.min(centerY + ring, maxBucketY);
+
+			if (centerY - ring >= minBucketY) { // top line
+				for (int x = minX; x <= maxX; x++) {
+					searchBucket(x, centerY - ring, result);
+				}
+			}
+			if (ring > 0 && centerY + ring <= maxBucketY) { // bottom line
+				for (int x = minX; x <= maxX; x++) {
+					searchBucket(x, centerY + ring, result);
+				}
+			}
+			if (ring > 0) { // left and right columns without the corners
+				for (int y = Math.max(minY, centerY - ring + 1); y <= Math.min(maxY, centerY + ring - 1); y++) {
+					if (centerX - ring >= minBucketX) {
+						searchBucket(centerX - ring, y, result);
+					}
+					if (centerX + ring <= maxBucketX) {
+						searchBucket(centerX + ring, y, result);
+					}
+				}
+			}
+		}
+
+		return result.best;
+	}
+
+	private void searchBucket(int bucketX, int bucketY, SearchResult<T> result) {
+		ArrayList<Entry<T>> bucket = getBucket(bucketX, bucketY);
+		if (bucket == null) {
+			return;
+		}
+
+		for (Entry<T> entry : bucket) {
+			int distance = MathUtils.squareHypot(result.position.x - entry.x, result.position.y - entry.y);
+			if (distance > result.bestDistance || (distance == result.bestDistance && entry.sequenceNumber > result.bestSequenceNumber)) {
+				continue;
+			}
+			if (result.acceptor != null && !result.acceptor.accepts(entry.object)) {
+				continue;
+			}
+
+			result.best = entry.object;
+			result.bestDistance = distance;
+			result.bestSequenceNumber = entry.sequenceNumber;
+		}
+	}
+
+	/**
+	 * @return Returns the number of buckets in the area that contains objects.
+	 */
+	int getCoveredBuckets() {
+		return size == 0 ? 0 : (maxBucketX - minBucketX + 1) * (maxBucketY - minBucketY + 1);
+	}
+
+	void clear() {
+		buckets = null;
+		size = 0;
+	}
+
+	private static final class Entry<T> {
+		private final T object;
+		private final short x;
+		private final short y;
+		private final int sequenceNumber;
+
+		Entry(T object, ShortPoint2D position, int sequenceNumber) {
+			this.object = object;
+			this.x = position.x;
+			this.y = position.y;
+			this.sequenceNumber = sequenceNumber;
+		}
+	}
+
+	private static final class SearchResult<T> {
+		private final ShortPoint2D position;
+		private final ITypeAcceptor<T> acceptor;
+
+		private T best = null;
+		private int bestDistance = Integer.MAX_VALUE;
+		private int bestSequenceNumber = Integer.MAX_VALUE;
+
+		SearchResult(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+			this.position = position;
+			this.acceptor = acceptor;
+		}
+	}
+}
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.logic.map.newGrid.partition.manager.datastructures;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -25,7 +27,8 @@ import jsettlers.common.utils.MathUtils;
 
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
- * It is also possible to find the nearest object arround a given position.
+ * It is also possible to find the nearest object arround a given position.<br>
+ * If the positions of the stored objects never change, the list can be created with a spatial index that speeds up the position based queries.
  * 
  * @author Andreas Eberle
  * 
@@ -34,14 +37,45 @@ import jsettlers.common.utils.MathUtils;
 public class PositionableList<T extends ILocatable> implements Iterable<T>, Serializable {
 	private static final long serialVersionUID = 414099060331344505L;
 
-	private ArrayList<T> data;
+	private final ArrayList<T> data;
+	private final boolean indexed;
+
+	private transient PositionBucketIndex<T> index;
 
 	public PositionableList() {
-		data = new ArrayList<T>();
+		this(false);
+	}
+
+	/**
+	 * Creates a new {@link PositionableList}.
+	 * 
+	 * @param indexed
+	 *            If true, the objects are additionally stored in a spatial index. <br>
+	 *            NOTE: This may only be used if the position of an object does not change while it is in the list.
+	 */
+	public PositionableList(boolean indexed) {
+		this.data = new ArrayList<T>();
+		this.indexed = indexed;
+		if (indexed) {
+			this.index = new PositionBucketIndex<T>();
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		if (indexed) {
+			index = new PositionBucketIndex<T>();
+			for (T curr : data) {
+				index.insert(curr);
+			}
+		}
 	}
 
 	public void insert(T object) {
 		data.add(object);
+		if (index != null) {
+			index.insert(object);
+		}
 	}
 
 	/**
@@ -57,10 +91,42 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 
 	@Override
 	public Iterator<T> iterator() {
-		return data.iterator();
+		if (index == null) {
+			return data.iterator();
+		}
+
+		final Iterator<T> iter = data.iterator();
+		return new Iterator<T>() {
+			private T current;
+
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public T next() {
+				current = iter.next();
+				return current;
+			}
+
+			@Override
+			public void remove() {
+				iter.remove();
+				index.remove(current);
+			}
+		};
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
+		if (index != null) {
+			T object = index.getObjectAt(position);
+			if (object != null) {
+				remove(object);
+			}
+			return object;
+		}
+
 		Iterator<T> iter = data.iterator();
 		while (iter.hasNext()) {
 			T curr = iter.next();
@@ -80,6 +146,10 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
+		if (index != null) {
+			return index.getObjectAt(position);
+		}
+
 		for (T curr : data) {
 			if (curr.getPos().equals(position)) {
 				return curr;
@@ -102,12 +172,16 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 		T currBest = getObjectCloseTo(position, acceptor);
 
 		if (currBest != null)
-			data.remove(currBest);
+			remove(currBest);
 
 		return currBest;
 	}
 
 	private T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) { // TODO: @Andreas Eberle: check if the acceptor is needed any more
+		if (index != null && data.size() * 4 > index.getCoveredBuckets()) { // for very sparse lists a linear search is faster
+			return index.getObjectCloseTo(position, acceptor);
+		}
+
 		int bestDistance = Integer.MAX_VALUE;
 		T currBest = null;
 
@@ -136,11 +210,19 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	}
 
 	public void addAll(PositionableList<T> otherList) {
-		this.data.addAll(otherList.data);
+		if (index == null) {
+			this.data.addAll(otherList.data);
+		} else {
+			for (T curr : otherList.data) {
+				insert(curr);
+			}
+		}
 	}
 
 	public void remove(T object) {
-		this.data.remove(object);
+		if (this.data.remove(object) && index != null) {
+			index.remove(object);
+		}
 	}
 
 	public boolean isEmpty() {
@@ -153,7 +235,10 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 			T curr = iter.next();
 			if (curr.getPos().equals(position)) {
 				iter.remove();
-				newList.data.add(curr);
+				if (index != null) {
+					index.remove(curr);
+				}
+				newList.insert(curr);
 			}
 		}
 	}
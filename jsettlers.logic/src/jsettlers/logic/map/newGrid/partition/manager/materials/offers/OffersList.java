@@ -38,7 +38,7 @@ public final class OffersList implements Serializable {
 	public OffersList() {
 		offersLists = new PositionableList[EMaterialType.NUMBER_OF_MATERIALS];
 		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
-			offersLists[i] = new PositionableList<MaterialOffer>();
+			offersLists[i] = new PositionableList<MaterialOffer>(true); // the position of an offer never changes
 		}
 	}
 
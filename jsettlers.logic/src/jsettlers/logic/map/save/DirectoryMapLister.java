@@ -14,6 +14,7 @@
  *******************************************************************************/
 package jsettlers.logic.map.save;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -22,8 +23,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 
 import jsettlers.common.utils.FileUtils;
 import jsettlers.common.utils.FileUtils.IFileVisitor;
@@ -39,14 +45,22 @@ public class DirectoryMapLister implements IMapLister {
 	private final File directory;
 	private final boolean writeable;
 
+	private static final String HEADER_INDEX_FILE = ".headerindex";
+	private static final HashMap<File, MapHeaderIndex> headerIndexes = new HashMap<File, MapHeaderIndex>();
+
 	public static class ListedMapFile implements IListedMap {
 		private final File file;
 		private final boolean writeable;
+		private final MapHeaderIndex headerIndex;
 
 		public ListedMapFile(File file, boolean writeable) {
+			this(file, writeable, null);
+		}
+
+		ListedMapFile(File file, boolean writeable, MapHeaderIndex headerIndex) {
 			this.file = file;
 			this.writeable = writeable;
-			// TODO Auto-generated constructor stub
+			this.headerIndex = headerIndex;
 		}
 
 		@Override
@@ -59,6 +73,31 @@ public class DirectoryMapLister implements IMapLister {
 			return new FileInputStream(file);
 		}
 
+		@Override
+		public ByteBuffer getBuffer() throws IOException {
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = randomAccessFile.getChannel();
+				return channel.map(MapMode.READ_ONLY, 0, channel.size()); // the mapping stays valid after the file has been closed
+			} finally {
+				randomAccessFile.close();
+			}
+		}
+
+		@Override
+		public MapFileHeader getHeader() throws IOException {
+			if (headerIndex != null) {
+				return headerIndex.getHeader(file);
+			}
+
+			InputStream in = new BufferedInputStream(getInputStream());
+			try {
+				return MapFileHeader.readFromStream(in);
+			} finally {
+				in.close();
+			}
+		}
+
 		@Override
 		public void delete() {
 			if (!writeable) {
@@ -85,19 +124,49 @@ public class DirectoryMapLister implements IMapLister {
 					+ directory.getAbsolutePath() + " is not a directory.");
 		}
 
+		final MapHeaderIndex headerIndex = getHeaderIndex(directory);
 		try {
 			// traverse all folders
 			FileUtils.walkFileTree(directory, new IFileVisitor() {
 				@Override
 				public void visitFile(File file) throws IOException {
 					if (file.getName().endsWith(MapList.MAP_EXTENSION)) {
-						callable.foundMap(new ListedMapFile(file, writeable));
+						callable.foundMap(new ListedMapFile(file, writeable, headerIndex));
 					}
 				}
 			});
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		headerIndex.finishListing();
+	}
+
+	/**
+	 * Releases the map headers kept in memory. Waits for pending writes of the index files, so the headers are read from the index files again
+	 * when the maps are listed the next time.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public static void releaseHeaderIndexes() throws InterruptedException {
+		synchronized (headerIndexes) {
+			MapHeaderIndex.waitForWrites();
+			headerIndexes.clear();
+		}
+	}
+
+	/**
+	 * Gets the header index of the given directory. The index is shared by all listers of the directory.
+	 */
+	private static MapHeaderIndex getHeaderIndex(File directory) {
+		synchronized (headerIndexes) {
+			File key = directory.getAbsoluteFile();
+			MapHeaderIndex index = headerIndexes.get(key);
+			if (index == null) {
+				index = new MapHeaderIndex(new File(key, HEADER_INDEX_FILE));
+				headerIndexes.put(key, index);
+			}
+			return index;
+		}
 	}
 
 	@Override
@@ -16,6 +16,7 @@ package jsettlers.logic.map.save;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public interface IListedMap {
 	/**
@@ -33,6 +34,23 @@ public interface IListedMap {
 	 */
 	InputStream getInputStream() throws IOException;
 
+	/**
+	 * Gets the whole content of that map as a buffer. Implementations backed by a file map the file into memory, so only the parts that are
+	 * actually read are loaded from the disk.
+	 * 
+	 * @return A read only buffer positioned at the start of the map.
+	 * @throws IOException
+	 */
+	ByteBuffer getBuffer() throws IOException;
+
+	/**
+	 * Reads the header of that map.
+	 * 
+	 * @return The header at the start of the map.
+	 * @throws IOException
+	 */
+	MapFileHeader getHeader() throws IOException;
+
 	/**
 	 * Deletes the map from the disk storage.
 	 * 
@@ -24,6 +24,9 @@ import jsettlers.logic.map.save.MapDataSerializer.IMapDataReceiver;
 
 /**
  * This is a map data receiver that stores the given data and provides access to it via the {@link IMapData} interface.
+ * <p>
+ * The data is stored row by row like in the grids of the game, so that they can be filled by iterating over the rows. Setters of different
+ * kinds of data may be called concurrently.
  * 
  * @author michael
  */
@@ -35,12 +38,12 @@ public class MapDataReceiver implements IMapDataReceiver, IMapData {
 	private int playerCount;
 	private PlayerStart[] playerStarts;
 
-	private byte[][] heights;
-	private ELandscapeType[][] landscapes;
-	private MapObject[][] mapObjects;
-	private byte[][] resourceTypes;
-	private byte[][] resourceAmount;
-	private short[][] blockedPartitions;
+	private byte[] heights;
+	private ELandscapeType[] landscapes;
+	private MapObject[] mapObjects;
+	private byte[] resourceTypes;
+	private byte[] resourceAmount;
+	private short[] blockedPartitions;
 
 	@Override
 	public void setDimension(int width, int height, int playerCount) {
@@ -48,12 +51,12 @@ public class MapDataReceiver implements IMapDataReceiver, IMapData {
 		this.height = height;
 		this.playerCount = playerCount;
 		this.playerStarts = new PlayerStart[playerCount];
-		this.heights = new byte[width][height];
-		this.landscapes = new ELandscapeType[width][height];
-		this.mapObjects = new MapObject[width][height];
-		this.resourceTypes = new byte[width][height];
-		this.resourceAmount = new byte[width][height];
-		this.blockedPartitions = new short[width][height];
+		this.heights = new byte[width * height];
+		this.landscapes = new ELandscapeType[width * height];
+		this.mapObjects = new MapObject[width * height];
+		this.resourceTypes = new byte[width * height];
+		this.resourceAmount = new byte[width * height];
+		this.blockedPartitions = new short[width * height];
 	}
 
 	@Override
@@ -63,17 +66,17 @@ public class MapDataReceiver implements IMapDataReceiver, IMapData {
 
 	@Override
 	public void setHeight(int x, int y, byte height) {
-		heights[x][y] = height;
+		heights[x + y * width] = height;
 	}
 
 	@Override
 	public void setLandscape(int x, int y, ELandscapeType type) {
-		landscapes[x][y] = type;
+		landscapes[x + y * width] = type;
 	}
 
 	@Override
 	public void setMapObject(int x, int y, MapObject object) {
-		mapObjects[x][y] = object;
+		mapObjects[x + y * width] = object;
 	}
 
 	/* - - - - - - IMapData interface - - - - - - - */
@@ -90,17 +93,17 @@ public class MapDataReceiver implements IMapDataReceiver, IMapData {
 
 	@Override
 	public ELandscapeType getLandscape(int x, int y) {
-		return landscapes[x][y];
+		return landscapes[x + y * width];
 	}
 
 	@Override
 	public MapObject getMapObject(int x, int y) {
-		return mapObjects[x][y];
+		return mapObjects[x + y * width];
 	}
 
 	@Override
 	public byte getLandscapeHeight(int x, int y) {
-		return heights[x][y];
+		return heights[x + y * width];
 	}
 
 	@Override
@@ -115,27 +118,27 @@ public class MapDataReceiver implements IMapDataReceiver, IMapData {
 
 	@Override
 	public EResourceType getResourceType(short x, short y) {
-		return EResourceType.values[resourceTypes[x][y]];
+		return EResourceType.values[resourceTypes[x + y * width]];
 	}
 
 	@Override
 	public byte getResourceAmount(short x, short y) {
-		return resourceAmount[x][y];
+		return resourceAmount[x + y * width];
 	}
 
 	@Override
 	public void setResources(int x, int y, EResourceType type, byte amount) {
-		resourceAmount[x][y] = amount;
-		resourceTypes[x][y] = type.ordinal;
+		resourceAmount[x + y * width] = amount;
+		resourceTypes[x + y * width] = type.ordinal;
 	}
 
 	@Override
 	public short getBlockedPartition(short x, short y) {
-		return blockedPartitions[x][y];
+		return blockedPartitions[x + y * width];
 	}
 
 	@Override
 	public void setBlockedPartition(int x, int y, short blockedPartition) {
-		blockedPartitions[x][y] = blockedPartition;
+		blockedPartitions[x + y * width] = blockedPartition;
 	}
 }
@@ -14,12 +14,21 @@
  *******************************************************************************/
 package jsettlers.logic.map.save;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.landscape.ELandscapeType;
@@ -53,6 +62,10 @@ import jsettlers.logic.map.random.grid.MapGrid;
  * <p>
  * width * height bytes: height map
  * <p>
+ * width * height times 8 bit resource type, 8 bit resource amount (since version 2)
+ * <p>
+ * width * height times 16 bit blocked partition (since version 3)
+ * <p>
  * For each map object (until end of file): 16 bit x, 16 bit y, 8 bit type, String for additional data.
  * 
  * @author michael
@@ -161,83 +174,178 @@ public class MapDataSerializer {
 	 *             If an error occured during deserialization.
 	 */
 	public static void deserialize(IMapDataReceiver data, InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			bytes.write(buffer, 0, read);
+		}
+		deserialize(data, ByteBuffer.wrap(bytes.toByteArray()), false);
+	}
+
+	/**
+	 * Reads the map data from the remaining bytes of the given buffer and sets up the receiver by it.
+	 * <p>
+	 * The landscape, height, resource and blocked partition sections have a fixed size, so the offsets of all sections are known after the
+	 * dimensions have been read. This allows to decode them in parallel.
+	 * 
+	 * @param data
+	 *            The receiver of the data.
+	 * @param buffer
+	 *            The buffer to read from. The position of the buffer is not changed.
+	 * @param parallel
+	 *            If true, the sections are decoded by multiple threads. The receiver must then support concurrent calls of setters belonging to
+	 *            different sections.
+	 * @throws IOException
+	 *             If an error occured during deserialization.
+	 */
+	public static void deserialize(final IMapDataReceiver data, ByteBuffer buffer, boolean parallel) throws IOException {
 		try {
-			DataInputStream stream = new DataInputStream(in);
-			int version = stream.readShort();
+			final ByteBuffer header = buffer.slice();
+			final int version = header.getShort();
 
 			if (!(version == VERSION || version == VERSION_WITH_RESOURCES || version == VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS)) {
 				throw new IOException("wrong stream version, got: " + version);
 			}
-			Random rand = new Random(123);
 
-			int width = stream.readShort();
-			int height = stream.readShort();
+			final int width = header.getShort();
+			final int height = header.getShort();
 
-			int players = stream.readByte();
+			int players = header.get();
 
 			data.setDimension(width, height, players);
 
 			for (int player = 0; player < players; player++) {
-				int x = stream.readShort();
-				int y = stream.readShort();
+				int x = header.getShort();
+				int y = header.getShort();
 				data.setPlayerStart((byte) player, x, y);
 			}
 
-			ELandscapeType[] types = ELandscapeType.values;
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte type = stream.readByte();
-					data.setLandscape(x, y, types[type]);
-					if (version < VERSION_WITH_RESOURCES) {
-						// fallback. Can be removed once all maps use new format.
-						EResourceType type2 = MapGrid.getResourceType(types[type], rand);
-						data.setResources(x, y, type2, MapGrid.getResourceAmount(types[type], rand));
+			final int tiles = width * height;
+			final int landscapeOffset = header.position();
+			final int heightsOffset = landscapeOffset + tiles;
+			int resourcesOffset = heightsOffset + tiles;
+			int blockedPartitionsOffset = resourcesOffset + (version >= VERSION_WITH_RESOURCES ? 2 * tiles : 0);
+			int objectsOffset = blockedPartitionsOffset + (version >= VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS ? 2 * tiles : 0);
+
+			List<Callable<Void>> sections = new ArrayList<Callable<Void>>();
+			sections.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					ELandscapeType[] types = ELandscapeType.values;
+					Random rand = new Random(123);
+					int index = landscapeOffset;
+					for (int x = 0; x < width; x++) {
+						for (int y = 0; y < height; y++) {
+							byte type = header.get(index++);
+							data.setLandscape(x, y, types[type]);
+							if (version < VERSION_WITH_RESOURCES) {
+								// fallback. Can be removed once all maps use new format.
+								EResourceType type2 = MapGrid.getResourceType(types[type], rand);
+								data.setResources(x, y, type2, MapGrid.getResourceAmount(types[type], rand));
+							}
+						}
 					}
+					return null;
 				}
-			}
-
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte h = stream.readByte();
-					data.setHeight(x, y, h);
+			});
+
+			sections.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					int index = heightsOffset;
+					for (int x = 0; x < width; x++) {
+						for (int y = 0; y < height; y++) {
+							data.setHeight(x, y, header.get(index++));
+						}
+					}
+					return null;
 				}
-			}
+			});
 
 			if (version >= VERSION_WITH_RESOURCES) {
-				for (int x = 0; x < width; x++) {
-					for (int y = 0; y < height; y++) {
-						byte t = stream.readByte();
-						byte amount = stream.readByte();
-						data.setResources(x, y, EResourceType.values[t], amount);
+				final int offset = resourcesOffset;
+				sections.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						int index = offset;
+						for (int x = 0; x < width; x++) {
+							for (int y = 0; y < height; y++) {
+								byte type = header.get(index++);
+								byte amount = header.get(index++);
+								data.setResources(x, y, EResourceType.values[type], amount);
+							}
+						}
+						return null;
 					}
-				}
-
+				});
 			}
 
 			if (version >= VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS) {
-				for (int x = 0; x < width; x++) {
-					for (int y = 0; y < height; y++) {
-						data.setBlockedPartition(x, y, stream.readShort());
+				final int offset = blockedPartitionsOffset;
+				sections.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						int index = offset;
+						for (int x = 0; x < width; x++) {
+							for (int y = 0; y < height; y++) {
+								data.setBlockedPartition(x, y, header.getShort(index));
+								index += 2;
+							}
+						}
+						return null;
 					}
-				}
+				});
 			}
 
-			while (stream.available() > 0) {
-				int x = stream.readShort();
-				int y = stream.readShort();
-				int type = stream.readByte();
-				String string = stream.readUTF();
-				MapObject object = getObject(type, string);
-				if (object != null) {
-					data.setMapObject(x, y, object);
+			ByteBuffer objectsBuffer = header.duplicate();
+			objectsBuffer.position(objectsOffset);
+			final DataInputStream objects = new DataInputStream(new ByteBufferInputStream(objectsBuffer));
+			sections.add(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					while (objects.available() > 0) {
+						int x = objects.readShort();
+						int y = objects.readShort();
+						int type = objects.readByte();
+						String string = objects.readUTF();
+						MapObject object = getObject(type, string);
+						if (object != null) {
+							data.setMapObject(x, y, object);
+						}
+					}
+					return null;
+				}
+			});
+
+			// old maps create the resources while reading the landscape, so their sections depend on each other.
+			if (parallel && version >= VERSION_WITH_RESOURCES) {
+				decodeInParallel(sections);
+			} else {
+				for (Callable<Void> section : sections) {
+					section.call();
 				}
 			}
-
 		} catch (Throwable t) {
 			throw new IOException("Error while reading map file", t);
 		}
 	}
 
+	private static void decodeInParallel(List<Callable<Void>> sections) throws Throwable {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(sections.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			for (Future<Void> future : executor.invokeAll(sections)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					throw e.getCause();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	private static MapObject getObject(int type, String string) {
 		switch (type) {
 		case TYPE_TREE:
@@ -270,6 +378,9 @@ public class MapDataSerializer {
 	 * Receives the map data.
 	 * <p>
 	 * Before any other set methods, {@link #setDimension(int, int, int)} is called exactly once.
+	 * <p>
+	 * If the data is deserialized in parallel, the setters of the different sections (landscape, height, resources, blocked partitions and map
+	 * objects) may be called concurrently by different threads. Each setter is only called by one thread.
 	 * 
 	 * @author michael
 	 */
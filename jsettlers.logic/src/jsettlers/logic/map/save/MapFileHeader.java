@@ -19,6 +19,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.UUID;
 
@@ -202,9 +203,9 @@ public class MapFileHeader {
 			short maxplayer = in.readShort();
 
 			short[] bgimage = new short[PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE];
-			for (int i = 0; i < PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE; i++) {
-				bgimage[i] = in.readShort();
-			}
+			byte[] bgimageBytes = new byte[bgimage.length * 2];
+			in.readFully(bgimageBytes);
+			ByteBuffer.wrap(bgimageBytes).asShortBuffer().get(bgimage);
 
 			Date date = null;
 			if (version < VERSION_DATE_ALWAYS_SAVED) {
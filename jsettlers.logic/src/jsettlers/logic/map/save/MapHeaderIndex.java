@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.save;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A persistent index of the {@link MapFileHeader}s of the map files in a directory.
+ * <p>
+ * For every file, the index stores the raw bytes of the header together with the size and the modification time of the file. A header is only
+ * read from its map file again, if the file has been changed. Parsed headers are kept in memory. Changes of the index are written to the index file
+ * in the background.
+ */
+final class MapHeaderIndex {
+	private static final int MAGIC = 0x4A534849;
+	private static final int VERSION = 1;
+
+	/**
+	 * Writes the index files one after another. The thread is stopped when it is idle, so it doesn't keep the vm alive.
+	 */
+	private static final ThreadPoolExecutor writeExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "MapHeaderIndexWriter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	static {
+		writeExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	private final File indexFile;
+	private final HashMap<String, IndexEntry> entries = new HashMap<String, IndexEntry>();
+	private final Set<String> usedFiles = new HashSet<String>();
+
+	private boolean loaded = false;
+	private boolean changed = false;
+
+	MapHeaderIndex(File indexFile) {
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Gets the header of the given map file. If the file has not been changed since it was indexed, the header is taken from the index.
+	 * 
+	 * @param file
+	 *            The map file.
+	 * @return The header of the map file.
+	 * @throws IOException
+	 *             If the header could not be read from the map file.
+	 */
+	synchronized MapFileHeader getHeader(File file) throws IOException {
+		loadIfNeeded();
+
+		String key = file.getAbsolutePath();
+		usedFiles.add(key);
+		long length = file.length();
+		long lastModified = file.lastModified();
+
+		IndexEntry entry = entries.get(key);
+		if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+			if (entry.header == null) {
+				entry.header = MapFileHeader.readFromStream(new ByteArrayInputStream(entry.headerBytes));
+			}
+			return entry.header;
+		}
+
+		HeaderRecordingInputStream in = new HeaderRecordingInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			MapFileHeader header = MapFileHeader.readFromStream(in);
+			IndexEntry newEntry = new IndexEntry(length, lastModified, in.getRecordedBytes());
+			newEntry.header = header;
+			entries.put(key, newEntry);
+			changed = true;
+			return header;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Removes all files that have not been requested since the last call of this method and writes the index in the background if it changed.
+	 */
+	synchronized void finishListing() {
+		Iterator<String> iterator = entries.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (!usedFiles.contains(iterator.next())) {
+				iterator.remove();
+				changed = true;
+			}
+		}
+		usedFiles.clear();
+
+		if (changed) {
+			changed = false;
+			final ArrayList<Entry<String, IndexEntry>> snapshot = new ArrayList<Entry<String, IndexEntry>>(entries.entrySet());
+			writeExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					writeIndex(snapshot);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Blocks until all index files scheduled for writing so far have been written.
+	 * 
+	 * @throws InterruptedException
+	 */
+	static void waitForWrites() throws InterruptedException {
+		try {
+			writeExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e); // the empty task can't fail
+		}
+	}
+
+	private void loadIfNeeded() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+
+		if (!indexFile.exists()) {
+			return;
+		}
+
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					return;
+				}
+
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					String key = in.readUTF();
+					long length = in.readLong();
+					long lastModified = in.readLong();
+					byte[] headerBytes = new byte[in.readInt()];
+					in.readFully(headerBytes);
+					entries.put(key, new IndexEntry(length, lastModified, headerBytes));
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read map header index " + indexFile + ", the headers are read from the map files.");
+			entries.clear();
+		}
+	}
+
+	private void writeIndex(ArrayList<Entry<String, IndexEntry>> snapshot) {
+		File tempFile = new File(indexFile.getPath() + ".tmp");
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(snapshot.size());
+				for (Entry<String, IndexEntry> entry : snapshot) {
+					out.writeUTF(entry.getKey());
+					out.writeLong(entry.getValue().length);
+					out.writeLong(entry.getValue().lastModified);
+					out.writeInt(entry.getValue().headerBytes.length);
+					out.write(entry.getValue().headerBytes);
+				}
+			} finally {
+				out.close();
+			}
+
+			indexFile.delete();
+			if (!tempFile.renameTo(indexFile)) {
+				throw new IOException("Could not rename " + tempFile + " to " + indexFile);
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write map header index " + indexFile);
+			e.printStackTrace();
+			tempFile.delete();
+		}
+	}
+
+	private static final class IndexEntry {
+		private final long length;
+		private final long lastModified;
+		private final byte[] headerBytes;
+		private MapFileHeader header;
+
+		IndexEntry(long length, long lastModified, byte[] headerBytes) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.headerBytes = headerBytes;
+		}
+	}
+
+	/**
+	 * Records all bytes read from the underlying stream. As the header is read with exact reads, the recorded bytes are the bytes of the header.
+	 */
+	private static final class HeaderRecordingInputStream extends FilterInputStream {
+		private final ByteArrayOutputStream recordedBytes = new ByteArrayOutputStream();
+
+		HeaderRecordingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value >= 0) {
+				recordedBytes.write(value);
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int read = super.read(bytes, offset, length);
+			if (read > 0) {
+				recordedBytes.write(bytes, offset, read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			throw new IOException("skip is not supported while recording.");
+		}
+
+		byte[] getRecordedBytes() {
+			return recordedBytes.toByteArray();
+		}
+	}
+}
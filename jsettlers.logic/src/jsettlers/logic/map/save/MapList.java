@@ -16,21 +16,28 @@ package jsettlers.logic.map.save;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import jsettlers.common.map.IMapData;
 import jsettlers.common.map.MapLoadException;
 import jsettlers.common.resources.ResourceManager;
 import jsettlers.input.PlayerState;
 import jsettlers.logic.map.newGrid.GameSerializer;
+import jsettlers.logic.map.newGrid.GameStateSnapshot;
 import jsettlers.logic.map.newGrid.MainGrid;
 import jsettlers.logic.map.save.IMapLister.IMapListerCallable;
 import jsettlers.logic.map.save.MapFileHeader.MapType;
 import jsettlers.logic.map.save.loader.MapLoader;
-import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.infrastructure.metrics.Counter;
+import jsettlers.network.infrastructure.metrics.Gauge;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
 
 /**
  * This is the main map list.
@@ -52,6 +59,39 @@ public class MapList implements IMapListerCallable {
 
 	public static final String MAP_EXTENSION = ".map";
 	private static IMapListFactory mapListFactory = new DefaultMapListFactory();
+
+	/**
+	 * Writes the savegames of {@link #saveMapInBackground(PlayerState[], MainGrid)} one after another. The thread is stopped when it is idle, so it
+	 * doesn't keep the vm alive.
+	 */
+	private static final ThreadPoolExecutor backgroundSaveExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					return new Thread(runnable, "BackgroundSaveThread");
+				}
+			});
+	/**
+	 * The serializer of all saves, so that the snapshots of the grids reuse the buffers of the previous ones.
+	 */
+	private static final GameSerializer gameSerializer = new GameSerializer();
+	private static volatile SaveStatistics lastSaveStatistics = SaveStatistics.EMPTY;
+
+	private static final Counter BACKGROUND_SAVES = MetricsRegistry.ROOT.getCounter("jsettlers_background_saves_total",
+			"Savegames taken by saveMapInBackground().");
+	private static final Gauge LAST_SAVE_PAUSE = MetricsRegistry.ROOT.getGauge("jsettlers_background_save_pause_milliseconds",
+			"Time the game thread has been blocked by the last background save to take the snapshot.");
+	private static final Counter SAVE_PAUSES = MetricsRegistry.ROOT.getCounter("jsettlers_background_save_pause_milliseconds_total",
+			"Summed time the game thread has been blocked by background saves.");
+	private static final Gauge LAST_SAVE_WRITE = MetricsRegistry.ROOT.getGauge("jsettlers_background_save_write_milliseconds",
+			"Time the background thread needed to serialize, compress and write the last savegame.");
+	private static final Counter SAVE_WRITE_ERRORS = MetricsRegistry.ROOT.getCounter("jsettlers_background_save_errors_total",
+			"Background saves that could not be written.");
+
+	static {
+		backgroundSaveExecutor.allowCoreThreadTimeOut(true);
+	}
+
 	private final IMapLister mapsDir;
 	private final IMapLister saveDir;
 
@@ -178,22 +218,96 @@ public class MapList implements IMapListerCallable {
 	 * @param grid
 	 * @throws IOException
 	 */
-	public synchronized void saveMap(PlayerState[] playerStates, MainGrid grid)
-			throws IOException {
+	public void saveMap(PlayerState[] playerStates, MainGrid grid) throws IOException {
 		MapFileHeader header = grid.generateSaveHeader();
-		OutputStream outStream = saveDir.getOutputStream(header);
+		GameStateSnapshot snapshot = gameSerializer.createSnapshot(grid, playerStates);
+		try {
+			writeSavegame(header, snapshot);
+		} finally {
+			gameSerializer.recycle(snapshot);
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the game and writes it to disk on a background thread. This method must be called by the game thread at a tick boundary.
+	 * <p />
+	 * The game is blocked while the game objects are java serialized into the snapshot and the grids are copied into it. Serializing the grids,
+	 * compressing the sections and writing the file are done in the background. The pause is published as the metric
+	 * <code>jsettlers_background_save_pause_milliseconds</code> of {@link MetricsRegistry#ROOT}.
+	 * 
+	 * @param playerStates
+	 * @param grid
+	 * @throws IOException
+	 *             If the snapshot could not be created. Errors while writing the savegame are only logged.
+	 * @see #getLastSaveStatistics()
+	 */
+	public void saveMapInBackground(PlayerState[] playerStates, MainGrid grid) throws IOException {
+		long start = System.nanoTime();
+		final MapFileHeader header = grid.generateSaveHeader();
+		final GameStateSnapshot snapshot = gameSerializer.createSnapshot(grid, playerStates);
+		final long pauseNanos = System.nanoTime() - start;
 
-		header.writeTo(outStream);
+		BACKGROUND_SAVES.increment();
+		LAST_SAVE_PAUSE.set(pauseNanos / 1000000);
+		SAVE_PAUSES.add(pauseNanos / 1000000);
 
-		ObjectOutputStream oos = new ObjectOutputStream(outStream);
-		oos.writeObject(playerStates);
-		GameSerializer gameSerializer = new GameSerializer();
-		gameSerializer.save(grid, oos);
-		RescheduleTimer.saveTo(oos);
+		backgroundSaveExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					long writeStart = System.nanoTime();
+					long savegameBytes = writeSavegame(header, snapshot);
+					long writeNanos = System.nanoTime() - writeStart;
+					lastSaveStatistics = new SaveStatistics(pauseNanos, writeNanos, savegameBytes);
+					LAST_SAVE_WRITE.set(writeNanos / 1000000);
+				} catch (IOException e) {
+					SAVE_WRITE_ERRORS.increment();
+					e.printStackTrace();
+				} finally {
+					gameSerializer.recycle(snapshot);
+				}
+			}
+		});
+	}
+
+	private synchronized long writeSavegame(MapFileHeader header, GameStateSnapshot snapshot) throws IOException {
+		OutputStream outStream = saveDir.getOutputStream(header);
 
-		oos.close();
+		long savegameBytes;
+		try {
+			header.writeTo(outStream);
+			savegameBytes = snapshot.writeTo(outStream);
+		} finally {
+			outStream.close();
+		}
 
 		loadFileList();
+		return savegameBytes;
+	}
+
+	/**
+	 * Blocks until all savegames passed to {@link #saveMapInBackground(PlayerState[], MainGrid)} so far have been written.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public static void waitForBackgroundSaves() throws InterruptedException {
+		try {
+			backgroundSaveExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e); // the empty task can't fail
+		}
+	}
+
+	/**
+	 * @return The statistics of the last savegame written by {@link #saveMapInBackground(PlayerState[], MainGrid)} or
+	 *         {@link SaveStatistics#EMPTY}.
+	 */
+	public static SaveStatistics getLastSaveStatistics() {
+		return lastSaveStatistics;
 	}
 
 	/**
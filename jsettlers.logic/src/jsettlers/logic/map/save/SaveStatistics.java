@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.save;
+
+/**
+ * Immutable measurements of a savegame written in the background by {@link MapList#saveMapInBackground(jsettlers.input.PlayerState[],
+ * jsettlers.logic.map.newGrid.MainGrid)}.
+ */
+public final class SaveStatistics {
+	public static final SaveStatistics EMPTY = new SaveStatistics(0, 0, 0);
+
+	private final long pauseNanos;
+	private final long writeNanos;
+	private final long savegameBytes;
+
+	SaveStatistics(long pauseNanos, long writeNanos, long savegameBytes) {
+		this.pauseNanos = pauseNanos;
+		this.writeNanos = writeNanos;
+		this.savegameBytes = savegameBytes;
+	}
+
+	/**
+	 * @return The time in nanoseconds the game thread has been blocked to take the snapshot of the game.
+	 */
+	public long getPauseNanos() {
+		return pauseNanos;
+	}
+
+	/**
+	 * @return The time in nanoseconds the background thread needed to serialize the grids, compress and write the savegame.
+	 */
+	public long getWriteNanos() {
+		return writeNanos;
+	}
+
+	/**
+	 * @return The size of the written game data in bytes (without the map header).
+	 */
+	public long getSavegameBytes() {
+		return savegameBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "SaveStatistics [pauseMs=" + pauseNanos / 1000000 + ", writeMs=" + writeNanos / 1000000 + ", savegameBytes=" + savegameBytes + "]";
+	}
+}
@@ -15,7 +15,6 @@
 package jsettlers.logic.map.save.loader;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import jsettlers.common.map.IMapData;
 import jsettlers.common.map.MapLoadException;
@@ -44,9 +43,9 @@ public class FreshMapLoader extends MapLoader {
 		}
 
 		try {
-			InputStream stream = super.getMapDataStream();
-			data = new MapDataReceiver();
-			MapDataSerializer.deserialize(data, stream);
+			MapDataReceiver receiver = new MapDataReceiver();
+			MapDataSerializer.deserialize(receiver, super.getMapDataBuffer(), true);
+			data = receiver;
 			return data;
 		} catch (IOException ex) {
 			throw new MapLoadException(ex);
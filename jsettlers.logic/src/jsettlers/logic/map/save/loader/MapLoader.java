@@ -17,6 +17,7 @@ package jsettlers.logic.map.save.loader;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Date;
 
 import jsettlers.common.CommonConstants;
@@ -25,6 +26,7 @@ import jsettlers.common.map.MapLoadException;
 import jsettlers.graphics.map.UIState;
 import jsettlers.input.PlayerState;
 import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.save.ByteBufferInputStream;
 import jsettlers.logic.map.save.IGameCreator;
 import jsettlers.logic.map.save.IListedMap;
 import jsettlers.logic.map.save.MapFileHeader;
@@ -68,19 +70,10 @@ public abstract class MapLoader implements IGameCreator, Comparable<MapLoader> {
 	}
 
 	private static MapFileHeader loadHeader(IListedMap file) throws MapLoadException {
-		InputStream stream = null;
 		try {
-			stream = new BufferedInputStream(file.getInputStream());
-			return MapFileHeader.readFromStream(stream);
+			return file.getHeader();
 		} catch (IOException e) {
 			throw new MapLoadException("Error during header request: ", e);
-		} finally {
-			try {
-				if (stream != null) {
-					stream.close();
-				}
-			} catch (IOException e) {
-			}
 		}
 	}
 
@@ -89,6 +82,16 @@ public abstract class MapLoader implements IGameCreator, Comparable<MapLoader> {
 	 * @return Returns a stream of the file without the header. So you can directly start reading the data of the map.
 	 * @throws IOException
 	 */
+	/**
+	 * @return A buffer with the map data behind the header of the file.
+	 * @throws IOException
+	 */
+	protected final ByteBuffer getMapDataBuffer() throws IOException {
+		ByteBuffer buffer = file.getBuffer();
+		MapFileHeader.readFromStream(new ByteBufferInputStream(buffer));
+		return buffer.slice();
+	}
+
 	protected final InputStream getMapDataStream() throws IOException {
 		InputStream stream = new BufferedInputStream(file.getInputStream());
 		MapFileHeader.readFromStream(stream);
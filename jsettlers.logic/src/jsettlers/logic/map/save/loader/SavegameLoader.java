@@ -15,16 +15,13 @@
 package jsettlers.logic.map.save.loader;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 import jsettlers.common.map.IMapData;
 import jsettlers.common.map.MapLoadException;
-import jsettlers.input.PlayerState;
 import jsettlers.logic.map.newGrid.GameSerializer;
-import jsettlers.logic.map.newGrid.MainGrid;
 import jsettlers.logic.map.save.IListedMap;
 import jsettlers.logic.map.save.MapFileHeader;
-import jsettlers.logic.timer.RescheduleTimer;
 
 /**
  * 
@@ -40,20 +37,15 @@ public class SavegameLoader extends MapLoader {
 	@Override
 	public MainGridWithUiSettings loadMainGrid(boolean[] availablePlayers) throws MapLoadException {
 		try {
-			ObjectInputStream ois = new ObjectInputStream(super.getMapDataStream());
-
-			PlayerState[] playerStates = (PlayerState[]) ois.readObject();
-			GameSerializer gameSerializer = new GameSerializer();
-			MainGrid mainGrid = gameSerializer.load(ois);
-			RescheduleTimer.loadFrom(ois);
-
-			ois.close();
-
-			return new MainGridWithUiSettings(mainGrid, playerStates);
+			InputStream stream = super.getMapDataStream();
+			try {
+				GameSerializer gameSerializer = new GameSerializer();
+				return gameSerializer.load(stream);
+			} finally {
+				stream.close();
+			}
 		} catch (IOException ex) {
 			throw new MapLoadException(ex);
-		} catch (ClassNotFoundException ex) {
-			throw new MapLoadException(ex);
 		}
 	}
 
@@ -25,25 +25,97 @@ import jsettlers.logic.constants.MatchConstants;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * This timer executes {@link IScheduledTimerable}s after the delay they requested. It is implemented as a hierarchical timing wheel: The first level
+ * has a slot for every {@value #TIME_SLICE}ms tick of the next {@value #LEVEL_0_SLOTS} ticks. Timerables scheduled further into the future are stored
+ * in coarser overflow levels and cascaded down to the finer levels when their time range is reached. Therefore there is no limit on the delay and
+ * adding or executing a timerable has constant costs.
+ * <p>
+ * The order of execution of the timerables of a tick is the order in which they have been added to the timer. This is required to keep the game
+ * deterministic. Every timerable gets a sequence number when it is added, and the buckets are kept sorted by it, also when timerables are
+ * cascaded down from a coarser level.
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
 	private static final long serialVersionUID = -1962430988827211391L;
 
-	private static final int FUTURE_TIME = 32000;
 	private static final short TIME_SLICE = 25; // ms
-	private static final int TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
+
+	private static final int LEVEL_0_BITS = 11;
+	private static final int LEVEL_0_SLOTS = 1 << LEVEL_0_BITS; // 51.2 seconds
+	private static final int OVERFLOW_LEVEL_BITS = 6;
+	private static final int OVERFLOW_LEVEL_SLOTS = 1 << OVERFLOW_LEVEL_BITS;
+	/**
+	 * With 11 + 3 * 6 bits, the levels can hold more ticks than any int delay in milliseconds can result in.
+	 */
+	private static final int NUMBER_OF_LEVELS = 4;
 
 	private static RescheduleTimer uniIns;
 
-	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
-	private int currTimeSlot = 0;
+	private TimerableBucket[][] wheels; // not final, because readObject() sets it
+	private TimerableBucket spareBucket = new TimerableBucket();
+
+	private int currTick = 0;
+	private int scheduledTimerables = 0;
+	private long nextSequenceNumber = 0;
+
+	private transient Class<?> slowestClass;
+	private transient long slowestNanos;
+
+	/**
+	 * The counters of the last tick. They are only copied to a {@link RescheduleTimerStatistics} when they are requested, so that no object is
+	 * created every tick.
+	 */
+	private transient boolean hasStatistics;
+	private transient int lastTick;
+	private transient int lastFiredTimerables;
+	private transient int lastScheduledTimerables;
+	private transient long lastTickDurationNanos;
+	private transient Class<?> lastSlowestClass;
+	private transient long lastSlowestNanos;
+
+	private transient TimerableProfile profile;
 
 	protected RescheduleTimer() {
-		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<IScheduledTimerable>();
+		initWheels();
+	}
+
+	private void initWheels() {
+		wheels = new TimerableBucket[NUMBER_OF_LEVELS][];
+		for (int level = 0; level < NUMBER_OF_LEVELS; level++) {
+			int slots = level == 0 ? LEVEL_0_SLOTS : OVERFLOW_LEVEL_SLOTS;
+			wheels[level] = new TimerableBucket[slots];
+			for (int slot = 0; slot < slots; slot++) {
+				wheels[level][slot] = new TimerableBucket();
+			}
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+
+		if (fields.getObjectStreamClass().getField("timerables") != null) { // savegames of the old format have a single wheel of lists
+			initWheels();
+			spareBucket = new TimerableBucket();
+
+			ArrayList<IScheduledTimerable>[] slots = (ArrayList<IScheduledTimerable>[]) fields.get("timerables", null);
+			int currTimeSlot = fields.get("currTimeSlot", 0);
+			for (int delaySlots = 0; delaySlots < slots.length; delaySlots++) {
+				for (IScheduledTimerable timerable : slots[(currTimeSlot + delaySlots) % slots.length]) {
+					insert(timerable, currTick + delaySlots, nextSequenceNumber++);
+					scheduledTimerables++;
+				}
+			}
+			return;
+		}
+
+		wheels = (TimerableBucket[][]) fields.get("wheels", null);
+		spareBucket = (TimerableBucket) fields.get("spareBucket", null);
+		currTick = fields.get("currTick", 0);
+		scheduledTimerables = fields.get("scheduledTimerables", 0);
+		nextSequenceNumber = fields.get("nextSequenceNumber", 0L);
+	}
+
 	public static void stop() {
 		if (uniIns != null) {
 			MatchConstants.clock.remove(uniIns);
@@ -61,7 +133,31 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		get().addTimerable(t, delay);
 	}
 
-	private void addTimerable(IScheduledTimerable t, int delay) {
+	/**
+	 * 
+	 * @return Returns the counters of the last executed tick of the timer.
+	 */
+	public static RescheduleTimerStatistics getStatistics() {
+		RescheduleTimer timer = uniIns;
+		return timer == null ? RescheduleTimerStatistics.EMPTY : timer.getLastTickStatistics();
+	}
+
+	/**
+	 * Starts to record the execution times of the timerables by their class. A running profiling is replaced.
+	 * 
+	 * @return The {@link TimerableProfile} the times are recorded to.
+	 */
+	public static TimerableProfile startProfiling() {
+		TimerableProfile profile = new TimerableProfile();
+		get().profile = profile;
+		return profile;
+	}
+
+	public static void stopProfiling() {
+		get().profile = null;
+	}
+
+	void addTimerable(IScheduledTimerable t, int delay) {
 		if (delay <= 0) {
 			return; // don't schedule if requested delay is negative or zero
 		}
@@ -69,9 +165,27 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		int delaySlots = delay / TIME_SLICE;
 		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
 
-		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
+		insert(t, currTick + delaySlots, nextSequenceNumber++);
+		scheduledTimerables++;
+	}
+
+	private void insert(IScheduledTimerable t, int dueTick, long sequenceNumber) {
+		final int ticksToGo = dueTick - currTick;
+
+		int level = 0;
+		while (level < NUMBER_OF_LEVELS - 1 && ticksToGo >= (1 << getLevelShift(level + 1))) {
+			level++;
+		}
+
+		wheels[level][getSlot(level, dueTick)].add(t, dueTick, sequenceNumber);
+	}
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+	private static int getLevelShift(int level) {
+		return level == 0 ? 0 : LEVEL_0_BITS + (level - 1) * OVERFLOW_LEVEL_BITS;
+	}
+
+	private int getSlot(int level, int tick) {
+		return (tick >>> getLevelShift(level)) & (wheels[level].length - 1);
 	}
 
 	private static synchronized RescheduleTimer get() {
@@ -83,26 +197,98 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	@Override
 	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+		final long tickStart = System.nanoTime();
+		slowestClass = null;
+		slowestNanos = 0;
+
+		cascadeOverflowLevels();
+
+		TimerableBucket queue = wheels[0][getSlot(0, currTick)];
+		final int fired = queue.size();
 
-		for (IScheduledTimerable curr : queue) {
+		for (int i = 0; i < fired; i++) {
+			IScheduledTimerable curr = queue.getTimerable(i);
+			long start = System.nanoTime();
 			try {
 				int delay = curr.timerEvent();
 				addTimerable(curr, delay);
 			} catch (Throwable t) {
-				System.err.println("RescheduleTimer catched: ");
-				t.printStackTrace();
-				try {
-					curr.kill();
-				} catch (Throwable t2) {
-					System.err.println("RescheduleTimer had trouble killing bad timerable!");
-					t2.printStackTrace();
-				}
+				handleCrashedTimerable(curr, t);
+			}
+			long nanos = System.nanoTime() - start;
+			recordExecutionTime(curr.getClass(), nanos);
+			if (profile != null) {
+				profile.record(curr.getClass(), nanos);
 			}
 		}
 
 		queue.clear();
-		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		scheduledTimerables -= fired;
+
+		publishStatistics(fired, System.nanoTime() - tickStart);
+		currTick++;
+	}
+
+	private void handleCrashedTimerable(IScheduledTimerable timerable, Throwable t) {
+		System.err.println("RescheduleTimer catched: ");
+		t.printStackTrace();
+		try {
+			timerable.kill();
+		} catch (Throwable t2) {
+			System.err.println("RescheduleTimer had trouble killing bad timerable!");
+			t2.printStackTrace();
+		}
+	}
+
+	private void recordExecutionTime(Class<?> timerableClass, long nanos) {
+		if (nanos > slowestNanos) {
+			slowestNanos = nanos;
+			slowestClass = timerableClass;
+		}
+	}
+
+	/**
+	 * Moves the timerables of the overflow slots whose time range starts with the current tick to the finer levels.
+	 */
+	private void cascadeOverflowLevels() {
+		for (int level = NUMBER_OF_LEVELS - 1; level > 0; level--) {
+			final int levelShift = getLevelShift(level);
+			if ((currTick & ((1 << levelShift) - 1)) == 0) {
+				cascade(level, getSlot(level, currTick));
+			}
+		}
+	}
+
+	private void cascade(int level, int slot) {
+		TimerableBucket bucket = wheels[level][slot];
+		if (bucket.isEmpty()) {
+			return;
+		}
+
+		wheels[level][slot] = spareBucket;
+		for (int i = 0; i < bucket.size(); i++) {
+			insert(bucket.getTimerable(i), bucket.getDueTick(i), bucket.getSequenceNumber(i));
+		}
+		bucket.clear();
+		spareBucket = bucket;
+	}
+
+	private synchronized void publishStatistics(int fired, long tickDurationNanos) {
+		hasStatistics = true;
+		lastTick = currTick;
+		lastFiredTimerables = fired;
+		lastScheduledTimerables = scheduledTimerables;
+		lastTickDurationNanos = tickDurationNanos;
+		lastSlowestClass = slowestClass;
+		lastSlowestNanos = slowestNanos;
+	}
+
+	synchronized RescheduleTimerStatistics getLastTickStatistics() {
+		if (!hasStatistics) {
+			return RescheduleTimerStatistics.EMPTY;
+		}
+		return new RescheduleTimerStatistics(lastTick, lastFiredTimerables, lastScheduledTimerables, lastTickDurationNanos, lastSlowestClass,
+				lastSlowestNanos);
 	}
 
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+/**
+ * Immutable snapshot of the counters of a single tick of the {@link RescheduleTimer}.
+ */
+public final class RescheduleTimerStatistics {
+	public static final RescheduleTimerStatistics EMPTY = new RescheduleTimerStatistics(0, 0, 0, 0, null, 0);
+
+	private final int tick;
+	private final int firedTimerables;
+	private final int scheduledTimerables;
+	private final long tickDurationNanos;
+	private final Class<?> slowestTimerableClass;
+	private final long slowestTimerableNanos;
+
+	RescheduleTimerStatistics(int tick, int firedTimerables, int scheduledTimerables, long tickDurationNanos, Class<?> slowestTimerableClass,
+			long slowestTimerableNanos) {
+		this.tick = tick;
+		this.firedTimerables = firedTimerables;
+		this.scheduledTimerables = scheduledTimerables;
+		this.tickDurationNanos = tickDurationNanos;
+		this.slowestTimerableClass = slowestTimerableClass;
+		this.slowestTimerableNanos = slowestTimerableNanos;
+	}
+
+	/**
+	 * @return The number of the tick these statistics belong to.
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * @return The number of {@link IScheduledTimerable}s that have been executed in this tick.
+	 */
+	public int getFiredTimerables() {
+		return firedTimerables;
+	}
+
+	/**
+	 * @return The number of {@link IScheduledTimerable}s that were waiting in the timer after this tick.
+	 */
+	public int getScheduledTimerables() {
+		return scheduledTimerables;
+	}
+
+	/**
+	 * @return The time needed to execute the whole tick in nanoseconds.
+	 */
+	public long getTickDurationNanos() {
+		return tickDurationNanos;
+	}
+
+	/**
+	 * @return The class of the {@link IScheduledTimerable} that needed the most time in this tick or null if no timerable has been executed.
+	 */
+	public Class<?> getSlowestTimerableClass() {
+		return slowestTimerableClass;
+	}
+
+	/**
+	 * @return The time the slowest {@link IScheduledTimerable} of this tick needed in nanoseconds.
+	 */
+	public long getSlowestTimerableNanos() {
+		return slowestTimerableNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "RescheduleTimerStatistics [tick=" + tick + ", firedTimerables=" + firedTimerables + ", scheduledTimerables=" + scheduledTimerables
+				+ ", tickDurationNanos=" + tickDurationNanos + ", slowestTimerableClass="
+				+ (slowestTimerableClass == null ? null : slowestTimerableClass.getSimpleName()) + ", slowestTimerableNanos=" + slowestTimerableNanos
+				+ "]";
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A slot of the {@link RescheduleTimer}'s timing wheel. The timerables and their due ticks are stored in plain arrays that are only grown but never
+ * shrunk, so that a bucket can be filled and cleared every tick without creating garbage.
+ * <p>
+ * The timerables are kept sorted by the sequence number the timer gave them when they were scheduled. New timerables have the highest sequence
+ * number and are simply appended. Only timerables cascaded down from a coarser level may have to be inserted in between.
+ */
+final class TimerableBucket implements Serializable {
+	private static final long serialVersionUID = 4529730237011839163L;
+
+	private static final int START_CAPACITY = 8;
+
+	private transient IScheduledTimerable[] timerables;
+	private transient int[] dueTicks;
+	private transient long[] sequenceNumbers;
+	private transient int size;
+
+	TimerableBucket() {
+		timerables = new IScheduledTimerable[START_CAPACITY];
+		dueTicks = new int[START_CAPACITY];
+		sequenceNumbers = new long[START_CAPACITY];
+	}
+
+	void add(IScheduledTimerable timerable, int dueTick, long sequenceNumber) {
+		if (size >= timerables.length) {
+			final int newCapacity = timerables.length * 2;
+			timerables = Arrays.copyOf(timerables, newCapacity);
+			dueTicks = Arrays.copyOf(dueTicks, newCapacity);
+			sequenceNumbers = Arrays.copyOf(sequenceNumbers, newCapacity);
+		}
+
+		int index = size;
+		while (index > 0 && sequenceNumbers[index - 1] > sequenceNumber) {
+			index--;
+		}
+		if (index < size) {
+			System.arraycopy(timerables, index, timerables, index + 1, size - index);
+			System.arraycopy(dueTicks, index, dueTicks, index + 1, size - index);
+			System.arraycopy(sequenceNumbers, index, sequenceNumbers, index + 1, size - index);
+		}
+
+		timerables[index] = timerable;
+		dueTicks[index] = dueTick;
+		sequenceNumbers[index] = sequenceNumber;
+		size++;
+	}
+
+	IScheduledTimerable getTimerable(int index) {
+		return timerables[index];
+	}
+
+	int getDueTick(int index) {
+		return dueTicks[index];
+	}
+
+	long getSequenceNumber(int index) {
+		return sequenceNumbers[index];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all elements from this bucket. The capacity of the bucket is kept.
+	 */
+	void clear() {
+		Arrays.fill(timerables, 0, size, null); // release the references
+		size = 0;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		oos.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			oos.writeObject(timerables[i]);
+			oos.writeInt(dueTicks[i]);
+			oos.writeLong(sequenceNumbers[i]);
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		int savedSize = ois.readInt();
+		int capacity = START_CAPACITY;
+		while (capacity < savedSize) {
+			capacity *= 2;
+		}
+
+		timerables = new IScheduledTimerable[capacity];
+		dueTicks = new int[capacity];
+		sequenceNumbers = new long[capacity];
+		for (int i = 0; i < savedSize; i++) {
+			add((IScheduledTimerable) ois.readObject(), ois.readInt(), ois.readLong());
+		}
+	}
+}
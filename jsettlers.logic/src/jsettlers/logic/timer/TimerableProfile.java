@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Accumulates the execution times of the {@link IScheduledTimerable}s executed by the {@link RescheduleTimer} by their class. The profile is
+ * filled by the thread of the game clock, so it must only be read while the clock is stopped or by the clock's thread itself.
+ */
+public final class TimerableProfile {
+	private final HashMap<Class<?>, long[]> nanosByClass = new HashMap<Class<?>, long[]>();
+
+	TimerableProfile() {
+	}
+
+	void record(Class<?> timerableClass, long nanos) {
+		long[] nanosOfClass = nanosByClass.get(timerableClass);
+		if (nanosOfClass == null) {
+			nanosOfClass = new long[1];
+			nanosByClass.put(timerableClass, nanosOfClass);
+		}
+		nanosOfClass[0] += nanos;
+	}
+
+	/**
+	 * @param type
+	 *            A class or interface.
+	 * @return The time in nanoseconds needed by all timerables that are instances of the given type.
+	 */
+	public long getNanos(Class<?> type) {
+		long nanos = 0;
+		for (Entry<Class<?>, long[]> entry : nanosByClass.entrySet()) {
+			if (type.isAssignableFrom(entry.getKey())) {
+				nanos += entry.getValue()[0];
+			}
+		}
+		return nanos;
+	}
+
+	/**
+	 * @return The time in nanoseconds needed by all timerables.
+	 */
+	public long getTotalNanos() {
+		return getNanos(Object.class);
+	}
+
+	/**
+	 * @return The time in nanoseconds needed by the timerables of every recorded class.
+	 */
+	public Map<Class<?>, Long> getNanosByClass() {
+		HashMap<Class<?>, Long> result = new HashMap<Class<?>, Long>();
+		for (Entry<Class<?>, long[]> entry : nanosByClass.entrySet()) {
+			result.put(entry.getKey(), entry.getValue()[0]);
+		}
+		return Collections.unmodifiableMap(result);
+	}
+}
@@ -17,6 +17,7 @@ package jsettlers.main;
 import java.io.IOException;
 import java.net.UnknownHostException;
 
+import jsettlers.input.tasks.GuiTaskTypes;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.client.NetworkClient;
 import jsettlers.network.client.interfaces.INetworkClient;
@@ -30,6 +31,9 @@ import jsettlers.network.infrastructure.channel.reject.RejectPacket;
  * 
  */
 public class AsyncNetworkClientConnector {
+	static {
+		GuiTaskTypes.register();
+	}
 
 	private final Object lock = new Object();
 	private INetworkClient networkClient = null;
@@ -40,6 +40,7 @@ import jsettlers.graphics.startscreen.interfaces.IStartingGameListener;
 import jsettlers.input.GuiInterface;
 import jsettlers.input.IGameStoppable;
 import jsettlers.input.PlayerState;
+import jsettlers.input.tasks.GuiTaskTypes;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.newGrid.MainGrid;
@@ -63,6 +64,10 @@ import jsettlers.network.synchronic.random.RandomSingleton;
 public class JSettlersGame {
 	private static final SimpleDateFormat logDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
 
+	static {
+		GuiTaskTypes.register();
+	}
+
 	private final Object stopMutex = new Object();
 
 	private final IGameCreator mapcreator;
@@ -175,7 +180,7 @@ public class JSettlersGame {
 				Movable.resetState();
 
 				updateProgressListener(EProgressState.LOADING_MAP, 0.3f);
-				Thread imagePreloader = ImageProvider.getInstance().startPreloading();
+				ImageProvider.getInstance().startPreloading(); // the images are loaded in the background while the game runs
 
 				MainGridWithUiSettings gridWithUiState = mapcreator.loadMainGrid(availablePlayers);
 				mainGrid = gridWithUiState.getMainGrid();
@@ -189,9 +194,6 @@ public class JSettlersGame {
 				mainGrid.initForPlayer(playerId, playerState.getFogOfWar());
 				mainGrid.startThreads();
 
-				if (imagePreloader != null)
-					imagePreloader.join(); // Wait for ImageProvider to finish loading the images
-
 				waitForStartingGameListener();
 
 				updateProgressListener(EProgressState.WAITING_FOR_OTHER_PLAYERS, 0.98f);
@@ -19,11 +19,18 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 
 /**
+ * The information needed to start a replay. It is written at the start of a replay file, followed by the tasks of the game.
  * 
  * @author Andreas Eberle
  * 
  */
 public class ReplayStartInformation {
+	static final int MAGIC_NUMBER = 0x4A535250; // "JSRP"
+	/**
+	 * Must be increased when the serialization of the tasks changes, because old replays can't be played with other tasks. Replays written before the
+	 * tasks have been serialized with type ids don't start with the {@link #MAGIC_NUMBER}.
+	 */
+	static final short FORMAT_VERSION = 1;
 
 	private long randomSeed;
 	private String mapName;
@@ -63,6 +70,8 @@ public class ReplayStartInformation {
 	}
 
 	public void serialize(DataOutputStream oos) throws IOException {
+		oos.writeInt(MAGIC_NUMBER);
+		oos.writeShort(FORMAT_VERSION);
 		oos.writeLong(randomSeed);
 		oos.writeByte(playerId);
 		oos.writeUTF(mapName);
@@ -74,7 +83,23 @@ public class ReplayStartInformation {
 		}
 	}
 
+	/**
+	 * Reads the start information of a replay file.
+	 * 
+	 * @param ois
+	 * @throws IOException
+	 *             If the replay has been written with another format version. Replays can't be converted, as the tasks are replayed as they have been
+	 *             written.
+	 */
 	public void deserialize(DataInputStream ois) throws IOException {
+		if (ois.readInt() != MAGIC_NUMBER) {
+			throw new IOException("The replay has been written by an older version of the game and can't be played anymore.");
+		}
+		short version = ois.readShort();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("The replay has the format version " + version + ", but only version " + FORMAT_VERSION + " can be played.");
+		}
+
 		randomSeed = ois.readLong();
 		playerId = ois.readByte();
 		mapName = ois.readUTF();
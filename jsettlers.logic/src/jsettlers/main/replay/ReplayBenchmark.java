@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.graphics.startscreen.interfaces.IGameExitListener;
+import jsettlers.graphics.startscreen.interfaces.IStartedGame;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.newGrid.MainGrid;
+import jsettlers.logic.map.newGrid.objects.MapObjectsManager;
+import jsettlers.logic.map.newGrid.partition.manager.PartitionManager;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerableProfile;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.ReplayStartInformation;
+import jsettlers.network.client.OfflineNetworkConnector;
+
+/**
+ * Runs replays headless and as fast as possible to measure the throughput of the game simulation.
+ * <p>
+ * Besides the simulated game time per wall clock time, the time spent in the subsystems of the game and the allocated memory are measured. At
+ * the end of every replay, a hash of the game state is calculated. As the game is deterministic, every run of the same replay must result in the
+ * same hash.
+ */
+public final class ReplayBenchmark {
+	private static final String BORDERS_THREAD = "BordersThread";
+	private static final String FOG_OF_WAR_THREAD = "NewFoWThread";
+	private static final String PARTITIONS_NORMALIZER_THREAD = "PartitionsGridNormalizer";
+
+	private ReplayBenchmark() {
+	}
+
+	/**
+	 * Loads the given replay and simulates it up to the given game time.
+	 * 
+	 * @param replayFile
+	 *            The replay to run.
+	 * @param targetGameTime
+	 *            The game time in milliseconds the replay is run to.
+	 * @return The measured values.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public static ReplayBenchmarkResult run(File replayFile, int targetGameTime) throws IOException, InterruptedException {
+		// load the building files and the grid classes on this thread, the small stack of the game thread is not enough for the XML parser and the
+		// class loading of a headless start
+		EBuildingType.values();
+		preloadClasses(MainGrid.class, MapObjectsManager.class);
+
+		OfflineNetworkConnector networkConnector = new OfflineNetworkConnector();
+		JSettlersGame game = ReplayTool.loadGameFromReplay(replayFile, networkConnector, new ReplayStartInformation());
+		IStartedGame startedGame = ReplayTool.waitForGameStartup(game.start());
+
+		MatchConstants.clock.setPausing(true); // from now on, the game is only simulated by the fast forward
+		final int startGameTime = MatchConstants.clock.getTime();
+
+		TimerableProfile profile = RescheduleTimer.startProfiling();
+		Map<String, long[]> threadsAtStart = getThreadStatistics();
+		long start = System.nanoTime();
+
+		MatchConstants.clock.fastForwardTo(targetGameTime);
+
+		long wallNanos = System.nanoTime() - start;
+		Map<String, long[]> threadsAtEnd = getThreadStatistics();
+		RescheduleTimer.stopProfiling();
+
+		long stateHash = calculateStateHash(startedGame.getMap());
+		int simulatedGameTime = MatchConstants.clock.getTime() - startGameTime;
+
+		stopGame(game, startedGame);
+
+		Map<String, Long> subsystemNanos = new LinkedHashMap<String, Long>();
+		long movables = profile.getNanos(Movable.class);
+		long buildings = profile.getNanos(Building.class);
+		long partitionManagers = profile.getNanos(PartitionManager.class);
+		subsystemNanos.put("movables", movables);
+		subsystemNanos.put("buildings", buildings);
+		subsystemNanos.put("partitionManagers", partitionManagers);
+		subsystemNanos.put("otherTimerables", profile.getTotalNanos() - movables - buildings - partitionManagers);
+		subsystemNanos.put("borders", getDifference(threadsAtStart, threadsAtEnd, BORDERS_THREAD, 0));
+		subsystemNanos.put("fogOfWar", getDifference(threadsAtStart, threadsAtEnd, FOG_OF_WAR_THREAD, 0));
+		subsystemNanos.put("partitionsNormalizer", getDifference(threadsAtStart, threadsAtEnd, PARTITIONS_NORMALIZER_THREAD, 0));
+
+		long allocatedBytes = -1;
+		if (threadsAtStart.containsKey(null)) {
+			allocatedBytes = getDifference(threadsAtStart, threadsAtEnd, null, 1);
+		}
+
+		return new ReplayBenchmarkResult(replayFile.getName(), simulatedGameTime, wallNanos, subsystemNanos, allocatedBytes, stateHash);
+	}
+
+	private static void stopGame(JSettlersGame game, IStartedGame startedGame) throws InterruptedException {
+		final CountDownLatch exited = new CountDownLatch(1);
+		startedGame.setGameExitListener(new IGameExitListener() {
+			@Override
+			public void gameExited(IStartedGame game) {
+				exited.countDown();
+			}
+		});
+		game.stop();
+		exited.await();
+	}
+
+	private static long getDifference(Map<String, long[]> start, Map<String, long[]> end, String name, int valueIndex) {
+		long[] endValues = end.get(name);
+		if (endValues == null) {
+			return 0;
+		}
+		long[] startValues = start.get(name);
+		return endValues[valueIndex] - (startValues == null ? 0 : startValues[valueIndex]);
+	}
+
+	/**
+	 * Loads and initializes the given classes on the calling thread.
+	 */
+	private static void preloadClasses(Class<?>... classes) {
+		for (Class<?> clazz : classes) {
+			try {
+				Class.forName(clazz.getName(), true, clazz.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Collects the CPU time and allocated bytes of all threads by the names of the threads. The entry with the key null contains the sums over all
+	 * threads. It is only available if the JVM supports measuring the allocated bytes.
+	 */
+	private static Map<String, long[]> getThreadStatistics() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		long[] threadIds = threadBean.getAllThreadIds();
+		ThreadInfo[] infos = threadBean.getThreadInfo(threadIds);
+
+		long[] allocated = null;
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+			if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+				allocated = allocationBean.getThreadAllocatedBytes(threadIds);
+			}
+		}
+
+		Map<String, long[]> statistics = new HashMap<String, long[]>();
+		long[] sums = new long[2];
+		for (int i = 0; i < threadIds.length; i++) {
+			if (infos[i] == null) {
+				continue; // the thread died in the meantime
+			}
+
+			long cpuNanos = threadBean.isThreadCpuTimeSupported() ? Math.max(0, threadBean.getThreadCpuTime(threadIds[i])) : 0;
+			long allocatedBytes = allocated == null ? 0 : Math.max(0, allocated[i]);
+			statistics.put(infos[i].getThreadName(), new long[] { cpuNanos, allocatedBytes });
+			sums[0] += cpuNanos;
+			sums[1] += allocatedBytes;
+		}
+
+		if (allocated != null) {
+			statistics.put(null, sums);
+		}
+		return statistics;
+	}
+
+	/**
+	 * Calculates a hash of the deterministic state of the given grid. Only values that are changed by the game logic are included; the fog of war
+	 * and the borders are calculated by own threads and are therefore ignored.
+	 */
+	static long calculateStateHash(IGraphicsGrid grid) {
+		long hash = 17;
+		for (int y = 0; y < grid.getHeight(); y++) {
+			for (int x = 0; x < grid.getWidth(); x++) {
+				hash = 31 * hash + grid.getLandscapeTypeAt(x, y).ordinal();
+				hash = 31 * hash + grid.getHeightAt(x, y);
+				hash = 31 * hash + grid.getPlayerIdAt(x, y);
+
+				IMovable movable = grid.getMovableAt(x, y);
+				if (movable != null) {
+					hash = 31 * hash + ordinal(movable.getMovableType());
+					hash = 31 * hash + movable.getPlayerId();
+					hash = 31 * hash + ordinal(movable.getDirection());
+					hash = 31 * hash + ordinal(movable.getAction());
+					hash = 31 * hash + ordinal(movable.getMaterial());
+					hash = 31 * hash + Float.floatToIntBits(movable.getHealth());
+				}
+
+				for (IMapObject object = grid.getMapObjectsAt(x, y); object != null; object = object.getNextObject()) {
+					hash = 31 * hash + object.getObjectType().ordinal();
+					hash = 31 * hash + Float.floatToIntBits(object.getStateProgress());
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static int ordinal(Enum<?> value) {
+		return value == null ? -1 : value.ordinal();
+	}
+}
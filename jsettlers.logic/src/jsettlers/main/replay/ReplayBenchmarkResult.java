@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.replay;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Result of running a replay with the {@link ReplayBenchmark}.
+ */
+public final class ReplayBenchmarkResult {
+	private final String replayName;
+	private final int simulatedGameTime;
+	private final long wallNanos;
+	private final Map<String, Long> subsystemNanos;
+	private final long allocatedBytes;
+	private final long stateHash;
+
+	ReplayBenchmarkResult(String replayName, int simulatedGameTime, long wallNanos, Map<String, Long> subsystemNanos, long allocatedBytes,
+			long stateHash) {
+		this.replayName = replayName;
+		this.simulatedGameTime = simulatedGameTime;
+		this.wallNanos = wallNanos;
+		this.subsystemNanos = Collections.unmodifiableMap(subsystemNanos);
+		this.allocatedBytes = allocatedBytes;
+		this.stateHash = stateHash;
+	}
+
+	public String getReplayName() {
+		return replayName;
+	}
+
+	/**
+	 * @return The game time in milliseconds that has been simulated.
+	 */
+	public int getSimulatedGameTime() {
+		return simulatedGameTime;
+	}
+
+	/**
+	 * @return The wall clock time in nanoseconds needed to simulate the game time.
+	 */
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * @return The simulated milliseconds of game time per millisecond of wall clock time.
+	 */
+	public double getGameMsPerWallMs() {
+		return wallNanos == 0 ? 0 : simulatedGameTime / (wallNanos / 1000000.0);
+	}
+
+	/**
+	 * @return The time in nanoseconds spent in the subsystems of the game by their names. The timerables of the logic are measured in wall clock
+	 *         time, the threads (borders, fog of war, ...) in CPU time.
+	 */
+	public Map<String, Long> getSubsystemNanos() {
+		return subsystemNanos;
+	}
+
+	/**
+	 * @return The number of bytes allocated by all threads while simulating or -1 if the JVM does not support measuring it.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return The allocated megabytes per second of wall clock time or -1 if the JVM does not support measuring it.
+	 */
+	public double getAllocationRate() {
+		return allocatedBytes < 0 || wallNanos == 0 ? -1 : allocatedBytes / (1024.0 * 1024.0) / (wallNanos / 1000000000.0);
+	}
+
+	/**
+	 * @return A hash of the deterministic state of the game at the end of the replay. Two runs of the same replay must result in the same hash.
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
+	/**
+	 * @return The header of the comma separated values returned by {@link #toCsvLine()}.
+	 */
+	public String getCsvHeader() {
+		StringBuilder header = new StringBuilder("replay,gameTimeMs,wallMs,gameMsPerWallMs");
+		for (String subsystem : subsystemNanos.keySet()) {
+			header.append(',').append(subsystem).append("Ms");
+		}
+		return header.append(",allocatedMB,allocationMBPerSec,stateHash").toString();
+	}
+
+	public String toCsvLine() {
+		StringBuilder line = new StringBuilder();
+		line.append(replayName).append(',').append(simulatedGameTime).append(',').append(format(wallNanos / 1000000.0)).append(',')
+				.append(format(getGameMsPerWallMs()));
+		for (Long nanos : subsystemNanos.values()) {
+			line.append(',').append(format(nanos / 1000000.0));
+		}
+		line.append(',').append(format(allocatedBytes / (1024.0 * 1024.0))).append(',').append(format(getAllocationRate())).append(',')
+				.append(String.format("%016x", stateHash));
+		return line.toString();
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ENGLISH, "%.2f", value);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(replayName).append(": ").append(simulatedGameTime).append(" ms game time in ").append(format(wallNanos / 1000000.0))
+				.append(" ms (").append(format(getGameMsPerWallMs())).append(" game ms / wall ms)\n");
+		for (Entry<String, Long> entry : subsystemNanos.entrySet()) {
+			builder.append("\t").append(entry.getKey()).append(": ").append(format(entry.getValue() / 1000000.0)).append(" ms\n");
+		}
+		builder.append("\tallocated: ").append(format(allocatedBytes / (1024.0 * 1024.0))).append(" MB (").append(format(getAllocationRate()))
+				.append(" MB/s)\n");
+		builder.append("\tstate hash: ").append(String.format("%016x", stateHash));
+		return builder.toString();
+	}
+}
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
+import jsettlers.graphics.startscreen.interfaces.IStartedGame;
 import jsettlers.graphics.startscreen.interfaces.IStartingGame;
 import jsettlers.input.tasks.EGuiAction;
 import jsettlers.input.tasks.SimpleGuiTask;
@@ -32,7 +33,7 @@ import jsettlers.network.client.OfflineNetworkConnector;
 import jsettlers.network.client.interfaces.INetworkConnector;
 
 public class ReplayTool {
-	public static void replayAndCreateSavegame(File replayFile, int targetGameTime) throws IOException {
+	public static void replayAndCreateSavegame(File replayFile, int targetGameTime) throws IOException, InterruptedException {
 		OfflineNetworkConnector networkConnector = new OfflineNetworkConnector();
 		ReplayStartInformation replayStartInformation = new ReplayStartInformation();
 		JSettlersGame game = loadGameFromReplay(replayFile, networkConnector, replayStartInformation);
@@ -42,19 +43,20 @@ public class ReplayTool {
 		// schedule the save task and run the game to the target game time
 		networkConnector.scheduleTaskAt(targetGameTime / NetworkConstants.Client.LOCKSTEP_PERIOD, new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 0));
 		MatchConstants.clock.fastForwardTo(targetGameTime);
+		MapList.waitForBackgroundSaves();
 
 		// create a replay basing on the savegame and containing the remaining tasks.
 		MapLoader newSavegame = MapList.getDefaultList().getSavedMaps().get(0);
 		createReplayOfRemainingTasks(newSavegame, replayStartInformation, "replayForSavegame.log");
 	}
 
-	private static void waitForGameStartup(IStartingGame game) {
+	static IStartedGame waitForGameStartup(IStartingGame game) {
 		DummyStartingGameListener startingGameListener = new DummyStartingGameListener();
 		game.setListener(startingGameListener);
-		startingGameListener.waitForGameStartup();
+		return startingGameListener.waitForGameStartup();
 	}
 
-	private static JSettlersGame loadGameFromReplay(File replayFile, INetworkConnector networkConnector, ReplayStartInformation replayStartInformation)
+	static JSettlersGame loadGameFromReplay(File replayFile, INetworkConnector networkConnector, ReplayStartInformation replayStartInformation)
 			throws IOException {
 		File loadableReplayFile = replayFile;
 		System.out.println("Found loadable replay file. Started loading it: " + loadableReplayFile);
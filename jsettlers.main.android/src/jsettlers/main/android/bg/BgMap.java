@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.main.android.bg;
 
+import java.util.BitSet;
+
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
@@ -118,6 +120,11 @@ public class BgMap implements IGraphicsGrid {
 		return true;
 	}
 
+	@Override
+	public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+		return false;
+	}
+
 	@Override
 	public void setBackgroundListener(
 			IGraphicsBackgroundListener backgroundListener) {
@@ -14,9 +14,12 @@
  *******************************************************************************/
 package jsettlers.main.android.resources;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import android.content.res.AssetManager;
 import jsettlers.logic.map.save.IListedMap;
@@ -45,6 +48,33 @@ public class AndroidAssetsMapLister implements IMapLister {
 			return manager.open(path);
 		}
 
+		@Override
+		public ByteBuffer getBuffer() throws IOException {
+			// assets may be compressed, so they cannot be mapped into memory.
+			InputStream in = getInputStream();
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					bytes.write(buffer, 0, read);
+				}
+				return ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer();
+			} finally {
+				in.close();
+			}
+		}
+
+		@Override
+		public MapFileHeader getHeader() throws IOException {
+			InputStream in = new BufferedInputStream(getInputStream());
+			try {
+				return MapFileHeader.readFromStream(in);
+			} finally {
+				in.close();
+			}
+		}
+
 		@Override
 		public void delete() {
 			throw new UnsupportedOperationException();
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.replay;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.utils.MainUtils;
+import jsettlers.graphics.swing.resources.SwingResourceLoader;
+import jsettlers.main.swing.SwingManagedJSettlers;
+
+/**
+ * Runs replays headless as fast as possible and reports the simulation throughput. See {@link ReplayBenchmark}.
+ * <p>
+ * Parameters:
+ * <ul>
+ * <li>--replayFile=&lt;FILE OR FOLDER&gt;: a replay file or a folder; all files ending with "_replay.log" in the folder are run.</li>
+ * <li>--targetTime=&lt;X&gt;: the game time in minutes every replay is run to.</li>
+ * <li>--iterations=&lt;X&gt;: number of runs of every replay (default 1). The state hashes of the runs of a replay must be equal.</li>
+ * <li>--resultFile=&lt;FILE&gt;: optional CSV file the results are written to.</li>
+ * </ul>
+ * The app exits with status 1 if the runs of a replay resulted in different state hashes.
+ */
+public class ReplayBenchmarkApp {
+
+	public static void main(String[] args) throws FileNotFoundException, IOException, InterruptedException {
+		HashMap<String, String> argsMap = MainUtils.createArgumentsMap(args);
+		SwingManagedJSettlers.loadDebugSettings(argsMap);
+		CommonConstants.ENABLE_CONSOLE_LOGGING = true; // the results are printed to the console
+		SwingResourceLoader.setupResourcesManager(SwingManagedJSettlers.getConfigFile(argsMap, "config.prp"));
+
+		if (!argsMap.containsKey("targetTime"))
+			throw new IllegalArgumentException("Target time needs to be specified with --targetTime=<MINUTES>");
+		int targetGameTime = Integer.valueOf(argsMap.get("targetTime")) * 60 * 1000;
+		int iterations = argsMap.containsKey("iterations") ? Integer.valueOf(argsMap.get("iterations")) : 1;
+
+		String replayFileString = argsMap.get("replayFile");
+		if (replayFileString == null)
+			throw new IllegalArgumentException("Replay file needs to be specified with --replayFile=<FILE OR FOLDER>");
+		List<File> replayFiles = getReplayFiles(new File(replayFileString));
+
+		List<ReplayBenchmarkResult> results = new ArrayList<ReplayBenchmarkResult>();
+		boolean determinismBroken = false;
+
+		for (File replayFile : replayFiles) {
+			Long expectedHash = null;
+			for (int i = 0; i < iterations; i++) {
+				ReplayBenchmarkResult result = ReplayBenchmark.run(replayFile, targetGameTime);
+				results.add(result);
+
+				if (expectedHash != null && expectedHash != result.getStateHash()) {
+					System.err.println("Determinism broken: " + replayFile + " resulted in different game states!");
+					determinismBroken = true;
+				}
+				expectedHash = result.getStateHash();
+			}
+		}
+
+		System.out.println("\nResults:");
+		for (ReplayBenchmarkResult result : results) {
+			System.out.println(result);
+		}
+
+		String resultFile = argsMap.get("resultFile");
+		if (resultFile != null && !results.isEmpty()) {
+			writeCsv(new File(resultFile), results);
+		}
+
+		System.exit(determinismBroken ? 1 : 0);
+	}
+
+	private static List<File> getReplayFiles(File replayFile) throws FileNotFoundException {
+		if (!replayFile.exists())
+			throw new FileNotFoundException("Found replayFile parameter, but file can not be found: " + replayFile);
+
+		if (!replayFile.isDirectory()) {
+			return Arrays.asList(replayFile);
+		}
+
+		File[] files = replayFile.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith("_replay.log");
+			}
+		});
+		Arrays.sort(files);
+		return Arrays.asList(files);
+	}
+
+	private static void writeCsv(File file, List<ReplayBenchmarkResult> results) throws IOException {
+		PrintWriter writer = new PrintWriter(file, "UTF-8");
+		try {
+			writer.println(results.get(0).getCsvHeader());
+			for (ReplayBenchmarkResult result : results) {
+				writer.println(result.toCsvLine());
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
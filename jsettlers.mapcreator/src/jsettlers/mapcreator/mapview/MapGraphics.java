@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.mapcreator.mapview;
 
+import java.util.BitSet;
+
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
@@ -104,6 +106,11 @@ public class MapGraphics implements IGraphicsGrid {
 		return true;
 	}
 
+	@Override
+	public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+		return false;
+	}
+
 	@Override
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 		data.setListener(backgroundListener);
@@ -52,6 +52,35 @@ public final class NetworkConstants {
 		public static final int BROADCAST_BUFFER_LENGTH = BROADCAST_MESSAGE.length();
 
 		public static final long OPEN_MATCHES_SEND_INTERVAL_MS = 5 * 1000;
+
+		/**
+		 * If true, the server handles its connections with a few selector threads instead of one thread per connection.
+		 */
+		public static final boolean USE_NIO_CHANNELS = !USE_DELAYED_SOCKETS;
+		public static final int NIO_SELECTOR_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		/**
+		 * Size of the direct buffers the selector threads use for reading and writing.
+		 */
+		public static final int NIO_BUFFER_SIZE = 16 * 1024;
+		public static final int NIO_MAX_POOLED_BUFFERS = 256;
+		/**
+		 * Number of bytes that may wait to be sent to a client before it is disconnected as it does not read its data.
+		 */
+		public static final int NIO_MAX_PENDING_BYTES = 4 * 1024 * 1024;
+		public static final int NIO_MAX_PACKET_LENGTH = 16 * 1024 * 1024;
+
+		public static final int LOCKSTEP_SCHEDULER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+		/**
+		 * Number of periods a lockstep task may fall behind before the missed executions are dropped.
+		 */
+		public static final int LOCKSTEP_MAX_BACKLOG_TICKS = 4;
+		public static final int LOCKSTEP_DELAY_LOGGING_THRESHOLD = 100;
+
+		/**
+		 * Port of the HTTP endpoint publishing the metrics of a dedicated server. The endpoint is only reachable from the local machine.
+		 */
+		public static final int METRICS_HTTP_PORT = 10215;
+		public static final String METRICS_MBEAN_NAME = "jsettlers:type=ServerMetrics";
 	}
 
 	public final static class Client {
@@ -74,6 +103,29 @@ public final class NetworkConstants {
 		 * The number of steps the server can run ahead of the clients.
 		 */
 		public static int LOCKSTEP_DEFAULT_LEAD_STEPS = 3;
+
+		/**
+		 * If the client can run no more than this number of milliseconds before it needs the next lockstep, the {@link NetworkTimer} slows down
+		 * to fill up its buffer of locksteps again.
+		 */
+		public static int LOCKSTEP_BUFFER_LOW_TIME = 50;
+		/**
+		 * If the client can run more than this number of milliseconds before it needs the next lockstep, it is behind the server and the
+		 * {@link NetworkTimer} speeds up.
+		 */
+		public static int LOCKSTEP_BUFFER_HIGH_TIME = LOCKSTEP_DEFAULT_LEAD_STEPS * LOCKSTEP_PERIOD;
+		/**
+		 * The relative change of the game speed used to keep the buffer of locksteps between the low and the high time.
+		 */
+		public static float LOCKSTEP_SPEED_ADAPTION = 0.1f;
+		/**
+		 * The maximum game speed (relative to the normal speed) used to catch up the time lost while waiting for a lockstep.
+		 */
+		public static float LOCKSTEP_CATCH_UP_SPEED = 2f;
+		/**
+		 * The maximum number of milliseconds of game time that is caught up after waiting for locksteps.
+		 */
+		public static int LOCKSTEP_MAX_CATCH_UP_TIME = 5000;
 	}
 
 	/**
@@ -158,8 +210,19 @@ public final class NetworkConstants {
 		}
 
 		public static ENetworkKey readFrom(DataInputStream dis) throws IOException {
+			return fromOrdinal(dis.readByte());
+		}
+
+		/**
+		 * @param ordinal
+		 *            The ordinal as written by {@link #writeTo(DataOutputStream)}.
+		 * @return The key with the given ordinal.
+		 * @throws IOException
+		 *             If there is no key with the given ordinal.
+		 */
+		public static ENetworkKey fromOrdinal(int ordinal) throws IOException {
 			try {
-				return values[dis.readByte()];
+				return values[ordinal];
 			} catch (Exception ex) {
 				throw new IOException(ex);
 			}
@@ -24,6 +24,8 @@ import jsettlers.network.infrastructure.channel.IDeserializingable;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
 /**
+ * A task that is executed synchronously by all clients. The data of a task is preceded by its length, so that the server can forward it without
+ * knowing the task classes, and by the type id registered in the {@link TaskPacketTypes}.
  * 
  * @author Andreas Eberle
  * 
@@ -33,31 +35,34 @@ public abstract class TaskPacket extends Packet {
 
 		@Override
 		public TaskPacket deserialize(ENetworkKey key, DataInputStream dis) throws IOException {
-			try {
-				dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
-				String className = dis.readUTF();
-				@SuppressWarnings("unchecked")
-				Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
-				TaskPacket packet = taskClass.newInstance();
-				packet.deserializeTask(dis);
-				return packet;
-			} catch (Exception e) {
-				throw new IOException(e);
-			}
+			dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
+			TaskPacket packet = TaskPacketTypes.createTask(dis.readShort());
+			packet.deserializeTask(dis);
+			return packet;
+		}
+	};
+
+	/**
+	 * The buffer used to calculate the length of a task. Tasks don't contain other tasks, so one buffer per thread is enough.
+	 */
+	private static final ThreadLocal<SerializationBuffer> serializationBuffers = new ThreadLocal<SerializationBuffer>() {
+		@Override
+		protected SerializationBuffer initialValue() {
+			return new SerializationBuffer();
 		}
 	};
 
 	@Override
 	public final void serialize(DataOutputStream dos) throws IOException {
-		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
-		DataOutputStream bufferDataOutStream = new DataOutputStream(bufferOutStream);
+		SerializationBuffer buffer = serializationBuffers.get();
+		buffer.bytes.reset();
 
-		bufferDataOutStream.writeUTF(this.getClass().getName());
-		serializeTask(bufferDataOutStream);
-		bufferDataOutStream.flush();
+		buffer.dataOut.writeShort(TaskPacketTypes.getTypeId(getClass()));
+		serializeTask(buffer.dataOut);
+		buffer.dataOut.flush();
 
-		dos.writeInt(bufferOutStream.size());
-		bufferOutStream.writeTo(dos);
+		dos.writeInt(buffer.bytes.size());
+		buffer.bytes.writeTo(dos);
 	}
 
 	protected abstract void serializeTask(DataOutputStream dos) throws IOException;
@@ -68,4 +73,8 @@ public abstract class TaskPacket extends Packet {
 
 	protected abstract void deserializeTask(DataInputStream dis) throws IOException;
 
+	private static final class SerializationBuffer {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream dataOut = new DataOutputStream(bytes);
+	}
 }
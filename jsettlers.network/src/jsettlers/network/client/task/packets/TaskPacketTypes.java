@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.task.packets;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The table of the numeric type ids of the {@link TaskPacket}s. Every {@link TaskPacket} class that is sent over the network or written to a replay
+ * must be registered with a unique id. The id is written instead of the class name and the registered factory is used to create the task when it
+ * is read again.
+ */
+public final class TaskPacketTypes {
+	/**
+	 * Creates empty instances of a {@link TaskPacket} class, that are filled by deserialization.
+	 */
+	public interface ITaskPacketFactory {
+		TaskPacket create();
+	}
+
+	private static final ConcurrentHashMap<Class<? extends TaskPacket>, Short> typeIds = new ConcurrentHashMap<Class<? extends TaskPacket>, Short>();
+	private static volatile ITaskPacketFactory[] factories = new ITaskPacketFactory[0];
+	private static volatile Class<?>[] taskClasses = new Class<?>[0];
+
+	private TaskPacketTypes() {
+	}
+
+	/**
+	 * Registers the given {@link TaskPacket} class. Registering the same class with the same id again has no effect.
+	 * 
+	 * @param typeId
+	 *            The id written for tasks of this class. Must not be negative.
+	 * @param taskClass
+	 *            The class of the tasks.
+	 * @param factory
+	 *            The factory creating instances of taskClass.
+	 * @throws IllegalArgumentException
+	 *             If the id or the class has already been registered differently.
+	 */
+	public static synchronized void register(short typeId, Class<? extends TaskPacket> taskClass, ITaskPacketFactory factory) {
+		if (typeId < 0) {
+			throw new IllegalArgumentException("Type ids must not be negative: " + typeId);
+		}
+
+		Short registeredId = typeIds.get(taskClass);
+		if (registeredId != null) {
+			if (registeredId != typeId) {
+				throw new IllegalArgumentException(taskClass + " is already registered with type id " + registeredId);
+			}
+			return;
+		}
+		if (typeId < taskClasses.length && taskClasses[typeId] != null) {
+			throw new IllegalArgumentException("Type id " + typeId + " is already used by " + taskClasses[typeId]);
+		}
+
+		// the tables are copied, so that readers never see a partly registered type.
+		int length = Math.max(typeId + 1, factories.length);
+		Class<?>[] newTaskClasses = Arrays.copyOf(taskClasses, length);
+		ITaskPacketFactory[] newFactories = Arrays.copyOf(factories, length);
+		newTaskClasses[typeId] = taskClass;
+		newFactories[typeId] = factory;
+		taskClasses = newTaskClasses;
+		factories = newFactories;
+		typeIds.put(taskClass, typeId);
+	}
+
+	/**
+	 * @param taskClass
+	 *            A registered {@link TaskPacket} class.
+	 * @return The type id of the given class.
+	 * @throws IllegalStateException
+	 *             If the class has not been registered.
+	 */
+	static short getTypeId(Class<? extends TaskPacket> taskClass) {
+		Short typeId = typeIds.get(taskClass);
+		if (typeId == null) {
+			throw new IllegalStateException("The task class " + taskClass.getName() + " has not been registered in the TaskPacketTypes.");
+		}
+		return typeId;
+	}
+
+	/**
+	 * Creates an empty task of the given type.
+	 * 
+	 * @param typeId
+	 *            The type id read from the stream.
+	 * @return A new instance of the registered class.
+	 * @throws IOException
+	 *             If no class has been registered with the given id.
+	 */
+	static TaskPacket createTask(short typeId) throws IOException {
+		ITaskPacketFactory[] currentFactories = factories;
+		if (typeId < 0 || typeId >= currentFactories.length || currentFactories[typeId] == null) {
+			throw new IOException("Unknown task type id: " + typeId);
+		}
+		return currentFactories[typeId].create();
+	}
+}
@@ -19,7 +19,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.HashMap;
 
@@ -37,6 +36,9 @@ import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.ConsoleLogger;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.SwitchableLogger;
+import jsettlers.network.infrastructure.metrics.Counter;
+import jsettlers.network.infrastructure.metrics.Gauge;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
 
 /**
  * This class builds up a logical channel between to network partners. The class allows to send data of type {@link Packet} to the partner and to
@@ -45,17 +47,34 @@ import jsettlers.network.infrastructure.log.SwitchableLogger;
  * @author Andreas Eberle
  * 
  */
-public class Channel implements Runnable, IRoundTripTimeSupplier {
-	private final Thread thread;
+public class Channel implements IRoundTripTimeSupplier {
+	private static final int HEADER_LENGTH = 5; // key and length of a packet
+
+	private static final Gauge OPEN_CHANNELS = MetricsRegistry.ROOT.getGauge("jsettlers_channels_open",
+			"Number of started channels that are not closed.");
+	private static final Counter PACKETS_SENT = MetricsRegistry.ROOT.getCounter("jsettlers_channel_packets_sent_total",
+			"Packets sent by all channels.");
+	private static final Counter BYTES_SENT = MetricsRegistry.ROOT.getCounter("jsettlers_channel_bytes_sent_total",
+			"Bytes sent by all channels including the packet headers.");
+	private static final Counter PACKETS_RECEIVED = MetricsRegistry.ROOT.getCounter("jsettlers_channel_packets_received_total",
+			"Packets received by all channels.");
+	private static final Counter BYTES_RECEIVED = MetricsRegistry.ROOT.getCounter("jsettlers_channel_bytes_received_total",
+			"Bytes received by all channels including the packet headers.");
+	private static final Counter PACKETS_WITHOUT_LISTENER = MetricsRegistry.ROOT.getCounter("jsettlers_channel_packets_without_listener_total",
+			"Received packets that have been rejected as no listener was registered for their key.");
 
 	private final SwitchableLogger logger;
-	private final ISocket socket;
-	private final DataOutputStream outStream;
-	private final DataInputStream inStream;
+	private final IChannelTransport transport;
 
-	private final ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
+	private final SendBuffer byteBufferOutStream = new SendBuffer();
 	private final DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
 
+	/**
+	 * Stream over the data of the packet currently received. It is reused for all packets, as the listeners read the data before they return.
+	 */
+	private final ReceiveBuffer receiveBuffer = new ReceiveBuffer();
+	private final DataInputStream receiveBufferInStream = new DataInputStream(receiveBuffer);
+
 	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<ENetworkKey, IChannelListener>();
 
 	private final PingPacketListener pingPacketListener;
@@ -81,15 +100,23 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	}
 
 	public Channel(Logger logger, ISocket socket) throws IOException {
+		this(logger, new StreamChannelTransport(socket));
+	}
+
+	/**
+	 * Creates a new Channel using the given transport to send and receive the packets.
+	 * 
+	 * @param logger
+	 *            The logger to be used.
+	 * @param transport
+	 *            The transport of the packets.
+	 */
+	public Channel(Logger logger, IChannelTransport transport) {
 		this.logger = new SwitchableLogger(logger);
-		this.socket = socket;
-		outStream = new DataOutputStream(socket.getOutputStream());
-		inStream = new DataInputStream(socket.getInputStream());
+		this.transport = transport;
 
 		pingPacketListener = new PingPacketListener(this.logger, this);
 		registerListener(pingPacketListener);
-
-		thread = new Thread(this, "ChannelForSocket_" + socket);
 	}
 
 	/**
@@ -104,11 +131,28 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	 */
 	public void start() {
 		started = true;
-		thread.start();
+		OPEN_CHANNELS.add(1);
+		transport.start(new IChannelTransport.IPacketReceiver() {
+			@Override
+			public void receive(ENetworkKey key, byte[] data, int length) {
+				receivePacket(key, data, length);
+			}
+
+			@Override
+			public void transportClosed() {
+				close(); // release the resources of subclasses, too
+				OPEN_CHANNELS.add(-1);
+
+				if (channelClosedListener != null) {
+					channelClosedListener.channelClosed();
+				}
+				logger.info("Channel listener shut down: " + transport);
+			}
+		});
 	}
 
 	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
-		if (socket.isClosed())
+		if (transport.isClosed())
 			return;
 
 		try {
@@ -117,19 +161,38 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		}
 	}
 
+	/**
+	 * Sends a packet that has already been serialized. This can be used to send the same packet to many partners without serializing it again for
+	 * every one of them.
+	 * 
+	 * @param packet
+	 *            The packet to be sent.
+	 */
+	public synchronized void sendPacket(SerializedPacket packet) {
+		if (transport.isClosed())
+			return;
+
+		try {
+			transport.send(packet.getKey(), packet.getData(), packet.getLength());
+			countSentPacket(packet.getLength());
+		} catch (IOException e) {
+		}
+	}
+
 	private void sendPacketData(ENetworkKey key, Packet packet) throws IOException {
 		bufferDataOutStream.flush();
 		byteBufferOutStream.reset();
 
 		packet.serialize(bufferDataOutStream); // write packet to buffer to calculate length
 		bufferDataOutStream.flush();
-		final int length = byteBufferOutStream.size();
 
-		key.writeTo(outStream); // write key, length and the data
-		outStream.writeInt(length);
-		byteBufferOutStream.writeTo(outStream);
+		transport.send(key, byteBufferOutStream.getBuffer(), byteBufferOutStream.size());
+		countSentPacket(byteBufferOutStream.size());
+	}
 
-		outStream.flush();
+	private static void countSentPacket(int length) {
+		PACKETS_SENT.increment();
+		BYTES_SENT.add(HEADER_LENGTH + length);
 	}
 
 	/**
@@ -149,87 +212,73 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		listenerRegistry.remove(key);
 	}
 
-	@Override
-	public void run() {
-		while (!socket.isClosed()) {
-			try {
-				ENetworkKey key = ENetworkKey.readFrom(inStream);
-				int length = inStream.readInt();
-
-				DataInputStream bufferIn = readBytesToBuffer(inStream, length);
-
-				IChannelListener listener = listenerRegistry.get(key);
-
-				if (listener != null) {
-					try {
-						listener.receive(key, length, bufferIn);
-						if (bufferIn.available() > 0) {
-							logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
-						}
-					} catch (Exception e) { // ignore exceptions thrown in receive
-						e.printStackTrace();
-					}
-				} else {
-					logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
-
-					if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
-						sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
-								new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
-					}
-				}
+	private void receivePacket(ENetworkKey key, byte[] data, int length) {
+		PACKETS_RECEIVED.increment();
+		BYTES_RECEIVED.add(HEADER_LENGTH + length);
+		DataInputStream bufferIn = receiveBuffer.wrap(data, length);
+
+		IChannelListener listener = listenerRegistry.get(key);
 
-			} catch (Exception e) {
-				try {
-					socket.close();
-				} catch (IOException ex) {
+		if (listener != null) {
+			try {
+				listener.receive(key, length, bufferIn);
+				if (bufferIn.available() > 0) {
+					logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
 				}
+			} catch (Exception e) { // ignore exceptions thrown in receive
+				e.printStackTrace();
 			}
-		}
-
-		close(); // release the resources
+		} else {
+			logger.warn("NO LISTENER FOUND for key: " + key + "   (" + transport + ")");
+			PACKETS_WITHOUT_LISTENER.increment();
 
-		if (channelClosedListener != null) {
-			channelClosedListener.channelClosed();
+			if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
+				sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
+						new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
+			}
 		}
-		logger.info("Channel listener shut down: " + socket);
 	}
 
-	private DataInputStream readBytesToBuffer(DataInputStream inStream, int length) throws IOException {
-		byte[] data = new byte[length];
-
-		int alreadyRead = 0;
-		while (length - alreadyRead > 0) {
-			int numberOfBytesRead = inStream.read(data, alreadyRead, length - alreadyRead);
-			if (numberOfBytesRead < 0) {
-				throw new IOException("Stream ended to early!");
-			}
-
-			alreadyRead += numberOfBytesRead;
+	/**
+	 * A {@link ByteArrayInputStream} that can be pointed to the data of the next packet without creating garbage.
+	 */
+	private final class ReceiveBuffer extends ByteArrayInputStream {
+		ReceiveBuffer() {
+			super(new byte[0]);
 		}
 
-		return new DataInputStream(new ByteArrayInputStream(data));
+		/**
+		 * Lets this stream read the given data.
+		 * 
+		 * @return The stream to read the data from.
+		 */
+		DataInputStream wrap(byte[] data, int length) {
+			buf = data;
+			pos = 0;
+			mark = 0;
+			count = length;
+			return receiveBufferInStream;
+		}
 	}
 
 	/**
-	 * Closes this {@link Channel} and releases the contained {@link Socket} and the stream resources.
+	 * A {@link ByteArrayOutputStream} giving access to its array, so that the serialized packets don't need to be copied.
 	 */
-	public void close() {
-		try {
-			inStream.close();
-		} catch (IOException e1) {
-		}
-
-		try {
-			outStream.close();
-		} catch (IOException e1) {
+	private static final class SendBuffer extends ByteArrayOutputStream {
+		SendBuffer() {
+			super(256);
 		}
 
-		try {
-			socket.close();
-		} catch (IOException e) {
+		byte[] getBuffer() {
+			return buf;
 		}
+	}
 
-		thread.interrupt();
+	/**
+	 * Closes this {@link Channel} and releases the underlying transport.
+	 */
+	public void close() {
+		transport.close();
 	}
 
 	/**
@@ -268,7 +317,7 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	}
 
 	public boolean isClosed() {
-		return socket.isClosed();
+		return transport.isClosed();
 	}
 
 	public boolean isStarted() {
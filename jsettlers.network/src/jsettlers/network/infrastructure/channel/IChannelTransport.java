@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel;
+
+import java.io.IOException;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+
+/**
+ * The transport used by a {@link Channel} to send and receive the serialized packets. Every packet is transmitted as its key, the length of its data
+ * and the data.
+ */
+public interface IChannelTransport {
+
+	/**
+	 * Receives the packets read by an {@link IChannelTransport}.
+	 */
+	interface IPacketReceiver {
+		/**
+		 * Called for every received packet. The calls for one transport are never made concurrently. The data array is only valid during the call.
+		 * 
+		 * @param key
+		 *            The key of the packet.
+		 * @param data
+		 *            Array containing the data of the packet, starting at index 0.
+		 * @param length
+		 *            The length of the data.
+		 */
+		void receive(ENetworkKey key, byte[] data, int length);
+
+		/**
+		 * Called once after the transport has been closed, either by {@link IChannelTransport#close()} or by the remote side.
+		 */
+		void transportClosed();
+	}
+
+	/**
+	 * Starts receiving packets. This method is only called once.
+	 * 
+	 * @param receiver
+	 *            The receiver of the packets.
+	 */
+	void start(IPacketReceiver receiver);
+
+	/**
+	 * Sends a packet. The calls of this method are synchronized by the {@link Channel}.
+	 * 
+	 * @param key
+	 *            The key of the packet.
+	 * @param data
+	 *            Array containing the serialized packet, starting at index 0. The array may be reused after this method returned.
+	 * @param length
+	 *            The length of the data.
+	 * @throws IOException
+	 */
+	void send(ENetworkKey key, byte[] data, int length) throws IOException;
+
+	boolean isClosed();
+
+	/**
+	 * Closes the transport and releases its resources. This method may be called more than once.
+	 */
+	void close();
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+
+/**
+ * An immutable {@link Packet} that has already been serialized together with its key. The same instance can be sent over any number of
+ * {@link Channel}s with {@link Channel#sendPacket(SerializedPacket)}, so a packet that is sent to many partners only needs to be serialized once.
+ */
+public final class SerializedPacket {
+	private final ENetworkKey key;
+	private final byte[] data;
+
+	/**
+	 * Serializes the given packet.
+	 * 
+	 * @param key
+	 *            The key the packet will be sent with.
+	 * @param packet
+	 *            The packet to be serialized. Later changes of the packet are not visible in the {@link SerializedPacket}.
+	 * @throws IOException
+	 *             If the packet could not be serialized.
+	 */
+	public SerializedPacket(ENetworkKey key, Packet packet) throws IOException {
+		this.key = key;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream dataOut = new DataOutputStream(bytes);
+		packet.serialize(dataOut);
+		dataOut.flush();
+		this.data = bytes.toByteArray();
+	}
+
+	public ENetworkKey getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The length of the serialized data in bytes.
+	 */
+	public int getLength() {
+		return data.length;
+	}
+
+	/**
+	 * @return The serialized data. The array must not be modified.
+	 */
+	byte[] getData() {
+		return data;
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+
+/**
+ * An {@link IChannelTransport} using the blocking streams of an {@link ISocket}. The packets are received by a thread of the transport.
+ */
+final class StreamChannelTransport implements IChannelTransport, Runnable {
+	private final ISocket socket;
+	private final DataOutputStream outStream;
+	private final DataInputStream inStream;
+	private final Thread thread;
+
+	/**
+	 * The array receiving the data of the incoming packets. It only grows, so no garbage is created for the incoming packets.
+	 */
+	private byte[] receiveBuffer = new byte[256];
+	private IPacketReceiver receiver;
+
+	StreamChannelTransport(ISocket socket) throws IOException {
+		this.socket = socket;
+		// buffer the streams, so that every packet is written with one call and the headers are not read byte by byte
+		outStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		inStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		thread = new Thread(this, "ChannelForSocket_" + socket);
+	}
+
+	@Override
+	public void start(IPacketReceiver receiver) {
+		this.receiver = receiver;
+		thread.start();
+	}
+
+	@Override
+	public void send(ENetworkKey key, byte[] data, int length) throws IOException {
+		if (socket.isClosed()) {
+			return;
+		}
+
+		key.writeTo(outStream); // write key, length and the data
+		outStream.writeInt(length);
+		outStream.write(data, 0, length);
+		outStream.flush();
+	}
+
+	@Override
+	public void run() {
+		while (!socket.isClosed()) {
+			try {
+				ENetworkKey key = ENetworkKey.readFrom(inStream);
+				int length = inStream.readInt();
+
+				if (receiveBuffer.length < length) {
+					receiveBuffer = new byte[Math.max(length, receiveBuffer.length * 2)];
+				}
+				inStream.readFully(receiveBuffer, 0, length);
+
+				receiver.receive(key, receiveBuffer, length);
+			} catch (Exception e) {
+				try {
+					socket.close();
+				} catch (IOException ex) {
+				}
+			}
+		}
+
+		close(); // release the resources
+		receiver.transportClosed();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return socket.isClosed();
+	}
+
+	@Override
+	public void close() {
+		try {
+			inStream.close();
+		} catch (IOException e1) {
+		}
+
+		try {
+			outStream.close();
+		} catch (IOException e1) {
+		}
+
+		try {
+			socket.close();
+		} catch (IOException e) {
+		}
+
+		thread.interrupt();
+	}
+
+	@Override
+	public String toString() {
+		return socket.toString();
+	}
+}
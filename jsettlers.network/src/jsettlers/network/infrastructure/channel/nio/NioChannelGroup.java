@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelListener;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * Creates {@link Channel}s for non blocking {@link SocketChannel}s. All channels of a group are served by a fixed number of selector threads, so that
+ * a server can handle many connections without needing threads for each of them.
+ * <p />
+ * NOTE: The {@link IChannelListener}s of the channels are called by the selector threads. They must not block, as this delays all other channels of
+ * the same thread.
+ */
+public final class NioChannelGroup {
+	private final NioSelectorThread[] selectorThreads;
+	private final AtomicInteger nextSelectorThread = new AtomicInteger();
+
+	public NioChannelGroup() throws IOException {
+		this(NetworkConstants.Server.NIO_SELECTOR_THREADS);
+	}
+
+	public NioChannelGroup(int numberOfSelectorThreads) throws IOException {
+		DirectBufferPool bufferPool = new DirectBufferPool(NetworkConstants.Server.NIO_BUFFER_SIZE, NetworkConstants.Server.NIO_MAX_POOLED_BUFFERS);
+
+		selectorThreads = new NioSelectorThread[numberOfSelectorThreads];
+		for (int i = 0; i < numberOfSelectorThreads; i++) {
+			selectorThreads[i] = new NioSelectorThread("NioSelector_" + i, bufferPool);
+			selectorThreads[i].start();
+		}
+	}
+
+	/**
+	 * Creates a {@link Channel} for the given connected {@link SocketChannel}. The {@link SocketChannel} is switched to non blocking mode.
+	 * 
+	 * @param socketChannel
+	 *            The connected socket channel.
+	 * @param logger
+	 *            The logger of the new channel.
+	 * @return A new channel that still needs to be started.
+	 * @throws IOException
+	 *             If the socket channel could not be configured.
+	 */
+	public Channel createChannel(SocketChannel socketChannel, Logger logger) throws IOException {
+		socketChannel.configureBlocking(false);
+		socketChannel.socket().setTcpNoDelay(true);
+
+		int index = (nextSelectorThread.getAndIncrement() & Integer.MAX_VALUE) % selectorThreads.length;
+		return new Channel(logger, new NioTransport(socketChannel, selectorThreads[index], logger));
+	}
+
+	/**
+	 * Closes all channels of this group and stops the selector threads.
+	 */
+	public void shutdown() {
+		for (NioSelectorThread selectorThread : selectorThreads) {
+			selectorThread.shutdown();
+		}
+	}
+}
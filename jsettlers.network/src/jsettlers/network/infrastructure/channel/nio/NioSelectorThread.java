@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread handling the reading and writing of many {@link NioTransport}s with one {@link Selector}.
+ * <p />
+ * Other threads must not change the registrations of the selector, as this can block until the next wakeup. Instead they add their requests to the
+ * queues of this thread, which are processed before every select.
+ */
+final class NioSelectorThread extends Thread {
+	private final Selector selector;
+	private final DirectBufferPool bufferPool;
+
+	private final ConcurrentLinkedQueue<NioTransport> registrationRequests = new ConcurrentLinkedQueue<NioTransport>();
+	private final ConcurrentLinkedQueue<NioTransport> writeRequests = new ConcurrentLinkedQueue<NioTransport>();
+	private final ConcurrentLinkedQueue<NioTransport> closeRequests = new ConcurrentLinkedQueue<NioTransport>();
+
+	/**
+	 * Array the received packets are copied to before they are handed to the receivers. As all packets are dispatched by this thread, one array is
+	 * enough for all transports.
+	 */
+	private byte[] packetArray = new byte[256];
+
+	private volatile boolean canceled = false;
+
+	NioSelectorThread(String name, DirectBufferPool bufferPool) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		this.bufferPool = bufferPool;
+		setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		while (!canceled) {
+			try {
+				processRequests();
+				selector.select();
+
+				Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+				while (iterator.hasNext()) {
+					SelectionKey key = iterator.next();
+					iterator.remove();
+
+					NioTransport transport = (NioTransport) key.attachment();
+					if (key.isValid() && key.isReadable()) {
+						transport.handleRead(this);
+					}
+					if (key.isValid() && key.isWritable()) {
+						transport.handleWrite(key);
+					}
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+
+		for (SelectionKey key : selector.keys()) {
+			((NioTransport) key.attachment()).close();
+		}
+		processRequests();
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+	}
+
+	private void processRequests() {
+		NioTransport transport;
+		while ((transport = registrationRequests.poll()) != null) {
+			try {
+				transport.setSelectionKey(transport.getSocketChannel().register(selector, SelectionKey.OP_READ, transport));
+			} catch (ClosedChannelException e) {
+				transport.close();
+			}
+		}
+
+		while ((transport = writeRequests.poll()) != null) {
+			SelectionKey key = transport.getSelectionKey();
+			if (key != null && key.isValid()) {
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+			}
+		}
+
+		while ((transport = closeRequests.poll()) != null) {
+			transport.finishClose();
+		}
+	}
+
+	void register(NioTransport transport) {
+		registrationRequests.offer(transport);
+		selector.wakeup();
+	}
+
+	void requestWrite(NioTransport transport) {
+		writeRequests.offer(transport);
+		selector.wakeup();
+	}
+
+	void requestClose(NioTransport transport) {
+		closeRequests.offer(transport);
+		selector.wakeup();
+	}
+
+	/**
+	 * @param length
+	 *            The needed length.
+	 * @return An array with at least the given length. It is only valid until the next call of this method.
+	 */
+	byte[] getPacketArray(int length) {
+		if (packetArray.length < length) {
+			packetArray = new byte[Math.max(length, packetArray.length * 2)];
+		}
+		return packetArray;
+	}
+
+	DirectBufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	void shutdown() {
+		canceled = true;
+		selector.wakeup();
+	}
+}
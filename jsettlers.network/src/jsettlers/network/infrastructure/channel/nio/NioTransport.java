@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.IChannelTransport;
+import jsettlers.network.infrastructure.log.Logger;
+import jsettlers.network.infrastructure.metrics.Counter;
+import jsettlers.network.infrastructure.metrics.Gauge;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
+
+/**
+ * An {@link IChannelTransport} using a non blocking {@link SocketChannel} that is served by a {@link NioSelectorThread}. The packets are received
+ * and dispatched by the selector thread.
+ * <p />
+ * Packets are written directly by the sending thread as long as the socket accepts the data. Everything the socket does not accept is queued and
+ * written by the selector thread when the socket becomes writable again.
+ */
+final class NioTransport implements IChannelTransport {
+	private static final int HEADER_LENGTH = 5; // key and length of a packet
+
+	private static final Gauge PENDING_BYTES = MetricsRegistry.ROOT.getGauge("jsettlers_nio_pending_write_bytes",
+			"Bytes queued by all selector based channels as the sockets did not accept them yet.");
+	private static final Counter SLOW_CLIENTS = MetricsRegistry.ROOT.getCounter("jsettlers_nio_slow_clients_disconnected_total",
+			"Connections closed as the client did not read its data.");
+
+	private final SocketChannel socketChannel;
+	private final NioSelectorThread selectorThread;
+	private final DirectBufferPool bufferPool;
+	private final Logger logger;
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private boolean closeFinished = false;
+
+	private IPacketReceiver receiver;
+	private SelectionKey selectionKey;
+
+	// only used by the selector thread
+	private ByteBuffer readBuffer;
+	private ENetworkKey largePacketKey;
+	private byte[] largePacket;
+	private int largePacketFilled;
+
+	// guarded by pendingWrites
+	private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<ByteBuffer>();
+	private int pendingBytes;
+
+	NioTransport(SocketChannel socketChannel, NioSelectorThread selectorThread, Logger logger) {
+		this.socketChannel = socketChannel;
+		this.selectorThread = selectorThread;
+		this.bufferPool = selectorThread.getBufferPool();
+		this.logger = logger;
+	}
+
+	@Override
+	public void start(IPacketReceiver receiver) {
+		this.receiver = receiver;
+		this.readBuffer = bufferPool.acquire();
+		selectorThread.register(this);
+	}
+
+	@Override
+	public void send(ENetworkKey key, byte[] data, int length) throws IOException {
+		synchronized (pendingWrites) {
+			if (closed.get()) {
+				return;
+			}
+
+			try {
+				if (pendingWrites.isEmpty()) {
+					writeDirectly(key, data, length);
+				} else {
+					ByteBuffer packet = ByteBuffer.allocate(HEADER_LENGTH + length);
+					packet.put((byte) key.ordinal()).putInt(length).put(data, 0, length);
+					packet.flip();
+					enqueue(packet);
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Writes the packet through a pooled direct buffer. If the socket does not accept all of the data, the rest is queued.
+	 */
+	private void writeDirectly(ENetworkKey key, byte[] data, int length) throws IOException {
+		ByteBuffer writeBuffer = bufferPool.acquire();
+		try {
+			writeBuffer.put((byte) key.ordinal()).putInt(length);
+
+			int offset = 0;
+			while (true) {
+				int chunkLength = Math.min(writeBuffer.remaining(), length - offset);
+				writeBuffer.put(data, offset, chunkLength);
+				offset += chunkLength;
+
+				writeBuffer.flip();
+				socketChannel.write(writeBuffer);
+
+				if (writeBuffer.hasRemaining()) { // the socket is full => queue the rest
+					ByteBuffer rest = ByteBuffer.allocate(writeBuffer.remaining() + length - offset);
+					rest.put(writeBuffer).put(data, offset, length - offset);
+					rest.flip();
+					enqueue(rest);
+					return;
+				}
+				if (offset == length) {
+					return;
+				}
+				writeBuffer.clear();
+			}
+		} finally {
+			bufferPool.release(writeBuffer);
+		}
+	}
+
+	private void enqueue(ByteBuffer data) {
+		pendingWrites.add(data);
+		pendingBytes += data.remaining();
+		PENDING_BYTES.add(data.remaining());
+
+		if (pendingBytes > NetworkConstants.Server.NIO_MAX_PENDING_BYTES) {
+			logger.warn("Closing connection " + this + " as it does not read its data. Pending bytes: " + pendingBytes);
+			SLOW_CLIENTS.increment();
+			close();
+		} else if (pendingWrites.size() == 1) {
+			selectorThread.requestWrite(this);
+		}
+	}
+
+	/**
+	 * Called by the selector thread when the socket has become writable.
+	 */
+	void handleWrite(SelectionKey key) {
+		synchronized (pendingWrites) {
+			try {
+				while (!pendingWrites.isEmpty()) {
+					ByteBuffer data = pendingWrites.peek();
+					int written = socketChannel.write(data);
+					pendingBytes -= written;
+					PENDING_BYTES.add(-written);
+					if (data.hasRemaining()) {
+						return; // wait till the socket is writable again
+					}
+					pendingWrites.poll();
+				}
+				key.interestOps(SelectionKey.OP_READ);
+			} catch (IOException e) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Called by the selector thread when data can be read from the socket.
+	 */
+	void handleRead(NioSelectorThread selectorThread) {
+		try {
+			if (socketChannel.read(readBuffer) < 0) {
+				close();
+				return;
+			}
+
+			readBuffer.flip();
+			while (readPacket(selectorThread)) {
+			}
+			readBuffer.compact();
+		} catch (IOException e) {
+			close();
+		}
+	}
+
+	/**
+	 * Reads the next packet from the read buffer and dispatches it.
+	 * 
+	 * @return true if a packet could be read, false if more data is needed.
+	 */
+	private boolean readPacket(NioSelectorThread selectorThread) throws IOException {
+		if (largePacket != null) {
+			return continueLargePacket();
+		}
+		if (readBuffer.remaining() < HEADER_LENGTH) {
+			return false;
+		}
+
+		readBuffer.mark();
+		ENetworkKey key = ENetworkKey.fromOrdinal(readBuffer.get());
+		int length = readBuffer.getInt();
+		if (length < 0 || length > NetworkConstants.Server.NIO_MAX_PACKET_LENGTH) {
+			throw new IOException("Invalid packet length: " + length);
+		}
+
+		if (length > readBuffer.capacity() - HEADER_LENGTH) { // the packet does not fit into the read buffer
+			largePacketKey = key;
+			largePacket = new byte[length];
+			largePacketFilled = 0;
+			return continueLargePacket();
+		}
+
+		if (readBuffer.remaining() < length) {
+			readBuffer.reset();
+			return false;
+		}
+
+		byte[] packet = selectorThread.getPacketArray(length);
+		readBuffer.get(packet, 0, length);
+		receiver.receive(key, packet, length);
+		return !closed.get();
+	}
+
+	private boolean continueLargePacket() {
+		int chunkLength = Math.min(readBuffer.remaining(), largePacket.length - largePacketFilled);
+		readBuffer.get(largePacket, largePacketFilled, chunkLength);
+		largePacketFilled += chunkLength;
+
+		if (largePacketFilled < largePacket.length) {
+			return false;
+		}
+
+		byte[] packet = largePacket;
+		largePacket = null;
+		receiver.receive(largePacketKey, packet, packet.length);
+		return !closed.get();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed.get();
+	}
+
+	@Override
+	public void close() {
+		if (closed.compareAndSet(false, true)) {
+			try {
+				socketChannel.close();
+			} catch (IOException e) {
+			}
+			selectorThread.requestClose(this);
+		}
+	}
+
+	/**
+	 * Called by the selector thread after the transport has been closed to release the resources and to inform the receiver.
+	 */
+	void finishClose() {
+		if (closeFinished) {
+			return;
+		}
+		closeFinished = true;
+
+		if (selectionKey != null) {
+			selectionKey.cancel();
+		}
+		synchronized (pendingWrites) {
+			pendingWrites.clear();
+			PENDING_BYTES.add(-pendingBytes);
+			pendingBytes = 0;
+		}
+		if (readBuffer != null) {
+			bufferPool.release(readBuffer);
+			readBuffer = null;
+		}
+		if (receiver != null) {
+			receiver.transportClosed();
+		}
+	}
+
+	SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+
+	SelectionKey getSelectionKey() {
+		return selectionKey;
+	}
+
+	void setSelectionKey(SelectionKey selectionKey) {
+		this.selectionKey = selectionKey;
+	}
+
+	@Override
+	public String toString() {
+		return "NioTransport[" + socketChannel.socket() + "]";
+	}
+}
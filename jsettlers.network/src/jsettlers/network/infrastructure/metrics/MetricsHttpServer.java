@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+
+/**
+ * A minimal HTTP server answering <code>GET /metrics</code> with the metrics of a {@link MetricsRegistry} in the text format of Prometheus. The
+ * requests are answered one after the other by the thread of the server.
+ */
+public final class MetricsHttpServer extends Thread {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int SOCKET_TIMEOUT_MS = 5000;
+
+	private final MetricsRegistry registry;
+	private final ServerSocket serverSocket;
+
+	private volatile boolean canceled = false;
+
+	/**
+	 * Creates a server listening on the given address. The server needs to be started.
+	 * 
+	 * @param registry
+	 *            The registry to be published.
+	 * @param address
+	 *            The address to listen on. Use the loopback address to make the metrics only accessible from the local machine.
+	 * @param port
+	 *            The port to listen on or 0 to use any free port.
+	 * @throws IOException
+	 *             If the port could not be opened.
+	 */
+	public MetricsHttpServer(MetricsRegistry registry, InetAddress address, int port) throws IOException {
+		super("MetricsHttpServer");
+		this.registry = registry;
+		this.serverSocket = new ServerSocket(port, 16, address);
+		setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		while (!canceled) {
+			try {
+				Socket socket = serverSocket.accept();
+				try {
+					socket.setSoTimeout(SOCKET_TIMEOUT_MS);
+					handleRequest(socket);
+				} finally {
+					socket.close();
+				}
+			} catch (SocketException e) {
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void handleRequest(Socket socket) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+		String requestLine = in.readLine();
+		String line;
+		while ((line = in.readLine()) != null && !line.isEmpty()) { // skip the headers
+		}
+		if (requestLine == null) {
+			return;
+		}
+
+		String[] request = requestLine.split(" ");
+		String path = request.length > 1 ? request[1] : "";
+		OutputStream out = socket.getOutputStream();
+
+		if (request[0].equals("GET") && (path.equals("/metrics") || path.startsWith("/metrics?"))) {
+			writeResponse(out, "200 OK", "text/plain; version=0.0.4; charset=utf-8", registry.collect().toPrometheusText());
+		} else {
+			writeResponse(out, "404 Not Found", "text/plain; charset=utf-8", "Only GET /metrics is supported.\n");
+		}
+	}
+
+	private static void writeResponse(OutputStream out, String status, String contentType, String body) throws IOException {
+		byte[] content = body.getBytes(UTF_8);
+		String header = "HTTP/1.1 " + status + "\r\nContent-Type: " + contentType + "\r\nContent-Length: " + content.length
+				+ "\r\nConnection: close\r\n\r\n";
+		out.write(header.getBytes(UTF_8));
+		out.write(content);
+		out.flush();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public void shutdown() {
+		canceled = true;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the samples of a {@link MetricsRegistry} as read only attributes of a JMX bean. The names of the attributes are the keys of
+ * {@link MetricsSnapshot#getSamples()}.
+ */
+public final class MetricsMBean implements DynamicMBean {
+	private final MetricsRegistry registry;
+
+	private MetricsMBean(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Registers a bean for the given registry at the platform MBean server.
+	 * 
+	 * @param registry
+	 *            The registry to be published.
+	 * @param objectName
+	 *            The name of the bean, e.g. <code>jsettlers:type=Metrics</code>.
+	 * @throws JMException
+	 *             If the bean could not be registered.
+	 */
+	public static void register(MetricsRegistry registry, String objectName) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(registry), new ObjectName(objectName));
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Double value = registry.collect().getSamples().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		Map<String, Double> samples = registry.collect().getSamples();
+		AttributeList result = new AttributeList();
+		for (String attribute : attributes) {
+			Double value = samples.get(attribute);
+			if (value != null) {
+				result.add(new Attribute(attribute, value));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		Map<String, Double> samples = registry.collect().getSamples();
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[samples.size()];
+		int i = 0;
+		for (Entry<String, Double> sample : samples.entrySet()) {
+			attributes[i++] = new MBeanAttributeInfo(sample.getKey(), Double.class.getName(), sample.getKey(), true, false, false);
+		}
+		return new MBeanInfo(getClass().getName(), "Metrics of the jsettlers network library", attributes, null, new MBeanOperationInfo[0], null);
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("The metrics are read only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException(actionName);
+	}
+}
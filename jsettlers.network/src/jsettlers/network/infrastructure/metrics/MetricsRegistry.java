@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the metrics of the network library and the game. Counters and gauges are updated where the events happen, {@link IMetricsCollector}s
+ * compute their values when a {@link MetricsSnapshot} is requested.
+ */
+public final class MetricsRegistry {
+	/**
+	 * The registry used by the network library and the game.
+	 */
+	public static final MetricsRegistry ROOT = new MetricsRegistry();
+
+	private final LinkedHashMap<String, NamedMetric> metrics = new LinkedHashMap<String, NamedMetric>();
+	private final CopyOnWriteArrayList<IMetricsCollector> collectors = new CopyOnWriteArrayList<IMetricsCollector>();
+
+	/**
+	 * Gets the counter with the given name. If there is no such counter, it is created.
+	 * 
+	 * @param name
+	 *            The name of the counter. By convention, the names of counters end with <code>_total</code>.
+	 * @param help
+	 *            Description of the counter.
+	 * @return The counter.
+	 */
+	public synchronized Counter getCounter(String name, String help) {
+		NamedMetric metric = metrics.get(name);
+		if (metric == null) {
+			metric = new NamedMetric(help, new Counter());
+			metrics.put(name, metric);
+		}
+		return (Counter) metric.metric;
+	}
+
+	/**
+	 * Gets the gauge with the given name. If there is no such gauge, it is created.
+	 * 
+	 * @param name
+	 *            The name of the gauge.
+	 * @param help
+	 *            Description of the gauge.
+	 * @return The gauge.
+	 */
+	public synchronized Gauge getGauge(String name, String help) {
+		NamedMetric metric = metrics.get(name);
+		if (metric == null) {
+			metric = new NamedMetric(help, new Gauge());
+			metrics.put(name, metric);
+		}
+		return (Gauge) metric.metric;
+	}
+
+	public void addCollector(IMetricsCollector collector) {
+		collectors.add(collector);
+	}
+
+	public void removeCollector(IMetricsCollector collector) {
+		collectors.remove(collector);
+	}
+
+	/**
+	 * @return The current values of all metrics.
+	 */
+	public MetricsSnapshot collect() {
+		MetricsSnapshot snapshot = new MetricsSnapshot();
+
+		synchronized (this) {
+			for (Entry<String, NamedMetric> entry : metrics.entrySet()) {
+				NamedMetric metric = entry.getValue();
+				if (metric.metric instanceof Counter) {
+					snapshot.counter(entry.getKey(), metric.help, null, ((Counter) metric.metric).get());
+				} else {
+					snapshot.gauge(entry.getKey(), metric.help, null, ((Gauge) metric.metric).get());
+				}
+			}
+		}
+
+		for (IMetricsCollector collector : collectors) {
+			collector.collect(snapshot);
+		}
+		return snapshot;
+	}
+
+	private static final class NamedMetric {
+		final String help;
+		final Object metric;
+
+		NamedMetric(String help, Object metric) {
+			this.help = help;
+			this.metric = metric;
+		}
+	}
+}
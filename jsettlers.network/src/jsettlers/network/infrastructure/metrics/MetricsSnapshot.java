@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jsettlers.network.infrastructure.utils.LatencyHistogram;
+
+/**
+ * The values of all metrics at one point in time. The samples are grouped by their metric, so they can be written in the text format of Prometheus.
+ */
+public final class MetricsSnapshot {
+	private final LinkedHashMap<String, Metric> metrics = new LinkedHashMap<String, Metric>();
+
+	/**
+	 * Adds a sample of a counter.
+	 * 
+	 * @param name
+	 *            Name of the metric.
+	 * @param help
+	 *            Description of the metric.
+	 * @param labels
+	 *            The labels of the sample created with {@link #labels(String...)} or null.
+	 * @param value
+	 *            The value of the sample.
+	 */
+	public void counter(String name, String help, String labels, double value) {
+		getMetric(name, "counter", help).addSample(name, labels, value);
+	}
+
+	/**
+	 * Adds a sample of a gauge.
+	 * 
+	 * @see #counter(String, String, String, double)
+	 */
+	public void gauge(String name, String help, String labels, double value) {
+		getMetric(name, "gauge", help).addSample(name, labels, value);
+	}
+
+	/**
+	 * Adds the buckets, the sum and the count of the given histogram. The values are converted to seconds.
+	 * 
+	 * @see #counter(String, String, String, double)
+	 */
+	public void histogram(String name, String help, String labels, LatencyHistogram histogram) {
+		Metric metric = getMetric(name, "histogram", help);
+		String labelPrefix = labels == null ? "" : labels + ",";
+
+		long cumulativeCount = 0;
+		for (int i = 0; i <= LatencyHistogram.NUMBER_OF_BUCKETS; i++) {
+			cumulativeCount += histogram.getBucketCount(i);
+			String upperBound = i < LatencyHistogram.NUMBER_OF_BUCKETS ? BigDecimal.valueOf(LatencyHistogram.getBucketUpperBoundMicros(i), 6)
+					.stripTrailingZeros().toPlainString() : "+Inf";
+			metric.addSample(name + "_bucket", labelPrefix + "le=\"" + upperBound + "\"", cumulativeCount);
+		}
+		metric.addSample(name + "_sum", labels, histogram.getSumMicros() / 1e6);
+		metric.addSample(name + "_count", labels, histogram.getCount());
+	}
+
+	private Metric getMetric(String name, String type, String help) {
+		Metric metric = metrics.get(name);
+		if (metric == null) {
+			metric = new Metric(name, type, help);
+			metrics.put(name, metric);
+		} else if (!metric.type.equals(type)) {
+			throw new IllegalArgumentException("Metric " + name + " is a " + metric.type + " and not a " + type);
+		}
+		return metric;
+	}
+
+	/**
+	 * Creates the labels of a sample.
+	 * 
+	 * @param namesAndValues
+	 *            The names of the labels, each followed by its value.
+	 * @return The labels in the form <code>name1="value1",name2="value2"</code>.
+	 */
+	public static String labels(String... namesAndValues) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+			if (i > 0) {
+				result.append(',');
+			}
+			result.append(namesAndValues[i]).append("=\"");
+			String value = String.valueOf(namesAndValues[i + 1]);
+			for (int c = 0; c < value.length(); c++) {
+				char character = value.charAt(c);
+				switch (character) {
+				case '\\':
+					result.append("\\\\");
+					break;
+				case '"':
+					result.append("\\\"");
+					break;
+				case '\n':
+					result.append("\\n");
+					break;
+				default:
+					result.append(character);
+				}
+			}
+			result.append('"');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @return All samples of this snapshot. The keys have the form <code>name{labels}</code>.
+	 */
+	public Map<String, Double> getSamples() {
+		Map<String, Double> result = new LinkedHashMap<String, Double>();
+		for (Metric metric : metrics.values()) {
+			for (Sample sample : metric.samples) {
+				result.put(sample.getKey(), sample.value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The snapshot in the text format used by Prometheus.
+	 */
+	public String toPrometheusText() {
+		StringBuilder result = new StringBuilder();
+		for (Metric metric : metrics.values()) {
+			result.append("# HELP ").append(metric.name).append(' ').append(metric.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+			result.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+			for (Sample sample : metric.samples) {
+				result.append(sample.getKey()).append(' ').append(formatValue(sample.value)).append('\n');
+			}
+		}
+		return result.toString();
+	}
+
+	private static String formatValue(double value) {
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		} else {
+			return Double.toString(value);
+		}
+	}
+
+	private static final class Metric {
+		final String name;
+		final String type;
+		final String help;
+		final List<Sample> samples = new ArrayList<Sample>();
+
+		Metric(String name, String type, String help) {
+			this.name = name;
+			this.type = type;
+			this.help = help;
+		}
+
+		void addSample(String sampleName, String labels, double value) {
+			samples.add(new Sample(sampleName, labels, value));
+		}
+	}
+
+	private static final class Sample {
+		final String name;
+		final String labels;
+		final double value;
+
+		Sample(String name, String labels, double value) {
+			this.name = name;
+			this.labels = labels;
+			this.value = value;
+		}
+
+		String getKey() {
+			return labels == null || labels.isEmpty() ? name : name + "{" + labels + "}";
+		}
+	}
+}
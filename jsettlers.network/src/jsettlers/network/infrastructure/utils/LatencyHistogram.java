@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies with exponentially growing buckets. Bucket {@code i} counts the values of up to {@code 2^i} microseconds, the last bucket
+ * counts everything above. Recording a value needs constant time and creates no garbage. The histogram can be recorded and read by different threads.
+ */
+public final class LatencyHistogram {
+	public static final int NUMBER_OF_BUCKETS = 24; // the last bounded bucket ends at about 4 seconds
+
+	private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sumMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 * 
+	 * @param nanos
+	 *            The latency in nanoseconds. Negative values are recorded as 0.
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+
+		buckets.incrementAndGet(getBucketIndex(micros));
+		count.incrementAndGet();
+		sumMicros.addAndGet(micros);
+
+		long max;
+		while ((max = maxMicros.get()) < micros && !maxMicros.compareAndSet(max, micros)) {
+		}
+	}
+
+	private static int getBucketIndex(long micros) {
+		if (micros <= 1) {
+			return 0;
+		}
+		return Math.min(NUMBER_OF_BUCKETS, 64 - Long.numberOfLeadingZeros(micros - 1));
+	}
+
+	/**
+	 * @param bucket
+	 *            Index of a bucket between 0 and {@link #NUMBER_OF_BUCKETS} (inclusive).
+	 * @return The upper bound of the bucket in microseconds or {@link Long#MAX_VALUE} for the last bucket.
+	 */
+	public static long getBucketUpperBoundMicros(int bucket) {
+		return bucket < NUMBER_OF_BUCKETS ? 1L << bucket : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @param bucket
+	 *            Index of a bucket between 0 and {@link #NUMBER_OF_BUCKETS} (inclusive).
+	 * @return The number of values recorded in the given bucket.
+	 */
+	public long getBucketCount(int bucket) {
+		return buckets.get(bucket);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getSumMicros() {
+		return sumMicros.get();
+	}
+
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+
+	public long getMeanMicros() {
+		long count = this.count.get();
+		return count == 0 ? 0 : sumMicros.get() / count;
+	}
+
+	/**
+	 * Gets an upper bound of the given percentile. The result is the upper bound of the bucket containing the percentile, but never more than the
+	 * maximum recorded value.
+	 * 
+	 * @param percentile
+	 *            The percentile between 0 and 1.
+	 * @return Upper bound of the percentile in microseconds or 0 if no values have been recorded.
+	 */
+	public long getPercentileMicros(double percentile) {
+		long count = this.count.get();
+		if (count == 0) {
+			return 0;
+		}
+
+		long needed = Math.max(1, (long) Math.ceil(count * percentile));
+		long seen = 0;
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= needed) {
+				return Math.min(getBucketUpperBoundMicros(i), maxMicros.get());
+			}
+		}
+		return maxMicros.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count: %d   mean: %dus   p50: %dus   p99: %dus   max: %dus", getCount(), getMeanMicros(), getPercentileMicros(0.5),
+				getPercentileMicros(0.99), getMaxMicros());
+	}
+}
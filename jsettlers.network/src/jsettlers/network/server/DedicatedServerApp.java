@@ -15,13 +15,21 @@
 package jsettlers.network.server;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.util.List;
 import java.util.Scanner;
 
+import javax.management.JMException;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.metrics.MetricsHttpServer;
+import jsettlers.network.infrastructure.metrics.MetricsMBean;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
 import jsettlers.network.server.match.Match;
 
 /**
- * This class starts a dedicated server.
+ * This class starts a dedicated server. The metrics of the server are published over JMX and in the text format of Prometheus at
+ * <code>http://localhost:{@value NetworkConstants.Server#METRICS_HTTP_PORT}/metrics</code>.
  * 
  * @author Andreas Eberle
  * 
@@ -32,12 +40,16 @@ public class DedicatedServerApp {
 		GameServerThread gameServer = new GameServerThread(false);
 		gameServer.start();
 
+		MetricsHttpServer metricsServer = startMetricsPublishing();
+
 		Scanner s = new Scanner(System.in);
 		while (s.hasNextLine()) {
 			String line = s.nextLine();
 			if ("exit".equalsIgnoreCase(line)) {
 				System.out.println("shutting down...");
 				break;
+			} else if ("metrics".equalsIgnoreCase(line)) {
+				System.out.print(MetricsRegistry.ROOT.collect().toPrometheusText());
 			} else if ("listMatches".equalsIgnoreCase(line)) {
 				List<Match> matches = gameServer.getDatabase().getMatches();
 				System.out.println("listing matches (" + matches.size() + "):");
@@ -47,5 +59,29 @@ public class DedicatedServerApp {
 			}
 		}
 		s.close();
+
+		if (metricsServer != null) {
+			metricsServer.shutdown();
+		}
+		gameServer.shutdown();
+	}
+
+	private static MetricsHttpServer startMetricsPublishing() {
+		try {
+			MetricsMBean.register(MetricsRegistry.ROOT, NetworkConstants.Server.METRICS_MBEAN_NAME);
+		} catch (JMException e) {
+			System.err.println("Could not register the metrics at JMX: " + e.getMessage());
+		}
+
+		try {
+			MetricsHttpServer metricsServer = new MetricsHttpServer(MetricsRegistry.ROOT, InetAddress.getLoopbackAddress(),
+					NetworkConstants.Server.METRICS_HTTP_PORT);
+			metricsServer.start();
+			System.out.println("Metrics available at http://localhost:" + metricsServer.getPort() + "/metrics");
+			return metricsServer;
+		} catch (IOException e) {
+			System.err.println("Could not start the metrics endpoint: " + e.getMessage());
+			return null;
+		}
 	}
 }
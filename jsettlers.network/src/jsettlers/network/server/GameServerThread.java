@@ -15,12 +15,15 @@
 package jsettlers.network.server;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.nio.NioChannelGroup;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
@@ -41,13 +44,22 @@ public class GameServerThread extends Thread {
 	private final ServerSocket serverSocket;
 	private final ServerManager manager;
 	private final LanServerBroadcastThread lanBroadcastThread;
+	private final NioChannelGroup nioChannelGroup;
 
 	private long counter = 0;
 	private boolean canceled = false;
 
 	public GameServerThread(boolean lan) throws IOException {
 		super("GameServer");
-		this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+		if (NetworkConstants.Server.USE_NIO_CHANNELS) {
+			ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+			serverSocketChannel.socket().bind(new InetSocketAddress(NetworkConstants.Server.SERVER_PORT));
+			this.serverSocket = serverSocketChannel.socket();
+			this.nioChannelGroup = new NioChannelGroup();
+		} else {
+			this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+			this.nioChannelGroup = null;
+		}
 		this.manager = new ServerManager(new InMemoryDB());
 
 		this.setDaemon(true);
@@ -68,7 +80,7 @@ public class GameServerThread extends Thread {
 			try {
 				Socket clientSocket = serverSocket.accept();
 
-				Channel clientChannel = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+				Channel clientChannel = createChannel(clientSocket);
 				manager.identifyNewChannel(clientChannel);
 				clientChannel.start();
 
@@ -80,6 +92,14 @@ public class GameServerThread extends Thread {
 		}
 	}
 
+	private Channel createChannel(Socket clientSocket) throws IOException {
+		if (nioChannelGroup != null) {
+			return nioChannelGroup.createChannel(clientSocket.getChannel(), LOGGER);
+		} else {
+			return new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+		}
+	}
+
 	/**
 	 * NOTE: THIS METHOD IS BLOCKING for the given time
 	 * 
@@ -129,6 +149,9 @@ public class GameServerThread extends Thread {
 			lanBroadcastThread.shutdown();
 
 		manager.shutdown();
+
+		if (nioChannelGroup != null)
+			nioChannelGroup.shutdown();
 	}
 
 	public boolean isLanBroadcasterAlive() {
@@ -21,6 +21,7 @@ import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.OpenNewMatchPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 import jsettlers.network.server.db.IDBFacade;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
@@ -37,6 +38,7 @@ import jsettlers.network.server.listeners.matches.StartMatchListener;
 import jsettlers.network.server.match.Match;
 import jsettlers.network.server.match.MatchesListSendingTimerTask;
 import jsettlers.network.server.match.Player;
+import jsettlers.network.server.match.lockstep.LockstepScheduler;
 
 /**
  * This class is the central access point to the servers externally reachable functions.
@@ -48,21 +50,25 @@ public class ServerManager implements IServerManager {
 
 	private final IDBFacade database;
 	private final Timer sendMatchesListTimer = new Timer("SendMatchesListTimer", true);
-	private final Timer matchesTaskDistributionTimer = new Timer("MatchesTaskDistributionTimer", true);
+	private final LockstepScheduler lockstepScheduler = new LockstepScheduler();
 	private final MatchesListSendingTimerTask matchSendingTask;
+	private final ServerMetricsCollector metricsCollector;
 
 	public ServerManager(IDBFacade db) {
 		this.database = db;
 		matchSendingTask = new MatchesListSendingTimerTask(db);
+		metricsCollector = new ServerMetricsCollector(db, lockstepScheduler);
 	}
 
 	public synchronized void start() {
 		sendMatchesListTimer.schedule(matchSendingTask, 0, NetworkConstants.Server.OPEN_MATCHES_SEND_INTERVAL_MS);
+		MetricsRegistry.ROOT.addCollector(metricsCollector);
 	}
 
 	public synchronized void shutdown() {
+		MetricsRegistry.ROOT.removeCollector(metricsCollector);
 		sendMatchesListTimer.cancel();
-		matchesTaskDistributionTimer.cancel();
+		lockstepScheduler.shutdown();
 	}
 
 	public void identifyNewChannel(Channel channel) {
@@ -132,7 +138,7 @@ public class ServerManager implements IServerManager {
 	@Override
 	public void startMatch(Player player) {
 		try {
-			player.startMatch(matchesTaskDistributionTimer);
+			player.startMatch(lockstepScheduler);
 		} catch (IllegalStateException e) {
 			e.printStackTrace();
 			player.sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
@@ -192,6 +198,10 @@ public class ServerManager implements IServerManager {
 		player.setStartFinished(startFinished);
 	}
 
+	public LockstepScheduler getLockstepScheduler() {
+		return lockstepScheduler;
+	}
+
 	public IDBFacade getDatabase() {
 		return database;
 	}
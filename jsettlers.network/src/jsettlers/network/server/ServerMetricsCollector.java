@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server;
+
+import java.util.List;
+
+import jsettlers.network.infrastructure.metrics.IMetricsCollector;
+import jsettlers.network.infrastructure.metrics.MetricsSnapshot;
+import jsettlers.network.server.db.IDBFacade;
+import jsettlers.network.server.match.EMatchState;
+import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.server.match.Match;
+import jsettlers.network.server.match.lockstep.LockstepScheduler;
+
+/**
+ * Collects the metrics of the players and matches of a server.
+ */
+public class ServerMetricsCollector implements IMetricsCollector {
+	private final IDBFacade database;
+	private final LockstepScheduler lockstepScheduler;
+
+	public ServerMetricsCollector(IDBFacade database, LockstepScheduler lockstepScheduler) {
+		this.database = database;
+		this.lockstepScheduler = lockstepScheduler;
+	}
+
+	@Override
+	public void collect(MetricsSnapshot snapshot) {
+		for (EPlayerState state : EPlayerState.values()) {
+			snapshot.gauge("jsettlers_server_players", "Number of logged in players.", MetricsSnapshot.labels("state", state.name()),
+					database.getPlayers(state).size());
+		}
+
+		int[] matchesPerState = new int[EMatchState.values().length];
+		List<Match> matches = database.getMatches();
+		for (Match match : matches) {
+			matchesPerState[match.getState().ordinal()]++;
+		}
+		for (EMatchState state : EMatchState.values()) {
+			snapshot.gauge("jsettlers_server_matches", "Number of matches.", MetricsSnapshot.labels("state", state.name()),
+					matchesPerState[state.ordinal()]);
+		}
+
+		int[] tasksPerShard = lockstepScheduler.getTasksPerShard();
+		for (int shard = 0; shard < tasksPerShard.length; shard++) {
+			snapshot.gauge("jsettlers_lockstep_scheduler_tasks", "Number of lockstep tasks scheduled on a thread of the scheduler.",
+					MetricsSnapshot.labels("shard", Integer.toString(shard)), tasksPerShard[shard]);
+		}
+
+		for (Match match : matches) {
+			match.writeMetrics(snapshot);
+		}
+	}
+}
@@ -20,6 +20,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
 
+import jsettlers.network.infrastructure.metrics.Counter;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
 import jsettlers.network.server.db.IDBFacade;
 import jsettlers.network.server.match.EPlayerState;
 import jsettlers.network.server.match.Match;
@@ -32,6 +34,10 @@ import jsettlers.network.server.match.Player;
  * 
  */
 public class InMemoryDB implements IDBFacade {
+	private static final Counter STORED_PLAYERS = MetricsRegistry.ROOT.getCounter("jsettlers_server_players_logged_in_total",
+			"Number of logins of players.");
+	private static final Counter STORED_MATCHES = MetricsRegistry.ROOT.getCounter("jsettlers_server_matches_created_total",
+			"Number of created matches.");
 
 	private HashMap<String, Player> players = new HashMap<String, Player>();
 	private HashMap<String, Match> matches = new HashMap<String, Match>();
@@ -46,6 +52,7 @@ public class InMemoryDB implements IDBFacade {
 		synchronized (players) {
 			players.put(player.getId(), player);
 		}
+		STORED_PLAYERS.increment();
 	}
 
 	@Override
@@ -100,7 +107,10 @@ public class InMemoryDB implements IDBFacade {
 
 	@Override
 	public void storeMatch(Match match) {
-		matches.put(match.getId(), match);
+		synchronized (matches) {
+			matches.put(match.getId(), match);
+		}
+		STORED_MATCHES.increment();
 	}
 
 	public int getNumberOfPlayers() {
@@ -14,8 +14,8 @@
  *******************************************************************************/
 package jsettlers.network.server.match;
 
+import java.io.IOException;
 import java.util.LinkedList;
-import java.util.Timer;
 import java.util.UUID;
 
 import jsettlers.network.NetworkConstants;
@@ -27,10 +27,15 @@ import jsettlers.network.common.packets.MatchInfoUpdatePacket;
 import jsettlers.network.common.packets.MatchStartPacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
+import jsettlers.network.infrastructure.channel.SerializedPacket;
+import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
+import jsettlers.network.infrastructure.metrics.MetricsSnapshot;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
+import jsettlers.network.server.match.lockstep.LockstepScheduler;
+import jsettlers.network.server.match.lockstep.LockstepTick;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
 import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
 
@@ -53,6 +58,7 @@ public class Match {
 	private EMatchState state = EMatchState.OPENED;
 	private TaskCollectingListener taskCollectingListener;
 	private TaskSendingTimerTask taskSendingTimerTask;
+	private LockstepTick lockstepTick;
 
 	public Match(String name, int maxPlayers, MapInfoPacket map, long randomSeed) {
 		this.maxPlayers = maxPlayers;
@@ -157,12 +163,21 @@ public class Match {
 	 *            used as value for this.
 	 * @param key
 	 * @param packet
+	 *            The packet is serialized only once and the result is sent to all receiving players.
 	 */
 	public void sendMessage(Player sendingPlayer, ENetworkKey key, Packet packet) {
+		SerializedPacket serializedPacket;
+		try {
+			serializedPacket = new SerializedPacket(key, packet);
+		} catch (IOException e) {
+			logger.error(e);
+			return;
+		}
+
 		synchronized (players) {
 			for (Player curr : players) {
 				if (sendingPlayer == null || !curr.getId().equals(sendingPlayer.getId())) {
-					curr.sendPacket(key, packet);
+					curr.sendPacket(serializedPacket);
 				}
 			}
 		}
@@ -196,7 +211,7 @@ public class Match {
 		}
 	}
 
-	public synchronized void startMatch(Timer timer) throws NotAllPlayersReadyException {
+	public synchronized void startMatch(LockstepScheduler scheduler) throws NotAllPlayersReadyException {
 		if (state == EMatchState.RUNNING || state == EMatchState.FINISHED) {
 			return; // match already started
 		}
@@ -213,7 +228,8 @@ public class Match {
 
 		this.taskCollectingListener = new TaskCollectingListener();
 		this.taskSendingTimerTask = new TaskSendingTimerTask(logger, taskCollectingListener, this);
-		timer.schedule(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD, NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2);
+		this.lockstepTick = scheduler.schedule(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD,
+				NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2, logger);
 
 		synchronized (players) {
 			int i = 0;
@@ -237,6 +253,67 @@ public class Match {
 		taskSendingTimerTask.receivedLockstepAcknowledge(packet.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
 	}
 
+	/**
+	 * @return The scheduled lockstep task of this match or null if the match has not been started.
+	 */
+	public synchronized LockstepTick getLockstepTick() {
+		return lockstepTick;
+	}
+
+	/**
+	 * Writes the metrics of this match and its players to the given snapshot.
+	 * 
+	 * @param snapshot
+	 *            The snapshot to write to.
+	 */
+	public void writeMetrics(MetricsSnapshot snapshot) {
+		String labels = MetricsSnapshot.labels("match", id, "name", name);
+
+		synchronized (players) {
+			snapshot.gauge("jsettlers_match_players", "Number of players in the match.", labels, players.size());
+			for (Player player : players) {
+				RoundTripTime roundTripTime = player.getChannel().getRoundTripTime();
+				String playerLabels = MetricsSnapshot.labels("match", id, "player", player.getId());
+				snapshot.gauge("jsettlers_player_rtt_seconds", "Round trip time of the connection of the player.", playerLabels,
+						roundTripTime.getRtt() / 1000.0);
+				snapshot.gauge("jsettlers_player_jitter_seconds", "Averaged jitter of the connection of the player.", playerLabels,
+						roundTripTime.getAveragedJitter() / 1000.0);
+			}
+		}
+
+		LockstepTick lockstepTick;
+		TaskSendingTimerTask taskSendingTimerTask;
+		TaskCollectingListener taskCollectingListener;
+		synchronized (this) {
+			lockstepTick = this.lockstepTick;
+			taskSendingTimerTask = this.taskSendingTimerTask;
+			taskCollectingListener = this.taskCollectingListener;
+		}
+		if (lockstepTick == null) {
+			return; // the match has not been started
+		}
+
+		snapshot.counter("jsettlers_match_locksteps_total", "Locksteps sent to the players.", labels, taskSendingTimerTask.getLockstepCounter());
+		snapshot.counter("jsettlers_match_waiting_ticks_total",
+				"Ticks that did not send a lockstep, as the players had not acknowledged enough locksteps.", labels,
+				taskSendingTimerTask.getWaitingTicks());
+		snapshot.gauge("jsettlers_match_lead_steps", "Number of locksteps the server may be ahead of the players.", labels,
+				taskSendingTimerTask.getLeadSteps());
+		snapshot.gauge("jsettlers_match_rtt_seconds", "Maximum round trip time of the players used to calculate the lead steps.", labels,
+				taskSendingTimerTask.getRtt() / 1000.0);
+		snapshot.gauge("jsettlers_match_jitter_seconds", "Maximum jitter of the players used to calculate the lead steps.", labels,
+				taskSendingTimerTask.getJitter() / 1000.0);
+		snapshot.counter("jsettlers_match_tasks_received_total", "Tasks received from the players.", labels,
+				taskCollectingListener.getReceivedTasks());
+		snapshot.gauge("jsettlers_match_pending_tasks", "Tasks waiting to be sent with the next lockstep.", labels,
+				taskCollectingListener.getPendingTasks());
+		snapshot.histogram("jsettlers_match_tick_delay_seconds", "Time the lockstep ticks started later than planned.", labels,
+				lockstepTick.getDelays());
+		snapshot.histogram("jsettlers_match_tick_duration_seconds", "Execution time of the lockstep ticks.", labels, lockstepTick.getDurations());
+		snapshot.counter("jsettlers_match_dropped_ticks_total", "Lockstep ticks dropped as the match fell too far behind.", labels,
+				lockstepTick.getDroppedTicks());
+	}
+
 	public Logger getMatchLogger() {
 		return logger;
 	}
@@ -14,12 +14,14 @@
  *******************************************************************************/
 package jsettlers.network.server.match;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
 import jsettlers.network.common.packets.MatchInfoPacket;
+import jsettlers.network.infrastructure.channel.SerializedPacket;
 import jsettlers.network.server.db.IDBFacade;
 
 /**
@@ -38,10 +40,20 @@ public class MatchesListSendingTimerTask extends TimerTask {
 	@Override
 	public void run() {
 		List<Player> loggedInPlayers = db.getPlayers(EPlayerState.LOGGED_IN);
-		ArrayOfMatchInfosPacket packet = getArrayOfMatchInfosPacket();
+		if (loggedInPlayers.isEmpty()) {
+			return;
+		}
+
+		SerializedPacket packet;
+		try {
+			packet = new SerializedPacket(NetworkConstants.ENetworkKey.ARRAY_OF_MATCHES, getArrayOfMatchInfosPacket());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
 
 		for (Player currPlayer : loggedInPlayers) {
-			sendMatchesPacketToPlayer(currPlayer, packet);
+			currPlayer.sendPacket(packet);
 		}
 	}
 
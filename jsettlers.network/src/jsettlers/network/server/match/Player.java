@@ -14,8 +14,6 @@
  *******************************************************************************/
 package jsettlers.network.server.match;
 
-import java.util.Timer;
-
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.NetworkConstants.ENetworkMessage;
@@ -23,9 +21,11 @@ import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.SerializedPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
+import jsettlers.network.server.match.lockstep.LockstepScheduler;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
 
 /**
@@ -81,13 +81,17 @@ public class Player {
 		channel.sendPacket(key, packet);
 	}
 
+	public void sendPacket(SerializedPacket packet) {
+		channel.sendPacket(packet);
+	}
+
 	public synchronized boolean isInMatch() {
 		return state == EPlayerState.IN_MATCH || state == EPlayerState.IN_RUNNING_MATCH;
 	}
 
-	public void startMatch(Timer timer) throws IllegalStateException, NotAllPlayersReadyException {
+	public void startMatch(LockstepScheduler scheduler) throws IllegalStateException, NotAllPlayersReadyException {
 		EPlayerState.assertState(state, EPlayerState.IN_MATCH);
-		match.startMatch(timer);
+		match.startMatch(scheduler);
 	}
 
 	void matchStarted(TaskCollectingListener taskListener) {
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * Executes the periodic lockstep tasks of the running matches. The matches are distributed over several single threaded shards, so that a slow match
+ * only delays the matches of its own shard, while all ticks of one match are still executed by the same thread.
+ */
+public final class LockstepScheduler {
+	private final ScheduledExecutorService[] shards;
+	private final AtomicInteger[] tasksPerShard;
+
+	public LockstepScheduler() {
+		this(NetworkConstants.Server.LOCKSTEP_SCHEDULER_THREADS);
+	}
+
+	public LockstepScheduler(int numberOfShards) {
+		shards = new ScheduledExecutorService[numberOfShards];
+		tasksPerShard = new AtomicInteger[numberOfShards];
+
+		for (int i = 0; i < numberOfShards; i++) {
+			final String threadName = "LockstepScheduler_" + i;
+			shards[i] = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, threadName);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			tasksPerShard[i] = new AtomicInteger();
+		}
+	}
+
+	/**
+	 * Schedules the given task on the shard with the fewest tasks.
+	 * 
+	 * @param task
+	 *            The task to be executed periodically.
+	 * @param initialDelayMs
+	 *            Delay before the first execution.
+	 * @param periodMs
+	 *            The period of the task. The executions are planned relative to the first one, so delays of single executions don't accumulate.
+	 * @param logger
+	 *            Logger used to report exceptions of the task and late executions.
+	 * @return The scheduled tick that can be used to cancel the task and to read its latencies.
+	 */
+	public LockstepTick schedule(Runnable task, long initialDelayMs, long periodMs, Logger logger) {
+		int shard = 0;
+		for (int i = 1; i < shards.length; i++) {
+			if (tasksPerShard[i].get() < tasksPerShard[shard].get()) {
+				shard = i;
+			}
+		}
+
+		LockstepTick tick = new LockstepTick(task, periodMs, shards[shard], tasksPerShard[shard], logger);
+		tick.start(initialDelayMs);
+		return tick;
+	}
+
+	/**
+	 * @return The number of scheduled tasks per shard.
+	 */
+	public int[] getTasksPerShard() {
+		int[] result = new int[tasksPerShard.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = tasksPerShard[i].get();
+		}
+		return result;
+	}
+
+	public void shutdown() {
+		for (ScheduledExecutorService shard : shards) {
+			shard.shutdownNow();
+		}
+	}
+}
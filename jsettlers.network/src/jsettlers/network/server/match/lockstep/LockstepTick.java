@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.log.Logger;
+import jsettlers.network.infrastructure.utils.LatencyHistogram;
+
+/**
+ * A task scheduled by the {@link LockstepScheduler}.
+ * <p />
+ * The executions are planned at fixed times relative to the first execution, so a late execution makes the next one come earlier. If the task falls
+ * behind by more than {@link NetworkConstants.Server#LOCKSTEP_MAX_BACKLOG_TICKS} periods, the missed executions are dropped instead of being
+ * executed in a burst.
+ */
+public final class LockstepTick implements Runnable {
+	private final Runnable task;
+	private final long periodNanos;
+	private final ScheduledExecutorService executor;
+	private final AtomicInteger tasksOfShard;
+	private final Logger logger;
+
+	private final LatencyHistogram delays = new LatencyHistogram();
+	private final LatencyHistogram durations = new LatencyHistogram();
+	private final AtomicInteger droppedTicks = new AtomicInteger();
+
+	private long nextTickNanos;
+	private ScheduledFuture<?> future;
+	private boolean canceled = false;
+
+	LockstepTick(Runnable task, long periodMs, ScheduledExecutorService executor, AtomicInteger tasksOfShard, Logger logger) {
+		this.task = task;
+		this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+		this.executor = executor;
+		this.tasksOfShard = tasksOfShard;
+		this.logger = logger;
+	}
+
+	synchronized void start(long initialDelayMs) {
+		tasksOfShard.incrementAndGet();
+		nextTickNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelayMs);
+		future = executor.schedule(this, initialDelayMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void run() {
+		long startNanos = System.nanoTime();
+		long delayNanos = startNanos - nextTickNanos;
+		delays.record(delayNanos);
+		if (delayNanos > TimeUnit.MILLISECONDS.toNanos(NetworkConstants.Server.LOCKSTEP_DELAY_LOGGING_THRESHOLD)) {
+			logger.warn("Lockstep tick started " + TimeUnit.NANOSECONDS.toMillis(delayNanos) + " ms late.");
+		}
+
+		try {
+			task.run();
+		} catch (Throwable t) { // one failing tick must not stop the match
+			logger.error(t);
+		}
+
+		long endNanos = System.nanoTime();
+		durations.record(endNanos - startNanos);
+
+		nextTickNanos += periodNanos;
+		long backlogNanos = endNanos - nextTickNanos;
+		if (backlogNanos > NetworkConstants.Server.LOCKSTEP_MAX_BACKLOG_TICKS * periodNanos) {
+			int dropped = (int) (backlogNanos / periodNanos);
+			droppedTicks.addAndGet(dropped);
+			nextTickNanos += dropped * periodNanos;
+		}
+
+		synchronized (this) {
+			if (!canceled) {
+				try {
+					future = executor.schedule(this, Math.max(0, nextTickNanos - endNanos), TimeUnit.NANOSECONDS);
+				} catch (RejectedExecutionException e) { // the scheduler has been shut down
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the executions of the task. An execution that is currently running is finished.
+	 */
+	public synchronized void cancel() {
+		if (!canceled) {
+			canceled = true;
+			future.cancel(false);
+			tasksOfShard.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return Histogram of the times the executions started later than planned.
+	 */
+	public LatencyHistogram getDelays() {
+		return delays;
+	}
+
+	/**
+	 * @return Histogram of the execution times of the task.
+	 */
+	public LatencyHistogram getDurations() {
+		return durations;
+	}
+
+	/**
+	 * @return The number of executions that have been dropped because the task fell behind too much.
+	 */
+	public int getDroppedTicks() {
+		return droppedTicks.get();
+	}
+}
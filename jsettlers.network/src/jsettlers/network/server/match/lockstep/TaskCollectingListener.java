@@ -33,6 +33,7 @@ import jsettlers.network.server.packets.ServersideTaskPacket;
  */
 public class TaskCollectingListener extends PacketChannelListener<ServersideTaskPacket> {
 	private List<ServersideTaskPacket> currTasksList = new LinkedList<ServersideTaskPacket>();
+	private long receivedTasks = 0;
 
 	public TaskCollectingListener() {
 		super(ENetworkKey.SYNCHRONOUS_TASK, new GenericDeserializer<ServersideTaskPacket>(ServersideTaskPacket.class));
@@ -42,14 +43,29 @@ public class TaskCollectingListener extends PacketChannelListener<ServersideTask
 	 * 
 	 * @return
 	 */
-	public List<ServersideTaskPacket> getAndResetTasks() {
+	public synchronized List<ServersideTaskPacket> getAndResetTasks() {
 		List<ServersideTaskPacket> temp = currTasksList;
 		currTasksList = new LinkedList<ServersideTaskPacket>();
 		return temp;
 	}
 
 	@Override
-	protected void receivePacket(ENetworkKey key, ServersideTaskPacket deserialized) {
+	protected synchronized void receivePacket(ENetworkKey key, ServersideTaskPacket deserialized) {
 		currTasksList.add(deserialized);
+		receivedTasks++;
+	}
+
+	/**
+	 * @return The number of tasks received since the start of the match.
+	 */
+	public synchronized long getReceivedTasks() {
+		return receivedTasks;
+	}
+
+	/**
+	 * @return The number of tasks waiting to be sent with the next lockstep.
+	 */
+	public synchronized int getPendingTasks() {
+		return currTasksList.size();
 	}
 }
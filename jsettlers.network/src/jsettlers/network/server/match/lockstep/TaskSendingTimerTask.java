@@ -15,7 +15,6 @@
 package jsettlers.network.server.match.lockstep;
 
 import java.util.List;
-import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
@@ -27,20 +26,26 @@ import jsettlers.network.server.packets.ServersideSyncTasksPacket;
 import jsettlers.network.server.packets.ServersideTaskPacket;
 
 /**
+ * Sends the collected tasks of a match to its players. This task is executed periodically by the {@link LockstepScheduler}.
  * 
  * @author Andreas Eberle
  * 
  */
-public class TaskSendingTimerTask extends TimerTask {
+public class TaskSendingTimerTask implements Runnable {
 	private final Logger logger;
 	private final TaskCollectingListener taskCollectingListener;
 	private final Match match;
 
-	private int lockstepCounter = 0;
-	private int currentLockstepMax = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS;
+	private volatile int lockstepCounter = 0;
+	private volatile int currentLockstepMax = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS;
 
-	private int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
-	private int leadSteps = minimumLeadTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD;
+	private volatile int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
+	private volatile int leadSteps = minimumLeadTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD;
+
+	// statistics
+	private volatile int rtt = 0;
+	private volatile int jitter = 0;
+	private volatile long waitingTicks = 0;
 
 	public TaskSendingTimerTask(Logger logger, TaskCollectingListener taskCollectingListener, Match match) {
 		this.logger = logger;
@@ -51,6 +56,7 @@ public class TaskSendingTimerTask extends TimerTask {
 	@Override
 	public void run() {
 		if (lockstepCounter > currentLockstepMax) {
+			waitingTicks++;
 			return;
 		}
 
@@ -68,6 +74,8 @@ public class TaskSendingTimerTask extends TimerTask {
 		if (rtt < 0 || rtt > 10000 || jitter > 5000) {
 			return; // this is an exceptional high rtt, we can not adapt to this
 		}
+		this.rtt = rtt;
+		this.jitter = jitter;
 
 		int newLeadTime = (int) (rtt / 2 * 1.1f + jitter * 2f + NetworkConstants.Client.LOCKSTEP_PERIOD * 1.5f);
 		if (newLeadTime > minimumLeadTimeMs) {
@@ -84,6 +92,42 @@ public class TaskSendingTimerTask extends TimerTask {
 		}
 	}
 
+	/**
+	 * @return The number of locksteps that have been sent.
+	 */
+	public int getLockstepCounter() {
+		return lockstepCounter;
+	}
+
+	public int getLeadSteps() {
+		return leadSteps;
+	}
+
+	public int getMinimumLeadTimeMs() {
+		return minimumLeadTimeMs;
+	}
+
+	/**
+	 * @return The maximum round trip time of the players in milliseconds.
+	 */
+	public int getRtt() {
+		return rtt;
+	}
+
+	/**
+	 * @return The maximum jitter of the players in milliseconds.
+	 */
+	public int getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * @return The number of executions that did not send a lockstep as the players had not acknowledged enough locksteps.
+	 */
+	public long getWaitingTicks() {
+		return waitingTicks;
+	}
+
 	private MaximumSlotBuffer rttMaximum = new MaximumSlotBuffer(0);
 	private MaximumSlotBuffer jitterMaximum = new MaximumSlotBuffer(0);
 
@@ -27,19 +27,33 @@ import java.util.Timer;
 import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
+import jsettlers.network.NetworkConstants.Client;
 import jsettlers.network.client.INetworkClientClock;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.infrastructure.metrics.Counter;
+import jsettlers.network.infrastructure.metrics.MetricsRegistry;
+import jsettlers.network.infrastructure.utils.LatencyHistogram;
 
 /**
  * This is a basic game timer. All synchronous actions must be based on this clock. The {@link NetworkTimer} also triggers the execution of
  * synchronous tasks in the network game.
+ * <p />
+ * The timer does not block when the next lockstep has not been received yet. It skips the runs instead and catches them up with an increased speed
+ * once the lockstep arrives. Furthermore, it slightly adapts its speed to keep a small buffer of received locksteps, so that packets arriving with
+ * some jitter do not stall the game.
  * 
  * @author Andreas Eberle
  * 
  */
 public final class NetworkTimer extends TimerTask implements INetworkClientClock {
 	public static final short TIME_SLICE = 50;
+
+	private static final Counter LOCKSTEP_STALLS = MetricsRegistry.ROOT.getCounter("jsettlers_client_lockstep_stalls_total",
+			"Number of times the game clock had to wait for a lockstep that had not been received yet.");
+	private static final Counter LOCKSTEP_STALL_MILLIS = MetricsRegistry.ROOT.getCounter("jsettlers_client_lockstep_stall_milliseconds_total",
+			"Summed time the game clock waited for locksteps.");
+
 	private Comparator<SyncTasksPacket> tasksByTimeComperator = new Comparator<SyncTasksPacket>() {
 		@Override
 		public int compare(SyncTasksPacket o1, SyncTasksPacket o2) {
@@ -57,12 +71,18 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	private final LinkedList<SyncTasksPacket> tasks = new LinkedList<SyncTasksPacket>();
 
 	private int time = 0;
-	private int maxAllowedLockstep = -1;
+	private volatile int maxAllowedLockstep = -1;
 
 	private boolean isPausing;
 	private int pauseTime;
 	private float speedFactor = 1.0f;
 	private float progress = 0.0f;
+	private float catchUpRuns = 0.0f;
+	private volatile float lockstepAdaption = 1.0f;
+
+	private final LatencyHistogram stallDurations = new LatencyHistogram();
+	private volatile boolean stalling;
+	private volatile long stallStartNanos;
 
 	private boolean scheduled = false;
 
@@ -102,9 +122,17 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	public void run() {
 		if (!isPausing) {
 			if (pauseTime <= 0) { // this is used for synchronizing the network clients
-				progress += speedFactor;
+				progress += speedFactor * calculateLockstepAdaption() + takeCatchUpRuns();
 
 				while (progress >= 1) {
+					if (!isNextRunAllowed()) { // don't block the timer, the skipped runs are caught up when the lockstep arrives
+						startStall();
+						int skippedRuns = (int) progress;
+						progress -= skippedRuns;
+						catchUpRuns = Math.min(catchUpRuns + skippedRuns, ((float) Client.LOCKSTEP_MAX_CATCH_UP_TIME) / TIME_SLICE);
+						break;
+					}
+
 					executeRun();
 					progress--;
 				}
@@ -114,18 +142,75 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
+	private boolean isNextRunAllowed() {
+		return (time + TIME_SLICE) / Client.LOCKSTEP_PERIOD <= maxAllowedLockstep;
+	}
+
+	/**
+	 * Calculates the factor the game speed is multiplied with to keep the buffered time between {@link Client#LOCKSTEP_BUFFER_LOW_TIME} and
+	 * {@link Client#LOCKSTEP_BUFFER_HIGH_TIME}. If the lockstep waiting is disabled, the speed is not changed.
+	 */
+	private float calculateLockstepAdaption() {
+		int bufferedTime = getBufferedTime();
+
+		float adaption;
+		if (maxAllowedLockstep == Integer.MAX_VALUE) {
+			adaption = 1;
+		} else if (bufferedTime <= Client.LOCKSTEP_BUFFER_LOW_TIME) {
+			adaption = 1 - Client.LOCKSTEP_SPEED_ADAPTION;
+		} else if (bufferedTime > Client.LOCKSTEP_BUFFER_HIGH_TIME) {
+			adaption = 1 + Client.LOCKSTEP_SPEED_ADAPTION;
+		} else {
+			adaption = 1;
+		}
+
+		lockstepAdaption = adaption;
+		return adaption;
+	}
+
+	/**
+	 * Takes the runs that are executed in addition to the normal ones in this period to catch up the runs skipped while waiting for locksteps.
+	 */
+	private float takeCatchUpRuns() {
+		if (catchUpRuns <= 0 || getBufferedTime() <= Client.LOCKSTEP_BUFFER_LOW_TIME) {
+			return 0; // catching up now would only lead to the next stall
+		}
+
+		float runs = Math.min(catchUpRuns, speedFactor * (Client.LOCKSTEP_CATCH_UP_SPEED - 1));
+		catchUpRuns -= runs;
+		return runs;
+	}
+
+	private void startStall() {
+		if (!stalling) {
+			stallStartNanos = System.nanoTime();
+			stalling = true;
+		}
+	}
+
+	private void endStall() {
+		if (stalling) {
+			long duration = System.nanoTime() - stallStartNanos;
+			stallDurations.record(duration);
+			LOCKSTEP_STALLS.increment();
+			LOCKSTEP_STALL_MILLIS.add(duration / 1000000);
+			stalling = false;
+		}
+	}
+
 	private synchronized void executeRun() {
 		try {
 			time += TIME_SLICE;
 			final int lockstep = time / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
-			// check if the lockstep is allowed
+			// check if the lockstep is allowed; only fast forwarding waits here, the normal execution skips runs before it gets here
 			synchronized (lockstepLock) {
 				while (lockstep > maxAllowedLockstep) {
-					System.out.println("WAITING for lockstep!");
+					startStall();
 					lockstepLock.wait();
 				}
 			}
+			endStall();
 
 			SyncTasksPacket tasksPacket;
 			synchronized (tasks) {
@@ -322,6 +407,46 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
+	/**
+	 * @return The game time in milliseconds that can be executed with the locksteps that have already been received or {@link Integer#MAX_VALUE}
+	 *         if the lockstep waiting is disabled. If the value is 0 or less, the timer waits for the next lockstep.
+	 */
+	public int getBufferedTime() {
+		int maxAllowedLockstep = this.maxAllowedLockstep;
+		if (maxAllowedLockstep == Integer.MAX_VALUE) {
+			return Integer.MAX_VALUE;
+		}
+		return (maxAllowedLockstep + 1) * Client.LOCKSTEP_PERIOD - TIME_SLICE - time;
+	}
+
+	/**
+	 * @return The factor the game speed has been multiplied with in the last period to keep the buffer of locksteps filled.
+	 */
+	public float getLockstepAdaption() {
+		return lockstepAdaption;
+	}
+
+	/**
+	 * @return The game time in milliseconds that still needs to be caught up after waiting for locksteps.
+	 */
+	public int getCatchUpTime() {
+		return (int) (catchUpRuns * TIME_SLICE);
+	}
+
+	/**
+	 * @return The durations of the finished waits for locksteps. The number of stalls is the count of the histogram.
+	 */
+	public LatencyHistogram getStallDurations() {
+		return stallDurations;
+	}
+
+	/**
+	 * @return The number of milliseconds the timer is already waiting for the next lockstep or 0 if it isn't waiting.
+	 */
+	public long getCurrentStallMillis() {
+		return stalling ? (System.nanoTime() - stallStartNanos) / 1000000 : 0;
+	}
+
 	@Override
 	public void setTime(int newTime) {
 		this.time = newTime;
@@ -19,11 +19,17 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import jsettlers.network.infrastructure.channel.AsyncChannel;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.nio.NioChannelGroup;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
 
 public final class TestUtils {
 	private TestUtils() {
@@ -57,6 +63,32 @@ public final class TestUtils {
 		return channels;
 	}
 
+	/**
+	 * Connects a channel of the given {@link NioChannelGroup} with a standard channel over a TCP connection on the loopback interface.
+	 * 
+	 * @return The channel of the group and the standard channel.
+	 */
+	public static Channel[] setUpNioLoopbackChannels(NioChannelGroup group) throws IOException {
+		final Channel[] channels = new Channel[2];
+
+		ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+		try {
+			serverSocketChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			channels[1] = new Channel(ISocketFactory.DEFAULT_FACTORY.generateSocket(InetAddress.getLoopbackAddress().getHostAddress(),
+					serverSocketChannel.socket().getLocalPort()));
+			SocketChannel socketChannel = serverSocketChannel.accept();
+			channels[0] = group.createChannel(socketChannel, new ConsoleLogger("nio"));
+		} finally {
+			serverSocketChannel.close();
+		}
+
+		channels[0].start();
+		channels[1].start();
+		channels[0].initPinging();
+
+		return channels;
+	}
+
 	private static Socket[] setUpLoppbackSockets() throws IOException {
 		Socket[] sockets = new Socket[2];
 
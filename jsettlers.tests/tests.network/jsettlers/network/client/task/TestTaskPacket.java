@@ -19,6 +19,8 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.client.task.packets.TaskPacketTypes;
+import jsettlers.network.client.task.packets.TaskPacketTypes.ITaskPacketFactory;
 
 /**
  * 
@@ -26,6 +28,14 @@ import jsettlers.network.client.task.packets.TaskPacket;
  * 
  */
 public class TestTaskPacket extends TaskPacket {
+	static {
+		TaskPacketTypes.register((short) 1000, TestTaskPacket.class, new ITaskPacketFactory() {
+			@Override
+			public TaskPacket create() {
+				return new TestTaskPacket();
+			}
+		});
+	}
 
 	private String testString;
 	private int testInt;
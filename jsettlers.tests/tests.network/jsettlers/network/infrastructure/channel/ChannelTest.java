@@ -46,11 +46,15 @@ public class ChannelTest {
 
 	@Before
 	public void setUp() throws IOException {
-		Channel[] channels = TestUtils.setUpLoopbackChannels();
+		Channel[] channels = createChannels();
 		c1 = channels[0];
 		c2 = channels[1];
 	}
 
+	protected Channel[] createChannels() throws IOException {
+		return TestUtils.setUpLoopbackChannels();
+	}
+
 	@After
 	public void tearDown() {
 		c1.close();
@@ -76,6 +80,23 @@ public class ChannelTest {
 		assertEquals(testPackage, listener2.packets.get(0));
 	}
 
+	@Test
+	public void testSerializedPacket() throws Exception {
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c2.registerListener(listener);
+
+		TestPacket testPacket = new TestPacket("serialized", 42);
+		SerializedPacket serializedPacket = new SerializedPacket(ENetworkKey.TEST_PACKET, testPacket);
+		c1.sendPacket(serializedPacket);
+		c1.sendPacket(serializedPacket);
+
+		Thread.sleep(30);
+
+		assertEquals(2, listener.packets.size());
+		assertEquals(testPacket, listener.packets.get(0));
+		assertEquals(testPacket, listener.packets.get(1));
+	}
+
 	@Test
 	public void testMultiPackets() throws Exception {
 		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
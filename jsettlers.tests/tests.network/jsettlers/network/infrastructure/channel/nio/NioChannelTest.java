@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.TestUtils;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.ChannelTest;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.TestPacketListener;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Runs the tests of {@link ChannelTest} with a channel of a {@link NioChannelGroup} on one side of the connection.
+ */
+public class NioChannelTest extends ChannelTest {
+	private NioChannelGroup group;
+	private Channel nioChannel;
+	private Channel standardChannel;
+
+	@Override
+	protected Channel[] createChannels() throws IOException {
+		group = new NioChannelGroup(1);
+		Channel[] channels = TestUtils.setUpNioLoopbackChannels(group);
+		nioChannel = channels[0];
+		standardChannel = channels[1];
+		return channels;
+	}
+
+	@After
+	public void shutdownGroup() {
+		group.shutdown();
+	}
+
+	@Test
+	public void testLargePackets() throws Exception {
+		TestPacketListener nioListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		TestPacketListener standardListener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		nioChannel.registerListener(nioListener);
+		standardChannel.registerListener(standardListener);
+
+		char[] text = new char[60000]; // larger than the buffers of the group
+		Arrays.fill(text, 'x');
+		TestPacket largePacket = new TestPacket(new String(text), 42);
+
+		for (int i = 0; i < 20; i++) {
+			nioChannel.sendPacket(ENetworkKey.TEST_PACKET, largePacket);
+			standardChannel.sendPacket(ENetworkKey.TEST_PACKET, largePacket);
+			nioChannel.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+			standardChannel.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+
+		Thread.sleep(300);
+
+		assertEquals(40, nioListener.packets.size());
+		assertEquals(40, standardListener.packets.size());
+		for (int i = 0; i < 20; i++) {
+			assertEquals(largePacket, nioListener.packets.get(2 * i));
+			assertEquals(i, nioListener.packets.get(2 * i + 1).getTestInt());
+			assertEquals(largePacket, standardListener.packets.get(2 * i));
+			assertEquals(i, standardListener.packets.get(2 * i + 1).getTestInt());
+		}
+	}
+}
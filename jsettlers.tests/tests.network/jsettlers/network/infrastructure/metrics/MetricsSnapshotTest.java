@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import jsettlers.network.infrastructure.utils.LatencyHistogram;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link MetricsSnapshot} and the {@link MetricsRegistry}.
+ */
+public class MetricsSnapshotTest {
+
+	@Test
+	public void testPrometheusText() {
+		MetricsSnapshot snapshot = new MetricsSnapshot();
+		snapshot.gauge("test_players", "Players.", MetricsSnapshot.labels("match", "a"), 3);
+		snapshot.counter("test_packets_total", "Packets.", null, 42);
+		snapshot.gauge("test_players", "Players.", MetricsSnapshot.labels("match", "b"), 1.5);
+
+		assertEquals("# HELP test_players Players.\n"
+				+ "# TYPE test_players gauge\n"
+				+ "test_players{match=\"a\"} 3\n"
+				+ "test_players{match=\"b\"} 1.5\n"
+				+ "# HELP test_packets_total Packets.\n"
+				+ "# TYPE test_packets_total counter\n"
+				+ "test_packets_total 42\n", snapshot.toPrometheusText());
+	}
+
+	@Test
+	public void testLabelEscaping() {
+		assertEquals("name=\"a\\\"b\\\\c\\nd\",id=\"1\"", MetricsSnapshot.labels("name", "a\"b\\c\nd", "id", "1"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTypeConflict() {
+		MetricsSnapshot snapshot = new MetricsSnapshot();
+		snapshot.gauge("test", "Test.", null, 1);
+		snapshot.counter("test", "Test.", null, 1);
+	}
+
+	@Test
+	public void testHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		histogram.record(3000);
+		histogram.record(3000);
+
+		MetricsSnapshot snapshot = new MetricsSnapshot();
+		snapshot.histogram("test_delay_seconds", "Delays.", MetricsSnapshot.labels("match", "a"), histogram);
+		Map<String, Double> samples = snapshot.getSamples();
+
+		assertEquals(1, samples.get("test_delay_seconds_bucket{match=\"a\",le=\"0.000001\"}"), 0);
+		assertEquals(1, samples.get("test_delay_seconds_bucket{match=\"a\",le=\"0.000002\"}"), 0);
+		assertEquals(3, samples.get("test_delay_seconds_bucket{match=\"a\",le=\"0.000004\"}"), 0);
+		assertEquals(3, samples.get("test_delay_seconds_bucket{match=\"a\",le=\"+Inf\"}"), 0);
+		assertEquals(3, samples.get("test_delay_seconds_count{match=\"a\"}"), 0);
+		assertEquals(0.000007, samples.get("test_delay_seconds_sum{match=\"a\"}"), 1e-12);
+	}
+
+	@Test
+	public void testRegistry() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.getCounter("test_total", "Test.").add(5);
+		registry.getCounter("test_total", "Test.").increment();
+		registry.getGauge("test_open", "Test.").add(2);
+		registry.addCollector(new IMetricsCollector() {
+			@Override
+			public void collect(MetricsSnapshot snapshot) {
+				snapshot.gauge("test_collected", "Test.", null, 7);
+			}
+		});
+
+		Map<String, Double> samples = registry.collect().getSamples();
+		assertEquals(6, samples.get("test_total"), 0);
+		assertEquals(2, samples.get("test_open"), 0);
+		assertEquals(7, samples.get("test_collected"), 0);
+		assertTrue(registry.collect().toPrometheusText().contains("# TYPE test_open gauge\n"));
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMeanMicros());
+		assertEquals(0, histogram.getPercentileMicros(0.99));
+	}
+
+	@Test
+	public void testBuckets() {
+		histogram.record(-5000);
+		histogram.record(1000);
+		histogram.record(2000);
+		histogram.record(3000);
+		histogram.record(4000);
+		histogram.record(5000);
+
+		assertEquals(2, histogram.getBucketCount(0)); // <= 1us
+		assertEquals(1, histogram.getBucketCount(1)); // <= 2us
+		assertEquals(2, histogram.getBucketCount(2)); // <= 4us
+		assertEquals(1, histogram.getBucketCount(3)); // <= 8us
+		assertEquals(6, histogram.getCount());
+		assertEquals(5, histogram.getMaxMicros());
+		assertEquals(15, histogram.getSumMicros());
+	}
+
+	@Test
+	public void testOverflowBucket() {
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(1, histogram.getBucketCount(LatencyHistogram.NUMBER_OF_BUCKETS));
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketUpperBoundMicros(LatencyHistogram.NUMBER_OF_BUCKETS));
+	}
+
+	@Test
+	public void testPercentiles() {
+		for (int i = 0; i < 99; i++) {
+			histogram.record(100 * 1000);
+		}
+		histogram.record(3000 * 1000);
+
+		assertEquals(128, histogram.getPercentileMicros(0.5));
+		assertEquals(128, histogram.getPercentileMicros(0.99));
+		assertEquals(3000, histogram.getPercentileMicros(1));
+		assertEquals(129, histogram.getMeanMicros());
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the {@link LockstepScheduler}.
+ */
+public class LockstepSchedulerTest {
+	private final LockstepScheduler scheduler = new LockstepScheduler(2);
+
+	@After
+	public void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testFixedRate() throws InterruptedException {
+		CountingTask task = new CountingTask(0);
+		LockstepTick tick = scheduler.schedule(task, 0, 10, new ConsoleLogger("test"));
+
+		Thread.sleep(500);
+		tick.cancel();
+
+		// the executions are planned relative to the first one, so there is no drift
+		assertTrue("executions: " + task.executions.get(), task.executions.get() >= 45 && task.executions.get() <= 52);
+		assertEquals(task.executions.get(), tick.getDurations().getCount());
+	}
+
+	@Test
+	public void testSlowTaskDoesNotDelayOtherShard() throws InterruptedException {
+		CountingTask slowTask = new CountingTask(300);
+		CountingTask fastTask = new CountingTask(0);
+		LockstepTick slowTick = scheduler.schedule(slowTask, 0, 10, new ConsoleLogger("slow"));
+		LockstepTick fastTick = scheduler.schedule(fastTask, 0, 10, new ConsoleLogger("fast"));
+		assertArrayEquals(new int[] { 1, 1 }, scheduler.getTasksPerShard());
+
+		Thread.sleep(500);
+		slowTick.cancel();
+		fastTick.cancel();
+		assertArrayEquals(new int[] { 0, 0 }, scheduler.getTasksPerShard());
+
+		assertTrue(fastTask.executions.get() >= 45);
+		assertTrue(fastTick.getDelays().getMaxMicros() < 100 * 1000);
+		assertTrue(slowTick.getDroppedTicks() > 0);
+	}
+
+	@Test
+	public void testExceptionDoesNotStopTask() throws InterruptedException {
+		final AtomicInteger executions = new AtomicInteger();
+		LockstepTick tick = scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				executions.incrementAndGet();
+				throw new RuntimeException("expected");
+			}
+		}, 0, 20, new ConsoleLogger("test"));
+
+		Thread.sleep(100);
+		tick.cancel();
+		assertTrue(executions.get() > 1);
+	}
+
+	private static class CountingTask implements Runnable {
+		private final long sleepMs;
+		final AtomicInteger executions = new AtomicInteger();
+
+		CountingTask(long sleepMs) {
+			this.sleepMs = sleepMs;
+		}
+
+		@Override
+		public void run() {
+			executions.incrementAndGet();
+			if (sleepMs > 0) {
+				try {
+					Thread.sleep(sleepMs);
+				} catch (InterruptedException e) {
+				}
+			}
+		}
+	}
+}
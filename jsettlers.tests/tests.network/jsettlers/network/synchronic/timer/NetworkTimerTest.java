@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import jsettlers.network.NetworkConstants.Client;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the lockstep buffering of the {@link NetworkTimer}. The timer is not started, its periods are simulated by calling
+ * {@link NetworkTimer#run()}.
+ */
+public class NetworkTimerTest {
+	private final NetworkTimer timer = new NetworkTimer();
+	private int nextLockstep = 0;
+
+	@After
+	public void tearDown() {
+		timer.stopExecution();
+	}
+
+	private void unlockLocksteps(int numberOfLocksteps) {
+		for (int i = 0; i < numberOfLocksteps; i++) {
+			timer.scheduleSyncTasksPacket(new SyncTasksPacket(nextLockstep++, Collections.<TaskPacket> emptyList()));
+		}
+	}
+
+	@Test(timeout = 2000)
+	public void testRunDoesNotBlockWithoutLockstep() {
+		timer.run();
+		timer.run();
+
+		assertEquals(0, timer.getTime());
+		assertEquals(0, timer.getStallDurations().getCount());
+
+		unlockLocksteps(2);
+		timer.run();
+
+		assertEquals(2 * NetworkTimer.TIME_SLICE, timer.getTime()); // the skipped period is caught up
+		assertEquals(1, timer.getStallDurations().getCount());
+		assertEquals(0, timer.getCurrentStallMillis());
+	}
+
+	@Test
+	public void testSlowsDownWithLowBuffer() {
+		unlockLocksteps(1); // only one period can be executed
+
+		timer.run();
+		assertEquals(0, timer.getTime());
+		assertEquals(1 - Client.LOCKSTEP_SPEED_ADAPTION, timer.getLockstepAdaption(), 0.0001f);
+
+		timer.run();
+		assertEquals(NetworkTimer.TIME_SLICE, timer.getTime());
+	}
+
+	@Test
+	public void testSpeedsUpWithHighBuffer() {
+		unlockLocksteps(20);
+
+		for (int i = 0; i < 20; i++) {
+			timer.run();
+		}
+
+		assertEquals(1 + Client.LOCKSTEP_SPEED_ADAPTION, timer.getLockstepAdaption(), 0.0001f);
+		assertTrue(timer.getTime() > 20 * NetworkTimer.TIME_SLICE);
+	}
+
+	@Test
+	public void testCatchUpAfterStall() {
+		unlockLocksteps(2);
+		for (int i = 0; i < 4; i++) {
+			timer.run();
+		}
+		assertEquals(0, timer.getBufferedTime());
+		int stallStartTime = timer.getTime();
+
+		for (int i = 0; i < 5; i++) { // skips 5 periods
+			timer.run();
+		}
+		assertEquals(stallStartTime, timer.getTime());
+		assertEquals(5 * NetworkTimer.TIME_SLICE, timer.getCatchUpTime());
+
+		unlockLocksteps(Client.LOCKSTEP_BUFFER_HIGH_TIME / Client.LOCKSTEP_PERIOD);
+		timer.run();
+
+		assertEquals(stallStartTime + 2 * NetworkTimer.TIME_SLICE, timer.getTime()); // the catch up speed is bounded
+		assertEquals(4 * NetworkTimer.TIME_SLICE, timer.getCatchUpTime());
+		assertEquals(1, timer.getStallDurations().getCount());
+	}
+
+	@Test
+	public void testNoAdaptionWithDisabledLockstepWaiting() {
+		NetworkTimer offlineTimer = new NetworkTimer(true);
+		try {
+			for (int i = 0; i < 20; i++) {
+				offlineTimer.run();
+			}
+
+			assertEquals(Integer.MAX_VALUE, offlineTimer.getBufferedTime());
+			assertEquals(1, offlineTimer.getLockstepAdaption(), 0.0001f);
+			assertEquals(20 * NetworkTimer.TIME_SLICE, offlineTimer.getTime()); // the game runs with the normal speed
+			assertEquals(0, offlineTimer.getStallDurations().getCount());
+		} finally {
+			offlineTimer.stopExecution();
+		}
+	}
+
+	@Test
+	public void testCatchUpIsBounded() {
+		unlockLocksteps(1);
+		for (int i = 0; i < 3 * Client.LOCKSTEP_MAX_CATCH_UP_TIME / NetworkTimer.TIME_SLICE; i++) {
+			timer.run();
+		}
+
+		assertEquals(Client.LOCKSTEP_MAX_CATCH_UP_TIME, timer.getCatchUpTime());
+	}
+}
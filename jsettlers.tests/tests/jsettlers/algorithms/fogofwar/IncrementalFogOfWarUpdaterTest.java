@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link IncrementalFogOfWarUpdater}.
+ */
+public class IncrementalFogOfWarUpdaterTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+	private static final int DIM_DOWNS_TO_EXPLORED = (CommonConstants.FOG_OF_WAR_VISIBLE - CommonConstants.FOG_OF_WAR_EXPLORED)
+			/ FogOfWar.DIM_DOWN_SPEED;
+
+	private final FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, (byte) 0, false);
+	private final IncrementalFogOfWarUpdater updater = new IncrementalFogOfWarUpdater(fogOfWar);
+	private final ConcurrentLinkedQueue<TestViewer> buildings = new ConcurrentLinkedQueue<TestViewer>();
+	private final ConcurrentLinkedQueue<TestViewer> movables = new ConcurrentLinkedQueue<TestViewer>();
+
+	@Test
+	public void testViewerMakesCircleVisible() {
+		movables.add(new TestViewer(50, 50, (byte) 0, (short) 10));
+		update(false);
+
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(50, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(55, 50));
+		assertEquals(0, fogOfWar.getVisibleStatus(150, 150));
+	}
+
+	@Test
+	public void testOtherPlayersAreIgnored() {
+		movables.add(new TestViewer(50, 50, (byte) 1, (short) 10));
+		update(false);
+
+		assertEquals(0, fogOfWar.getVisibleStatus(50, 50));
+	}
+
+	@Test
+	public void testMovedViewerLeavesExploredArea() {
+		TestViewer viewer = new TestViewer(50, 50, (byte) 0, (short) 10);
+		movables.add(viewer);
+		update(false);
+
+		for (int i = 0; i < 100; i++) { // walk step by step
+			viewer.position = new ShortPoint2D(51 + i, 50);
+			update(false);
+		}
+		for (int i = 0; i < DIM_DOWNS_TO_EXPLORED; i++) {
+			update(true);
+		}
+
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(50, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(100, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(150, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(145, 50));
+	}
+
+	@Test
+	public void testOverlappingViewersKeepVisibility() {
+		TestViewer building = new TestViewer(50, 50, (byte) 0, (short) 10);
+		TestViewer movable = new TestViewer(52, 50, (byte) 0, (short) 10);
+		buildings.add(building);
+		movables.add(movable);
+		update(false);
+
+		movables.remove(movable);
+		for (int i = 0; i < DIM_DOWNS_TO_EXPLORED; i++) {
+			update(true);
+		}
+
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(52, 50));
+
+		buildings.remove(building);
+		update(true);
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE - FogOfWar.DIM_DOWN_SPEED, fogOfWar.getVisibleStatus(52, 50));
+	}
+
+	@Test
+	public void testLeavingViewerLowersSightToRemainingViewers() {
+		TestViewer stayingViewer = new TestViewer(50, 50, (byte) 0, (short) 10);
+		TestViewer leavingViewer = new TestViewer(62, 50, (byte) 0, (short) 10);
+		movables.add(stayingViewer);
+		movables.add(leavingViewer);
+		update(false);
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(62, 50));
+
+		movables.remove(leavingViewer);
+		for (int i = 0; i < DIM_DOWNS_TO_EXPLORED; i++) {
+			update(true);
+		}
+
+		FogOfWar expected = new FogOfWar(WIDTH, HEIGHT, (byte) 0, false);
+		new FullFogOfWarRebuilder(expected).rebuild(buildings, movables);
+		for (int x = 56; x < 70; x++) { // the border of the remaining viewer's circle
+			assertEquals(Math.max(CommonConstants.FOG_OF_WAR_EXPLORED, expected.getVisibleStatus(x, 50)), fogOfWar.getVisibleStatus(x, 50));
+		}
+	}
+
+	@Test
+	public void testMovingViewersGiveSameSightAsFullRebuild() {
+		FogOfWar rebuiltFogOfWar = new FogOfWar(WIDTH, HEIGHT, (byte) 0, false);
+		FullFogOfWarRebuilder rebuilder = new FullFogOfWarRebuilder(rebuiltFogOfWar);
+		Random random = new Random(42);
+
+		for (int i = 0; i < 5; i++) {
+			buildings.add(new TestViewer(40 + random.nextInt(120), 40 + random.nextInt(120), (byte) 0, (short) (5 + random.nextInt(15))));
+		}
+		for (int i = 0; i < 60; i++) {
+			movables.add(new TestViewer(40 + random.nextInt(120), 40 + random.nextInt(120), (byte) 0, (short) (5 + random.nextInt(15))));
+		}
+
+		for (int step = 0; step < 200; step++) {
+			for (TestViewer movable : movables) {
+				int x = Math.min(160, Math.max(40, movable.position.x + random.nextInt(3) - 1));
+				int y = Math.min(160, Math.max(40, movable.position.y + random.nextInt(3) - 1));
+				movable.position = new ShortPoint2D(x, y);
+			}
+			if (step % 10 == 0) { // let some viewers vanish and appear
+				movables.poll();
+				movables.add(new TestViewer(40 + random.nextInt(120), 40 + random.nextInt(120), (byte) 0, (short) (5 + random.nextInt(15))));
+			}
+
+			update(true);
+			rebuilder.rebuild(buildings, movables);
+			assertArrayEquals("step " + step, rebuiltFogOfWar.sight, fogOfWar.sight);
+		}
+	}
+
+	@Test
+	public void testViewersAtTheMapBorderGiveSameSightAsFullRebuild() {
+		FogOfWar rebuiltFogOfWar = new FogOfWar(WIDTH, HEIGHT, (byte) 0, false);
+		FullFogOfWarRebuilder rebuilder = new FullFogOfWarRebuilder(rebuiltFogOfWar);
+		Random random = new Random(7);
+
+		buildings.add(new TestViewer(0, 0, (byte) 0, (short) 20));
+		for (int i = 0; i < 30; i++) {
+			int x = random.nextBoolean() ? random.nextInt(10) : WIDTH - 1 - random.nextInt(10);
+			int y = random.nextBoolean() ? random.nextInt(10) : HEIGHT - 1 - random.nextInt(10);
+			movables.add(new TestViewer(x, y, (byte) 0, (short) (5 + random.nextInt(15))));
+		}
+
+		for (int step = 0; step < 100; step++) {
+			for (TestViewer movable : movables) {
+				int x = Math.min(WIDTH - 1, Math.max(0, movable.position.x + random.nextInt(3) - 1));
+				int y = Math.min(HEIGHT - 1, Math.max(0, movable.position.y + random.nextInt(3) - 1));
+				movable.position = new ShortPoint2D(x, y);
+			}
+
+			update(true);
+			rebuilder.rebuild(buildings, movables);
+			assertArrayEquals("step " + step, rebuiltFogOfWar.sight, fogOfWar.sight);
+		}
+
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(5, 0));
+	}
+
+	private void update(boolean dimDown) {
+		updater.update(buildings, movables, dimDown);
+	}
+
+	private static class TestViewer implements IViewDistancable {
+		private final byte player;
+		private final short viewDistance;
+		private ShortPoint2D position;
+
+		TestViewer(int x, int y, byte player, short viewDistance) {
+			this.position = new ShortPoint2D(x, y);
+			this.player = player;
+			this.viewDistance = viewDistance;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return player;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SearchMarksTest {
+
+	@Test
+	public void testMarksAreRemovedByNewSearch() {
+		SearchMarks marks = new SearchMarks(10);
+		marks.startNewSearch();
+		assertFalse(marks.isMarked(3));
+
+		marks.setOpen(3);
+		marks.setClosed(4);
+		assertTrue(marks.isOpen(3));
+		assertFalse(marks.isClosed(3));
+		assertTrue(marks.isClosed(4));
+		assertFalse(marks.isOpen(4));
+		assertTrue(marks.isMarked(3));
+		assertTrue(marks.isMarked(4));
+
+		marks.setClosed(3);
+		assertTrue(marks.isClosed(3));
+		assertFalse(marks.isOpen(3));
+
+		marks.startNewSearch();
+		for (int i = 0; i < marks.size(); i++) {
+			assertFalse(marks.isMarked(i));
+			assertFalse(marks.isOpen(i));
+			assertFalse(marks.isClosed(i));
+		}
+	}
+
+	@Test
+	public void testManySearches() {
+		SearchMarks marks = new SearchMarks(3);
+		for (int i = 0; i < 100000; i++) {
+			marks.startNewSearch();
+			assertFalse(marks.isMarked(i % 3));
+			marks.setOpen(i % 3);
+			marks.setClosed((i + 1) % 3);
+		}
+	}
+}
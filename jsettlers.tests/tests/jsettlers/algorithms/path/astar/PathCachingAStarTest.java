@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+public class PathCachingAStarTest {
+
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final PathCachingAStar aStar = new PathCachingAStar(new BucketQueueAStar(map, WIDTH, HEIGHT), map, WIDTH, HEIGHT, 3);
+
+	@Test
+	public void testCachedPathEqualsCalculatedPath() {
+		Path calculated = findPath(50, 50, 90, 70);
+		Path cached = findPath(50, 50, 90, 70);
+
+		assertEquals(1, aStar.getStatistics().getHits());
+		assertEquals(1, aStar.getStatistics().getMisses());
+		assertEquals(calculated.toString(), cached.toString());
+	}
+
+	@Test
+	public void testCachedPathsAreIndependent() {
+		Path first = findPath(50, 50, 60, 50);
+		while (first.hasNextStep()) {
+			first.goToNextStep();
+		}
+
+		Path second = findPath(50, 50, 60, 50);
+		assertEquals(-1, second.getStep());
+		assertEquals(new ShortPoint2D(51, 50), second.getNextPos());
+	}
+
+	@Test
+	public void testInvalidationOfRegion() {
+		findPath(50, 50, 60, 50);
+		map.setBlocked(55, 50, true);
+		aStar.invalidate(55, 50);
+
+		Path path = findPath(50, 50, 60, 50);
+		assertEquals(0, aStar.getStatistics().getHits());
+		assertEquals(1, aStar.getStatistics().getInvalidatedPaths());
+		for (int i = 0; i < path.getLength(); i++) {
+			assertFalse(path.getX(i) == 55 && path.getY(i) == 50);
+		}
+	}
+
+	@Test
+	public void testInvalidationOfOtherRegionKeepsPath() {
+		findPath(50, 50, 60, 50);
+		aStar.invalidate(150, 150);
+		findPath(50, 50, 60, 50);
+
+		assertEquals(1, aStar.getStatistics().getHits());
+		assertEquals(0, aStar.getStatistics().getInvalidatedPaths());
+	}
+
+	@Test
+	public void testUnblockedShortcutBesidesPathInvalidatesPath() {
+		for (int y = 40; y < HEIGHT; y++) { // a wall that needs to be passed in the north
+			map.setBlocked(60, y, true);
+		}
+		Path detour = findPath(10, 100, 110, 100);
+
+		map.setBlocked(60, 150, false); // a hole in the wall far away from the detour
+		aStar.invalidate(60, 150);
+
+		Path path = findPath(10, 100, 110, 100);
+		Path expected = new BucketQueueAStar(map, WIDTH, HEIGHT).findPath(getPathable((short) 10, (short) 100), new ShortPoint2D(110, 100));
+		assertEquals(0, aStar.getStatistics().getHits());
+		assertEquals(expected.toString(), path.toString());
+		assertTrue(path.getLength() < detour.getLength());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPathIsEvicted() {
+		findPath(10, 10, 20, 10);
+		findPath(10, 10, 30, 10);
+		findPath(10, 10, 40, 10);
+		findPath(10, 10, 20, 10); // hit => (10,10)->(30,10) is now the eldest path
+		findPath(10, 10, 50, 10);
+
+		assertEquals(3, aStar.getStatistics().getCachedPaths());
+		findPath(10, 10, 20, 10);
+		assertEquals(2, aStar.getStatistics().getHits());
+		findPath(10, 10, 30, 10);
+		assertEquals(2, aStar.getStatistics().getHits());
+	}
+
+	@Test
+	public void testPathsFromBlockedPositionsAreNotCached() {
+		map.setBlocked(50, 50, true);
+		findPath(50, 50, 60, 50);
+		findPath(50, 50, 60, 50);
+
+		assertEquals(0, aStar.getStatistics().getCachedPaths());
+		assertEquals(0, aStar.getStatistics().getHits());
+	}
+
+	private Path findPath(int sx, int sy, int tx, int ty) {
+		return aStar.findPath(getPathable((short) sx, (short) sy), new ShortPoint2D(tx, ty));
+	}
+
+	private IPathCalculatable getPathable(final short x, final short y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
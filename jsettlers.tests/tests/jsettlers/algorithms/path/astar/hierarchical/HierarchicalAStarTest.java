@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+public class HierarchicalAStarTest {
+
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+	private final CountingAStar countingAStar = new CountingAStar();
+	private final HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(countingAStar, map, WIDTH, HEIGHT);
+
+	@Test
+	public void testLongPathOnEmptyMap() {
+		Path path = hierarchicalAStar.findPath(getPathable(10, 10, false), new ShortPoint2D(180, 150));
+
+		assertValidPath(path, 10, 10, 180, 150);
+		assertEquals(0, countingAStar.calls);
+		int optimalLength = ShortPoint2D.getOnGridDist(170, 140);
+		assertTrue(path.getLength() + " > " + optimalLength, path.getLength() <= optimalLength * 1.2f);
+	}
+
+	@Test
+	public void testRandomObstacles() {
+		Random random = new Random(42);
+		for (int i = 0; i < WIDTH * HEIGHT / 4; i++) {
+			map.setBlocked(random.nextInt(WIDTH), random.nextInt(HEIGHT), true);
+		}
+
+		int hierarchicalPaths = 0;
+		for (int i = 0; i < 200; i++) {
+			int sx = random.nextInt(WIDTH), sy = random.nextInt(HEIGHT);
+			int tx = random.nextInt(WIDTH), ty = random.nextInt(HEIGHT);
+			if (isBlocked(sx, sy) || isBlocked(tx, ty)) {
+				continue;
+			}
+
+			Path expected = aStar.findPath(getPathable(sx, sy, false), new ShortPoint2D(tx, ty));
+			Path path = hierarchicalAStar.findPath(getPathable(sx, sy, false), new ShortPoint2D(tx, ty));
+
+			if (expected == null) {
+				assertNull(path);
+			} else {
+				hierarchicalPaths++;
+				assertValidPath(path, sx, sy, tx, ty);
+				assertTrue(path.getLength() + " > " + expected.getLength(), path.getLength() <= expected.getLength() * 1.5f + 4);
+			}
+		}
+		assertTrue(hierarchicalPaths > 50);
+		assertTrue(countingAStar.calls + " fallbacks", countingAStar.calls < 100);
+	}
+
+	@Test
+	public void testBlockingChangesAreApplied() {
+		Path path = hierarchicalAStar.findPath(getPathable(20, 100, false), new ShortPoint2D(180, 100));
+		assertValidPath(path, 20, 100, 180, 100);
+
+		for (int y = 0; y < HEIGHT - 1; y++) { // build a wall with a gap at the bottom
+			map.setBlocked(100, y, true);
+			hierarchicalAStar.blockingChanged(100, y);
+		}
+
+		path = hierarchicalAStar.findPath(getPathable(20, 100, false), new ShortPoint2D(180, 100));
+		assertValidPath(path, 20, 100, 180, 100);
+		boolean passesGap = false;
+		for (int i = 0; i < path.getLength(); i++) {
+			passesGap |= path.getX(i) == 100 && path.getY(i) == HEIGHT - 1;
+		}
+		assertTrue(passesGap);
+
+		map.setBlocked(100, HEIGHT - 1, true);
+		hierarchicalAStar.blockingChanged(100, HEIGHT - 1);
+		assertNull(hierarchicalAStar.findPath(getPathable(20, 100, false), new ShortPoint2D(180, 100)));
+	}
+
+	@Test
+	public void testRequestersNeedingPlayersGroundUseAStar() {
+		Path expected = aStar.findPath(getPathable(10, 10, true), new ShortPoint2D(180, 150));
+		Path path = hierarchicalAStar.findPath(getPathable(10, 10, true), new ShortPoint2D(180, 150));
+
+		assertEquals(expected.toString(), path.toString());
+	}
+
+	private class CountingAStar extends AbstractAStar {
+		private int calls = 0;
+
+		@Override
+		public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+			calls++;
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		@Override
+		public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+			calls++;
+			return aStar.findPath(requester, target);
+		}
+	}
+
+	private boolean isBlocked(int x, int y) {
+		return map.isBlocked(null, x, y);
+	}
+
+	private void assertValidPath(Path path, int sx, int sy, int tx, int ty) {
+		assertNotNull(path);
+		int x = sx;
+		int y = sy;
+		for (int i = 0; i < path.getLength(); i++) {
+			assertFalse(isBlocked(path.getX(i), path.getY(i)));
+			assertNotNull(EDirection.getDirection((short) x, (short) y, path.getX(i), path.getY(i)));
+			x = path.getX(i);
+			y = path.getY(i);
+		}
+		assertEquals(tx, x);
+		assertEquals(ty, y);
+	}
+
+	private IPathCalculatable getPathable(final int x, final int y, final boolean needsPlayersGround) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+		};
+	}
+}
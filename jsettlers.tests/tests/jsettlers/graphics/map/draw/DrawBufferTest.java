@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertEquals;
+import go.graphics.GLDrawContext;
+import go.graphics.headless.RecordingDrawContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.graphics.map.IGLProvider;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link DrawBuffer}.
+ */
+public class DrawBufferTest {
+	private final TextureRecordingDrawContext gl = new TextureRecordingDrawContext();
+	private final DrawBuffer buffer = new DrawBuffer(new IGLProvider() {
+		@Override
+		public GLDrawContext getGl() {
+			return gl;
+		}
+	});
+
+	@Test
+	public void testOneDrawCallPerTexture() {
+		for (int i = 0; i < 100; i++) {
+			addImage(3);
+			addImage(1);
+			addImage(2);
+		}
+		assertEquals(0, gl.drawnTextures.size());
+
+		buffer.flush();
+
+		assertEquals(Arrays.asList(3, 1, 2), gl.drawnTextures);
+		assertEquals(3, buffer.getDrawCalls());
+		assertEquals(3, buffer.getTextures());
+		assertEquals(600, buffer.getTriangles());
+		assertEquals(600, gl.getFrameStatistics().getTriangles());
+		assertEquals(0, buffer.getZ(), 0);
+	}
+
+	@Test
+	public void testTexturesOrderedByDepth() {
+		buffer.setZ(.5f);
+		addImage(1);
+		buffer.setZ(.1f);
+		addImage(2);
+		buffer.setZ(.05f);
+		buffer.getBuffer(3).addTriangle(0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, -1);
+		buffer.flush();
+
+		assertEquals(Arrays.asList(3, 2, 1), gl.drawnTextures);
+		assertEquals(5, buffer.getTriangles());
+	}
+
+	@Test
+	public void testFullBufferIsDrawnBeforeFlush() {
+		for (int i = 0; i < 10000; i++) {
+			addImage(1);
+		}
+		assertEquals(Arrays.asList(1), gl.drawnTextures);
+
+		buffer.flush();
+
+		assertEquals(Arrays.asList(1, 1), gl.drawnTextures);
+		assertEquals(2, buffer.getDrawCalls());
+		assertEquals(1, buffer.getTextures());
+		assertEquals(20000, buffer.getTriangles());
+	}
+
+	@Test
+	public void testBuffersReusedInNextFrame() {
+		addImage(1);
+		addImage(2);
+		buffer.flush();
+		gl.drawnTextures.clear();
+
+		buffer.flush();
+		assertEquals(0, gl.drawnTextures.size());
+		assertEquals(0, buffer.getDrawCalls());
+
+		addImage(2);
+		addImage(70);
+		buffer.flush();
+		assertEquals(Arrays.asList(2, 70), gl.drawnTextures);
+		assertEquals(4, buffer.getTriangles());
+	}
+
+	private void addImage(int texture) {
+		buffer.addImage(texture, 0, 0, 1, 1, 0, 0, 1, 1, -1);
+	}
+
+	private static class TextureRecordingDrawContext extends RecordingDrawContext {
+		private final List<Integer> drawnTextures = new ArrayList<Integer>();
+
+		@Override
+		public void drawTrianglesWithTextureColored(int currentTexture, ByteBuffer byteBuffer, int currentTriangles) {
+			super.drawTrianglesWithTextureColored(currentTexture, byteBuffer, currentTriangles);
+			drawnTextures.add(currentTexture);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link ImageLoadingPool}.
+ */
+public class ImageLoadingPoolTest {
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private final List<String> executed = new CopyOnWriteArrayList<String>();
+
+	@Test
+	public void testTasksAreExecutedByPriority() throws InterruptedException {
+		ImageLoadingPool pool = new ImageLoadingPool(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		pool.add("blocker", EImageLoadPriority.VISIBLE, new BlockingTask("blocker", blocked, release));
+		assertTrue(blocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+		CountDownLatch done = new CountDownLatch(4);
+		pool.add("preload", EImageLoadPriority.PRELOAD, new RecordingTask("preload", done));
+		pool.add("menu", EImageLoadPriority.BUILDING_MENU, new RecordingTask("menu", done));
+		pool.add("visible1", EImageLoadPriority.VISIBLE, new RecordingTask("visible1", done));
+		pool.add("visible2", EImageLoadPriority.VISIBLE, new RecordingTask("visible2", done));
+		release.countDown();
+
+		assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("blocker", "visible1", "visible2", "menu", "preload"), executed);
+	}
+
+	@Test
+	public void testPreloadTasksKeepAThreadFree() throws InterruptedException {
+		ImageLoadingPool pool = new ImageLoadingPool(2);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		pool.add("preload1", EImageLoadPriority.PRELOAD, new BlockingTask("preload1", blocked, release));
+		assertTrue(blocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+		CountDownLatch preloadDone = new CountDownLatch(1);
+		CountDownLatch visibleDone = new CountDownLatch(1);
+		pool.add("preload2", EImageLoadPriority.PRELOAD, new RecordingTask("preload2", preloadDone));
+		pool.add("visible", EImageLoadPriority.VISIBLE, new RecordingTask("visible", visibleDone));
+
+		assertTrue(visibleDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertFalse(executed.contains("preload2"));
+
+		release.countDown();
+		assertTrue(preloadDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("preload1", "visible", "preload2"), executed);
+	}
+
+	@Test
+	public void testPendingTasksAreNotAddedTwice() throws InterruptedException {
+		ImageLoadingPool pool = new ImageLoadingPool(2);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		assertTrue(pool.add("key", EImageLoadPriority.VISIBLE, new BlockingTask("first", blocked, release)));
+		assertFalse(pool.add("key", EImageLoadPriority.VISIBLE, new RecordingTask("second", new CountDownLatch(1))));
+		assertTrue(blocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		release.countDown();
+
+		CountDownLatch done = new CountDownLatch(1);
+		long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+		while (!pool.add("key", EImageLoadPriority.VISIBLE, new RecordingTask("third", done))) {
+			assertTrue(System.currentTimeMillis() < end);
+			Thread.sleep(1);
+		}
+		assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("first", "third"), executed);
+	}
+
+	private class RecordingTask implements Runnable {
+		private final String name;
+		private final CountDownLatch done;
+
+		RecordingTask(String name, CountDownLatch done) {
+			this.name = name;
+			this.done = done;
+		}
+
+		@Override
+		public void run() {
+			executed.add(name);
+			done.countDown();
+		}
+	}
+
+	private class BlockingTask implements Runnable {
+		private final String name;
+		private final CountDownLatch blocked;
+		private final CountDownLatch release;
+
+		BlockingTask(String name, CountDownLatch blocked, CountDownLatch release) {
+			this.name = name;
+			this.blocked = blocked;
+			this.release = release;
+		}
+
+		@Override
+		public void run() {
+			executed.add(name);
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,388 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import go.graphics.headless.RecordingDrawContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import jsettlers.graphics.image.GuiImage;
+import jsettlers.graphics.image.Image;
+import jsettlers.graphics.image.LandscapeImage;
+import jsettlers.graphics.image.MultiImageImage;
+import jsettlers.graphics.image.MultiImageMap;
+import jsettlers.graphics.image.SettlerImage;
+import jsettlers.graphics.image.SingleImage;
+import jsettlers.graphics.sequence.Sequence;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for the classes {@link DatFileCache} and {@link DatFileCacheWriter}. The tests use a generated dat file.
+ */
+public class DatFileCacheTest {
+	private static final int SETTLER_SEQUENCES = 3;
+	private static final int IMAGES_PER_SEQUENCE = 8;
+	private static final int IMAGE_WIDTH = 30;
+	private static final int IMAGE_HEIGHT = 20;
+	private static final int GUI_IMAGES = 2;
+	private static final int PAGE_SIZE = 64;
+	/**
+	 * A page size no settler image fits on, so that all images are stored one after the other.
+	 */
+	private static final int TOO_SMALL_PAGE_SIZE = 16;
+	private static final int[] ATLAS_SEQUENCES = { 1 };
+	/**
+	 * The pages of a sequence with torsos. A settler and its torso fill one line of a page, three lines fit on a page.
+	 */
+	private static final int ATLAS_PAGES = 3;
+	/**
+	 * The pages of sequence 0, which has no torsos and fits six settlers on a page.
+	 */
+	private static final int OTHER_PAGES_WITHOUT_TORSOS = 2;
+	/**
+	 * The pages of sequence 0 and 2. Sequence 2 starts on the last page of sequence 0.
+	 */
+	private static final int OTHER_PAGES = 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File datFile;
+	private File cacheFile;
+	private float lastProgress;
+	private final ICacheProgressListener listener = new ICacheProgressListener() {
+		@Override
+		public void progressChanged(float progress) {
+			assertTrue(progress >= lastProgress);
+			lastProgress = progress;
+		}
+	};
+
+	@Before
+	public void setUp() throws IOException {
+		datFile = folder.newFile("test.dat");
+		cacheFile = new File(new File(folder.getRoot(), "cache"), "test.dat.cache");
+		writeDatFile(datFile);
+	}
+
+	@Test
+	public void testCachedImagesEqualDecodedImages() throws IOException {
+		AdvancedDatFileReader decoded = new AdvancedDatFileReader(datFile);
+		AdvancedDatFileReader cached = new AdvancedDatFileReader(datFile, cacheFile);
+		updateCache(cached, ATLAS_SEQUENCES, TOO_SMALL_PAGE_SIZE);
+
+		assertEquals(1, lastProgress, 0);
+		assertNotNull(cached.getCache());
+		assertEquals(0, cached.getCache().getPages().length);
+		assertEquals(SETTLER_SEQUENCES, cached.getSettlers().size());
+
+		for (int sequence = 0; sequence < SETTLER_SEQUENCES; sequence++) {
+			Sequence<Image> expected = decoded.getSettlers().get(sequence);
+			Sequence<Image> actual = cached.getSettlers().get(sequence);
+			assertEquals(IMAGES_PER_SEQUENCE, actual.length());
+			for (int i = 0; i < IMAGES_PER_SEQUENCE; i++) {
+				SettlerImage expectedImage = (SettlerImage) expected.getImage(i);
+				SettlerImage actualImage = (SettlerImage) actual.getImage(i);
+				assertImageEquals(expectedImage, actualImage);
+				if (sequence == 0) {
+					assertNull(actualImage.getTorso());
+				} else {
+					assertImageEquals((SingleImage) expectedImage.getTorso(), (SingleImage) actualImage.getTorso());
+				}
+			}
+		}
+
+		for (int i = 0; i < GUI_IMAGES; i++) {
+			GuiImage image = (GuiImage) cached.getGuis().getImage(i);
+			assertImageEquals((SingleImage) decoded.getGuis().getImage(i), image);
+		}
+		LandscapeImage landscape = (LandscapeImage) cached.getLandscapes().getImage(0);
+		assertImageEquals((SingleImage) decoded.getLandscapes().getImage(0), landscape);
+	}
+
+	@Test
+	public void testSettlerSequencesOnPages() throws IOException {
+		AdvancedDatFileReader decoded = new AdvancedDatFileReader(datFile);
+		AdvancedDatFileReader cached = createCachedReader();
+
+		for (int sequence = 0; sequence < SETTLER_SEQUENCES; sequence++) {
+			Sequence<Image> images = cached.getSettlers().get(sequence);
+			for (int i = 0; i < IMAGES_PER_SEQUENCE; i++) {
+				assertTrue(images.getImage(i) instanceof MultiImageImage);
+				assertEquals(IMAGE_WIDTH, images.getImage(i).getWidth());
+			}
+		}
+
+		// the atlas sequence gets the first pages.
+		MultiImageMap[] pages = cached.getCache().getPages();
+		assertEquals(ATLAS_PAGES + OTHER_PAGES, pages.length);
+		assertArrayEquals(Arrays.copyOf(pages, ATLAS_PAGES), cached.getCache().getPages(ATLAS_SEQUENCES));
+
+		TextureCapturingDrawContext gl = new TextureCapturingDrawContext();
+		pages[0].getTexture(gl);
+		assertEquals(PAGE_SIZE * PAGE_SIZE, gl.texture.remaining());
+
+		SettlerImage expected = (SettlerImage) decoded.getSettlers().get(ATLAS_SEQUENCES[0]).getImage(0);
+		SingleImage expectedTorso = (SingleImage) expected.getTorso();
+		for (int y = 0; y < IMAGE_HEIGHT; y++) {
+			for (int x = 0; x < IMAGE_WIDTH; x++) {
+				assertEquals(expected.getData().get(y * IMAGE_WIDTH + x), gl.texture.get(y * PAGE_SIZE + x));
+				assertEquals(expectedTorso.getData().get(y * IMAGE_WIDTH + x), gl.texture.get(y * PAGE_SIZE + IMAGE_WIDTH + x));
+			}
+		}
+	}
+
+	@Test
+	public void testCacheIsReused() throws IOException {
+		createCachedReader();
+		long written = cacheFile.lastModified();
+		long length = cacheFile.length();
+
+		AdvancedDatFileReader reader = new AdvancedDatFileReader(datFile, cacheFile);
+		assertNotNull(reader.getSettlers().get(0));
+		assertNotNull(reader.getCache());
+		updateCache(reader, ATLAS_SEQUENCES);
+
+		assertEquals(written, cacheFile.lastModified());
+		assertEquals(length, cacheFile.length());
+		assertEquals(1, lastProgress, 0);
+	}
+
+	@Test
+	public void testOutdatedCacheIsIgnored() throws IOException {
+		createCachedReader();
+		assertTrue(datFile.setLastModified(datFile.lastModified() - 10000));
+
+		AdvancedDatFileReader reader = new AdvancedDatFileReader(datFile, cacheFile);
+		assertTrue(reader.getSettlers().get(0).getImage(0) instanceof SettlerImage);
+		assertNull(reader.getCache());
+
+		updateCache(reader, ATLAS_SEQUENCES);
+		assertNotNull(reader.getCache());
+		assertTrue(reader.getSettlers().get(0).getImage(0) instanceof MultiImageImage);
+	}
+
+	@Test
+	public void testChangedAtlasRewritesCache() throws IOException {
+		createCachedReader();
+
+		AdvancedDatFileReader reader = new AdvancedDatFileReader(datFile, cacheFile);
+		updateCache(reader, new int[] { 1, 2 });
+		assertEquals(2 * ATLAS_PAGES + OTHER_PAGES_WITHOUT_TORSOS, reader.getCache().getPages().length);
+		assertTrue(reader.getSettlers().get(2).getImage(0) instanceof MultiImageImage);
+	}
+
+	private AdvancedDatFileReader createCachedReader() throws IOException {
+		AdvancedDatFileReader reader = new AdvancedDatFileReader(datFile, cacheFile);
+		updateCache(reader, ATLAS_SEQUENCES);
+		return reader;
+	}
+
+	private void updateCache(AdvancedDatFileReader reader, int[] atlasSequences) throws IOException {
+		updateCache(reader, atlasSequences, PAGE_SIZE);
+	}
+
+	private void updateCache(AdvancedDatFileReader reader, int[] atlasSequences, int pageSize) throws IOException {
+		lastProgress = 0;
+		reader.updateCache(atlasSequences, pageSize, pageSize, listener);
+	}
+
+	private static void assertImageEquals(SingleImage expected, SingleImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getOffsetX(), actual.getOffsetX());
+		assertEquals(expected.getOffsetY(), actual.getOffsetY());
+		assertArrayEquals(toArray(expected.getData()), toArray(actual.getData()));
+	}
+
+	private static short[] toArray(ShortBuffer buffer) {
+		ShortBuffer data = buffer.duplicate();
+		data.rewind();
+		short[] array = new short[data.remaining()];
+		data.get(array);
+		return array;
+	}
+
+	private static class TextureCapturingDrawContext extends RecordingDrawContext {
+		private ShortBuffer texture;
+
+		@Override
+		public int generateTexture(int width, int height, ShortBuffer data) {
+			texture = data.duplicate();
+			return super.generateTexture(width, height, data);
+		}
+	}
+
+	/**
+	 * Writes a dat file with {@link #SETTLER_SEQUENCES} settler sequences (all but the first one with torsos), {@link #GUI_IMAGES} gui images and
+	 * one landscape image.
+	 */
+	private static void writeDatFile(File file) throws IOException {
+		DatWriter dat = new DatWriter();
+		dat.writeBytes(0x04, 0x13, 0x04, 0x00, 0x0c, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x54, 0x00, 0x00, 0x00, 0x20, 0x00, 0x00, 0x00);
+		dat.writeBytes(0x40, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x10, 0x00, 0x00, 0x00, 0x00, 0x7c, 0x00, 0x00, 0xe0, 0x03, 0x00, 0x00);
+		dat.writeBytes(0x1f, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00);
+		dat.write32(0); // file size
+		dat.write32(0);
+		int sequenceIndexStarts = dat.size();
+		for (int i = 0; i < AdvancedDatFileReader.SEQUENCE_TYPE_COUNT; i++) {
+			dat.write32(0);
+		}
+		dat.write32(0);
+		dat.writeBytes(0x04, 0x19, 0x00, 0x00, 0x0c, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00);
+
+		int[] settlers = new int[SETTLER_SEQUENCES];
+		for (int sequence = 0; sequence < SETTLER_SEQUENCES; sequence++) {
+			settlers[sequence] = dat.writeSequence(sequence, false);
+		}
+		int[] torsos = new int[SETTLER_SEQUENCES - 1];
+		for (int sequence = 1; sequence < SETTLER_SEQUENCES; sequence++) {
+			torsos[sequence - 1] = dat.writeSequence(sequence, true);
+		}
+		int[] guis = new int[GUI_IMAGES];
+		for (int i = 0; i < GUI_IMAGES; i++) {
+			guis[i] = dat.writeImage(HeaderType.GUI, 40 + i, 10 + i, i, false);
+		}
+		int[] landscapes = { dat.writeImage(HeaderType.LANDSCAPE, 32, 16, 7, false) };
+
+		int[] indexStarts = {
+				dat.writeSequenceIndex(AdvancedDatFileReader.ID_SETTLERS, settlers),
+				dat.writeSequenceIndex(AdvancedDatFileReader.ID_TORSOS, torsos),
+				dat.writeSequenceIndex(AdvancedDatFileReader.ID_LANDSCAPE, landscapes),
+				dat.writeSequenceIndex(AdvancedDatFileReader.ID_SHADOWS, settlers),
+				dat.writeSequenceIndex(AdvancedDatFileReader.ID_GUIS, guis),
+				dat.writeSequenceIndex(0, new int[0])
+		};
+
+		byte[] bytes = dat.toByteArray();
+		DatWriter.put32(bytes, 48, bytes.length);
+		for (int i = 0; i < indexStarts.length; i++) {
+			DatWriter.put32(bytes, sequenceIndexStarts + 4 * i, indexStarts[i]);
+		}
+
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static enum HeaderType {
+		DISPLACED,
+		LANDSCAPE,
+		GUI
+	}
+
+	/**
+	 * Writes the little endian data of a dat file.
+	 */
+	private static class DatWriter extends ByteArrayOutputStream {
+		void writeBytes(int... bytes) {
+			for (int b : bytes) {
+				write(b);
+			}
+		}
+
+		void write16(int value) {
+			write(value & 0xff);
+			write((value >> 8) & 0xff);
+		}
+
+		void write32(int value) {
+			write16(value & 0xffff);
+			write16(value >>> 16);
+		}
+
+		static void put32(byte[] bytes, int position, int value) {
+			for (int i = 0; i < 4; i++) {
+				bytes[position + i] = (byte) (value >> (8 * i));
+			}
+		}
+
+		int writeSequenceIndex(int type, int[] pointers) {
+			int start = size();
+			write32(type);
+			write16(pointers.length * 4 + 8);
+			write16(pointers.length);
+			for (int pointer : pointers) {
+				write32(pointer);
+			}
+			return start;
+		}
+
+		int writeSequence(int sequence, boolean torso) {
+			int start = size();
+			writeBytes(0x02, 0x14, 0x00, 0x00, 0x08, 0x00, 0x00, IMAGES_PER_SEQUENCE);
+			int pointers = size();
+			for (int i = 0; i < IMAGES_PER_SEQUENCE; i++) {
+				write32(0);
+			}
+
+			for (int i = 0; i < IMAGES_PER_SEQUENCE; i++) {
+				int image = writeImage(HeaderType.DISPLACED, IMAGE_WIDTH, IMAGE_HEIGHT, sequence * 100 + i, torso);
+				put32(buf, pointers + 4 * i, image - start);
+			}
+			return start;
+		}
+
+		/**
+		 * Writes an image. Every line starts with some transparent pixels.
+		 */
+		int writeImage(HeaderType type, int width, int height, int seed, boolean torso) {
+			if (size() % 2 == 1) {
+				write(0);
+			}
+			int start = size();
+			if (type == HeaderType.DISPLACED) {
+				writeBytes(0x0c, 0, 0, 0);
+			}
+			write16(width);
+			write16(height);
+			write16(seed % 7);
+			if (type != HeaderType.LANDSCAPE) {
+				write16(-(seed % 5));
+			}
+
+			for (int y = 0; y < height; y++) {
+				int skip = (y + seed) % 4;
+				write16(0x8000 | (skip << 8) | (width - skip));
+				for (int x = skip; x < width; x++) {
+					int color = (seed * 31 + x * 7 + y * 13) & 0x3fff;
+					if (torso) {
+						write(color & 0x1f);
+					} else {
+						write16(color);
+					}
+				}
+			}
+			return start;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.reader.bytereader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for the class {@link ByteReader}.
+ */
+public class ByteReaderTest {
+	private static final byte[] DATA = { 0x01, 0x02, (byte) 0xfe, (byte) 0xff, 0x78, 0x56, 0x34, 0x12, (byte) 0x80 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ByteReader reader;
+
+	@Before
+	public void setUp() throws IOException {
+		File file = folder.newFile("test.bin");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(DATA);
+		} finally {
+			out.close();
+		}
+		reader = new ByteReader(new RandomAccessFile(file, "r"));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		reader.close();
+	}
+
+	@Test
+	public void testReadLittleEndian() throws IOException {
+		assertEquals(0x0201, reader.read16());
+		assertEquals(0xfffe, reader.read16());
+		assertEquals(0x12345678, reader.read32());
+		assertEquals(0x80, reader.read8());
+		assertEquals(DATA.length, reader.getReadBytes());
+
+		reader.skipTo(2);
+		assertEquals(-2, reader.read16signed());
+	}
+
+	@Test
+	public void testReadersAtPositionsAreIndependent() throws IOException {
+		ByteReader other = reader.createReaderAt(4);
+		assertEquals(0x0201, reader.read16());
+		assertEquals(0x12345678, other.read32());
+		assertEquals(0xfffe, reader.read16());
+		assertEquals(8, other.getReadBytes());
+		assertEquals(4, reader.getReadBytes());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testReadAfterEnd() throws IOException {
+		reader.skipTo(DATA.length - 2);
+		reader.read32();
+	}
+
+	@Test(expected = IOException.class)
+	public void testSkipOutsideOfData() throws IOException {
+		reader.skipTo(DATA.length + 1);
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.input.tasks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.material.EPriority;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that all gui tasks survive a round trip through their serialization and that their type ids don't change.
+ */
+public class GuiTaskSerializationTest {
+	private static final byte PLAYER = 3;
+	private static final ShortPoint2D POSITION = new ShortPoint2D(123, 456);
+	private static final List<Integer> SELECTION = Arrays.asList(4, 8, 15, 16, 23, 42);
+
+	@BeforeClass
+	public static void registerTaskTypes() {
+		GuiTaskTypes.register();
+	}
+
+	@Test
+	public void testRoundTripAndTypeIds() throws IOException {
+		assertRoundTrip(1, new SimpleGuiTask(EGuiAction.QUICK_SAVE, PLAYER));
+		assertRoundTrip(2, new MovableGuiTask(EGuiAction.STOP_WORKING, PLAYER, SELECTION));
+		assertRoundTrip(3, new MoveToGuiTask(PLAYER, POSITION, SELECTION));
+		assertRoundTrip(4, new ConvertGuiTask(PLAYER, SELECTION, EMovableType.PIONEER));
+		assertRoundTrip(5, new ConstructBuildingTask(EGuiAction.BUILD, PLAYER, POSITION, EBuildingType.LUMBERJACK));
+		assertRoundTrip(6, new DestroyBuildingGuiTask(PLAYER, POSITION));
+		assertRoundTrip(7, new WorkAreaGuiTask(EGuiAction.SET_WORK_AREA, PLAYER, POSITION, new ShortPoint2D(120, 450)));
+		assertRoundTrip(8, new SetBuildingPriorityGuiTask(PLAYER, POSITION, EPriority.STOPPED));
+		assertRoundTrip(9, new SetMaterialDistributionSettingsGuiTask(PLAYER, POSITION, EMaterialType.BREAD, new float[] { 0.5f, 0.25f, 1f }));
+		assertRoundTrip(10, new SetMaterialPrioritiesGuiTask(PLAYER, POSITION, EMaterialType.values()));
+	}
+
+	@Test
+	public void testSyncTasksPacket() throws IOException {
+		SyncTasksPacket packet = new SyncTasksPacket(17, Arrays.asList(new SimpleGuiTask(EGuiAction.QUICK_SAVE, PLAYER),
+				(TaskPacket) new MoveToGuiTask(PLAYER, POSITION, SELECTION), new DestroyBuildingGuiTask(PLAYER, POSITION)));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		packet.serialize(new DataOutputStream(bytes));
+
+		SyncTasksPacket deserialized = new SyncTasksPacket();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		deserialized.deserialize(in);
+
+		assertEquals(packet, deserialized);
+		assertEquals(0, in.available());
+	}
+
+	private static void assertRoundTrip(int expectedTypeId, TaskPacket task) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		task.serialize(new DataOutputStream(bytes));
+
+		DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(bytes.size() - 4, header.readInt());
+		assertEquals(expectedTypeId, header.readShort());
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		TaskPacket deserialized = TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, in);
+		assertEquals(task, deserialized);
+		assertEquals(0, in.available());
+	}
+}
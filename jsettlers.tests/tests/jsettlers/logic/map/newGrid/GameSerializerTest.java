@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.save.MapList;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link GameSerializer} restores the state of the grids.
+ */
+public class GameSerializerTest {
+
+	@BeforeClass
+	public static void setupResources() {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(0);
+		MatchConstants.clock = new NetworkTimer(true);
+	}
+
+	@Test
+	public void testSaveAndLoadCompressed() throws MapLoadException, IOException {
+		testSaveAndLoad(true);
+	}
+
+	@Test
+	public void testSaveAndLoadUncompressed() throws MapLoadException, IOException {
+		testSaveAndLoad(false);
+	}
+
+	@Test
+	public void testSaveWithRecycledSnapshot() throws MapLoadException, IOException {
+		MainGridWithUiSettings original = MapList.getDefaultList().getMapByName("small island").loadMainGrid(null);
+		GameSerializer serializer = new GameSerializer();
+
+		GameStateSnapshot first = serializer.createSnapshot(original.getMainGrid(), original.getPlayerStates());
+		first.writeTo(new ByteArrayOutputStream());
+		serializer.recycle(first);
+
+		GameStateSnapshot second = serializer.createSnapshot(original.getMainGrid(), original.getPlayerStates());
+		assertSame(first, second);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		second.writeTo(out);
+		MainGridWithUiSettings loaded = new GameSerializer().load(new ByteArrayInputStream(out.toByteArray()));
+
+		assertGridsEqual(original.getMainGrid(), loaded.getMainGrid());
+	}
+
+	@Test(expected = MapLoadException.class)
+	public void testLoadUnknownFormat() throws MapLoadException {
+		new GameSerializer().load(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 0, 0 })); // neither the new nor the old format
+	}
+
+	private void testSaveAndLoad(boolean compressed) throws MapLoadException, IOException {
+		MainGridWithUiSettings original = MapList.getDefaultList().getMapByName("small island").loadMainGrid(null);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GameSerializer(compressed).save(original.getMainGrid(), original.getPlayerStates(), out);
+		MainGridWithUiSettings loaded = new GameSerializer().load(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(original.getPlayerStates().length, loaded.getPlayerStates().length);
+		assertGridsEqual(original.getMainGrid(), loaded.getMainGrid());
+	}
+
+	private static void assertGridsEqual(MainGrid expected, MainGrid actual) {
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+
+		IGraphicsGrid expectedGraphics = expected.getGraphicsGrid();
+		IGraphicsGrid actualGraphics = actual.getGraphicsGrid();
+
+		for (int y = 0; y < expected.height; y++) {
+			for (int x = 0; x < expected.width; x++) {
+				assertEquals(expectedGraphics.getLandscapeTypeAt(x, y), actualGraphics.getLandscapeTypeAt(x, y));
+				assertEquals(expectedGraphics.getHeightAt(x, y), actualGraphics.getHeightAt(x, y));
+				assertEquals(expected.landscapeGrid.getResourceTypeAt(x, y), actual.landscapeGrid.getResourceTypeAt(x, y));
+				assertEquals(expected.landscapeGrid.getResourceAmountAt(x, y), actual.landscapeGrid.getResourceAmountAt(x, y));
+				assertEquals(expected.landscapeGrid.getBlockedPartitionAt(x, y), actual.landscapeGrid.getBlockedPartitionAt(x, y));
+
+				assertEquals(expected.flagsGrid.isBlocked(x, y), actual.flagsGrid.isBlocked(x, y));
+				assertEquals(expected.flagsGrid.isProtected(x, y), actual.flagsGrid.isProtected(x, y));
+				assertEquals(expected.flagsGrid.isMarked(x, y), actual.flagsGrid.isMarked(x, y));
+				assertEquals(expectedGraphics.isBorder(x, y), actualGraphics.isBorder(x, y));
+
+				assertEquals(expected.partitionsGrid.getPartitionIdAt(x, y), actual.partitionsGrid.getPartitionIdAt(x, y));
+				assertEquals(expectedGraphics.getPlayerIdAt(x, y), actualGraphics.getPlayerIdAt(x, y));
+
+				assertMovablesEqual(expectedGraphics.getMovableAt(x, y), actualGraphics.getMovableAt(x, y));
+				assertMapObjectsEqual(expectedGraphics.getMapObjectsAt(x, y), actualGraphics.getMapObjectsAt(x, y));
+				assertBuildingsEqual(expected.objectsGrid.getBuildingOn(x, y), actual.objectsGrid.getBuildingOn(x, y));
+			}
+		}
+	}
+
+	private static void assertMovablesEqual(IMovable expected, IMovable actual) {
+		if (expected == null) {
+			assertEquals(null, actual);
+		} else {
+			assertEquals(expected.getMovableType(), actual.getMovableType());
+			assertEquals(expected.getPlayerId(), actual.getPlayerId());
+			assertEquals(expected.getPos(), actual.getPos());
+		}
+	}
+
+	private static void assertBuildingsEqual(Building expected, Building actual) {
+		if (expected == null) {
+			assertEquals(null, actual);
+		} else {
+			assertEquals(expected.getBuildingType(), actual.getBuildingType());
+			assertEquals(expected.getPos(), actual.getPos());
+		}
+	}
+
+	private static void assertMapObjectsEqual(IMapObject expected, IMapObject actual) {
+		while (expected != null && actual != null) {
+			assertEquals(expected.getObjectType(), actual.getObjectType());
+			expected = expected.getNextObject();
+			actual = actual.getNextObject();
+		}
+		assertEquals(expected, actual); // both have to be null
+	}
+}
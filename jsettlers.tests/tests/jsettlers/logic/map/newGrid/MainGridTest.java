@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid;
+
+import static org.junit.Assert.assertFalse;
+
+import jsettlers.TestUtils;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.save.MapList;
+import jsettlers.network.synchronic.random.RandomSingleton;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the start and stop of the threads of a {@link MainGrid}.
+ */
+public class MainGridTest {
+
+	@BeforeClass
+	public static void setupResources() {
+		TestUtils.setupResourcesManager();
+		RandomSingleton.load(0);
+		MatchConstants.clock = new NetworkTimer(true);
+	}
+
+	@Test
+	public void testStartThreadsWithDefaultConstants() throws MapLoadException {
+		assertFalse(MatchConstants.ENABLE_HIERARCHICAL_PATH_FINDING);
+
+		MainGrid grid = MapList.getDefaultList().getMapByName("small island").loadMainGrid(null).getMainGrid();
+		grid.initForPlayer((byte) 0, null);
+		grid.startThreads();
+		grid.stopThreads();
+	}
+
+	@Test
+	public void testStartThreadsWithHierarchicalPathFinding() throws MapLoadException {
+		MatchConstants.ENABLE_HIERARCHICAL_PATH_FINDING = true;
+		try {
+			MainGrid grid = MapList.getDefaultList().getMapByName("small island").loadMainGrid(null).getMainGrid();
+			grid.initForPlayer((byte) 0, null);
+			grid.startThreads();
+			grid.stopThreads();
+		} finally {
+			MatchConstants.ENABLE_HIERARCHICAL_PATH_FINDING = false;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.newGrid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Random;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+
+import org.junit.Test;
+
+/**
+ * Tests that an indexed {@link PositionableList} returns exactly the same objects as a {@link PositionableList} without an index.
+ */
+public class PositionableListTest {
+	private static final int OPERATIONS = 20000;
+
+	@Test
+	public void testIndexedListBehavesLikeLinearList() {
+		for (int seed = 0; seed < 5; seed++) {
+			testRandomOperations(new Random(seed), 40 + seed * 200);
+		}
+	}
+
+	@Test
+	public void testTiesAreResolvedByInsertionOrder() {
+		PositionableList<TestObject> list = new PositionableList<TestObject>(true);
+		TestObject first = new TestObject(50, 50, 0);
+		TestObject second = new TestObject(50, 50, 1);
+		TestObject third = new TestObject(52, 50, 2);
+		list.insert(first);
+		list.insert(second);
+		list.insert(third);
+
+		assertSame(first, list.getObjectCloseTo(new ShortPoint2D(51, 50)));
+		assertSame(first, list.getObjectAt(new ShortPoint2D(50, 50)));
+		assertSame(first, list.removeObjectNextTo(new ShortPoint2D(50, 50)));
+		assertSame(second, list.getObjectAt(new ShortPoint2D(50, 50)));
+		assertSame(second, list.getObjectCloseTo(new ShortPoint2D(51, 50)));
+		assertSame(second, list.removeObjectNextTo(new ShortPoint2D(51, 50)));
+		assertSame(third, list.getObjectCloseTo(new ShortPoint2D(51, 50)));
+		assertNull(list.getObjectAt(new ShortPoint2D(50, 50)));
+	}
+
+	@Test
+	public void testInsertionOrderIsKeptAfterRemovalsInABucket() {
+		PositionableList<TestObject> list = new PositionableList<TestObject>(true);
+		TestObject first = new TestObject(50, 50, 0);
+		TestObject second = new TestObject(50, 50, 1);
+		TestObject other = new TestObject(51, 51, 2);
+		TestObject last = new TestObject(50, 50, 3);
+		list.insert(first);
+		list.insert(second);
+		list.insert(other);
+		list.insert(last);
+
+		list.remove(first); // the last entry of the bucket takes the place of the removed one
+
+		assertSame(second, list.getObjectAt(new ShortPoint2D(50, 50)));
+		assertSame(second, list.getObjectCloseTo(new ShortPoint2D(50, 49)));
+		assertSame(second, list.removeObjectAt(new ShortPoint2D(50, 50)));
+		assertSame(last, list.getObjectAt(new ShortPoint2D(50, 50)));
+	}
+
+	@Test
+	public void testIndexIsRestoredAfterDeserialization() throws IOException, ClassNotFoundException {
+		PositionableList<TestObject> list = new PositionableList<TestObject>(true);
+		for (int i = 0; i < 100; i++) {
+			list.insert(new TestObject(i * 3, i * 2, i));
+		}
+
+		PositionableList<TestObject> deserialized = serializeAndDeserialize(list);
+
+		assertEquals(42, deserialized.getObjectAt(new ShortPoint2D(126, 84)).id);
+		assertEquals(10, deserialized.removeObjectNextTo(new ShortPoint2D(31, 19)).id);
+		assertEquals(11, deserialized.getObjectCloseTo(new ShortPoint2D(31, 19)).id);
+	}
+
+	private void testRandomOperations(Random random, int mapSize) {
+		PositionableList<TestObject> linear = new PositionableList<TestObject>();
+		PositionableList<TestObject> indexed = new PositionableList<TestObject>(true);
+		PositionableList<TestObject> linearOther = new PositionableList<TestObject>();
+		PositionableList<TestObject> indexedOther = new PositionableList<TestObject>(true);
+		ArrayList<TestObject> objects = new ArrayList<TestObject>();
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(mapSize), random.nextInt(mapSize));
+
+			switch (random.nextInt(8)) {
+			case 0:
+			case 1:
+			case 2:
+				TestObject object = new TestObject(random.nextInt(mapSize), random.nextInt(mapSize), i);
+				objects.add(object);
+				linear.insert(object);
+				indexed.insert(object);
+				break;
+			case 3:
+				assertSame(linear.removeObjectNextTo(position), indexed.removeObjectNextTo(position));
+				break;
+			case 4:
+				final int divisor = random.nextInt(3) + 2;
+				ITypeAcceptor<TestObject> acceptor = new ITypeAcceptor<TestObject>() {
+					@Override
+					public boolean accepts(TestObject object) {
+						return object.id % divisor == 0;
+					}
+				};
+				assertSame(linear.removeObjectNextTo(position, acceptor), indexed.removeObjectNextTo(position, acceptor));
+				break;
+			case 5:
+				assertSame(linear.getObjectAt(position), indexed.getObjectAt(position));
+				assertSame(linear.getObjectCloseTo(position), indexed.getObjectCloseTo(position));
+				break;
+			case 6:
+				if (!objects.isEmpty()) {
+					ShortPoint2D objectPosition = objects.get(random.nextInt(objects.size())).getPos();
+					assertSame(linear.removeObjectAt(objectPosition), indexed.removeObjectAt(objectPosition));
+				}
+				break;
+			case 7:
+				if (!objects.isEmpty()) {
+					ShortPoint2D objectPosition = objects.get(random.nextInt(objects.size())).getPos();
+					linear.moveObjectsAtPositionTo(objectPosition, linearOther);
+					indexed.moveObjectsAtPositionTo(objectPosition, indexedOther);
+					assertSame(linearOther.getObjectCloseTo(position), indexedOther.getObjectCloseTo(position));
+				}
+				break;
+			}
+		}
+
+		linear.addAll(linearOther);
+		indexed.addAll(indexedOther);
+		while (!linear.isEmpty()) {
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(mapSize), random.nextInt(mapSize));
+			assertSame(linear.removeObjectNextTo(position), indexed.removeObjectNextTo(position));
+		}
+		assertEquals(true, indexed.isEmpty());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T serializeAndDeserialize(T object) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(byteStream);
+		oos.writeObject(object);
+		oos.close();
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(byteStream.toByteArray()));
+		return (T) ois.readObject();
+	}
+
+	private static class TestObject implements ILocatable, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final ShortPoint2D position;
+		private final int id;
+
+		TestObject(int x, int y, int id) {
+			this.position = new ShortPoint2D(x, y);
+			this.id = id;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public String toString() {
+			return "TestObject " + id + " at " + position;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link RescheduleTimer}.
+ */
+public class RescheduleTimerTest {
+	private static final int TIME_SLICE = 25;
+
+	private final RescheduleTimer timer = new RescheduleTimer();
+	private final List<TestTimerable> executed = new ArrayList<TestTimerable>();
+	private int tick = 0;
+
+	@Test
+	public void testDelaysOfAllLevels() {
+		int[] delays = { 1, TIME_SLICE, 10 * TIME_SLICE, 31999, 32000, 2048 * TIME_SLICE, 2049 * TIME_SLICE, 70000 * TIME_SLICE,
+				300000 * TIME_SLICE };
+		TestTimerable[] timerables = new TestTimerable[delays.length];
+
+		for (int i = 0; i < delays.length; i++) {
+			timerables[i] = new TestTimerable(-1);
+			timer.addTimerable(timerables[i], delays[i]);
+		}
+
+		executeTicks(300001);
+
+		for (int i = 0; i < delays.length; i++) {
+			int expectedTick = Math.max(1, delays[i] / TIME_SLICE);
+			assertEquals("delay " + delays[i], expectedTick, timerables[i].lastExecutionTick);
+			assertEquals(1, timerables[i].executions);
+		}
+		assertEquals(delays.length, executed.size());
+	}
+
+	@Test
+	public void testOrderOfTimerablesInSameTick() {
+		executeTicks(1000); // move the wheel away from the first slot
+
+		TestTimerable longDelayed = new TestTimerable(-1);
+		timer.addTimerable(longDelayed, 5000 * TIME_SLICE);
+		executeTicks(4000);
+		TestTimerable shortDelayed1 = new TestTimerable(-1);
+		TestTimerable shortDelayed2 = new TestTimerable(-1);
+		timer.addTimerable(shortDelayed1, 1000 * TIME_SLICE);
+		timer.addTimerable(shortDelayed2, 1000 * TIME_SLICE);
+
+		executeTicks(1001);
+
+		assertEquals(3, executed.size());
+		assertSame(longDelayed, executed.get(0));
+		assertSame(shortDelayed1, executed.get(1));
+		assertSame(shortDelayed2, executed.get(2));
+	}
+
+	@Test
+	public void testOrderOfCascadedTimerablesInSameTick() {
+		executeTicks(1000);
+		TestTimerable addedFirst = new TestTimerable(-1);
+		timer.addTimerable(addedFirst, 3100 * TIME_SLICE); // stored in an overflow level until tick 4096
+		executeTicks(2000);
+		TestTimerable addedSecond = new TestTimerable(-1);
+		timer.addTimerable(addedSecond, 1100 * TIME_SLICE); // stored in the first level directly
+
+		executeTicks(1101);
+
+		assertEquals(2, executed.size());
+		assertEquals(4100, addedFirst.lastExecutionTick);
+		assertEquals(4100, addedSecond.lastExecutionTick);
+		assertSame(addedFirst, executed.get(0));
+		assertSame(addedSecond, executed.get(1));
+	}
+
+	@Test
+	public void testRescheduling() {
+		TestTimerable periodic = new TestTimerable(3 * TIME_SLICE);
+		timer.addTimerable(periodic, TIME_SLICE);
+
+		executeTicks(31);
+
+		assertEquals(10, periodic.executions);
+		assertEquals(28, periodic.lastExecutionTick);
+	}
+
+	@Test
+	public void testStatistics() {
+		for (int i = 0; i < 10; i++) {
+			timer.addTimerable(new TestTimerable(i < 4 ? -1 : TIME_SLICE), TIME_SLICE);
+		}
+
+		executeTicks(2);
+
+		RescheduleTimerStatistics statistics = timer.getLastTickStatistics();
+		assertEquals(1, statistics.getTick());
+		assertEquals(10, statistics.getFiredTimerables());
+		assertEquals(6, statistics.getScheduledTimerables());
+		assertSame(TestTimerable.class, statistics.getSlowestTimerableClass());
+	}
+
+	private void executeTicks(int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			timer.timerEvent();
+			tick++;
+		}
+	}
+
+	private class TestTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final int period;
+		private int executions = 0;
+		private int lastExecutionTick = -1;
+
+		TestTimerable(int period) {
+			this.period = period;
+		}
+
+		@Override
+		public int timerEvent() {
+			executions++;
+			lastExecutionTick = tick;
+			executed.add(this);
+			return period;
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+}
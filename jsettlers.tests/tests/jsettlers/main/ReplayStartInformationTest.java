@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@link ReplayStartInformation} is written with the format version and that replays of other versions are rejected.
+ */
+public class ReplayStartInformationTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		ReplayStartInformation info = new ReplayStartInformation(1234567890123L, "small island", "map-id", 2, new boolean[] { true, false, true });
+
+		ReplayStartInformation read = new ReplayStartInformation();
+		read.deserialize(toInputStream(serialize(info)));
+
+		assertEquals(info.getRandomSeed(), read.getRandomSeed());
+		assertEquals(info.getMapName(), read.getMapName());
+		assertEquals(info.getMapId(), read.getMapId());
+		assertEquals(info.getPlayerId(), read.getPlayerId());
+		assertTrue(Arrays.equals(info.getAvailablePlayers(), read.getAvailablePlayers()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testOldReplayIsRejected() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(buffer);
+		dos.writeLong(1234567890123L); // old replays start with the random seed
+		dos.writeByte(0);
+		dos.writeUTF("small island");
+		dos.writeUTF("map-id");
+		dos.writeByte(1);
+		dos.writeBoolean(true);
+
+		new ReplayStartInformation().deserialize(toInputStream(buffer.toByteArray()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testOtherFormatVersionIsRejected() throws IOException {
+		byte[] data = serialize(new ReplayStartInformation(0, "small island", "map-id", 0, new boolean[] { true }));
+		data[5]++; // the version follows the magic number
+
+		new ReplayStartInformation().deserialize(toInputStream(data));
+	}
+
+	private static byte[] serialize(ReplayStartInformation info) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(buffer);
+		info.serialize(dos);
+		dos.flush();
+		return buffer.toByteArray();
+	}
+
+	private static DataInputStream toInputStream(byte[] data) {
+		return new DataInputStream(new ByteArrayInputStream(data));
+	}
+}
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers;
 
+import java.util.BitSet;
+
 import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.EDebugColorModes;
@@ -88,6 +90,11 @@ public class GraphicsGridAdapter implements IGraphicsGrid {
 		return true;
 	}
 
+	@Override
+	public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+		return false;
+	}
+
 	@Override
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 	}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms;
+
+import java.util.Random;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.algorithms.path.astar.hierarchical.HierarchicalAStar;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Compares the speed and the path lengths of the {@link BucketQueueAStar} and the {@link HierarchicalAStar} for long paths.
+ */
+public class HierarchicalAStarSpeedTester {
+	private static final short WIDTH = (short) 1024;
+	private static final short HEIGHT = (short) 1024;
+	private static final int PATHS = 500;
+
+	public static void main(String args[]) {
+		DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+		Random random = new Random(1);
+		for (int i = 0; i < 600; i++) { // lakes and mountains
+			int centerX = random.nextInt(WIDTH), centerY = random.nextInt(HEIGHT), radius = 3 + random.nextInt(20);
+			for (int y = Math.max(0, centerY - radius); y < Math.min(HEIGHT, centerY + radius); y++) {
+				for (int x = Math.max(0, centerX - radius); x < Math.min(WIDTH, centerX + radius); x++) {
+					if (ShortPoint2D.getOnGridDist(x - centerX, y - centerY) < radius) {
+						map.setBlocked(x, y, true);
+					}
+				}
+			}
+		}
+		for (int i = 0; i < WIDTH * HEIGHT / 20; i++) { // trees and stones
+			map.setBlocked(random.nextInt(WIDTH), random.nextInt(HEIGHT), true);
+		}
+
+		BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+		HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(aStar, map, WIDTH, HEIGHT);
+
+		short freeX = 0;
+		while (map.isBlocked(null, freeX, 0)) {
+			freeX++;
+		}
+		long start = System.nanoTime();
+		hierarchicalAStar.findPath(getPathable(freeX, 0), freeX, (short) 0, freeX, (short) 100); // builds the abstract graph
+		System.out.println("building abstract graph: " + (System.nanoTime() - start) / 1000000 + " ms");
+
+		for (int run = 0; run < 3; run++) {
+			measure("BucketQueueAStar", aStar, map);
+			measure("HierarchicalAStar", hierarchicalAStar, map);
+		}
+	}
+
+	private static void measure(String name, AbstractAStar aStar, DummyEmptyAStarMap map) {
+		Random random = new Random(2);
+		long length = 0;
+		long start = System.nanoTime();
+
+		for (int i = 0; i < PATHS; i++) {
+			short sx = (short) random.nextInt(WIDTH), sy = (short) random.nextInt(HEIGHT);
+			short tx = (short) random.nextInt(WIDTH), ty = (short) random.nextInt(HEIGHT);
+			if (map.isBlocked(null, sx, sy) || map.isBlocked(null, tx, ty)) {
+				continue;
+			}
+
+			Path path = aStar.findPath(getPathable(sx, sy), sx, sy, tx, ty);
+			if (path != null) {
+				length += path.getLength();
+			}
+		}
+
+		System.out.println(name + ": " + (System.nanoTime() - start) / 1000000 + " ms, total path length: " + length);
+	}
+
+	private static IPathCalculatable getPathable(final int x, final int y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.algorithms;
 
+import java.util.BitSet;
+
 import jsettlers.TestUtils;
 import jsettlers.algorithms.interfaces.IContainingProvider;
 import jsettlers.algorithms.landmarks.EnclosedBlockedAreaFinderAlgorithm;
@@ -216,6 +218,11 @@ public class LandmarksThreadTester {
 			return true;
 		}
 
+		@Override
+		public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+			return false;
+		}
+
 		@Override
 		public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 		}
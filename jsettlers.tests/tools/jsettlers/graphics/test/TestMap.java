@@ -16,6 +16,7 @@ package jsettlers.graphics.test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Timer;
@@ -517,6 +518,11 @@ public class TestMap implements IGraphicsGrid {
 		return true;
 	}
 
+	@Override
+	public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+		return false;
+	}
+
 	@Override
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 	}
@@ -166,6 +166,11 @@ public class PartitionsGridTestingWnd {
 				return true;
 			}
 
+			@Override
+			public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+				return false;
+			}
+
 			@Override
 			public boolean isBorder(int x, int y) {
 				byte playerAtPos = getPlayerIdAt(x, y);
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package jsettlers.logic.movable.testmap;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 
 import jsettlers.algorithms.path.IPathCalculatable;
@@ -134,6 +135,11 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 		return true;
 	}
 
+	@Override
+	public boolean collectChangedFogOfWarTiles(BitSet changedTiles) {
+		return false;
+	}
+
 	@Override
 	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 	}